@@ -0,0 +1,55 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+/**
+ * A single benchmark executed by the benchmark runner.
+ * <p/>
+ * The runner calls "setup" once, then "run" for the warmup and the measured iterations and finally "teardown".
+ * All benchmarks have to be deterministic, so fixed seeds are used for all random values.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public abstract class Benchmark {
+
+    /**
+     * Returns the unique title of this benchmark. The title is used as the key within baseline files.
+     *
+     * @return The title
+     */
+    public abstract String getTitle();
+
+    /**
+     * Prepares the data used by this benchmark.
+     */
+    public void setup() {
+        // Nothing to do by default
+    }
+
+    /**
+     * Executes one single operation.
+     *
+     * @return A value derived from the result of the operation, so the operation can not be eliminated
+     */
+    public abstract int run();
+
+    /**
+     * Releases the data used by this benchmark.
+     */
+    public void teardown() {
+        // Nothing to do by default
+    }
+}
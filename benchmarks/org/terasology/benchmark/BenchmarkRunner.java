@@ -0,0 +1,202 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.performanceMonitor.PerformanceMonitor;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs the headless benchmarks and prints the time and the amount of memory allocated per operation.
+ * <p/>
+ * Usage: BenchmarkRunner [-warmup n] [-iterations n] [-save file] [-compare file] [title filter]
+ * <p/>
+ * The results can be saved as a baseline and later runs can be compared against this baseline.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class BenchmarkRunner {
+
+    private int _warmupIterations = 10;
+    private int _measuredIterations = 50;
+    private String _saveFile, _compareFile, _filter;
+
+    private final List<Benchmark> _benchmarks = new ArrayList<Benchmark>();
+    private final Properties _results = new Properties();
+
+    public BenchmarkRunner() {
+        _benchmarks.add(new TeraSmartArrayBenchmark());
+        _benchmarks.add(new PerlinNoiseBenchmark());
+        _benchmarks.add(new PerlinNoiseBatchBenchmark());
+        _benchmarks.add(new TerrainGenerationBenchmark());
+        _benchmarks.add(new ChunkLightBenchmark());
+        _benchmarks.add(new ChunkTessellatorBenchmark());
+        _benchmarks.add(new ChunkCacheBenchmark());
+        _benchmarks.add(new ChunkSerializationBenchmark());
+    }
+
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-warmup")) {
+                runner._warmupIterations = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-iterations")) {
+                runner._measuredIterations = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-save")) {
+                runner._saveFile = args[++i];
+            } else if (args[i].equals("-compare")) {
+                runner._compareFile = args[++i];
+            } else {
+                runner._filter = args[i];
+            }
+        }
+
+        runner.runAll();
+    }
+
+    /**
+     * Executes all benchmarks matching the filter.
+     */
+    public void runAll() throws IOException {
+        PerformanceMonitor.setEnabled(false);
+
+        Properties baseline = null;
+
+        if (_compareFile != null)
+            baseline = loadProperties(_compareFile);
+
+        System.out.println(String.format("%-24s %12s %12s %14s %8s %10s", "Benchmark", "Mean (ms)", "Min (ms)", "Alloc (KB/op)", "GCs", "GC (ms)"));
+
+        for (Benchmark benchmark : _benchmarks) {
+            if (_filter != null && !benchmark.getTitle().toLowerCase().contains(_filter.toLowerCase()))
+                continue;
+
+            runBenchmark(benchmark, baseline);
+        }
+
+        if (_saveFile != null) {
+            OutputStream out = new FileOutputStream(_saveFile);
+
+            try {
+                _results.store(out, "Terasology benchmark baseline");
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private void runBenchmark(Benchmark benchmark, Properties baseline) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        int sink = 0;
+
+        benchmark.setup();
+
+        for (int i = 0; i < _warmupIterations; i++)
+            sink += benchmark.run();
+
+        long gcCount = getGcCount(), gcTime = getGcTime();
+        long allocated = getAllocatedBytes(threadBean, threadId);
+        long total = 0, min = Long.MAX_VALUE;
+
+        for (int i = 0; i < _measuredIterations; i++) {
+            long start = System.nanoTime();
+            sink += benchmark.run();
+            long time = System.nanoTime() - start;
+
+            total += time;
+            min = Math.min(min, time);
+        }
+
+        allocated = getAllocatedBytes(threadBean, threadId) - allocated;
+        gcCount = getGcCount() - gcCount;
+        gcTime = getGcTime() - gcTime;
+
+        benchmark.teardown();
+
+        double mean = total / (double) _measuredIterations / 1000000.0;
+        double allocPerOp = allocated < 0 ? -1.0 : allocated / (double) _measuredIterations / 1024.0;
+
+        String line = String.format("%-24s %12.3f %12.3f %14.1f %8d %10d", benchmark.getTitle(), mean, min / 1000000.0, allocPerOp, gcCount, gcTime);
+
+        String key = benchmark.getTitle().replace(' ', '_');
+
+        if (baseline != null && baseline.containsKey(key + ".mean")) {
+            double baselineMean = Double.parseDouble(baseline.getProperty(key + ".mean"));
+            line += String.format("   %+.1f%% vs. baseline", (mean - baselineMean) / baselineMean * 100.0);
+        }
+
+        // Print the sink, so the JIT can not remove the benchmarked code
+        System.out.println(line + ((sink == 42) ? " " : ""));
+
+        _results.setProperty(key + ".mean", Double.toString(mean));
+        _results.setProperty(key + ".min", Double.toString(min / 1000000.0));
+        _results.setProperty(key + ".alloc", Double.toString(allocPerOp));
+    }
+
+    /**
+     * Returns the amount of bytes allocated by the given thread or -1 if the JVM does not support measuring it.
+     */
+    private static long getAllocatedBytes(ThreadMXBean threadBean, long threadId) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadId);
+
+        return -1;
+    }
+
+    private static long getGcCount() {
+        long result = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            result += Math.max(0, gc.getCollectionCount());
+
+        return result;
+    }
+
+    private static long getGcTime() {
+        long result = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            result += Math.max(0, gc.getCollectionTime());
+
+        return result;
+    }
+
+    private static Properties loadProperties(String fileName) throws IOException {
+        Properties result = new Properties();
+        InputStream in = new FileInputStream(fileName);
+
+        try {
+            result.load(in);
+        } finally {
+            in.close();
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.LocalWorldProvider;
+import org.terasology.model.blocks.management.BlockManager;
+
+/**
+ * Creates the worlds used by the benchmarks. All worlds share the same fixed seed.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class BenchmarkWorld {
+
+    public static final String SEED = "Terasology Benchmark";
+
+    private BenchmarkWorld() {
+    }
+
+    /**
+     * Creates a new world. Chunks are only written to disk if the world is disposed.
+     * The blocks are loaded without their textures, so no OpenGL context is needed.
+     *
+     * @return The world
+     */
+    public static LocalWorldProvider create() {
+        BlockManager.initHeadless();
+        return new LocalWorldProvider("Benchmark", SEED);
+    }
+
+    /**
+     * Generates and lights all chunks around the origin of the given world.
+     *
+     * @param world  The world
+     * @param radius The radius in chunks
+     */
+    public static void generateArea(LocalWorldProvider world, int radius) {
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                world.getChunkProvider().loadOrCreateChunk(x, z).generate();
+            }
+        }
+
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                world.getChunkProvider().loadOrCreateChunk(x, z).updateLight();
+            }
+        }
+    }
+
+    /**
+     * Returns a generated and lit chunk at the origin of the given world.
+     *
+     * @param world The world
+     * @return The chunk
+     */
+    public static Chunk generateOrigin(LocalWorldProvider world) {
+        generateArea(world, 1);
+        return world.getChunkProvider().loadOrCreateChunk(0, 0);
+    }
+}
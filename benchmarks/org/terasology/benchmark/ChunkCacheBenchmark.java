@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.LocalWorldProvider;
+
+/**
+ * Looks up cached chunks using the chunk cache of the world.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class ChunkCacheBenchmark extends Benchmark {
+
+    private static final int RADIUS = 4;
+
+    private LocalWorldProvider _world;
+
+    @Override
+    public String getTitle() {
+        return "Chunk Cache Lookup";
+    }
+
+    @Override
+    public void setup() {
+        _world = BenchmarkWorld.create();
+
+        // Fill the cache without generating the chunks
+        for (int x = -RADIUS; x <= RADIUS; x++) {
+            for (int z = -RADIUS; z <= RADIUS; z++) {
+                _world.getChunkProvider().loadOrCreateChunk(x, z);
+            }
+        }
+    }
+
+    @Override
+    public int run() {
+        int result = 0;
+
+        for (int x = -RADIUS; x <= RADIUS; x++) {
+            for (int z = -RADIUS; z <= RADIUS; z++) {
+                Chunk c = _world.getChunkProvider().loadOrCreateChunk(x, z);
+                result += c.isFresh() ? 1 : 0;
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void teardown() {
+        _world = null;
+    }
+}
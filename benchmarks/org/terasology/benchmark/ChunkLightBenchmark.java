@@ -0,0 +1,55 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.LocalWorldProvider;
+
+/**
+ * Spreads the sunlight of a generated chunk into its surrounding.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class ChunkLightBenchmark extends Benchmark {
+
+    private LocalWorldProvider _world;
+    private Chunk _chunk;
+
+    @Override
+    public String getTitle() {
+        return "Chunk Light";
+    }
+
+    @Override
+    public void setup() {
+        _world = BenchmarkWorld.create();
+        _chunk = BenchmarkWorld.generateOrigin(_world);
+    }
+
+    @Override
+    public int run() {
+        _chunk.setLightDirty(true);
+        _chunk.updateLight();
+
+        return _chunk.getLight(8, 64, 8, Chunk.LIGHT_TYPE.SUN);
+    }
+
+    @Override
+    public void teardown() {
+        _chunk = null;
+        _world = null;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.LocalWorldProvider;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a generated chunk to a buffer and reads it back into a second chunk.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class ChunkSerializationBenchmark extends Benchmark {
+
+    private LocalWorldProvider _world;
+    private Chunk _chunk, _target;
+    private ByteBuffer _buffer;
+
+    @Override
+    public String getTitle() {
+        return "Chunk Serialization";
+    }
+
+    @Override
+    public void setup() {
+        _world = BenchmarkWorld.create();
+        _chunk = BenchmarkWorld.generateOrigin(_world);
+        _target = new Chunk();
+        _buffer = ByteBuffer.allocate(Chunk.getSerializedSize());
+    }
+
+    @Override
+    public int run() {
+        _buffer.clear();
+        _chunk.writeToBuffer(_buffer);
+        _buffer.flip();
+        _target.readFromBuffer(_buffer);
+
+        return _target.getBlock(8, 64, 8);
+    }
+
+    @Override
+    public void teardown() {
+        _buffer = null;
+        _target = null;
+        _chunk = null;
+        _world = null;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.LocalWorldProvider;
+import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkTessellator;
+
+/**
+ * Tessellates a generated chunk. Only the vertex data is created, no buffers are uploaded to the GPU.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class ChunkTessellatorBenchmark extends Benchmark {
+
+    private LocalWorldProvider _world;
+    private ChunkTessellator _tessellator;
+
+    @Override
+    public String getTitle() {
+        return "Chunk Tessellation";
+    }
+
+    @Override
+    public void setup() {
+        _world = BenchmarkWorld.create();
+        _tessellator = new ChunkTessellator(BenchmarkWorld.generateOrigin(_world));
+    }
+
+    @Override
+    public int run() {
+        ChunkMesh mesh = _tessellator.generateMesh(Chunk.CHUNK_DIMENSION_Y, 0);
+        return mesh._vertexElements[0].finalVertices.limit();
+    }
+
+    @Override
+    public void teardown() {
+        _tessellator = null;
+        _world = null;
+    }
+}
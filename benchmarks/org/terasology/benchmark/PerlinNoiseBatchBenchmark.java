@@ -0,0 +1,82 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.utilities.PerlinNoise;
+
+/**
+ * Evaluates fractional Brownian motion for the same layers as the scalar noise benchmark using the batch API.
+ * The setup verifies that both paths produce identical values.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class PerlinNoiseBatchBenchmark extends Benchmark {
+
+    private PerlinNoise _noise;
+    private double[] _xs, _zs, _result;
+    private int _counter;
+
+    @Override
+    public String getTitle() {
+        return "PerlinNoise fBm Batch";
+    }
+
+    @Override
+    public void setup() {
+        _noise = new PerlinNoise(BenchmarkWorld.SEED.hashCode());
+        _counter = 0;
+
+        _xs = new double[Chunk.CHUNK_DIMENSION_X];
+        _zs = new double[Chunk.CHUNK_DIMENSION_Z];
+        _result = new double[_xs.length * _zs.length];
+
+        for (int x = 0; x < _xs.length; x++)
+            _xs[x] = x * 0.004;
+        for (int z = 0; z < _zs.length; z++)
+            _zs[z] = z * 0.004;
+
+        for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++) {
+            _noise.fBm(_result, _xs, new double[]{y * 0.004}, _zs);
+
+            for (int x = 0; x < _xs.length; x++) {
+                for (int z = 0; z < _zs.length; z++) {
+                    if (Double.doubleToLongBits(_result[x * _zs.length + z]) != Double.doubleToLongBits(_noise.fBm(x * 0.004, y * 0.004, z * 0.004)))
+                        throw new IllegalStateException("Batch and scalar noise differ at " + x + ", " + y + ", " + z + ".");
+                }
+            }
+        }
+    }
+
+    @Override
+    public int run() {
+        int y = _counter++ % Chunk.CHUNK_DIMENSION_Y;
+        _noise.fBm(_result, _xs, new double[]{y * 0.004}, _zs);
+
+        double sum = 0;
+
+        for (double value : _result)
+            sum += value;
+
+        return (int) (sum * 1000.0);
+    }
+
+    @Override
+    public void teardown() {
+        _noise = null;
+        _result = null;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.utilities.PerlinNoise;
+
+/**
+ * Evaluates fractional Brownian motion for one horizontal layer of a chunk.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class PerlinNoiseBenchmark extends Benchmark {
+
+    private PerlinNoise _noise;
+    private int _counter;
+
+    @Override
+    public String getTitle() {
+        return "PerlinNoise fBm";
+    }
+
+    @Override
+    public void setup() {
+        _noise = new PerlinNoise(BenchmarkWorld.SEED.hashCode());
+        _counter = 0;
+    }
+
+    @Override
+    public int run() {
+        double sum = 0;
+        int y = _counter++ % Chunk.CHUNK_DIMENSION_Y;
+
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                sum += _noise.fBm(x * 0.004, y * 0.004, z * 0.004);
+            }
+        }
+
+        return (int) (sum * 1000.0);
+    }
+
+    @Override
+    public void teardown() {
+        _noise = null;
+    }
+}
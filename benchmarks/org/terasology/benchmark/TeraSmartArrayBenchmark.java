@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.model.structures.TeraSmartArray;
+
+/**
+ * Writes and reads all values of a chunk sized 4-bit array.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class TeraSmartArrayBenchmark extends Benchmark {
+
+    private TeraSmartArray _array;
+
+    @Override
+    public String getTitle() {
+        return "TeraSmartArray Get/Set";
+    }
+
+    @Override
+    public void setup() {
+        _array = new TeraSmartArray(Chunk.CHUNK_DIMENSION_X, Chunk.CHUNK_DIMENSION_Y, Chunk.CHUNK_DIMENSION_Z);
+    }
+
+    @Override
+    public int run() {
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++) {
+                for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                    _array.set(x, y, z, (byte) ((x + y + z) & 0x0F));
+                }
+            }
+        }
+
+        int sum = 0;
+
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++) {
+                for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                    sum += _array.get(x, y, z);
+                }
+            }
+        }
+
+        return sum;
+    }
+
+    @Override
+    public void teardown() {
+        _array = null;
+    }
+}
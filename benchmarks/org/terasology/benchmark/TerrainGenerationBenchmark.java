@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark;
+
+import org.terasology.logic.generators.ChunkGenerator;
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.LocalWorldProvider;
+
+import javax.vecmath.Vector3d;
+
+/**
+ * Generates the terrain of a new chunk. Only the terrain stage is executed, so the neighbors of the chunk
+ * are not touched.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class TerrainGenerationBenchmark extends Benchmark {
+
+    private LocalWorldProvider _world;
+    private int _counter;
+
+    @Override
+    public String getTitle() {
+        return "Terrain Generation";
+    }
+
+    @Override
+    public void setup() {
+        _world = BenchmarkWorld.create();
+        _counter = 0;
+    }
+
+    @Override
+    public int run() {
+        // Cycle through a fixed set of positions, so the results do not depend on the amount of iterations
+        int x = _counter % 8;
+        int z = (_counter / 8) % 8;
+        _counter++;
+
+        Chunk c = new Chunk(_world, new Vector3d(x, 0, z));
+
+        for (ChunkGenerator gen : _world.getGeneratorManager().getTerrainGenerators())
+            gen.generate(c);
+
+        return c.getBlock(8, 64, 8);
+    }
+
+    @Override
+    public void teardown() {
+        _world = null;
+    }
+}
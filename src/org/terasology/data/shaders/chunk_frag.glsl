@@ -21,6 +21,19 @@ uniform vec2 grassCoordinate;
 
 void main(){
     vec4 texCoord = gl_TexCoord[0];
+    bool isMerged = texCoord.z > 1.5;
+
+    // The repeated coordinates of merged quads jump at every block border, so the mip level is
+    // derived from the unwrapped coordinates instead
+    vec2 texCoordDx = dFdx(texCoord.xy) * TEXTURE_OFFSET_WIDTH;
+    vec2 texCoordDy = dFdy(texCoord.xy) * TEXTURE_OFFSET_WIDTH;
+
+    // Merged quads store their texture coordinates in tiles and the atlas tile in the third coordinate
+    if (isMerged) {
+        float tile = floor(texCoord.z - 1.5);
+        vec2 tilePos = vec2(mod(tile, 1.0 / TEXTURE_OFFSET), floor(tile * TEXTURE_OFFSET));
+        texCoord.xy = tilePos * TEXTURE_OFFSET + fract(texCoord.xy) * TEXTURE_OFFSET_WIDTH;
+    }
 
     vec3 normalWater;
     bool isWater = false;
@@ -41,6 +54,13 @@ void main(){
         texCoord.y += mod(tick,127.0) * 1.0/128.0;
 
         color = texture2D(textureLava, texCoord.xy);
+    } else if (isMerged) {
+#ifdef TEXTURE_GRAD
+        color = texture2DGradARB(textureAtlas, texCoord.xy, texCoordDx, texCoordDy);
+#else
+        // Without explicit derivatives only the base level is free of seams
+        color = texture2D(textureAtlas, texCoord.xy, -16.0);
+#endif
     } else {
         color = texture2D(textureAtlas, texCoord.xy);
     }
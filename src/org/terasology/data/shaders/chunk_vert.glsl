@@ -30,7 +30,10 @@ void main()
     #ifdef ANIMATED_WATER_AND_GRASS
     vec3 vertexChunkPos = vertexWorldPosRaw.xyz + chunkOffset.xyz;
 
-    if (distance < 64.0) {
+    // Merged quads (see ChunkTessellator) are never animated
+    bool merged = gl_TexCoord[0].z > 1.5;
+
+    if (distance < 64.0 && !merged) {
         // GRASS ANIMATION
         for (int i=0; i < 32; i+=2) {
            if (gl_TexCoord[0].x >= wavingCoordinates[i] && gl_TexCoord[0].x < wavingCoordinates[i] + TEXTURE_OFFSET && gl_TexCoord[0].y >= wavingCoordinates[i+1] && gl_TexCoord[0].y < wavingCoordinates[i+1] + TEXTURE_OFFSET) {
@@ -42,7 +45,9 @@ void main()
         }
        }
 
-       if (gl_TexCoord[0].x >= waterCoordinate.x && gl_TexCoord[0].x < waterCoordinate.x + TEXTURE_OFFSET && gl_TexCoord[0].y >= waterCoordinate.y && gl_TexCoord[0].y < waterCoordinate.y + TEXTURE_OFFSET) {
+       if (merged) {
+            // Nothing to animate
+       } else if (gl_TexCoord[0].x >= waterCoordinate.x && gl_TexCoord[0].x < waterCoordinate.x + TEXTURE_OFFSET && gl_TexCoord[0].y >= waterCoordinate.y && gl_TexCoord[0].y < waterCoordinate.y + TEXTURE_OFFSET) {
             vertexWorldPos.y += sin(tick * 0.05 + vertexChunkPos.x +  + vertexChunkPos.z) * sin(tick * 0.075 + vertexChunkPos.x  + vertexChunkPos.z + 16.0) * 0.1;
        } else if (gl_TexCoord[0].x >= lavaCoordinate.x && gl_TexCoord[0].x < lavaCoordinate.x + TEXTURE_OFFSET && gl_TexCoord[0].y >= lavaCoordinate.y && gl_TexCoord[0].y < lavaCoordinate.y + TEXTURE_OFFSET) {
             vertexWorldPos.y += sin(tick * 0.05 + vertexChunkPos.x + vertexChunkPos.z) * 0.1;
@@ -39,9 +39,6 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -65,11 +62,11 @@ public final class Terasology {
     private int _activeViewingDistance = 0;
 
     /* THREADING */
-    private final ThreadPoolExecutor _threadPool = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    private final TaskManager _taskManager = new TaskManager();
 
     /* CONST */
     private static final int TICKS_PER_SECOND = 60;
-    private static final int SKIP_TICKS = 1000 / TICKS_PER_SECOND;
+    public static final int SKIP_TICKS = 1000 / TICKS_PER_SECOND;
 
     /* STATISTICS */
     private long _lastLoopTime, _lastFpsTime;
@@ -432,10 +429,8 @@ public final class Terasology {
             _activeWorldRenderer.dispose();
         }
 
-        _threadPool.shutdown();
-
         try {
-            _threadPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            _taskManager.shutdown();
         } catch (InterruptedException e) {
             getLogger().log(Level.SEVERE, e.toString(), e);
         }
@@ -721,22 +716,41 @@ public final class Terasology {
         return (Sys.getTime() * 1000) / _timerTicksPerSecond;
     }
 
-    public void submitTask(final String name, final Runnable task) {
-        _threadPool.execute(new Runnable() {
-            public void run() {
-                Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
-                PerformanceMonitor.startThread(name);
-                try {
-                    task.run();
-                } finally {
-                    PerformanceMonitor.endThread(name);
-                }
-            }
-        });
+    /**
+     * Executes the given task in the background.
+     *
+     * @param category The category of the task
+     * @param name     The name of the task
+     * @param task     The task
+     * @return True if the task has been accepted
+     */
+    public boolean submitTask(TaskManager.TASK_CATEGORY category, String name, Runnable task) {
+        return _taskManager.submit(category, name, task);
+    }
+
+    /**
+     * Executes the given task in the background unless a task with an equal key is still waiting to be executed.
+     *
+     * @param category The category of the task
+     * @param name     The name of the task
+     * @param key      The key used to coalesce tasks
+     * @param task     The task
+     * @return True if the task has been accepted or an equal task is already queued
+     */
+    public boolean submitTask(TaskManager.TASK_CATEGORY category, String name, Object key, Runnable task) {
+        return _taskManager.submit(category, name, key, task);
     }
 
     public int activeTasks() {
-        return _threadPool.getActiveCount();
+        return _taskManager.activeTasks();
+    }
+
+    /**
+     * Executes all queued background tasks and stops the worker threads. Blocks until all tasks are done.
+     * Only used by tools running without the game loop, which shuts down the tasks on exit itself.
+     */
+    public void shutdownTasks() throws InterruptedException {
+        _taskManager.shutdown();
     }
 
     public GroovyManager getGroovyManager() {
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.game;
+
+import org.terasology.logic.manager.ConfigurationManager;
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.LocalWorldProvider;
+import org.terasology.model.blocks.management.BlockManager;
+import org.terasology.performanceMonitor.PerformanceMonitor;
+import org.terasology.utilities.MathHelper;
+
+import javax.vecmath.Vector2f;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Generates, lights and saves all chunks of a square area around the spawn area of a world without
+ * starting the game. Used to prepare the spawn region of a world before the first players connect.
+ * <p/>
+ * Usage: WorldPregenerator -seed seed [-title title] -radius chunks [-threads n]
+ * <p/>
+ * The chunks are processed ring by ring, starting at the center. Generating a chunk touches the chunks
+ * up to three rings further out and lighting it might change the light of its direct neighbors, so all
+ * rings more than one ring behind the current ring are final. Those are written to disk and removed
+ * from memory. Chunks which are already present on disk are loaded instead of generated, so an
+ * interrupted run simply continues when started again with the same title.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class WorldPregenerator {
+
+    /* CONST */
+    private static final Vector2f SPAWN_ORIGIN = (Vector2f) ConfigurationManager.getInstance().getConfig().get("World.spawnOrigin");
+    // Players spawn within this distance of the spawn origin, see LocalWorldProvider.nextSpawningPoint
+    private static final int SPAWN_AREA_SIZE = 128;
+    // The generation of a chunk reaches this many rings further out
+    private static final int GENERATION_REACH = 3;
+
+    private final LocalWorldProvider _world;
+    private final int _centerX, _centerZ, _radius;
+
+    private final ExecutorService _pool;
+    private final Object _saveLock = new Object();
+    private volatile boolean _interrupted;
+
+    /* STATISTICS */
+    private final AtomicInteger _processedChunks = new AtomicInteger();
+    private final AtomicInteger _resumedChunks = new AtomicInteger();
+    private final AtomicLong _bytesWritten = new AtomicLong();
+    private long _startTime;
+
+    public static void main(String[] args) throws InterruptedException {
+        String seed = null, title = null;
+        int radius = -1, threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-seed")) {
+                seed = args[++i];
+            } else if (args[i].equals("-title")) {
+                title = args[++i];
+            } else if (args[i].equals("-radius")) {
+                radius = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            }
+        }
+
+        if (seed == null || radius < 0 || threads < 1) {
+            System.out.println("Usage: WorldPregenerator -seed seed [-title title] -radius chunks [-threads n]");
+            return;
+        }
+
+        if (!(Boolean) ConfigurationManager.getInstance().getConfig().get("System.saveChunks")) {
+            Terasology.getInstance().getLogger().log(Level.SEVERE, "Saving chunks is disabled, nothing to pregenerate.");
+            return;
+        }
+
+        PerformanceMonitor.setEnabled(false);
+        // No OpenGL context is available, so the blocks are loaded without their textures
+        BlockManager.initHeadless();
+
+        LocalWorldProvider world = new LocalWorldProvider(title, seed);
+
+        // The seed of an existing world is loaded from its meta data
+        if (!world.getSeed().equals(seed))
+            Terasology.getInstance().getLogger().log(Level.WARNING, "World \"{0}\" already exists, continuing with its seed \"{1}\".", new Object[]{world.getTitle(), world.getSeed()});
+
+        new WorldPregenerator(world, radius, threads).run();
+
+        // Disposing the world queues the remaining chunks, the worker threads would keep the JVM alive afterwards
+        Terasology.getInstance().shutdownTasks();
+    }
+
+    /**
+     * Init. a new pregenerator for the area around the spawn area of the given world.
+     *
+     * @param world   The world
+     * @param radius  The radius of the area in chunks
+     * @param threads The amount of worker threads
+     */
+    public WorldPregenerator(LocalWorldProvider world, int radius, int threads) {
+        _world = world;
+        _radius = radius;
+
+        _centerX = MathHelper.calcChunkPosX((int) SPAWN_ORIGIN.x + SPAWN_AREA_SIZE / 2);
+        _centerZ = MathHelper.calcChunkPosZ((int) SPAWN_ORIGIN.y + SPAWN_AREA_SIZE / 2);
+
+        _pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Pregeneration");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Generates the whole area. If the process gets interrupted, all chunks generated so far are saved.
+     */
+    public void run() throws InterruptedException {
+        Thread shutdownHook = new Thread("Save Pregenerated Chunks") {
+            public void run() {
+                _interrupted = true;
+                _pool.shutdownNow();
+
+                try {
+                    _pool.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    // Save as much as possible anyway
+                }
+
+                Terasology.getInstance().getLogger().log(Level.INFO, "Pregeneration interrupted, saving all generated chunks.");
+                saveAll();
+            }
+        };
+
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        _world.saveMetaData();
+        _startTime = System.currentTimeMillis();
+
+        Terasology.getInstance().getLogger().log(Level.INFO, "Pregenerating {0} chunks of world \"{1}\" with seed \"{2}\".", new Object[]{totalChunks(), _world.getTitle(), _world.getSeed()});
+
+        try {
+            for (int ring = 0; ring <= _radius && !_interrupted; ring++) {
+                processRing(ring);
+
+                synchronized (_saveLock) {
+                    if (ring > 0 && !_interrupted)
+                        unloadRing(ring - 1);
+                }
+
+                printProgress(ring);
+            }
+        } catch (ExecutionException e) {
+            Terasology.getInstance().getLogger().log(Level.SEVERE, "Pregeneration failed.", e.getCause());
+        } catch (CancellationException e) {
+            // Interrupted by the shutdown hook
+        }
+
+        if (_interrupted)
+            return;
+
+        _pool.shutdown();
+        saveAll();
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down
+        }
+
+        _world.dispose();
+    }
+
+    private void processRing(int ring) throws InterruptedException, ExecutionException {
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(Math.max(1, ring * 8));
+
+        for (int x = -ring; x <= ring; x++) {
+            for (int z = -ring; z <= ring; z++) {
+                // Only visit the border of the current ring
+                if (MathHelper.fastAbs(x) != ring && MathHelper.fastAbs(z) != ring)
+                    continue;
+
+                final int chunkX = _centerX + x, chunkZ = _centerZ + z;
+
+                tasks.add(new Callable<Object>() {
+                    public Object call() {
+                        Chunk chunk = _world.getChunkProvider().loadOrCreateChunk(chunkX, chunkZ);
+
+                        if (!chunk.isFresh() && !chunk.isLightDirty())
+                            _resumedChunks.incrementAndGet();
+
+                        chunk.generateAndUpdateLight();
+                        _processedChunks.incrementAndGet();
+
+                        return null;
+                    }
+                });
+            }
+        }
+
+        for (Future<Object> result : _pool.invokeAll(tasks))
+            result.get();
+    }
+
+    private void unloadRing(int ring) {
+        for (int x = -ring; x <= ring; x++) {
+            for (int z = -ring; z <= ring; z++) {
+                if (MathHelper.fastAbs(x) != ring && MathHelper.fastAbs(z) != ring)
+                    continue;
+
+                _bytesWritten.addAndGet(_world.getChunkProvider().unloadChunk(_centerX + x, _centerZ + z));
+            }
+        }
+    }
+
+    /**
+     * Writes all chunks which are still in memory to disk, including the partially generated
+     * chunks outside of the area.
+     */
+    private void saveAll() {
+        synchronized (_saveLock) {
+            for (int ring = 0; ring <= _radius + GENERATION_REACH; ring++)
+                unloadRing(ring);
+        }
+
+        _world.saveMetaData();
+        printSummary();
+    }
+
+    private void printProgress(int ring) {
+        int processed = _processedChunks.get();
+        double seconds = Math.max(1, System.currentTimeMillis() - _startTime) / 1000.0;
+
+        System.out.println(String.format("Ring %d/%d | %d/%d chunks (%.1f%%) | %.1f chunks/s | %.2f MB written",
+                ring, _radius, processed, totalChunks(), processed * 100.0 / totalChunks(), processed / seconds, _bytesWritten.get() / (1024.0 * 1024.0)));
+    }
+
+    private void printSummary() {
+        int processed = _processedChunks.get();
+        double seconds = Math.max(1, System.currentTimeMillis() - _startTime) / 1000.0;
+
+        System.out.println(String.format("Processed %d chunks (%d already present) in %.1f s | %.1f chunks/s | %.2f MB written",
+                processed, _resumedChunks.get(), seconds, processed / seconds, _bytesWritten.get() / (1024.0 * 1024.0)));
+    }
+
+    private int totalChunks() {
+        return (2 * _radius + 1) * (2 * _radius + 1);
+    }
+}
@@ -44,6 +44,7 @@ public final class GelatinousCube extends Character {
 
     private long _lastChangeOfDirectionAt = Terasology.getInstance().getTime();
     private final Vector3d _movementTarget = new Vector3d();
+    private final Vector3d _extents = new Vector3d();
     private boolean _followingPlayer = false;
 
     public final int _randomColorId;
@@ -118,6 +119,14 @@ public final class GelatinousCube extends Character {
         return generateAABBForPosition(getPosition());
     }
 
+    @Override
+    protected Vector3d getExtents() {
+        float sizeHalf = _randomSize / 2f;
+        _extents.set(sizeHalf, sizeHalf, sizeHalf);
+
+        return _extents;
+    }
+
     @Override
     protected void handleVerticalCollision() {
         // Do nothing
@@ -26,6 +26,7 @@ import org.terasology.logic.manager.TextureManager;
 import org.terasology.logic.manager.ToolManager;
 import org.terasology.logic.tools.ITool;
 import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.BlockEditBatch;
 import org.terasology.logic.world.IBlockObserver;
 import org.terasology.model.blocks.Block;
 import org.terasology.model.blocks.BlockGroup;
@@ -35,7 +36,9 @@ import org.terasology.model.inventory.Item;
 import org.terasology.model.inventory.ItemBlock;
 import org.terasology.model.inventory.Toolbar;
 import org.terasology.model.structures.AABB;
+import org.terasology.model.structures.BlockCollider;
 import org.terasology.model.structures.BlockPosition;
+import org.terasology.model.structures.BlockRaycaster;
 import org.terasology.model.structures.RayBlockIntersection;
 import org.terasology.performanceMonitor.PerformanceMonitor;
 import org.terasology.rendering.cameras.Camera;
@@ -50,7 +53,6 @@ import javax.vecmath.Vector2f;
 import javax.vecmath.Vector3d;
 import javax.vecmath.Vector4f;
 import java.util.ArrayList;
-import java.util.Collections;
 
 import static org.lwjgl.opengl.GL11.*;
 
@@ -74,6 +76,8 @@ public final class Player extends Character {
     private static final boolean SHOW_PLACING_BOX = (Boolean) ConfigurationManager.getInstance().getConfig().get("HUD.placingBox");
     private static final double RUNNING_FACTOR = (Double) ConfigurationManager.getInstance().getConfig().get("Player.runningFactor");
     private static final double JUMP_INTENSITY = (Double) ConfigurationManager.getInstance().getConfig().get("Player.jumpIntensity");
+    private static final double SELECTION_RANGE = (Double) ConfigurationManager.getInstance().getConfig().get("Player.selectionRange");
+    private static final Vector3d EXTENTS = new Vector3d(.3f, 0.8f, .3f);
 
     /* OBSERVERS */
     private final ArrayList<IBlockObserver> _observers = new ArrayList<IBlockObserver>();
@@ -86,6 +90,7 @@ public final class Player extends Character {
     private long _lastInteraction;
     private byte _extractionCounter;
     private RayBlockIntersection.Intersection _selectedBlock, _extractedBlock;
+    private final BlockRaycaster _selectionRaycaster = new BlockRaycaster();
     private float _handMovementAnimationOffset;
     private Mesh _handMesh, _overlayMesh;
 
@@ -286,51 +291,42 @@ public final class Player extends Character {
      * @return Intersection point of the targeted block
      */
     public RayBlockIntersection.Intersection calcSelectedBlock() {
-        ArrayList<RayBlockIntersection.Intersection> inters = new ArrayList<RayBlockIntersection.Intersection>();
-
-        int blockPosX, blockPosY, blockPosZ;
+        PerformanceMonitor.startActivity("Player Cast Selection Ray");
+        Vector3d eyePosition = calcEyePosition();
+        boolean hit = _selectionRaycaster.cast(_parent.getWorldProvider(), eyePosition, _viewingDirection, calcSelectionDistance(eyePosition), BlockRaycaster.HIT_TYPE.SELECTABLE);
+        PerformanceMonitor.endActivity();
 
-        for (int x = -3; x <= 3; x++) {
-            for (int y = -3; y <= 3; y++) {
-                for (int z = -3; z <= 3; z++) {
-                    // Make sure the correct block positions are calculated relatively to the position of the player
-                    blockPosX = (int) (getPosition().x + (getPosition().x >= 0 ? 0.5f : -0.5f)) + x;
-                    blockPosY = (int) (getPosition().y + (getPosition().y >= 0 ? 0.5f : -0.5f)) + y;
-                    blockPosZ = (int) (getPosition().z + (getPosition().z >= 0 ? 0.5f : -0.5f)) + z;
+        return hit ? _selectionRaycaster.toIntersection() : null;
+    }
 
-                    PerformanceMonitor.startActivity("Player Get Block");
-                    byte blockType = _parent.getWorldProvider().getBlock(blockPosX, blockPosY, blockPosZ);
-                    PerformanceMonitor.endActivity();
+    /**
+     * Returns the distance along the viewing direction at which the selection ray leaves the selectable area.
+     * Blocks can be selected if they are at most SELECTION_RANGE blocks away from the block containing the
+     * player on each axis, so the reach depends on the viewing direction.
+     */
+    private double calcSelectionDistance(Vector3d eyePosition) {
+        double length = _viewingDirection.length();
 
-                    // Ignore special blocks
-                    if (BlockManager.getInstance().getBlock(blockType).isSelectionRayThrough()) {
-                        continue;
-                    }
+        if (length == 0)
+            return 0;
 
-                    // The ray originates from the "player's eye"
-                    PerformanceMonitor.startActivity("Player Intersect Block");
-                    ArrayList<RayBlockIntersection.Intersection> iss = RayBlockIntersection.executeIntersection(_parent.getWorldProvider(), blockPosX, blockPosY, blockPosZ, calcEyePosition(), _viewingDirection);
+        // Block faces are located half a block away from the center of the block
+        double reach = SELECTION_RANGE + 0.5;
 
+        double result = calcSelectionExit(eyePosition.x, _viewingDirection.x / length, BlockCollider.blockPos(getPosition().x), reach);
+        result = Math.min(result, calcSelectionExit(eyePosition.y, _viewingDirection.y / length, BlockCollider.blockPos(getPosition().y), reach));
+        result = Math.min(result, calcSelectionExit(eyePosition.z, _viewingDirection.z / length, BlockCollider.blockPos(getPosition().z), reach));
 
-                    if (iss != null) {
-                        inters.addAll(iss);
-                    }
-                    PerformanceMonitor.endActivity();
-                }
-            }
-        }
+        return result;
+    }
 
-        /**
-         * Calculated the closest intersection.
-         */
-        PerformanceMonitor.startActivity("Player sort intersects");
-        if (inters.size() > 0) {
-            Collections.sort(inters);
-            return inters.get(0);
-        }
-        PerformanceMonitor.endActivity();
+    private static double calcSelectionExit(double origin, double direction, int center, double reach) {
+        if (direction > 0)
+            return (center + reach - origin) / direction;
+        if (direction < 0)
+            return (center - reach - origin) / direction;
 
-        return null;
+        return Double.POSITIVE_INFINITY;
     }
 
     /**
@@ -560,7 +556,12 @@ public final class Player extends Character {
     }
 
     protected AABB generateAABBForPosition(Vector3d p) {
-        return new AABB(p, new Vector3d(.3f, 0.8f, .3f));
+        return new AABB(p, new Vector3d(EXTENTS));
+    }
+
+    @Override
+    protected Vector3d getExtents() {
+        return EXTENTS;
     }
 
     public AABB getAABB() {
@@ -589,6 +590,10 @@ public final class Player extends Character {
             ob.blockRemoved(chunk, pos, update);
     }
 
+    public void notifyObserversBlocksChanged(BlockEditBatch batch, boolean update) {
+        batch.notifyObservers(_observers, update);
+    }
+
     public Inventory getInventory() {
         return _inventory;
     }
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.entities;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.logic.world.Chunk;
+import org.terasology.model.structures.ConcurrentLongMap;
+import org.terasology.model.structures.ViewFrustum;
+
+import javax.vecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A spatial index of entities based on a uniform grid of vertical columns.
+ * <p/>
+ * Each entity is stored in the bucket of the column containing its position. Entities are only moved to
+ * another bucket if "update" is called after they crossed the border of their column, so keeping the index
+ * up to date costs a single lookup per moved entity. Queries only visit the buckets touching the queried
+ * area, so their cost depends on the amount of entities nearby and not on the total amount of entities.
+ * <p/>
+ * The results of the queries are added to the given lists, so queries do not allocate any objects if the
+ * lists are reused. Instances are not thread-safe.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class EntityIndex<T extends Entity> {
+
+    /**
+     * The bucket of a single column of the grid.
+     */
+    private static final class Cell<T> {
+        final long key;
+        final ArrayList<T> entities = new ArrayList<T>();
+
+        Cell(long key) {
+            this.key = key;
+        }
+    }
+
+    // Uses the same key layout as the chunk cache
+    private final TLongObjectHashMap<Cell<T>> _cells = new TLongObjectHashMap<Cell<T>>(64);
+    private final HashMap<T, Cell<T>> _entityCells = new HashMap<T, Cell<T>>();
+
+    private final int _cellSize;
+    private final double _margin;
+
+    /**
+     * Init. a new entity index.
+     *
+     * @param cellSize The width of a single column of the grid in blocks
+     * @param margin   The maximum distance between the position of an entity and the border of its AABB
+     */
+    public EntityIndex(int cellSize, double margin) {
+        _cellSize = cellSize;
+        _margin = margin;
+    }
+
+    /**
+     * Adds the given entity to the index.
+     *
+     * @param entity The entity
+     * @return False if the entity was already indexed
+     */
+    public boolean add(T entity) {
+        if (_entityCells.containsKey(entity))
+            return false;
+
+        Cell<T> cell = getOrCreateCell(cellPos(entity.getPosition().x), cellPos(entity.getPosition().z));
+        cell.entities.add(entity);
+        _entityCells.put(entity, cell);
+
+        return true;
+    }
+
+    /**
+     * Removes the given entity from the index.
+     *
+     * @param entity The entity
+     * @return False if the entity was not indexed
+     */
+    public boolean remove(T entity) {
+        Cell<T> cell = _entityCells.remove(entity);
+
+        if (cell == null)
+            return false;
+
+        removeFromCell(cell, entity);
+        return true;
+    }
+
+    /**
+     * Moves the given entity to the bucket matching its current position. Has to be called after
+     * the entity has moved.
+     *
+     * @param entity The entity
+     */
+    public void update(T entity) {
+        Cell<T> cell = _entityCells.get(entity);
+
+        if (cell == null)
+            return;
+
+        long key = ConcurrentLongMap.key(cellPos(entity.getPosition().x), cellPos(entity.getPosition().z));
+
+        if (key == cell.key)
+            return;
+
+        removeFromCell(cell, entity);
+
+        Cell<T> newCell = getOrCreateCell(ConcurrentLongMap.keyX(key), ConcurrentLongMap.keyZ(key));
+        newCell.entities.add(entity);
+        _entityCells.put(entity, newCell);
+    }
+
+    /**
+     * Returns true if the given entity is indexed.
+     */
+    public boolean contains(T entity) {
+        return _entityCells.containsKey(entity);
+    }
+
+    /**
+     * Returns the amount of indexed entities.
+     */
+    public int size() {
+        return _entityCells.size();
+    }
+
+    /**
+     * Removes all entities from the index.
+     */
+    public void clear() {
+        _entityCells.clear();
+        _cells.clear();
+    }
+
+    /**
+     * Adds all entities whose position is closer to the given point than the given radius to the result.
+     *
+     * @return The amount of entities found
+     */
+    public int queryRange(double x, double y, double z, double radius, List<? super T> result) {
+        int found = 0;
+        double radiusSquared = radius * radius;
+
+        for (int cellX = cellPos(x - radius); cellX <= cellPos(x + radius); cellX++) {
+            for (int cellZ = cellPos(z - radius); cellZ <= cellPos(z + radius); cellZ++) {
+                Cell<T> cell = _cells.get(ConcurrentLongMap.key(cellX, cellZ));
+
+                if (cell == null)
+                    continue;
+
+                for (int i = 0; i < cell.entities.size(); i++) {
+                    T entity = cell.entities.get(i);
+
+                    if (distanceSquared(entity.getPosition(), x, y, z) < radiusSquared) {
+                        result.add(entity);
+                        found++;
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Returns the amount of entities whose position is closer to the given point than the given radius.
+     */
+    public int countInRange(double x, double y, double z, double radius) {
+        int found = 0;
+        double radiusSquared = radius * radius;
+
+        for (int cellX = cellPos(x - radius); cellX <= cellPos(x + radius); cellX++) {
+            for (int cellZ = cellPos(z - radius); cellZ <= cellPos(z + radius); cellZ++) {
+                Cell<T> cell = _cells.get(ConcurrentLongMap.key(cellX, cellZ));
+
+                if (cell == null)
+                    continue;
+
+                for (int i = 0; i < cell.entities.size(); i++) {
+                    if (distanceSquared(cell.entities.get(i).getPosition(), x, y, z) < radiusSquared)
+                        found++;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Adds all entities whose AABB might overlap the given box to the result. The AABBs of the
+     * entities are approximated using the margin of this index.
+     *
+     * @return The amount of entities found
+     */
+    public int queryAABB(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, List<? super T> result) {
+        int found = 0;
+
+        for (int cellX = cellPos(minX - _margin); cellX <= cellPos(maxX + _margin); cellX++) {
+            for (int cellZ = cellPos(minZ - _margin); cellZ <= cellPos(maxZ + _margin); cellZ++) {
+                Cell<T> cell = _cells.get(ConcurrentLongMap.key(cellX, cellZ));
+
+                if (cell == null)
+                    continue;
+
+                for (int i = 0; i < cell.entities.size(); i++) {
+                    T entity = cell.entities.get(i);
+                    Vector3d p = entity.getPosition();
+
+                    if (p.x + _margin >= minX && p.x - _margin <= maxX && p.y + _margin >= minY && p.y - _margin <= maxY && p.z + _margin >= minZ && p.z - _margin <= maxZ) {
+                        result.add(entity);
+                        found++;
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Adds all entities closer to the given point than the given radius which might be visible within the
+     * given view frustum to the result. Columns outside of the frustum are skipped as a whole.
+     *
+     * @return The amount of entities found
+     */
+    public int queryFrustum(ViewFrustum frustum, double x, double y, double z, double radius, List<? super T> result) {
+        int found = 0;
+        double radiusSquared = radius * radius;
+
+        for (int cellX = cellPos(x - radius); cellX <= cellPos(x + radius); cellX++) {
+            for (int cellZ = cellPos(z - radius); cellZ <= cellPos(z + radius); cellZ++) {
+                Cell<T> cell = _cells.get(ConcurrentLongMap.key(cellX, cellZ));
+
+                if (cell == null)
+                    continue;
+
+                double cellMinX = cellX * _cellSize - _margin, cellMinZ = cellZ * _cellSize - _margin;
+
+                if (!frustum.intersects(cellMinX, -_margin, cellMinZ, cellMinX + _cellSize + 2 * _margin, Chunk.CHUNK_DIMENSION_Y + _margin, cellMinZ + _cellSize + 2 * _margin))
+                    continue;
+
+                for (int i = 0; i < cell.entities.size(); i++) {
+                    T entity = cell.entities.get(i);
+                    Vector3d p = entity.getPosition();
+
+                    if (distanceSquared(p, x, y, z) >= radiusSquared)
+                        continue;
+
+                    if (frustum.intersects(p.x - _margin, p.y - _margin, p.z - _margin, p.x + _margin, p.y + _margin, p.z + _margin)) {
+                        result.add(entity);
+                        found++;
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Returns the entity closest to the given point.
+     *
+     * @param maxDistance The maximum distance of the entity
+     * @param exclude     An entity which should not be returned, may be null
+     * @return The closest entity or null if no entity is within the maximum distance
+     */
+    public T findNearest(double x, double y, double z, double maxDistance, T exclude) {
+        T nearest = null;
+        double nearestDistanceSquared = maxDistance * maxDistance;
+
+        for (int cellX = cellPos(x - maxDistance); cellX <= cellPos(x + maxDistance); cellX++) {
+            for (int cellZ = cellPos(z - maxDistance); cellZ <= cellPos(z + maxDistance); cellZ++) {
+                Cell<T> cell = _cells.get(ConcurrentLongMap.key(cellX, cellZ));
+
+                if (cell == null)
+                    continue;
+
+                for (int i = 0; i < cell.entities.size(); i++) {
+                    T entity = cell.entities.get(i);
+
+                    if (entity == exclude)
+                        continue;
+
+                    double distanceSquared = distanceSquared(entity.getPosition(), x, y, z);
+
+                    if (distanceSquared <= nearestDistanceSquared) {
+                        nearest = entity;
+                        nearestDistanceSquared = distanceSquared;
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    private Cell<T> getOrCreateCell(int cellX, int cellZ) {
+        long key = ConcurrentLongMap.key(cellX, cellZ);
+        Cell<T> cell = _cells.get(key);
+
+        if (cell == null) {
+            cell = new Cell<T>(key);
+            _cells.put(key, cell);
+        }
+
+        return cell;
+    }
+
+    private void removeFromCell(Cell<T> cell, T entity) {
+        cell.entities.remove(entity);
+
+        if (cell.entities.isEmpty())
+            _cells.remove(cell.key);
+    }
+
+    private int cellPos(double v) {
+        return (int) Math.floor(v / _cellSize);
+    }
+
+    private static double distanceSquared(Vector3d p, double x, double y, double z) {
+        double dx = p.x - x, dy = p.y - y, dz = p.z - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -21,14 +21,13 @@ import org.terasology.logic.manager.AudioManager;
 import org.terasology.logic.manager.ConfigurationManager;
 import org.terasology.model.blocks.Block;
 import org.terasology.model.blocks.management.BlockManager;
+import org.terasology.logic.world.Chunk;
 import org.terasology.model.structures.AABB;
-import org.terasology.model.structures.BlockPosition;
+import org.terasology.model.structures.BlockCollider;
 import org.terasology.rendering.world.WorldRenderer;
 import org.terasology.utilities.MathHelper;
 
 import javax.vecmath.Vector3d;
-import java.util.ArrayList;
-import java.util.Collections;
 
 /**
  * Movable entities extend normal entities to support collision detection, basic physics, movement and the playback of sound clips.
@@ -37,6 +36,15 @@ import java.util.Collections;
  */
 public abstract class MovableEntity extends Entity {
 
+    /* CONSTANT VALUES */
+    private static final double FRICTION = (Double) ConfigurationManager.getInstance().getConfig().get("Player.friction");
+    private static final double GRAVITY = (Double) ConfigurationManager.getInstance().getConfig().get("Player.gravity");
+    private static final double MAX_GRAVITY = (Double) ConfigurationManager.getInstance().getConfig().get("Player.maxGravity");
+    private static final double GRAVITY_SWIMMING = (Double) ConfigurationManager.getInstance().getConfig().get("Player.gravitySwimming");
+    private static final double MAX_GRAVITY_SWIMMING = (Double) ConfigurationManager.getInstance().getConfig().get("Player.maxGravitySwimming");
+    // The eyes are located this far below the top of the bounding box
+    private static final double EYE_OFFSET = 0.2;
+
     /* AUDIO */
     protected long _lastFootStepSoundPlayed = 0;
     protected Audio _currentFootstepSound;
@@ -55,6 +63,9 @@ public abstract class MovableEntity extends Entity {
     protected final Vector3d _movementDirection = new Vector3d(), _velocity = new Vector3d(), _viewingDirection = new Vector3d();
     protected boolean _isSwimming = false, _headUnderWater = false, _touchingGround = false, _running = false, _godMode, _jump = false;
 
+    /* COLLISION */
+    private final BlockCollider _collider = new BlockCollider();
+
     /**
      * Init. a new movable entity.
      *
@@ -91,6 +102,16 @@ public abstract class MovableEntity extends Entity {
 
     protected abstract AABB generateAABBForPosition(Vector3d p);
 
+    /**
+     * Returns the half extents of the entity's bounding box. Used by the collision detection on each update,
+     * so entities should override this method to return a cached vector.
+     *
+     * @return The half extents
+     */
+    protected Vector3d getExtents() {
+        return getAABB().getDimensions();
+    }
+
     protected abstract void handleVerticalCollision();
 
     protected abstract void handleHorizontalCollision();
@@ -102,12 +123,16 @@ public abstract class MovableEntity extends Entity {
         if ((Boolean) ConfigurationManager.getInstance().getConfig().get("System.Debug.debugCollision")) {
             getAABB().render(2f);
 
-            ArrayList<BlockPosition> blocks = gatherAdjacentBlockPositions(getPosition());
+            int blockPosX = BlockCollider.blockPos(getPosition().x);
+            int blockPosY = BlockCollider.blockPos(getPosition().y);
+            int blockPosZ = BlockCollider.blockPos(getPosition().z);
 
-            for (int i = 0; i < blocks.size(); i++) {
-                BlockPosition p = blocks.get(i);
-                AABB blockAABB = Block.AABBForBlockAt(p.x, p.y, p.z);
-                blockAABB.render(2f);
+            for (int x = -1; x < 2; x++) {
+                for (int y = -1; y < 2; y++) {
+                    for (int z = -1; z < 2; z++) {
+                        Block.AABBForBlockAt(blockPosX + x, blockPosY + y, blockPosZ + z).render(2f);
+                    }
+                }
             }
         }
     }
@@ -128,7 +153,7 @@ public abstract class MovableEntity extends Entity {
 
     private void checkPosition() {
         if (!_godMode && getPosition().y < 0) {
-            getPosition().y = _parent.maxHeightAt((int) getPosition().x, (int) getPosition().y);
+            getPosition().y = _parent.maxHeightAt((int) getPosition().x, (int) getPosition().z);
         }
     }
 
@@ -165,143 +190,23 @@ public abstract class MovableEntity extends Entity {
         _gravity = 0.0f;
     }
 
-    /**
-     * Checks for blocks below and above the entity.
-     *
-     * @param origin The origin position of the entity
-     * @return True if a vertical collision was detected
-     */
-    private boolean verticalHitTest(Vector3d origin) {
-        ArrayList<BlockPosition> blockPositions = gatherAdjacentBlockPositions(origin);
-
-        for (int i = 0; i < blockPositions.size(); i++) {
-            BlockPosition p = blockPositions.get(i);
-
-            byte blockType1 = _parent.getWorldProvider().getBlockAtPosition(new Vector3d(p.x, p.y, p.z));
-            AABB entityAABB = getAABB();
-
-            if (BlockManager.getInstance().getBlock(blockType1).isPenetrable() || !entityAABB.overlaps(Block.AABBForBlockAt(p.x, p.y, p.z)))
-                continue;
-
-            double direction = origin.y - getPosition().y;
-
-            if (direction >= 0)
-                getPosition().y = p.y + 0.50001f + entityAABB.getDimensions().y;
-            else
-                getPosition().y = p.y - 0.50001f - entityAABB.getDimensions().y;
-
-            return true;
-        }
-
-        return false;
-    }
-
-    /**
-     * Gathers all adjacent block positions for a given block position.
-     *
-     * @param origin The block position
-     * @return A list of adjacent block positions
-     */
-    private ArrayList<BlockPosition> gatherAdjacentBlockPositions(Vector3d origin) {
-        /*
-         * Gather the surrounding block positions
-         * and order those by the distance to the originating point.
-         */
-        ArrayList<BlockPosition> blockPositions = new ArrayList<BlockPosition>();
-
-        for (int x = -1; x < 2; x++) {
-            for (int z = -1; z < 2; z++) {
-                for (int y = -1; y < 2; y++) {
-                    int blockPosX = (int) (origin.x + (origin.x >= 0 ? 0.5f : -0.5f)) + x;
-                    int blockPosY = (int) (origin.y + (origin.y >= 0 ? 0.5f : -0.5f)) + y;
-                    int blockPosZ = (int) (origin.z + (origin.z >= 0 ? 0.5f : -0.5f)) + z;
-
-                    blockPositions.add(new BlockPosition(blockPosX, blockPosY, blockPosZ, origin));
-                }
-            }
-        }
-
-        // Sort the block positions
-        Collections.sort(blockPositions);
-        return blockPositions;
-    }
-
-    /**
-     * Checks for blocks around the entity.
-     *
-     * @param origin The original position of the entity
-     * @return True if the entity is colliding horizontally
-     */
-    private boolean horizontalHitTest(Vector3d origin) {
-        boolean result = false;
-        ArrayList<BlockPosition> blockPositions = gatherAdjacentBlockPositions(origin);
-
-        // Check each block position for collision
-        for (int i = 0; i < blockPositions.size(); i++) {
-            BlockPosition p = blockPositions.get(i);
-            byte blockType = _parent.getWorldProvider().getBlockAtPosition(new Vector3d(p.x, p.y, p.z));
-            AABB blockAABB = Block.AABBForBlockAt(p.x, p.y, p.z);
-
-            if (!BlockManager.getInstance().getBlock(blockType).isPenetrable()) {
-                if (getAABB().overlaps(blockAABB)) {
-                    result = true;
-
-                    // Calculate the direction from the origin to the current position
-                    Vector3d direction = new Vector3d(getPosition().x, 0f, getPosition().z);
-                    direction.x -= origin.x;
-                    direction.z -= origin.z;
-
-                    // Calculate the point of intersection on the block's AABB
-                    Vector3d blockPoi = blockAABB.closestPointOnAABBToPoint(origin);
-                    Vector3d entityPoi = generateAABBForPosition(origin).closestPointOnAABBToPoint(blockPoi);
-
-                    Vector3d planeNormal = blockAABB.normalForPlaneClosestToOrigin(blockPoi, origin, true, false, true);
-
-                    // Find a vector parallel to the surface normal
-                    Vector3d slideVector = new Vector3d(planeNormal.z, 0, -planeNormal.x);
-                    Vector3d pushBack = new Vector3d();
-
-                    pushBack.sub(blockPoi, entityPoi);
-
-                    // Calculate the intensity of the diversion alongside the block
-                    double length = slideVector.dot(direction);
-
-                    Vector3d newPosition = new Vector3d();
-                    newPosition.z = origin.z + pushBack.z * 0.2 + length * slideVector.z;
-                    newPosition.x = origin.x + pushBack.x * 0.2 + length * slideVector.x;
-                    newPosition.y = origin.y;
-
-                    // Update the position
-                    getPosition().set(newPosition);
-                }
-            }
-        }
-
-        return result;
-    }
-
     /**
      * Updates the position of the entity.
      */
     protected void updatePosition() {
-        // Save the previous position before changing any of the values
-        Vector3d oldPosition = new Vector3d(getPosition());
-
-        double friction = (Double) ConfigurationManager.getInstance().getConfig().get("Player.friction");
-
         /*
          * Slowdown the speed of the entity each time this method is called.
          */
         if (MathHelper.fastAbs(_velocity.y) > 0f) {
-            _velocity.y += -1f * _velocity.y * friction;
+            _velocity.y += -1f * _velocity.y * FRICTION;
         }
 
         if (MathHelper.fastAbs(_velocity.x) > 0f) {
-            _velocity.x += -1f * _velocity.x * friction;
+            _velocity.x += -1f * _velocity.x * FRICTION;
         }
 
         if (MathHelper.fastAbs(_velocity.z) > 0f) {
-            _velocity.z += -1f * _velocity.z * friction;
+            _velocity.z += -1f * _velocity.z * FRICTION;
         }
 
         /*
@@ -324,34 +229,40 @@ public abstract class MovableEntity extends Entity {
         _velocity.y += _movementDirection.y;
         _velocity.z += _movementDirection.z;
 
-        double maxGravity = (Double) ConfigurationManager.getInstance().getConfig().get("Player.maxGravity");
-        double maxGravitySwimming = (Double) ConfigurationManager.getInstance().getConfig().get("Player.maxGravitySwimming");
-        double gravitySwimming = (Double) ConfigurationManager.getInstance().getConfig().get("Player.gravitySwimming");
-        double gravity = (Double) ConfigurationManager.getInstance().getConfig().get("Player.gravity");
-
         // Normal gravity
-        if (_gravity > -maxGravity && !_godMode && !_isSwimming) {
-            _gravity -= gravity;
+        if (_gravity > -MAX_GRAVITY && !_godMode && !_isSwimming) {
+            _gravity -= GRAVITY;
         }
 
-        if (_gravity < -maxGravity && !_godMode && !_isSwimming) {
-            _gravity = -maxGravity;
+        if (_gravity < -MAX_GRAVITY && !_godMode && !_isSwimming) {
+            _gravity = -MAX_GRAVITY;
         }
 
         // Gravity under water
-        if (_gravity > -maxGravitySwimming && !_godMode && _isSwimming) {
-            _gravity -= gravitySwimming;
+        if (_gravity > -MAX_GRAVITY_SWIMMING && !_godMode && _isSwimming) {
+            _gravity -= GRAVITY_SWIMMING;
         }
 
-        if (_gravity < -maxGravitySwimming && !_godMode && _isSwimming) {
-            _gravity = -maxGravitySwimming;
+        if (_gravity < -MAX_GRAVITY_SWIMMING && !_godMode && _isSwimming) {
+            _gravity = -MAX_GRAVITY_SWIMMING;
         }
 
-        getPosition().y += _velocity.y;
-        getPosition().y += _gravity;
+        Vector3d position = getPosition();
+        Vector3d extents = getExtents();
+
+        double moveY = _velocity.y + _gravity;
+
+        /*
+         * Fetch the blocks around the path of the entity once and resolve
+         * the movement one axis after another against those.
+         */
+        _collider.gather(_parent.getWorldProvider(), position.x, position.y, position.z, extents.x, extents.y, extents.z, _velocity.x, moveY, _velocity.z);
+
+        double clippedY = _godMode ? moveY : _collider.clipY(position.x, position.y, position.z, extents.x, extents.y, extents.z, moveY);
+        position.y += clippedY;
 
         if (!_godMode) {
-            if (verticalHitTest(oldPosition)) {
+            if (clippedY != moveY) {
                 handleVerticalCollision();
 
                 double oldGravity = _gravity;
@@ -383,25 +294,39 @@ public abstract class MovableEntity extends Entity {
             _gravity = 0f;
         }
 
-        oldPosition.set(getPosition());
+        _stepCounter += Math.max(MathHelper.fastAbs(_velocity.x), MathHelper.fastAbs(_velocity.z));
 
         /*
-         * Update the position of the entity
-         * according to the acceleration vector.
+         * Update the position of the entity according to the acceleration vector and
+         * check for horizontal collisions __after__ checking for vertical collisions.
+         * Clipping each axis on its own lets the entity slide along walls.
          */
-        getPosition().x += _velocity.x;
-        getPosition().z += _velocity.z;
+        if (_godMode) {
+            position.x += _velocity.x;
+            position.z += _velocity.z;
+            return;
+        }
 
-        _stepCounter += Math.max(MathHelper.fastAbs(_velocity.x), MathHelper.fastAbs(_velocity.z));
+        double clippedX = _collider.clipX(position.x, position.y, position.z, extents.x, extents.y, extents.z, _velocity.x);
+        position.x += clippedX;
 
-        /*
-         * Check for horizontal collisions __after__ checking for vertical
-         * collisions.
-         */
-        if (!_godMode) {
-            if (horizontalHitTest(oldPosition)) {
-                handleHorizontalCollision();
-            }
+        double clippedZ = _collider.clipZ(position.x, position.y, position.z, extents.x, extents.y, extents.z, _velocity.z);
+        position.z += clippedZ;
+
+        boolean horizontalCollision = false;
+
+        if (clippedX != _velocity.x) {
+            _velocity.x = 0;
+            horizontalCollision = true;
+        }
+
+        if (clippedZ != _velocity.z) {
+            _velocity.z = 0;
+            horizontalCollision = true;
+        }
+
+        if (horizontalCollision) {
+            handleHorizontalCollision();
         }
     }
 
@@ -409,31 +334,42 @@ public abstract class MovableEntity extends Entity {
      * Updates the status if the entity is currently swimming (in water).
      */
     private void updateSwimStatus() {
-        ArrayList<BlockPosition> blockPositions = gatherAdjacentBlockPositions(getPosition());
-
-        boolean swimming = false, headUnderWater = false;
-
-        for (int i = 0; i < blockPositions.size(); i++) {
-            BlockPosition p = blockPositions.get(i);
-            byte blockType = _parent.getWorldProvider().getBlockAtPosition(new Vector3d(p.x, p.y, p.z));
-            AABB blockAABB = Block.AABBForBlockAt(p.x, p.y, p.z);
+        Vector3d position = getPosition();
+        Vector3d extents = getExtents();
 
-            if (BlockManager.getInstance().getBlock(blockType).isLiquid() && getAABB().overlaps(blockAABB)) {
-                swimming = true;
-            }
+        boolean swimming = false;
 
-            Vector3d eyePos = calcEyePosition();
-            eyePos.y += 0.25;
+        int minX = BlockCollider.blockPos(position.x - extents.x), maxX = BlockCollider.blockPos(position.x + extents.x);
+        int minY = BlockCollider.blockPos(position.y - extents.y), maxY = BlockCollider.blockPos(position.y + extents.y);
+        int minZ = BlockCollider.blockPos(position.z - extents.z), maxZ = BlockCollider.blockPos(position.z + extents.z);
 
-            if (BlockManager.getInstance().getBlock(blockType).isLiquid() && blockAABB.contains(eyePos)) {
-                headUnderWater = true;
+        for (int x = minX; x <= maxX && !swimming; x++) {
+            for (int y = minY; y <= maxY && !swimming; y++) {
+                for (int z = minZ; z <= maxZ && !swimming; z++) {
+                    swimming = isLiquid(x, y, z);
+                }
             }
         }
 
-        _headUnderWater = headUnderWater;
+        // The eye position raised by a little offset
+        double eyeY = position.y + calcEyeHeight() + 0.25;
+
+        _headUnderWater = isLiquid(BlockCollider.blockPos(position.x), BlockCollider.blockPos(eyeY), BlockCollider.blockPos(position.z));
         _isSwimming = swimming;
     }
 
+    /**
+     * Returns true if the given block is a liquid. Uses the blocks fetched for the collision detection if possible.
+     */
+    private boolean isLiquid(int x, int y, int z) {
+        if (y < 0 || y >= Chunk.CHUNK_DIMENSION_Y)
+            return false;
+
+        byte type = _collider.contains(x, y, z) ? _collider.getBlock(x, y, z) : _parent.getWorldProvider().getBlock(x, y, z);
+        Block block = BlockManager.getInstance().getBlock(type);
+
+        return block != null && block.isLiquid();
+    }
 
     /**
      * Yaws the entity's point of view.
@@ -550,13 +486,24 @@ public abstract class MovableEntity extends Entity {
     }
 
     public Vector3d calcEyeOffset() {
-        return new Vector3d(0.0f, getAABB().getDimensions().y - 0.2f, 0.0f);
+        return new Vector3d(0.0f, calcEyeHeight(), 0.0f);
+    }
+
+    /**
+     * Returns the height of the eyes above the position of this entity.
+     */
+    protected double calcEyeHeight() {
+        return getExtents().y - EYE_OFFSET;
     }
 
     public Vector3d getViewingDirection() {
         return _viewingDirection;
     }
 
+    public Vector3d getVelocity() {
+        return _velocity;
+    }
+
     public void setViewingDirection(double yaw, double pitch) {
         _viewingDirection.set(Math.sin(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)), -Math.sin(Math.toRadians(pitch)), -Math.cos(Math.toRadians(pitch)) * Math.cos(Math.toRadians(yaw)));
         _viewingDirection.normalize(_viewingDirection);
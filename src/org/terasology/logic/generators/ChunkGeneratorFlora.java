@@ -58,7 +58,7 @@ public class ChunkGeneratorFlora extends ChunkGeneratorTerrain {
         for (int y = 32; y < Chunk.CHUNK_DIMENSION_Y; y++) {
             for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x += 4) {
                 for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z += 4) {
-                    BIOME_TYPE biome = calcBiomeTypeForGlobalPosition(c.getBlockWorldPosX(x), c.getBlockWorldPosZ(z));
+                    BIOME_TYPE biome = calcBiomeTypeForLocalPosition(c, x, z);
 
                     int randX = x + c.getRandom().randomInt() % 12 + 6;
                     int randZ = z + c.getRandom().randomInt() % 12 + 6;
@@ -98,7 +98,7 @@ public class ChunkGeneratorFlora extends ChunkGeneratorTerrain {
             double grassRand = (c.getRandom().randomDouble() + 1.0) / 2.0;
             double grassProb = 1.0;
 
-            BIOME_TYPE biome = calcBiomeTypeForGlobalPosition(c.getBlockWorldPosX(x), c.getBlockWorldPosZ(z));
+            BIOME_TYPE biome = calcBiomeTypeForLocalPosition(c, x, z);
 
             switch (biome) {
                 case PLAINS:
@@ -19,8 +19,6 @@ import org.terasology.logic.world.Chunk;
 import org.terasology.model.blocks.management.BlockManager;
 import org.terasology.utilities.MathHelper;
 
-import javax.vecmath.Vector2f;
-
 /**
  * Generates the terrain of the world using a hybrid voxel-/heightmap-based approach.
  *
@@ -32,6 +30,8 @@ public class ChunkGeneratorTerrain extends ChunkGenerator {
     protected static final int SAMPLE_RATE_3D_HOR = 4;
     protected static final int SAMPLE_RATE_3D_VERT = 8;
 
+    private static final double[] ZERO = {0.0};
+
     /**
      * Available types of biomes.
      */
@@ -46,14 +46,30 @@ public class ChunkGeneratorTerrain extends ChunkGenerator {
     @Override
     public void generate(Chunk c) {
         double[][][] densityMap = new double[Chunk.CHUNK_DIMENSION_X + 1][Chunk.CHUNK_DIMENSION_Y + 1][Chunk.CHUNK_DIMENSION_Z + 1];
+        TerrainLayers layers = getTerrainLayers(c);
 
         /*
          * Create the density map at a lower sample rate.
          */
-        for (int x = 0; x <= Chunk.CHUNK_DIMENSION_X; x += SAMPLE_RATE_3D_HOR) {
-            for (int z = 0; z <= Chunk.CHUNK_DIMENSION_Z; z += SAMPLE_RATE_3D_HOR) {
-                for (int y = 0; y <= Chunk.CHUNK_DIMENSION_Y; y += SAMPLE_RATE_3D_VERT) {
-                    densityMap[x][y][z] = calcDensity(c.getBlockWorldPosX(x), y, c.getBlockWorldPosZ(z));
+        int samplesX = Chunk.CHUNK_DIMENSION_X / SAMPLE_RATE_3D_HOR + 1;
+        int samplesY = Chunk.CHUNK_DIMENSION_Y / SAMPLE_RATE_3D_VERT + 1;
+        int samplesZ = Chunk.CHUNK_DIMENSION_Z / SAMPLE_RATE_3D_HOR + 1;
+
+        double[] mountainDensities = new double[samplesX * samplesY * samplesZ];
+        double[] hillDensities = new double[samplesX * samplesY * samplesZ];
+        calcMountainDensities(mountainDensities, c.getBlockWorldPosX(0), c.getBlockWorldPosZ(0), samplesX, samplesY, samplesZ);
+        calcHillDensities(hillDensities, c.getBlockWorldPosX(0), c.getBlockWorldPosZ(0), samplesX, samplesY, samplesZ);
+
+        for (int sx = 0; sx < samplesX; sx++) {
+            for (int sz = 0; sz < samplesZ; sz++) {
+                int x = sx * SAMPLE_RATE_3D_HOR, z = sz * SAMPLE_RATE_3D_HOR;
+
+                double terrainHeight = layers.getTerrainHeight(x, z);
+                double mountainIntensity = layers.getMountainIntensity(x, z);
+
+                for (int sy = 0; sy < samplesY; sy++) {
+                    int i = (sx * samplesY + sy) * samplesZ + sz;
+                    densityMap[x][sy * SAMPLE_RATE_3D_VERT][z] = calcDensity(sy * SAMPLE_RATE_3D_VERT, terrainHeight, mountainIntensity, mountainDensities[i], hillDensities[i]);
                 }
             }
         }
@@ -66,11 +82,26 @@ public class ChunkGeneratorTerrain extends ChunkGenerator {
         /*
          * Generate the chunk from the density map.
          */
+        double[] caveDensities = new double[Chunk.CHUNK_DIMENSION_Y + 1];
+
         for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
             for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
-                BIOME_TYPE type = calcBiomeTypeForGlobalPosition(c.getBlockWorldPosX(x), c.getBlockWorldPosZ(z));
+                BIOME_TYPE type = calcBiomeType(layers.getTemperature(x, z), layers.getHumidity(x, z));
                 int firstBlockHeight = -1;
 
+                // Caves are only needed within the solid part of the column
+                int minCaveY = Chunk.CHUNK_DIMENSION_Y + 1, maxCaveY = 0;
+
+                for (int y = 1; y <= Chunk.CHUNK_DIMENSION_Y; y++) {
+                    if (densityMap[x][y][z] >= 0) {
+                        minCaveY = Math.min(minCaveY, y);
+                        maxCaveY = y;
+                    }
+                }
+
+                if (minCaveY <= maxCaveY)
+                    calcCaveDensities(caveDensities, c.getBlockWorldPosX(x), c.getBlockWorldPosZ(z), minCaveY, maxCaveY - minCaveY + 1);
+
                 for (int y = Chunk.CHUNK_DIMENSION_Y; y >= 0; y--) {
 
                     if (y == 0) { // The very deepest layer of the world is an indestructible mantle
@@ -96,7 +127,7 @@ public class ChunkGeneratorTerrain extends ChunkGenerator {
                         if (firstBlockHeight == -1)
                             firstBlockHeight = y;
 
-                        if (calcCaveDensity(c.getBlockWorldPosX(x), y, c.getBlockWorldPosZ(z)) > -0.7)
+                        if (caveDensities[y - minCaveY] > -0.7)
                             GenerateOuterLayer(x, y, z, firstBlockHeight, c, type);
                         else
                             c.setBlock(x, y, z, (byte) 0);
@@ -108,7 +139,7 @@ public class ChunkGeneratorTerrain extends ChunkGenerator {
                         if (firstBlockHeight == -1)
                             firstBlockHeight = y;
 
-                        if (calcCaveDensity(c.getBlockWorldPosX(x), y, c.getBlockWorldPosZ(z)) > -0.6)
+                        if (caveDensities[y - minCaveY] > -0.6)
                             GenerateInnerLayer(x, y, z, c, type);
                         else
                             c.setBlock(x, y, z, (byte) 0);
@@ -131,9 +162,31 @@ public class ChunkGeneratorTerrain extends ChunkGenerator {
      * @return The biome type
      */
     public BIOME_TYPE calcBiomeTypeForGlobalPosition(int x, int z) {
-        double temp = calcTemperatureAtGlobalPosition(x, z);
-        double humidity = calcHumidityAtGlobalPosition(x, z);
+        return calcBiomeType(calcTemperatureAtGlobalPosition(x, z), calcHumidityAtGlobalPosition(x, z));
+    }
+
+    /**
+     * Returns the biome type of the given column within the given chunk. The cached terrain layers
+     * of the chunk are used.
+     *
+     * @param c The chunk
+     * @param x Local block position on the x-axis
+     * @param z Local block position on the z-axis
+     * @return The biome type
+     */
+    protected BIOME_TYPE calcBiomeTypeForLocalPosition(Chunk c, int x, int z) {
+        TerrainLayers layers = getTerrainLayers(c);
+        return calcBiomeType(layers.getTemperature(x, z), layers.getHumidity(x, z));
+    }
 
+    /**
+     * Returns the biome type for the given temperature and humidity.
+     *
+     * @param temp     The temperature
+     * @param humidity The humidity
+     * @return The biome type
+     */
+    public BIOME_TYPE calcBiomeType(double temp, double humidity) {
         if (temp >= 0.5 && humidity < 0.3) {
             return BIOME_TYPE.DESERT;
         } else if (humidity >= 0.3 && humidity <= 0.6 && temp >= 0.5) {
@@ -218,23 +271,50 @@ public class ChunkGeneratorTerrain extends ChunkGenerator {
     }
 
     public double calcDensity(int x, int y, int z) {
+        double mIntens = calcMountainIntensity(calcTemperatureAtGlobalPosition(x, z), calcHumidityAtGlobalPosition(x, z));
+        return calcDensity(y, calcTerrainHeight(x, z), mIntens, calcMountainDensity(x, y, z), calcHillDensity(x, y, z));
+    }
+
+    /**
+     * Calculates the density at the given height using the precalculated noise values of the position.
+     */
+    protected double calcDensity(int y, double terrainHeight, double mIntens, double mountainDensity, double hillDensity) {
+        double densityMountains = mountainDensity * mIntens;
+        double densityHills = hillDensity * (1.0 - mIntens);
+
+        int plateauArea = (int) (Chunk.CHUNK_DIMENSION_Y * 0.10);
+        double flatten = MathHelper.clamp(((Chunk.CHUNK_DIMENSION_Y - 16) - y) / plateauArea);
+
+        return -y + (terrainHeight + densityMountains * 1024.0 + densityHills * 128.0) * flatten;
+    }
+
+    /**
+     * Returns the height of the terrain at the given column, based on the base terrain, the oceans and the rivers.
+     */
+    public double calcTerrainHeight(int x, int z) {
         double height = calcBaseTerrain(x, z);
         double ocean = calcOceanTerrain(x, z);
         double river = calcRiverTerrain(x, z);
 
-        float temp = (float) calcTemperatureAtGlobalPosition(x, z);
-        float humidity = (float) calcHumidityAtGlobalPosition(x, z);
-
-        Vector2f distanceToMountainBiome = new Vector2f(temp - 0.25f, humidity - 0.35f);
+        return (32.0 + height * 32.0) * MathHelper.clamp(river + 0.25) * MathHelper.clamp(ocean + 0.25);
+    }
 
-        double mIntens = MathHelper.clamp(1.0 - distanceToMountainBiome.length() * 3.0);
-        double densityMountains = calcMountainDensity(x, y, z) * mIntens;
-        double densityHills = calcHillDensity(x, y, z) * (1.0 - mIntens);
+    /**
+     * Returns how strongly mountains are formed for the given climate.
+     */
+    public double calcMountainIntensity(double temperature, double humidity) {
+        float distanceX = (float) temperature - 0.25f;
+        float distanceY = (float) humidity - 0.35f;
+        float distanceToMountainBiome = (float) Math.sqrt(distanceX * distanceX + distanceY * distanceY);
 
-        int plateauArea = (int) (Chunk.CHUNK_DIMENSION_Y * 0.10);
-        double flatten = MathHelper.clamp(((Chunk.CHUNK_DIMENSION_Y - 16) - y) / plateauArea);
+        return MathHelper.clamp(1.0 - distanceToMountainBiome * 3.0);
+    }
 
-        return -y + (((32.0 + height * 32.0) * MathHelper.clamp(river + 0.25) * MathHelper.clamp(ocean + 0.25)) + densityMountains * 1024.0 + densityHills * 128.0) * flatten;
+    /**
+     * Returns the cached terrain layers of the given chunk.
+     */
+    protected TerrainLayers getTerrainLayers(Chunk c) {
+        return _parent.getTerrainLayers((int) c.getPosition().x, (int) c.getPosition().z);
     }
 
     public double calcBaseTerrain(double x, double z) {
@@ -286,4 +366,81 @@ public class ChunkGeneratorTerrain extends ChunkGenerator {
     public double calcCaveDensity(double x, double y, double z) {
         return _pGen8.fBm(x * 0.02, y * 0.02, z * 0.02);
     }
+
+    /*
+     * The following methods calculate the noise values of whole grids at once. The results are identical
+     * to the ones of the methods above. All grids are stored in x-major order.
+     */
+
+    /**
+     * Calculates the temperature and the humidity of a grid of columns with a spacing of one block.
+     */
+    public void calcClimate(double[] temperature, double[] humidity, int x, int z, int sizeX, int sizeZ) {
+        double[] xs = gridPositions(x, 1, sizeX, 0.0005), zs = gridPositions(z, 1, sizeZ, 0.0005);
+
+        _pGen6.fBm(temperature, xs, ZERO, zs);
+        _pGen7.fBm(humidity, xs, ZERO, zs);
+
+        for (int i = 0; i < sizeX * sizeZ; i++) {
+            temperature[i] = MathHelper.clamp((temperature[i] + 1.0) / 2.0);
+            humidity[i] = MathHelper.clamp((humidity[i] + 1.0) / 2.0);
+        }
+    }
+
+    /**
+     * Calculates the terrain height of a grid of columns with the given spacing.
+     */
+    public void calcTerrainHeights(double[] result, int x, int z, int step, int sizeX, int sizeZ) {
+        double[] base = new double[sizeX * sizeZ], ocean = new double[sizeX * sizeZ];
+
+        _pGen1.fBm(base, gridPositions(x, step, sizeX, 0.004), ZERO, gridPositions(z, step, sizeZ, 0.004));
+        _pGen2.fBm(ocean, gridPositions(x, step, sizeX, 0.0009), ZERO, gridPositions(z, step, sizeZ, 0.0009));
+        _pGen3.fBm(result, gridPositions(x, step, sizeX, 0.0008), ZERO, gridPositions(z, step, sizeZ, 0.0008));
+
+        for (int i = 0; i < sizeX * sizeZ; i++) {
+            double height = MathHelper.clamp((base[i] + 1.0) / 2.0);
+            double oceanTerrain = MathHelper.clamp(ocean[i] * 8.0);
+            double river = MathHelper.clamp((Math.sqrt(Math.abs(result[i])) - 0.1) * 7.0);
+
+            result[i] = (32.0 + height * 32.0) * MathHelper.clamp(river + 0.25) * MathHelper.clamp(oceanTerrain + 0.25);
+        }
+    }
+
+    /**
+     * Calculates the mountain density on the density sample grid of a chunk starting at the given column.
+     */
+    protected void calcMountainDensities(double[] result, int x, int z, int samplesX, int samplesY, int samplesZ) {
+        _pGen4.fBm(result, gridPositions(x, SAMPLE_RATE_3D_HOR, samplesX, 0.006), gridPositions(0, SAMPLE_RATE_3D_VERT, samplesY, 0.004), gridPositions(z, SAMPLE_RATE_3D_HOR, samplesZ, 0.006));
+
+        for (int i = 0; i < samplesX * samplesY * samplesZ; i++)
+            result[i] = result[i] > 0.0 ? result[i] : 0;
+    }
+
+    /**
+     * Calculates the hill density on the density sample grid of a chunk starting at the given column.
+     */
+    protected void calcHillDensities(double[] result, int x, int z, int samplesX, int samplesY, int samplesZ) {
+        _pGen5.fBm(result, gridPositions(x, SAMPLE_RATE_3D_HOR, samplesX, 0.01), gridPositions(0, SAMPLE_RATE_3D_VERT, samplesY, 0.008), gridPositions(z, SAMPLE_RATE_3D_HOR, samplesZ, 0.01));
+
+        for (int i = 0; i < samplesX * samplesY * samplesZ; i++) {
+            double value = result[i] - 0.5;
+            result[i] = value > 0.0 ? value : 0;
+        }
+    }
+
+    /**
+     * Calculates the cave density of the given range of a column.
+     */
+    protected void calcCaveDensities(double[] result, int x, int z, int y, int sizeY) {
+        _pGen8.fBm(result, new double[]{x * 0.02}, gridPositions(y, 1, sizeY, 0.02), new double[]{z * 0.02});
+    }
+
+    private static double[] gridPositions(int start, int step, int size, double scale) {
+        double[] result = new double[size];
+
+        for (int i = 0; i < size; i++)
+            result[i] = (start + i * step) * scale;
+
+        return result;
+    }
 }
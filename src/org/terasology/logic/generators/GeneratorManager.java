@@ -19,25 +19,45 @@ import org.terasology.logic.world.IWorldProvider;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
 public class GeneratorManager {
 
+    /* CONST */
+    private static final int TERRAIN_LAYER_CACHE_SIZE = 128;
+
     private final IWorldProvider _parent;
 
     /* WORLD GENERATION */
     protected final ArrayList<ChunkGenerator> _chunkGenerators = new ArrayList<ChunkGenerator>(8);
+    protected final ArrayList<ChunkGenerator> _terrainGenerators = new ArrayList<ChunkGenerator>(8);
+    protected final ArrayList<ChunkGenerator> _floraGenerators = new ArrayList<ChunkGenerator>(8);
     protected final HashMap<ChunkGeneratorTerrain.BIOME_TYPE, ArrayList<TreeGenerator>> _treeGenerators = new HashMap<ChunkGeneratorTerrain.BIOME_TYPE, ArrayList<TreeGenerator>>(8);
 
+    /* TERRAIN LAYERS - Least recently used chunk columns are removed first */
+    private final LinkedHashMap<Long, TerrainLayers> _terrainLayers = new LinkedHashMap<Long, TerrainLayers>(TERRAIN_LAYER_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TerrainLayers> eldest) {
+            return size() > TERRAIN_LAYER_CACHE_SIZE;
+        }
+    };
+
     public GeneratorManager(IWorldProvider parent) {
         _parent = parent;
 
         // Init. static generators
-        _chunkGenerators.add(new ChunkGeneratorTerrain(this));
-        _chunkGenerators.add(new ChunkGeneratorFlora(this));
-        _chunkGenerators.add(new ChunkGeneratorLiquids(this));
+        _terrainGenerators.add(new ChunkGeneratorTerrain(this));
+
+        // These generators write into the neighbors of a chunk
+        _floraGenerators.add(new ChunkGeneratorFlora(this));
+        _floraGenerators.add(new ChunkGeneratorLiquids(this));
+
+        _chunkGenerators.addAll(_terrainGenerators);
+        _chunkGenerators.addAll(_floraGenerators);
 
         loadTrees();
     }
@@ -51,10 +71,27 @@ public class GeneratorManager {
         return _treeGenerators.get(type);
     }
 
+    /**
+     * Returns all chunk generators in the order they are applied.
+     */
     public ArrayList<ChunkGenerator> getChunkGenerators() {
         return _chunkGenerators;
     }
 
+    /**
+     * Returns the generators of the terrain generation stage. Those only write into the chunk they generate.
+     */
+    public ArrayList<ChunkGenerator> getTerrainGenerators() {
+        return _terrainGenerators;
+    }
+
+    /**
+     * Returns the generators of the flora generation stage. Those might write into the neighbors of a chunk.
+     */
+    public ArrayList<ChunkGenerator> getFloraGenerators() {
+        return _floraGenerators;
+    }
+
     public void addTreeGenerator(ChunkGeneratorTerrain.BIOME_TYPE type, TreeGenerator gen) {
         ArrayList<TreeGenerator> list;
 
@@ -95,6 +132,35 @@ public class GeneratorManager {
         return list.get(id);
     }
 
+    /**
+     * Returns the two-dimensional terrain layers of the chunk at the given position. The layers are
+     * calculated on the first request and cached afterwards.
+     *
+     * @param chunkX The position of the chunk on the x-axis
+     * @param chunkZ The position of the chunk on the z-axis
+     * @return The terrain layers
+     */
+    public TerrainLayers getTerrainLayers(int chunkX, int chunkZ) {
+        Long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        TerrainLayers layers;
+
+        synchronized (_terrainLayers) {
+            layers = _terrainLayers.get(key);
+        }
+
+        if (layers != null)
+            return layers;
+
+        // Calculate the layers outside of the lock, in the worst case two threads calculate the same layers
+        layers = new TerrainLayers((ChunkGeneratorTerrain) _terrainGenerators.get(0), chunkX, chunkZ, ChunkGeneratorTerrain.SAMPLE_RATE_3D_HOR);
+
+        synchronized (_terrainLayers) {
+            _terrainLayers.put(key, layers);
+        }
+
+        return layers;
+    }
+
     public IWorldProvider getParent() {
         return _parent;
     }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.generators;
+
+import org.terasology.logic.world.Chunk;
+
+/**
+ * The two-dimensional noise layers of one chunk. Those only depend on the position of a column, so they
+ * are calculated once per chunk instead of once per sampled block.
+ * <p/>
+ * The layers cover the columns of the chunk plus one additional row on the positive x- and z-axis, which
+ * is needed when interpolating the density map. Temperature and humidity are available for all columns,
+ * the terrain height and the mountain intensity only for the columns of the density sample grid.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class TerrainLayers {
+
+    public static final int SIZE_X = Chunk.CHUNK_DIMENSION_X + 1;
+    public static final int SIZE_Z = Chunk.CHUNK_DIMENSION_Z + 1;
+
+    private final double[] _temperature = new double[SIZE_X * SIZE_Z];
+    private final double[] _humidity = new double[SIZE_X * SIZE_Z];
+    private final double[] _terrainHeight = new double[SIZE_X * SIZE_Z];
+    private final double[] _mountainIntensity = new double[SIZE_X * SIZE_Z];
+
+    /**
+     * Calculates the layers of the chunk at the given position.
+     *
+     * @param generator  The generator providing the noise functions
+     * @param chunkX     The position of the chunk on the x-axis
+     * @param chunkZ     The position of the chunk on the z-axis
+     * @param sampleRate The horizontal sample rate of the density map
+     */
+    TerrainLayers(ChunkGeneratorTerrain generator, int chunkX, int chunkZ, int sampleRate) {
+        int offsetX = chunkX * Chunk.CHUNK_DIMENSION_X;
+        int offsetZ = chunkZ * Chunk.CHUNK_DIMENSION_Z;
+
+        generator.calcClimate(_temperature, _humidity, offsetX, offsetZ, SIZE_X, SIZE_Z);
+
+        int samplesX = (SIZE_X - 1) / sampleRate + 1;
+        int samplesZ = (SIZE_Z - 1) / sampleRate + 1;
+
+        double[] terrainHeights = new double[samplesX * samplesZ];
+        generator.calcTerrainHeights(terrainHeights, offsetX, offsetZ, sampleRate, samplesX, samplesZ);
+
+        for (int sx = 0; sx < samplesX; sx++) {
+            for (int sz = 0; sz < samplesZ; sz++) {
+                int i = index(sx * sampleRate, sz * sampleRate);
+
+                _terrainHeight[i] = terrainHeights[sx * samplesZ + sz];
+                _mountainIntensity[i] = generator.calcMountainIntensity(_temperature[i], _humidity[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the temperature of the given column.
+     *
+     * @param x Local block position on the x-axis
+     * @param z Local block position on the z-axis
+     * @return The temperature
+     */
+    public double getTemperature(int x, int z) {
+        return _temperature[index(x, z)];
+    }
+
+    /**
+     * Returns the humidity of the given column.
+     *
+     * @param x Local block position on the x-axis
+     * @param z Local block position on the z-axis
+     * @return The humidity
+     */
+    public double getHumidity(int x, int z) {
+        return _humidity[index(x, z)];
+    }
+
+    /**
+     * Returns the terrain height of the given column of the density sample grid.
+     */
+    public double getTerrainHeight(int x, int z) {
+        return _terrainHeight[index(x, z)];
+    }
+
+    /**
+     * Returns the mountain intensity of the given column of the density sample grid.
+     */
+    public double getMountainIntensity(int x, int z) {
+        return _mountainIntensity[index(x, z)];
+    }
+
+    private static int index(int x, int z) {
+        return x * SIZE_Z + z;
+    }
+}
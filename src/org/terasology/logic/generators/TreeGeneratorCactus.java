@@ -15,6 +15,7 @@
  */
 package org.terasology.logic.generators;
 
+import org.terasology.logic.world.BlockEditBatch;
 import org.terasology.model.blocks.management.BlockManager;
 import org.terasology.utilities.FastRandom;
 
@@ -31,8 +32,12 @@ public class TreeGeneratorCactus extends TreeGenerator {
 
     @Override
     public void generate(FastRandom rand, int posX, int posY, int posZ, boolean update) {
+        BlockEditBatch batch = _generatorManager.getParent().beginEditBatch(update);
+
         for (int y = posY; y < posY + 3; y++) {
-            _generatorManager.getParent().setBlock(posX, y, posZ, BlockManager.getInstance().getBlock("Cactus").getId(), update, true);
+            batch.setBlock(posX, y, posZ, BlockManager.getInstance().getBlock("Cactus").getId(), true);
         }
+
+        batch.commit();
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.terasology.logic.generators;
 
+import org.terasology.logic.world.BlockEditBatch;
 import org.terasology.model.blocks.management.BlockManager;
 import org.terasology.utilities.FastRandom;
 
@@ -101,6 +102,9 @@ public class TreeGeneratorLSystem extends TreeGenerator {
 
         int angleOffset = rand.randomInt() % MAX_ANGLE_OFFSET;
 
+        // The light and meshes are updated once the whole tree has been placed
+        BlockEditBatch batch = _generatorManager.getParent().beginEditBatch(update);
+
         for (int i = 0; i < axiom.length(); i++) {
             char c = axiom.charAt(i);
 
@@ -111,10 +115,10 @@ public class TreeGeneratorLSystem extends TreeGenerator {
                 case 'G':
                 case 'F':
                     // Tree trunk
-                    _generatorManager.getParent().setBlock(posX + (int) position.x + 1, posY + (int) position.y, posZ + (int) position.z, _barkType, update, true);
-                    _generatorManager.getParent().setBlock(posX + (int) position.x - 1, posY + (int) position.y, posZ + (int) position.z, _barkType, update, true);
-                    _generatorManager.getParent().setBlock(posX + (int) position.x, posY + (int) position.y, posZ + (int) position.z + 1, _barkType, update, true);
-                    _generatorManager.getParent().setBlock(posX + (int) position.x, posY + (int) position.y, posZ + (int) position.z - 1, _barkType, update, true);
+                    batch.setBlock(posX + (int) position.x + 1, posY + (int) position.y, posZ + (int) position.z, _barkType, true);
+                    batch.setBlock(posX + (int) position.x - 1, posY + (int) position.y, posZ + (int) position.z, _barkType, true);
+                    batch.setBlock(posX + (int) position.x, posY + (int) position.y, posZ + (int) position.z + 1, _barkType, true);
+                    batch.setBlock(posX + (int) position.x, posY + (int) position.y, posZ + (int) position.z - 1, _barkType, true);
 
 
                     // Generate leaves
@@ -127,17 +131,17 @@ public class TreeGeneratorLSystem extends TreeGenerator {
                                     if (Math.abs(x) == size && Math.abs(y) == size && Math.abs(z) == size)
                                         continue;
 
-                                    if (_generatorManager.getParent().getBlock(posX + (int) position.x + x + 1, posY + (int) position.y + y, posZ + z + (int) position.z) == 0x0)
-                                        _generatorManager.getParent().setBlock(posX + (int) position.x + x + 1, posY + (int) position.y + y, posZ + z + (int) position.z, _leafType, update, true);
+                                    if (batch.getBlock(posX + (int) position.x + x + 1, posY + (int) position.y + y, posZ + z + (int) position.z) == 0x0)
+                                        batch.setBlock(posX + (int) position.x + x + 1, posY + (int) position.y + y, posZ + z + (int) position.z, _leafType, true);
 
-                                    if (_generatorManager.getParent().getBlock(posX + (int) position.x + x - 1, posY + (int) position.y + y, posZ + z + (int) position.z) == 0x0)
-                                        _generatorManager.getParent().setBlock(posX + (int) position.x + x - 1, posY + (int) position.y + y, posZ + z + (int) position.z, _leafType, update, true);
+                                    if (batch.getBlock(posX + (int) position.x + x - 1, posY + (int) position.y + y, posZ + z + (int) position.z) == 0x0)
+                                        batch.setBlock(posX + (int) position.x + x - 1, posY + (int) position.y + y, posZ + z + (int) position.z, _leafType, true);
 
-                                    if (_generatorManager.getParent().getBlock(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z + 1) == 0x0)
-                                        _generatorManager.getParent().setBlock(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z + 1, _leafType, update, true);
+                                    if (batch.getBlock(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z + 1) == 0x0)
+                                        batch.setBlock(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z + 1, _leafType, true);
 
-                                    if (_generatorManager.getParent().getBlock(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z - 1) == 0x0)
-                                        _generatorManager.getParent().setBlock(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z - 1, _leafType, update, true);
+                                    if (batch.getBlock(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z - 1) == 0x0)
+                                        batch.setBlock(posX + (int) position.x + x, posY + (int) position.y + y, posZ + z + (int) position.z - 1, _leafType, true);
 
                                 }
                             }
@@ -189,6 +193,8 @@ public class TreeGeneratorLSystem extends TreeGenerator {
                     break;
             }
         }
+
+        batch.commit();
     }
 
     public TreeGenerator withLeafType(byte b) {
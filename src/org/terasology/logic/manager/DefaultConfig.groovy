@@ -14,7 +14,7 @@ public class DefaultConfig {
     public DefaultConfig() {
         config.put("System.versionTag", "Pre Alpha")
         // Maximum amount of rendered particles
-        config.put("System.maxParticles", 256)
+        config.put("System.maxParticles", 4096)
         // Resolution of the textures used to render the clouds
         config.put("System.cloudResolution", new Vector2f(128, 128))
         // Time between cloud updates
@@ -26,9 +26,21 @@ public class DefaultConfig {
         // Maximum amount of chunks stored in the chunk cache
         // ~2048 is a good default value when using the largest viewing distance of 32 chunks
         config.put("System.chunkCacheSize", 2048)
+        // Amount of chunks kept when the chunk cache gets flushed, the farthest chunks are removed first
+        config.put("System.chunkCacheLowWatermark", 1792)
+        // Maximum amount of chunks waiting to be loaded in the background
+        config.put("System.chunkPrefetchQueueSize", 128)
+        // Amount of ticks the player's movement is extrapolated to predict which chunks to load in the background
+        config.put("System.chunkPrefetchLookahead", 60d)
         // Maximum amount of chunk VBOs kept in video memory
         // 512 chunks is a good default value for GPUs with ~1024 MB video memory using the largest viewing distance
         config.put("System.maxChunkVBOs", 512)
+        // Maximum amount of debris bodies created when removing blocks, the oldest bodies are reused first
+        config.put("System.maxDebrisBodies", 256)
+        // Maximum amount of debris bodies simulated at once, older bodies are put to sleep
+        config.put("System.maxActiveDebrisBodies", 96)
+        // Time in ms until debris bodies are removed
+        config.put("System.debrisLifetime", 10000)
 
         config.put("System.Debug.debug", false)
         config.put("System.Debug.debugCollision", false)
@@ -54,6 +66,9 @@ public class DefaultConfig {
         // Splits chunk meshes into multiple sub-meshes to support frustum and occlusion culling techniques
         config.put("Graphics.verticalChunkMeshSegments", 1)
 
+        // Merges adjacent opaque block faces into larger quads to reduce the vertex count of chunk meshes
+        config.put("Graphics.greedyMeshing", false)
+
         config.put("HUD.placingBox", true)
         config.put("Player.renderFirstPersonView", true)
 
@@ -69,6 +84,7 @@ public class DefaultConfig {
         config.put("Player.walkingSpeed", 0.025d)
         config.put("Player.runningFactor", 1.5d)
         config.put("Player.jumpIntensity", 0.16d)
+        config.put("Player.selectionRange", 3.0d)
 
         config.put("World.spawnOrigin", new Vector2f(-24429, 20547))
         config.put("World.defaultSeed", "Blockmania42")
@@ -16,10 +16,13 @@
 
 package org.terasology.logic.manager;
 
+import org.terasology.logic.entities.EntityIndex;
 import org.terasology.logic.entities.MovableEntity;
+import org.terasology.logic.world.Chunk;
 import org.terasology.rendering.world.WorldRenderer;
 
-import java.util.HashSet;
+import javax.vecmath.Vector3d;
+import java.util.ArrayList;
 
 /**
  * MobManager handles non-player entities that do stuff in the world
@@ -30,9 +33,15 @@ import java.util.HashSet;
 public class MobManager {
 
     /**
-     * Set that contains mobs
+     * The maximum distance between the position of a mob and the border of its AABB
      */
-    private final HashSet<MovableEntity> _mobStore = new HashSet<MovableEntity>();
+    private static final double MAX_MOB_EXTENT = 1.0;
+
+    /**
+     * Spatial index that contains mobs
+     */
+    private final EntityIndex<MovableEntity> _mobStore = new EntityIndex<MovableEntity>(Chunk.CHUNK_DIMENSION_X, MAX_MOB_EXTENT);
+    private final ArrayList<MovableEntity> _mobsInRange = new ArrayList<MovableEntity>();
     private final WorldRenderer _parent;
 
     /**
@@ -53,23 +62,61 @@ public class MobManager {
     }
 
     /**
-     * Loops through all mobs in the Set and calls their update() method
+     * Calls the update() method of all mobs in range of the player
      */
     public void updateAll() {
-        for (MovableEntity mob : _mobStore) {
-            if (_parent.isInRange(mob.getPosition()))
-                mob.update();
+        Vector3d playerPosition = _parent.getPlayer().getPosition();
+
+        _mobsInRange.clear();
+        _mobStore.queryRange(playerPosition.x, playerPosition.y, playerPosition.z, _parent.getEntityRange(), _mobsInRange);
+
+        for (int i = 0; i < _mobsInRange.size(); i++) {
+            MovableEntity mob = _mobsInRange.get(i);
+
+            mob.update();
+            _mobStore.update(mob);
         }
+
+        _mobsInRange.clear();
     }
 
     /**
-     * Loops through all mobs in the Set and calls their render() method
+     * Calls the render() method of all visible mobs in range of the player
      */
     public void renderAll() {
-        for (MovableEntity mob : _mobStore) {
-            if (_parent.isEntityVisible(mob) && _parent.isInRange(mob.getPosition()))
-                mob.render();
+        Vector3d playerPosition = _parent.getPlayer().getPosition();
+
+        _mobsInRange.clear();
+        _mobStore.queryFrustum(_parent.getPlayer().getActiveCamera().getViewFrustum(), playerPosition.x, playerPosition.y, playerPosition.z, _parent.getEntityRange(), _mobsInRange);
+
+        for (int i = 0; i < _mobsInRange.size(); i++) {
+            _mobsInRange.get(i).render();
         }
+
+        _mobsInRange.clear();
+    }
+
+    /**
+     * Returns the amount of mobs closer to the given position than the given radius.
+     *
+     * @param position The position
+     * @param radius   The radius
+     * @return The amount of mobs
+     */
+    public int countMobsInRange(Vector3d position, double radius) {
+        return _mobStore.countInRange(position.x, position.y, position.z, radius);
+    }
+
+    /**
+     * Returns the mob closest to the given position.
+     *
+     * @param position    The position
+     * @param maxDistance The maximum distance of the mob
+     * @param exclude     A mob which should not be returned, may be null
+     * @return The closest mob or null if no mob is within the maximum distance
+     */
+    public MovableEntity findNearestMob(Vector3d position, double maxDistance, MovableEntity exclude) {
+        return _mobStore.findNearest(position.x, position.y, position.z, maxDistance, exclude);
     }
 
     /**
@@ -33,6 +33,12 @@ import java.util.logging.Level;
  * @author Rasmus 'Cervator' Praestholm <cervator@gmail.com>
  */
 public class PortalManager {
+    /**
+     * Spawning is skipped if this many mobs are present within DENSITY_RADIUS around the spawning point
+     */
+    private static final int MAX_MOBS_IN_RADIUS = 8;
+    private static final double DENSITY_RADIUS = 16.0;
+
     /**
      * Set that contains Portals
      */
@@ -69,8 +75,13 @@ public class PortalManager {
         // 12.5% chance something will spawn locally to the portal - will get fancier later
         boolean spawn = _random.randomBoolean() && _random.randomBoolean() && _random.randomBoolean();
         if (spawn) {
+            Vector3d spawningPoint = new Vector3d(p.getBlockLocation().x, p.getBlockLocation().y - 1, p.getBlockLocation().z);
+
+            if (isCrowded(spawningPoint))
+                return false;
+
             GelatinousCube s = new GelatinousCube(_parent);
-            s.setSpawningPoint(new Vector3d(p.getBlockLocation().x, p.getBlockLocation().y - 1, p.getBlockLocation().z));
+            s.setSpawningPoint(spawningPoint);
             s.respawn();
             Terasology.getInstance().getLogger().log(Level.INFO, "Spawning local slime at " + s.getSpawningPoint());
             _parent.getMobManager().addMob(s);
@@ -91,13 +102,17 @@ public class PortalManager {
         // 25% change something will spawn in the wild around the portal - will get fancier later
         boolean spawn = _random.randomBoolean() && _random.randomBoolean();
         if (spawn) {
-            GelatinousCube s = new GelatinousCube(_parent);
-
             // Spawn some Gel. Cubes in the wilderness!
             Vector3d randomOffset = new Vector3d(_parent.getWorldProvider().getRandom().randomDouble(), 0, _parent.getWorldProvider().getRandom().randomDouble());
             randomOffset.scale(256);
 
-            s.setSpawningPoint(new Vector3d(p.getBlockLocation().x + randomOffset.x, p.getBlockLocation().y + 1, p.getBlockLocation().z + randomOffset.z));
+            Vector3d spawningPoint = new Vector3d(p.getBlockLocation().x + randomOffset.x, p.getBlockLocation().y + 1, p.getBlockLocation().z + randomOffset.z);
+
+            if (isCrowded(spawningPoint))
+                return false;
+
+            GelatinousCube s = new GelatinousCube(_parent);
+            s.setSpawningPoint(spawningPoint);
             s.respawn();
             Terasology.getInstance().getLogger().log(Level.INFO, "Spawning wild slime at " + s.getSpawningPoint());
             _parent.getMobManager().addMob(s);
@@ -105,6 +120,16 @@ public class PortalManager {
         return spawn;
     }
 
+    /**
+     * Checks if there are already enough mobs around the given spawning point
+     *
+     * @param spawningPoint the position a mob would be spawned at
+     * @return boolean indicating if spawning should be skipped
+     */
+    private boolean isCrowded(Vector3d spawningPoint) {
+        return _parent.getMobManager().countMobsInRange(spawningPoint, DENSITY_RADIUS) >= MAX_MOBS_IN_RADIUS;
+    }
+
     /**
      * A check for whether a new Portal is needed for a new world
      *
@@ -18,6 +18,7 @@ package org.terasology.logic.manager;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GLContext;
 import org.newdawn.slick.util.ResourceLoader;
 import org.terasology.game.Terasology;
 import org.terasology.model.blocks.Block;
@@ -44,7 +45,7 @@ public class ShaderManager {
 
     private static ShaderManager _instance = null;
 
-    private String _preProcessorPreamble = "#version 120 \n float TEXTURE_OFFSET = " + Block.TEXTURE_OFFSET + "; \n";
+    private String _preProcessorPreamble = "#version 120 \n";
     private String _includedFunctionsVertex = "", _includedFunctionsFragment = "";
 
     /**
@@ -71,6 +72,9 @@ public class ShaderManager {
     }
 
     private void initShaders() {
+        // Extensions have to be enabled before the first declaration
+        _preProcessorPreamble += GLContext.getCapabilities().GL_ARB_shader_texture_lod ? "#extension GL_ARB_shader_texture_lod : enable \n#define TEXTURE_GRAD \n" : "";
+        _preProcessorPreamble += " float TEXTURE_OFFSET = " + Block.TEXTURE_OFFSET + "; \n float TEXTURE_OFFSET_WIDTH = " + Block.TEXTURE_OFFSET_WIDTH + "; \n";
         _preProcessorPreamble += ((Boolean) ConfigurationManager.getInstance().getConfig().get("Graphics.animatedWaterAndGrass")) ? "#define ANIMATED_WATER_AND_GRASS \n" : "";
         _preProcessorPreamble += "#define GAMMA " + ConfigurationManager.getInstance().getConfig().get("Graphics.gamma").toString() + "\n";
 
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.manager;
+
+import org.terasology.performanceMonitor.PerformanceMonitor;
+
+import java.util.EnumMap;
+import java.util.concurrent.*;
+
+/**
+ * Executes background tasks. Each task category has its own fixed amount of worker threads and a bounded queue,
+ * so background work can not spawn an unbounded amount of threads competing with the render thread.
+ * <p/>
+ * Tasks submitted with a key are coalesced: If a task with an equal key is still waiting in the queue of the
+ * category, the new task is dropped. If the queue of a category is full, new tasks are either rejected or
+ * executed by the submitting thread, depending on the category.
+ * <p/>
+ * Queue sizes, rejected tasks and the time tasks spend waiting and running are recorded by the performance monitor.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class TaskManager {
+
+    public enum TASK_CATEGORY {
+        // Writing chunks must not be skipped, so the caller saves the chunks itself if the queue is full
+        CHUNK_STORAGE("Chunk Storage", 1, 16, true),
+        COLLISION("Collision", 1, 64, false),
+        SIMULATION("Simulation", 1, 8, false),
+        ENVIRONMENT("Environment", 1, 4, false);
+
+        private final String _title;
+        private final int _threads, _queueCapacity;
+        private final boolean _callerRunsWhenFull;
+
+        private TASK_CATEGORY(String title, int threads, int queueCapacity, boolean callerRunsWhenFull) {
+            _title = title;
+            _threads = threads;
+            _queueCapacity = queueCapacity;
+            _callerRunsWhenFull = callerRunsWhenFull;
+        }
+
+        public String getTitle() {
+            return _title;
+        }
+    }
+
+    private final EnumMap<TASK_CATEGORY, ThreadPoolExecutor> _executors = new EnumMap<TASK_CATEGORY, ThreadPoolExecutor>(TASK_CATEGORY.class);
+    private final EnumMap<TASK_CATEGORY, ConcurrentHashMap<Object, Boolean>> _queuedKeys = new EnumMap<TASK_CATEGORY, ConcurrentHashMap<Object, Boolean>>(TASK_CATEGORY.class);
+
+    /**
+     * A queued task. Measures the time the task spent in the queue and the time it took to execute.
+     */
+    private final class Task implements Runnable {
+        private final TASK_CATEGORY _category;
+        private final String _name;
+        private final Object _key;
+        private final Runnable _task;
+        private final long _queueTime = System.nanoTime();
+
+        private Task(TASK_CATEGORY category, String name, Object key, Runnable task) {
+            _category = category;
+            _name = name;
+            _key = key;
+            _task = task;
+        }
+
+        public void run() {
+            // Submitting the same task again from now on has to queue a new run
+            if (_key != null)
+                _queuedKeys.get(_category).remove(_key);
+
+            long startTime = System.nanoTime();
+            PerformanceMonitor.startThread(_name);
+
+            try {
+                _task.run();
+            } finally {
+                PerformanceMonitor.endThread(_name);
+                PerformanceMonitor.taskExecuted(_category.getTitle(), _executors.get(_category).getQueue().size(), (startTime - _queueTime) / 1000000.0, (System.nanoTime() - startTime) / 1000000.0);
+            }
+        }
+    }
+
+    /**
+     * Init. the worker threads of all task categories.
+     */
+    public TaskManager() {
+        for (final TASK_CATEGORY category : TASK_CATEGORY.values()) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(category._threads, category._threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(category._queueCapacity), new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, category.getTitle());
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            });
+
+            _executors.put(category, executor);
+            _queuedKeys.put(category, new ConcurrentHashMap<Object, Boolean>());
+        }
+    }
+
+    /**
+     * Submits a task.
+     *
+     * @param category The category of the task
+     * @param name     The name of the task
+     * @param task     The task
+     * @return True if the task has been accepted
+     */
+    public boolean submit(TASK_CATEGORY category, String name, Runnable task) {
+        return submit(category, name, null, task);
+    }
+
+    /**
+     * Submits a task which is dropped if a task with an equal key is already waiting to be executed.
+     *
+     * @param category The category of the task
+     * @param name     The name of the task
+     * @param key      The key used to coalesce tasks, null if the task should never be coalesced
+     * @param task     The task
+     * @return True if the task has been accepted or an equal task is already queued
+     */
+    public boolean submit(TASK_CATEGORY category, String name, Object key, Runnable task) {
+        if (key != null && _queuedKeys.get(category).putIfAbsent(key, Boolean.TRUE) != null)
+            return true;
+
+        ThreadPoolExecutor executor = _executors.get(category);
+        Task queuedTask = new Task(category, name, key, task);
+
+        try {
+            executor.execute(queuedTask);
+        } catch (RejectedExecutionException e) {
+            PerformanceMonitor.taskRejected(category.getTitle());
+
+            if (category._callerRunsWhenFull) {
+                queuedTask.run();
+                return true;
+            }
+
+            if (key != null)
+                _queuedKeys.get(category).remove(key);
+
+            return false;
+        }
+
+        PerformanceMonitor.taskQueued(category.getTitle(), executor.getQueue().size());
+        return true;
+    }
+
+    /**
+     * Returns the amount of tasks currently being executed.
+     *
+     * @return The amount of active tasks
+     */
+    public int activeTasks() {
+        int result = 0;
+
+        for (ThreadPoolExecutor executor : _executors.values())
+            result += executor.getActiveCount();
+
+        return result;
+    }
+
+    /**
+     * Executes all queued tasks and stops the worker threads afterwards. Blocks until all tasks are done.
+     */
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor executor : _executors.values())
+            executor.shutdown();
+
+        for (ThreadPoolExecutor executor : _executors.values())
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+}
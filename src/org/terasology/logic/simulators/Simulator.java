@@ -16,11 +16,14 @@
 package org.terasology.logic.simulators;
 
 import org.terasology.game.Terasology;
+import org.terasology.logic.manager.TaskManager;
+import org.terasology.logic.world.Chunk;
 import org.terasology.logic.world.IBlockObserver;
 import org.terasology.logic.world.IWorldProvider;
 import org.terasology.model.structures.BlockPosition;
 
 import java.util.HashSet;
+import java.util.List;
 
 /**
  * Base class for all simulators.
@@ -72,7 +75,9 @@ public abstract class Simulator implements IBlockObserver {
             }
         };
 
-        Terasology.getInstance().submitTask(_name + "Complete", r);
+        // Nothing will reset the flag if the task is rejected
+        if (!Terasology.getInstance().submitTask(TaskManager.TASK_CATEGORY.SIMULATION, _name + "Complete", r))
+            _running = false;
     }
 
     public boolean simulate(boolean force) {
@@ -93,7 +98,10 @@ public abstract class Simulator implements IBlockObserver {
                 }
             };
 
-            Terasology.getInstance().submitTask(_name, r);
+            if (!Terasology.getInstance().submitTask(TaskManager.TASK_CATEGORY.SIMULATION, _name, r)) {
+                _running = false;
+                return false;
+            }
 
             _lastUpdate = currentTime;
             return true;
@@ -102,6 +110,14 @@ public abstract class Simulator implements IBlockObserver {
         return false;
     }
 
+    public void blocksChanged(Chunk chunk, List<BlockPosition> placed, List<BlockPosition> removed, boolean update) {
+        for (BlockPosition pos : placed)
+            blockPlaced(chunk, pos, update);
+
+        for (BlockPosition pos : removed)
+            blockRemoved(chunk, pos, update);
+    }
+
     public void clear() {
         _activeBlocks.clear();
     }
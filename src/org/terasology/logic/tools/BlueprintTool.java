@@ -18,6 +18,7 @@ package org.terasology.logic.tools;
 import org.terasology.game.Terasology;
 import org.terasology.logic.characters.Player;
 import org.terasology.logic.manager.BlueprintManager;
+import org.terasology.logic.world.BlockEditBatch;
 import org.terasology.model.inventory.ItemBlueprint;
 import org.terasology.model.structures.BlockPosition;
 import org.terasology.model.structures.RayBlockIntersection;
@@ -44,7 +45,8 @@ public class BlueprintTool extends SimpleTool {
             if (bpItem.getBlueprint() == null) {
                 addBlock(selectedBlock.getBlockPosition());
             } else {
-                bpItem.getBlueprint().build(_player.getParent().getWorldProvider(), selectedBlock.getBlockPosition());
+                BlockEditBatch batch = bpItem.getBlueprint().build(_player.getParent().getWorldProvider(), selectedBlock.getBlockPosition());
+                _player.notifyObserversBlocksChanged(batch, true);
             }
         }
     }
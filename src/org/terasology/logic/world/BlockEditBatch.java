@@ -0,0 +1,219 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.terasology.model.structures.BlockPosition;
+import org.terasology.utilities.MathHelper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.List;
+
+/**
+ * Collects many block changes and updates the light and meshes of the world once they are committed.
+ * <p/>
+ * The blocks are placed right away, so reading blocks through the batch or the world returns the changed
+ * blocks already. Marking the meshes dirty and updating the light is deferred until "commit" is called,
+ * which handles all changes of a chunk at once, no matter how many blocks have been changed.
+ * <p/>
+ * Batches are not thread-safe and should only be used by the thread which created them.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class BlockEditBatch {
+
+    private final LocalWorldProvider _parent;
+    private final boolean _updateLight;
+
+    private final LinkedHashMap<Chunk, ChunkEdits> _edits = new LinkedHashMap<Chunk, ChunkEdits>();
+    private int _changeCount;
+    private boolean _committed;
+
+    /* CHUNK CACHE */
+    private Chunk _lastChunk;
+    private int _lastChunkX, _lastChunkZ;
+
+    /**
+     * The changed blocks of a single chunk and the box containing them.
+     */
+    private static final class ChunkEdits {
+        int[] positions = new int[64];
+        int count;
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+        void add(int x, int y, int z) {
+            if (count == positions.length) {
+                int[] grown = new int[positions.length * 2];
+                System.arraycopy(positions, 0, grown, 0, count);
+                positions = grown;
+            }
+
+            positions[count++] = LightPropagator.packLocalPosition(x, y, z);
+
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+    }
+
+    /**
+     * Init. a new batch. Use IWorldProvider.beginEditBatch() to open a batch.
+     *
+     * @param parent      The world the blocks are placed in
+     * @param updateLight Update light values on commit
+     */
+    BlockEditBatch(LocalWorldProvider parent, boolean updateLight) {
+        _parent = parent;
+        _updateLight = updateLight;
+    }
+
+    /**
+     * Returns the block at the given position.
+     *
+     * @param x The X-coordinate
+     * @param y The Y-coordinate
+     * @param z The Z-coordinate
+     * @return The type of the block
+     */
+    public byte getBlock(int x, int y, int z) {
+        Chunk c = getChunk(x, z);
+        return c.getBlock(x - _lastChunkX * Chunk.CHUNK_DIMENSION_X, y, z - _lastChunkZ * Chunk.CHUNK_DIMENSION_Z);
+    }
+
+    /**
+     * Places a block of a specific type at a given position.
+     *
+     * @param x         The X-coordinate
+     * @param y         The Y-coordinate
+     * @param z         The Z-coordinate
+     * @param type      The type of the block to set
+     * @param overwrite If true currently present blocks get replaced
+     * @return True if the block was changed
+     */
+    public boolean setBlock(int x, int y, int z, byte type, boolean overwrite) {
+        Chunk c = getChunk(x, z);
+        return setLocalBlock(c, x - _lastChunkX * Chunk.CHUNK_DIMENSION_X, y, z - _lastChunkZ * Chunk.CHUNK_DIMENSION_Z, type, overwrite);
+    }
+
+    /**
+     * Places a block at the given local position of the given chunk.
+     */
+    boolean setLocalBlock(Chunk c, int x, int y, int z, byte type, boolean overwrite) {
+        if (_committed)
+            throw new IllegalStateException("The batch has been committed already.");
+
+        if (!overwrite && c.getBlock(x, y, z) != 0x0)
+            return false;
+
+        if (!c.setBlockValue(x, y, z, type))
+            return false;
+
+        ChunkEdits edits = _edits.get(c);
+
+        if (edits == null) {
+            edits = new ChunkEdits();
+            _edits.put(c, edits);
+        }
+
+        edits.add(x, y, z);
+        _changeCount++;
+
+        return true;
+    }
+
+    /**
+     * Marks the meshes of all changed chunks dirty and updates the light of the changed blocks.
+     * The batch can not be used to change blocks afterwards.
+     */
+    public void commit() {
+        if (_committed)
+            return;
+
+        _committed = true;
+        _lastChunk = null;
+
+        for (Map.Entry<Chunk, ChunkEdits> entry : _edits.entrySet()) {
+            Chunk c = entry.getKey();
+            ChunkEdits edits = entry.getValue();
+
+            c.markRegionDirty(edits.minX, edits.minY, edits.minZ, edits.maxX, edits.maxY, edits.maxZ);
+
+            if (_updateLight)
+                _parent.getLightPropagator().relightBlocks(c, edits.positions, edits.count);
+        }
+    }
+
+    /**
+     * Notifies the given observers of the committed changes, once for every changed chunk.
+     *
+     * @param observers The observers
+     * @param update    Passed on to the observers
+     */
+    public void notifyObservers(List<IBlockObserver> observers, boolean update) {
+        if (observers.isEmpty())
+            return;
+
+        for (Map.Entry<Chunk, ChunkEdits> entry : _edits.entrySet()) {
+            Chunk c = entry.getKey();
+            ChunkEdits edits = entry.getValue();
+
+            ArrayList<BlockPosition> placed = new ArrayList<BlockPosition>();
+            ArrayList<BlockPosition> removed = new ArrayList<BlockPosition>();
+
+            for (int i = 0; i < edits.count; i++) {
+                int x = LightPropagator.unpackLocalX(edits.positions[i]);
+                int y = LightPropagator.unpackLocalY(edits.positions[i]);
+                int z = LightPropagator.unpackLocalZ(edits.positions[i]);
+
+                BlockPosition pos = new BlockPosition(c.getBlockWorldPosX(x), y, c.getBlockWorldPosZ(z));
+
+                if (c.getBlock(x, y, z) == 0x0)
+                    removed.add(pos);
+                else
+                    placed.add(pos);
+            }
+
+            for (IBlockObserver observer : observers)
+                observer.blocksChanged(c, placed, removed, update);
+        }
+    }
+
+    /**
+     * Returns the amount of blocks changed using this batch.
+     */
+    public int size() {
+        return _changeCount;
+    }
+
+    private Chunk getChunk(int x, int z) {
+        int chunkPosX = MathHelper.calcChunkPosX(x);
+        int chunkPosZ = MathHelper.calcChunkPosZ(z);
+
+        if (_lastChunk == null || _lastChunkX != chunkPosX || _lastChunkZ != chunkPosZ) {
+            _lastChunk = _parent.getChunkProvider().loadOrCreateChunk(chunkPosX, chunkPosZ);
+            _lastChunkX = chunkPosX;
+            _lastChunkZ = chunkPosZ;
+        }
+
+        return _lastChunk;
+    }
+}
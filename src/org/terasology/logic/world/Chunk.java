@@ -25,13 +25,14 @@ import com.bulletphysics.linearmath.Transform;
 import org.lwjgl.opengl.GL11;
 import org.terasology.game.Terasology;
 import org.terasology.logic.entities.StaticEntity;
-import org.terasology.logic.generators.ChunkGenerator;
 import org.terasology.logic.manager.ConfigurationManager;
 import org.terasology.logic.manager.ShaderManager;
+import org.terasology.logic.manager.TaskManager;
 import org.terasology.model.blocks.Block;
 import org.terasology.model.blocks.management.BlockManager;
 import org.terasology.model.structures.AABB;
 import org.terasology.model.structures.TeraArray;
+import org.terasology.model.structures.TeraPaletteArray;
 import org.terasology.model.structures.TeraSmartArray;
 import org.terasology.rendering.primitives.ChunkMesh;
 import org.terasology.rendering.primitives.ChunkTessellator;
@@ -49,8 +50,11 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.ArrayList;
-import java.util.concurrent.locks.ReentrantLock;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 /**
@@ -73,37 +77,79 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     public static final int CHUNK_DIMENSION_X = 16;
     public static final int CHUNK_DIMENSION_Y = 256;
     public static final int CHUNK_DIMENSION_Z = 16;
+    public static final int CHUNK_SECTION_HEIGHT = 16;
     public static final int VERTICAL_SEGMENTS = (Integer) ConfigurationManager.getInstance().getConfig().get("Graphics.verticalChunkMeshSegments");
-    private static final Vector3d[] LIGHT_DIRECTIONS = {new Vector3d(1, 0, 0), new Vector3d(-1, 0, 0), new Vector3d(0, 1, 0), new Vector3d(0, -1, 0), new Vector3d(0, 0, 1), new Vector3d(0, 0, -1)};
+    public static final int SEGMENT_HEIGHT = CHUNK_DIMENSION_Y / VERTICAL_SEGMENTS;
+
+    private static final int HEIGHTMAP_SURFACE = 0, HEIGHTMAP_OPAQUE = 1, HEIGHTMAP_COVER = 2;
+
+    /**
+     * The generation stages of a chunk. See ChunkGenerationPipeline for the dependencies between the stages.
+     */
+    public enum GENERATION_STAGE {
+        EMPTY, TERRAIN, FLORA, COMPLETE
+    }
 
     protected FastRandom _random;
     /* ------ */
-    protected boolean _dirty, _lightDirty, _fresh;
+    protected boolean _dirty, _lightDirty;
+    // True if the chunk differs from the version stored on disk
+    private volatile boolean _modified = true;
+    private volatile GENERATION_STAGE _generationStage = GENERATION_STAGE.EMPTY;
+    private final Object _generationLock = new Object();
+    private long _dirtySegments;
     /* ------ */
     protected LocalWorldProvider _parent;
     /* ------ */
-    protected final TeraArray _blocks;
-    protected final TeraSmartArray _sunlight, _light, _states;
+    protected final TeraPaletteArray _blocks, _sunlight, _light, _states;
+    /* ------ */
+    private final short[] _surfaceHeights, _opaqueHeights, _coverHeights;
     /* ------ */
-    private ChunkMesh _activeMeshes[];
-    private ChunkMesh _newMeshes[];
+    private volatile MeshSet _activeMeshes, _latestMeshes;
+    private final AtomicReference<MeshSet> _newMeshes = new AtomicReference<MeshSet>();
+    private final Object _meshLock = new Object();
+    private final AtomicLong _meshGeneration = new AtomicLong();
     /* ------ */
     private final ChunkTessellator _tessellator;
     /* ------ */
-    private boolean _disposed = false;
+    private volatile boolean _disposed = false;
     /* ----- */
     private AABB _aabb = null;
     private AABB[] _subMeshAABB = null;
     /* ----- */
     private RigidBody _rigidBody = null;
     /* ----- */
-    private ReentrantLock _lock = new ReentrantLock();
+    private static final ConcurrentLinkedQueue<ChunkMesh> _retiredMeshes = new ConcurrentLinkedQueue<ChunkMesh>();
 
     public enum LIGHT_TYPE {
         BLOCK,
         SUN
     }
 
+    /**
+     * The meshes of all vertical segments of one tessellation pass. Mesh sets are never modified
+     * after they have been published, newer generations replace older ones as a whole. Meshes of
+     * segments which did not change are shared with the previous generation.
+     */
+    private static final class MeshSet {
+        private final ChunkMesh[] _meshes;
+        private final long _generation;
+
+        private MeshSet(ChunkMesh[] meshes, long generation) {
+            _meshes = meshes;
+            _generation = generation;
+        }
+
+        private boolean isGenerated() {
+            for (ChunkMesh mesh : _meshes) {
+                if (mesh.isDisposed() || !mesh.isGenerated())
+                    return false;
+            }
+
+            return true;
+        }
+    }
+
     public static int getChunkIdForPosition(Vector3d position) {
         return MathHelper.cantorize(MathHelper.mapToPositive((int) position.x), MathHelper.mapToPositive((int) position.z));
     }
@@ -111,10 +157,17 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     public Chunk() {
         _tessellator = new ChunkTessellator(this);
 
-        _blocks = new TeraArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
-        _sunlight = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
-        _light = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
-        _states = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        _blocks = new TeraPaletteArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z, CHUNK_SECTION_HEIGHT);
+        _sunlight = new TeraPaletteArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z, CHUNK_SECTION_HEIGHT);
+        _light = new TeraPaletteArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z, CHUNK_SECTION_HEIGHT);
+        _states = new TeraPaletteArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z, CHUNK_SECTION_HEIGHT);
+
+        _surfaceHeights = new short[CHUNK_DIMENSION_X * CHUNK_DIMENSION_Z];
+        _opaqueHeights = new short[CHUNK_DIMENSION_X * CHUNK_DIMENSION_Z];
+        _coverHeights = new short[CHUNK_DIMENSION_X * CHUNK_DIMENSION_Z];
+        Arrays.fill(_surfaceHeights, (short) -1);
+        Arrays.fill(_opaqueHeights, (short) -1);
+        Arrays.fill(_coverHeights, (short) -1);
 
         setLightDirty(true);
         setDirty(true);
@@ -139,23 +192,13 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     }
 
     /**
-     * Tries to load a chunk from disk. If the chunk is not present,
-     * it is created from scratch.
+     * Executes all remaining generation stages of this chunk. The neighbors of the chunk are
+     * generated as far as needed by the generation stages.
      *
      * @return True if a generation has been executed
      */
     public boolean generate() {
-        if (isFresh()) {
-            for (ChunkGenerator gen : _parent.getGeneratorManager().getChunkGenerators()) {
-                gen.generate(this);
-            }
-
-            generateSunlight();
-            setFresh(false);
-
-            return true;
-        }
-        return false;
+        return _parent.getGenerationPipeline().generate(this);
     }
 
     /**
@@ -165,31 +208,27 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         if (isFresh() || !isLightDirty())
             return;
 
-        for (int x = 0; x < CHUNK_DIMENSION_X; x++) {
-            for (int z = 0; z < CHUNK_DIMENSION_Z; z++) {
-                for (int y = CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
-                    byte blockValue = getBlock(x, y, z);
-                    byte lightValue = getLight(x, y, z, LIGHT_TYPE.SUN);
-
-                    if (!BlockManager.getInstance().getBlock(blockValue).isTranslucent()) {
-                        continue;
-                    }
-
-                    // Spread the sunlight in translucent blocks with a light value greater than zero.
-                    if (lightValue > 0) {
-                        spreadLight(x, y, z, lightValue, LIGHT_TYPE.SUN);
-                    }
-                }
-            }
-        }
+        // Spread the sunlight in translucent blocks with a light value greater than zero.
+        getParent().getLightPropagator().spreadSunlight(this);
 
         setLightDirty(false);
+        compact();
+    }
+
+    /**
+     * Releases the memory of unused values within the block, light and state arrays.
+     */
+    public void compact() {
+        _blocks.compact();
+        _sunlight.compact();
+        _light.compact();
+        _states.compact();
     }
 
     /**
      * Generates the initial sunlight.
      */
-    private void generateSunlight() {
+    void generateSunlight() {
         for (int x = 0; x < CHUNK_DIMENSION_X; x++) {
             for (int z = 0; z < CHUNK_DIMENSION_Z; z++) {
                 refreshSunlightAtLocalPos(x, z, false, false);
@@ -206,50 +245,23 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
      * @param refreshSunlight Refreshes the sunlight using the surrounding chunks when the light value is lower than before
      */
     public void refreshSunlightAtLocalPos(int x, int z, boolean spreadLight, boolean refreshSunlight) {
-        boolean covered = false;
-
-        for (int y = CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
-            byte blockId = _blocks.get(x, y, z);
-            Block b = BlockManager.getInstance().getBlock(blockId);
-
-            // Remember if this "column" is covered
-            if ((!b.isInvisible() && b.getBlockForm() != Block.BLOCK_FORM.BILLBOARD) && !covered) {
-                covered = true;
-            }
-
-            byte oldValue = _sunlight.get(x, y, z);
-            byte newValue;
-
-            // If the column is not covered...
-            if (!covered) {
-                if (b.isInvisible() || b.getBlockForm() == Block.BLOCK_FORM.BILLBOARD)
-                    _sunlight.set(x, y, z, (byte) 15);
-                else
-                    _sunlight.set(x, y, z, (byte) 0x0);
+        if (spreadLight) {
+            getParent().getLightPropagator().refreshSunlightColumn(this, x, z, refreshSunlight);
+            return;
+        }
 
-                newValue = _sunlight.get(x, y, z);
+        int coverHeight = getCoverHeight(x, z);
 
-                // Otherwise the column is covered. Don't generate any light in the cells...
+        for (int y = CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
+            // Only uncovered cells receive direct sunlight
+            if (y > coverHeight) {
+                _sunlight.set(x, y, z, (byte) 15);
             } else {
                 _sunlight.set(x, y, z, (byte) 0);
 
-                // Update the sunlight at the current position (check the surrounding cells)
                 if (refreshSunlight) {
                     refreshLightAtLocalPos(x, y, z, LIGHT_TYPE.SUN);
                 }
-
-                newValue = _sunlight.get(x, y, z);
-            }
-
-
-            if (spreadLight && oldValue > newValue)
-                unspreadLight(x, y, z, oldValue, Chunk.LIGHT_TYPE.SUN);
-            else if (spreadLight && oldValue < newValue) {
-                /*
-                * Spread sunlight if the new light value is more intense
-                * than the old value.
-                */
-                spreadLight(x, y, z, newValue, LIGHT_TYPE.SUN);
             }
         }
     }
@@ -295,56 +307,21 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     }
 
     /**
-     * Recursive light calculation.
+     * Removes the light which was spread from the given position and fills the darkened
+     * area from the remaining light sources.
      *
      * @param x          Local block position on the x-axis
      * @param y          Local block position on the y-axis
      * @param z          Local block position on the z-axis
-     * @param lightValue The light value used to spread the light
+     * @param lightValue The light value the light was spread with
      * @param type       The type of the light
      */
     public void unspreadLight(int x, int y, int z, byte lightValue, LIGHT_TYPE type) {
-        ArrayList<Vector3d> brightSpots = new ArrayList<Vector3d>();
-        unspreadLight(x, y, z, lightValue, 0, type, brightSpots);
-
-        for (Vector3d pos : brightSpots) {
-            getParent().spreadLight((int) pos.x, (int) pos.y, (int) pos.z, _parent.getLight((int) pos.x, (int) pos.y, (int) pos.z, type), 0, type);
-        }
-    }
-
-    /**
-     * Recursive light calculation.
-     *
-     * @param x           Local block position on the x-axis
-     * @param y           Local block position on the y-axis
-     * @param z           Local block position on the z-axis
-     * @param lightValue  The light value used to spread the light
-     * @param depth       Depth of the recursion
-     * @param type        The type of the light
-     * @param brightSpots Log of light spots, which where brighter than the current light node
-     */
-    public void unspreadLight(int x, int y, int z, byte lightValue, int depth, LIGHT_TYPE type, ArrayList<Vector3d> brightSpots) {
-        int blockPosX = getBlockWorldPosX(x);
-        int blockPosZ = getBlockWorldPosZ(z);
-
-        // Remove the light at this point
-        getParent().setLight(blockPosX, y, blockPosZ, (byte) 0x0, type);
-
-        for (int i = 0; i < 6; i++) {
-
-            byte neighborValue = getParent().getLight(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z, type);
-            byte neighborType = getParent().getBlock(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z);
-
-            if (neighborValue < lightValue && neighborValue > 0 && BlockManager.getInstance().getBlock(neighborType).isTranslucent()) {
-                getParent().unspreadLight(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z, (byte) (lightValue - 1), depth + 1, type, brightSpots);
-            } else if (neighborValue >= lightValue) {
-                brightSpots.add(new Vector3d(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z));
-            }
-        }
+        getParent().getLightPropagator().unspreadLight(getBlockWorldPosX(x), y, getBlockWorldPosZ(z), lightValue, type);
     }
 
     /**
-     * Recursive light calculation.
+     * Spreads the light at the given position into its surroundings.
      *
      * @param x          Local block position on the x-axis
      * @param y          Local block position on the y-axis
@@ -353,40 +330,10 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
      * @param type       The type of the light
      */
     public void spreadLight(int x, int y, int z, byte lightValue, LIGHT_TYPE type) {
-        spreadLight(x, y, z, lightValue, 0, type);
-    }
-
-    /**
-     * Recursive light calculation.
-     *
-     * @param x          Local block position on the x-axis
-     * @param y          Local block position on the y-axis
-     * @param z          Local block position on the z-axis
-     * @param lightValue The light value used to spread the light
-     * @param depth      Depth of the recursion
-     * @param type       The type of the light
-     */
-    public void spreadLight(int x, int y, int z, byte lightValue, int depth, LIGHT_TYPE type) {
-        if (depth > lightValue || lightValue - depth < 1) {
-            return;
-        }
-
-        int blockPosX = getBlockWorldPosX(x);
-        int blockPosZ = getBlockWorldPosZ(z);
-
-        byte newLightValue;
-        newLightValue = (byte) (lightValue - depth);
-
-        getParent().setLight(blockPosX, y, blockPosZ, newLightValue, type);
-
-        for (int i = 0; i < 6; i++) {
-            byte neighborValue = getParent().getLight(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z, type);
-            byte neighborType = getParent().getBlock(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z);
+        if (getLight(x, y, z, type) < lightValue)
+            setLight(x, y, z, lightValue, type);
 
-            if (neighborValue < newLightValue - 1 && BlockManager.getInstance().getBlock(neighborType).isTranslucent()) {
-                getParent().spreadLight(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z, lightValue, depth + 1, type);
-            }
-        }
+        getParent().getLightPropagator().spreadLight(getBlockWorldPosX(x), y, getBlockWorldPosZ(z), type);
     }
 
     /**
@@ -424,7 +371,7 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
      * @param type      The type of the light
      */
     public void setLight(int x, int y, int z, byte intensity, LIGHT_TYPE type) {
-        TeraSmartArray lSource;
+        TeraPaletteArray lSource;
         if (type == LIGHT_TYPE.SUN) {
             lSource = _sunlight;
         } else if (type == LIGHT_TYPE.BLOCK) {
@@ -437,9 +384,25 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         lSource.set(x, y, z, intensity);
 
         if (oldValue != intensity) {
-            setDirty(true);
-            // Mark the neighbors as dirty
-            markNeighborsDirty(x, z);
+            markModified();
+
+            // Vertex lighting samples the blocks above and below a face too
+            setDirty(y - 1, y + 1);
+            markNeighborsDirty(x, y, z);
+        }
+    }
+
+    /**
+     * Sets the light value at the given position without marking anything dirty. Used by the
+     * light propagator, which marks the affected segments once it is done.
+     */
+    void setLightValue(int x, int y, int z, byte intensity, LIGHT_TYPE type) {
+        markModified();
+
+        if (type == LIGHT_TYPE.SUN) {
+            _sunlight.set(x, y, z, intensity);
+        } else {
+            _light.set(x, y, z, intensity);
         }
     }
 
@@ -473,13 +436,49 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         return _states.get(x, y, z);
     }
 
+    /**
+     * Returns true if no opaque block is placed above the given position.
+     *
+     * @param x Local block position on the x-axis
+     * @param y Local block position on the y-axis
+     * @param z Local block position on the z-axis
+     * @return True if the sky is visible
+     */
     public boolean canBlockSeeTheSky(int x, int y, int z) {
-        for (int y1 = y + 1; y1 < CHUNK_DIMENSION_Y; y1++) {
-            if (!BlockManager.getInstance().getBlock(getBlock(x, y1, z)).isTranslucent())
-                return false;
-        }
+        return y >= getOpaqueHeight(x, z);
+    }
 
-        return true;
+    /**
+     * Returns the height of the highest non-air block of the given column.
+     *
+     * @param x Local block position on the x-axis
+     * @param z Local block position on the z-axis
+     * @return The height or -1 if the column is empty
+     */
+    public int getSurfaceHeight(int x, int z) {
+        return _surfaceHeights[heightmapIndex(x, z)];
+    }
+
+    /**
+     * Returns the height of the highest opaque block of the given column.
+     *
+     * @param x Local block position on the x-axis
+     * @param z Local block position on the z-axis
+     * @return The height or -1 if the column contains no opaque blocks
+     */
+    public int getOpaqueHeight(int x, int z) {
+        return _opaqueHeights[heightmapIndex(x, z)];
+    }
+
+    /**
+     * Returns the height of the highest block of the given column which blocks direct sunlight.
+     *
+     * @param x Local block position on the x-axis
+     * @param z Local block position on the z-axis
+     * @return The height or -1 if the whole column receives direct sunlight
+     */
+    public int getCoverHeight(int x, int z) {
+        return _coverHeights[heightmapIndex(x, z)];
     }
 
     /**
@@ -494,14 +493,105 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         byte oldValue = _blocks.get(x, y, z);
         _blocks.set(x, y, z, type);
 
-        if (oldValue != type) {
-            // Update vertex arrays and light
-            setDirty(true);
-            // Mark the neighbors as dirty
-            markNeighborsDirty(x, z);
+        if (oldValue != type && oldValue != -1) {
+            markModified();
+            updateHeightmaps(x, y, z, type);
+
+            // Update the segments containing the block and its upper and lower neighbor
+            setDirty(y - 1, y + 1);
+            markNeighborsDirty(x, y, z);
         }
     }
 
+    /**
+     * Sets the block value at the given position without marking anything dirty. Used by bulk
+     * edits, which mark the affected segments once they are done.
+     *
+     * @return True if the block changed
+     */
+    boolean setBlockValue(int x, int y, int z, byte type) {
+        byte oldValue = _blocks.get(x, y, z);
+
+        if (oldValue == type || oldValue == -1)
+            return false;
+
+        _blocks.set(x, y, z, type);
+        markModified();
+        updateHeightmaps(x, y, z, type);
+
+        return true;
+    }
+
+    /**
+     * Updates the heightmaps of the column after the block at the given position changed.
+     */
+    private void updateHeightmaps(int x, int y, int z, byte type) {
+        Block b = BlockManager.getInstance().getBlock(type);
+        int i = heightmapIndex(x, z);
+
+        updateHeight(_surfaceHeights, i, x, y, z, type != 0x0, HEIGHTMAP_SURFACE);
+        updateHeight(_opaqueHeights, i, x, y, z, !b.isTranslucent(), HEIGHTMAP_OPAQUE);
+        updateHeight(_coverHeights, i, x, y, z, isCovering(b), HEIGHTMAP_COVER);
+    }
+
+    private void updateHeight(short[] heights, int i, int x, int y, int z, boolean matches, int heightmap) {
+        if (matches) {
+            if (y > heights[i])
+                heights[i] = (short) y;
+        } else if (y == heights[i]) {
+            // The highest block was removed, so search for the next one below
+            heights[i] = (short) findHeight(x, y - 1, z, heightmap);
+        }
+    }
+
+    private int findHeight(int x, int startY, int z, int heightmap) {
+        for (int y = startY; y >= 0; y--) {
+            byte type = getBlock(x, y, z);
+
+            switch (heightmap) {
+                case HEIGHTMAP_SURFACE:
+                    if (type != 0x0)
+                        return y;
+                    break;
+                case HEIGHTMAP_OPAQUE:
+                    if (!BlockManager.getInstance().getBlock(type).isTranslucent())
+                        return y;
+                    break;
+                default:
+                    if (isCovering(BlockManager.getInstance().getBlock(type)))
+                        return y;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Recalculates all heightmaps from the block data.
+     */
+    private void rebuildHeightmaps() {
+        for (int x = 0; x < CHUNK_DIMENSION_X; x++) {
+            for (int z = 0; z < CHUNK_DIMENSION_Z; z++) {
+                int i = heightmapIndex(x, z);
+
+                _surfaceHeights[i] = (short) findHeight(x, CHUNK_DIMENSION_Y - 1, z, HEIGHTMAP_SURFACE);
+                _opaqueHeights[i] = (short) findHeight(x, _surfaceHeights[i], z, HEIGHTMAP_OPAQUE);
+                _coverHeights[i] = (short) findHeight(x, _surfaceHeights[i], z, HEIGHTMAP_COVER);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given block prevents direct sunlight from reaching the blocks below.
+     */
+    private static boolean isCovering(Block b) {
+        return !b.isInvisible() && b.getBlockForm() != Block.BLOCK_FORM.BILLBOARD;
+    }
+
+    private static int heightmapIndex(int x, int z) {
+        return x * CHUNK_DIMENSION_Z + z;
+    }
+
     /**
      * Sets the state value at the given position.
      *
@@ -511,7 +601,10 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
      * @param type The block type
      */
     public void setState(int x, int y, int z, byte type) {
-        _states.set(x, y, z, type);
+        if (_states.get(x, y, z) != type) {
+            markModified();
+            _states.set(x, y, z, type);
+        }
     }
 
     /**
@@ -550,45 +643,72 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     }
 
     /**
-     * Marks those neighbors of a chunk dirty, that are adjacent to
+     * Marks the segments of those neighbors of a chunk dirty, that are adjacent to
      * the given block coordinate.
      *
      * @param x Local block position on the x-axis
+     * @param y Local block position on the y-axis
      * @param z Local block position on the z-axis
      */
-    private void markNeighborsDirty(int x, int z) {
+    private void markNeighborsDirty(int x, int y, int z) {
+        markNeighborsDirty(x, y - 1, z, x, y + 1, z);
+    }
+
+    /**
+     * Marks the segments intersecting the given box dirty, including the segments of
+     * those neighbors which are adjacent to the box. The height range is widened by one
+     * block in both directions, since vertex lighting samples the blocks above and below a face too.
+     * Used by bulk edits, which change the blocks without marking anything dirty.
+     */
+    void markRegionDirty(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        setDirty(minY - 1, maxY + 1);
+        markNeighborsDirty(minX, minY - 1, minZ, maxX, maxY + 1, maxZ);
+    }
+
+    /**
+     * Marks the given height range of those neighbors dirty, which are adjacent to the given
+     * horizontal area of this chunk.
+     */
+    private void markNeighborsDirty(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        boolean negX = minX == 0, posX = maxX == CHUNK_DIMENSION_X - 1;
+        boolean negZ = minZ == 0, posZ = maxZ == CHUNK_DIMENSION_Z - 1;
+
+        // Blocks within the chunk do not affect the meshes of the neighbors
+        if (!negX && !posX && !negZ && !posZ)
+            return;
+
         Chunk[] neighbors = loadOrCreateNeighbors();
 
-        if (x == 0 && neighbors[1] != null) {
-            neighbors[1].setDirty(true);
+        if (negX && neighbors[1] != null) {
+            neighbors[1].setDirty(minY, maxY);
         }
 
-        if (x == CHUNK_DIMENSION_X - 1 && neighbors[0] != null) {
-            neighbors[0].setDirty(true);
+        if (posX && neighbors[0] != null) {
+            neighbors[0].setDirty(minY, maxY);
         }
 
-        if (z == 0 && neighbors[3] != null) {
-            neighbors[3].setDirty(true);
+        if (negZ && neighbors[3] != null) {
+            neighbors[3].setDirty(minY, maxY);
         }
 
-        if (z == CHUNK_DIMENSION_Z - 1 && neighbors[2] != null) {
-            neighbors[2].setDirty(true);
+        if (posZ && neighbors[2] != null) {
+            neighbors[2].setDirty(minY, maxY);
         }
 
-        if (x == CHUNK_DIMENSION_X - 1 && z == 0 && neighbors[7] != null) {
-            neighbors[7].setDirty(true);
+        if (posX && negZ && neighbors[7] != null) {
+            neighbors[7].setDirty(minY, maxY);
         }
 
-        if (x == 0 && z == CHUNK_DIMENSION_Z - 1 && neighbors[6] != null) {
-            neighbors[6].setDirty(true);
+        if (negX && posZ && neighbors[6] != null) {
+            neighbors[6].setDirty(minY, maxY);
         }
 
-        if (x == 0 && z == 0 && neighbors[5] != null) {
-            neighbors[5].setDirty(true);
+        if (negX && negZ && neighbors[5] != null) {
+            neighbors[5].setDirty(minY, maxY);
         }
 
-        if (x == CHUNK_DIMENSION_X - 1 && z == CHUNK_DIMENSION_Z - 1 && neighbors[4] != null) {
-            neighbors[4].setDirty(true);
+        if (posX && posZ && neighbors[4] != null) {
+            neighbors[4].setDirty(minY, maxY);
         }
     }
 
@@ -644,6 +764,14 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     }
 
     public void processChunk() {
+        generateAndUpdateLight();
+        generateMeshes();
+    }
+
+    /**
+     * Generates this chunk and its neighbors and updates the light of this chunk afterwards.
+     */
+    public void generateAndUpdateLight() {
         /*
         * Generate the chunk...
         */
@@ -664,9 +792,8 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
             }
         }
 
-        // Finally update the light and generate the meshes
+        // Finally update the light
         updateLight();
-        generateMeshes();
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
@@ -685,17 +812,33 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         // The flags are stored in the first byte of the file...
         out.writeByte(flags);
 
-        for (int i = 0; i < _blocks.size(); i++)
-            out.writeByte(_blocks.getRawByte(i));
+        TeraArray blocks = new TeraArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        TeraSmartArray sunlight = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        TeraSmartArray light = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        TeraSmartArray states = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
 
-        for (int i = 0; i < _sunlight.sizePacked(); i++)
-            out.writeByte(_sunlight.getRawByte(i));
+        for (int x = 0; x < CHUNK_DIMENSION_X; x++) {
+            for (int y = 0; y < CHUNK_DIMENSION_Y; y++) {
+                for (int z = 0; z < CHUNK_DIMENSION_Z; z++) {
+                    blocks.set(x, y, z, _blocks.get(x, y, z));
+                    sunlight.set(x, y, z, _sunlight.get(x, y, z));
+                    light.set(x, y, z, _light.get(x, y, z));
+                    states.set(x, y, z, _states.get(x, y, z));
+                }
+            }
+        }
 
-        for (int i = 0; i < _light.sizePacked(); i++)
-            out.writeByte(_light.getRawByte(i));
+        for (int i = 0; i < blocks.size(); i++)
+            out.writeByte(blocks.getRawByte(i));
 
-        for (int i = 0; i < _states.sizePacked(); i++)
-            out.writeByte(_states.getRawByte(i));
+        for (int i = 0; i < sunlight.sizePacked(); i++)
+            out.writeByte(sunlight.getRawByte(i));
+
+        for (int i = 0; i < light.sizePacked(); i++)
+            out.writeByte(light.getRawByte(i));
+
+        for (int i = 0; i < states.sizePacked(); i++)
+            out.writeByte(states.getRawByte(i));
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
@@ -708,17 +851,124 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         setLightDirty(Helper.isFlagSet(flags, (short) 0));
         setFresh(Helper.isFlagSet(flags, (short) 1));
 
-        for (int i = 0; i < _blocks.size(); i++)
-            _blocks.setRawByte(i, in.readByte());
+        TeraArray blocks = new TeraArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        TeraSmartArray sunlight = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        TeraSmartArray light = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        TeraSmartArray states = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+
+        for (int i = 0; i < blocks.size(); i++)
+            blocks.setRawByte(i, in.readByte());
 
-        for (int i = 0; i < _sunlight.sizePacked(); i++)
-            _sunlight.setRawByte(i, in.readByte());
+        for (int i = 0; i < sunlight.sizePacked(); i++)
+            sunlight.setRawByte(i, in.readByte());
 
-        for (int i = 0; i < _light.sizePacked(); i++)
-            _light.setRawByte(i, in.readByte());
+        for (int i = 0; i < light.sizePacked(); i++)
+            light.setRawByte(i, in.readByte());
 
-        for (int i = 0; i < _states.sizePacked(); i++)
-            _states.setRawByte(i, in.readByte());
+        for (int i = 0; i < states.sizePacked(); i++)
+            states.setRawByte(i, in.readByte());
+
+        for (int x = 0; x < CHUNK_DIMENSION_X; x++) {
+            for (int y = 0; y < CHUNK_DIMENSION_Y; y++) {
+                for (int z = 0; z < CHUNK_DIMENSION_Z; z++) {
+                    _blocks.set(x, y, z, blocks.get(x, y, z));
+                    _sunlight.set(x, y, z, sunlight.get(x, y, z));
+                    _light.set(x, y, z, light.get(x, y, z));
+                    _states.set(x, y, z, states.get(x, y, z));
+                }
+            }
+        }
+
+        rebuildHeightmaps();
+        compact();
+    }
+
+    /**
+     * Returns the maximum amount of bytes needed to store a chunk using "writeToBuffer".
+     *
+     * @return The size in bytes
+     */
+    public static int getSerializedSize() {
+        int sections = CHUNK_DIMENSION_Y / CHUNK_SECTION_HEIGHT;
+        int sectionSize = CHUNK_DIMENSION_X * CHUNK_SECTION_HEIGHT * CHUNK_DIMENSION_Z;
+
+        return 4 + 4 + 1 + 4 * sections * (2 + 256 + sectionSize) + 3 * 2 * CHUNK_DIMENSION_X * CHUNK_DIMENSION_Z;
+    }
+
+    /**
+     * Writes the raw data of this chunk to the given buffer.
+     *
+     * @param buffer The target buffer
+     */
+    public void writeToBuffer(ByteBuffer buffer) {
+        buffer.putInt((int) getPosition().x);
+        buffer.putInt((int) getPosition().z);
+
+        byte flags = 0x0;
+        if (isLightDirty()) {
+            flags = Helper.setFlag(flags, (short) 0);
+        }
+        if (isFresh()) {
+            flags = Helper.setFlag(flags, (short) 1);
+        }
+        // Chunks written before the heightmaps were introduced do not have this flag set
+        flags = Helper.setFlag(flags, (short) 2);
+        // Remember how far a partially generated chunk got
+        if (getGenerationStage() == GENERATION_STAGE.TERRAIN) {
+            flags = Helper.setFlag(flags, (short) 3);
+        } else if (getGenerationStage() == GENERATION_STAGE.FLORA) {
+            flags = Helper.setFlag(flags, (short) 4);
+        }
+
+        buffer.put(flags);
+
+        _blocks.writeTo(buffer);
+        _sunlight.writeTo(buffer);
+        _light.writeTo(buffer);
+        _states.writeTo(buffer);
+
+        for (int i = 0; i < _surfaceHeights.length; i++) {
+            buffer.putShort(_surfaceHeights[i]);
+            buffer.putShort(_opaqueHeights[i]);
+            buffer.putShort(_coverHeights[i]);
+        }
+    }
+
+    /**
+     * Reads the raw data of this chunk from the given buffer.
+     *
+     * @param buffer The source buffer
+     */
+    public void readFromBuffer(ByteBuffer buffer) {
+        getPosition().x = buffer.getInt();
+        getPosition().z = buffer.getInt();
+
+        byte flags = buffer.get();
+        setLightDirty(Helper.isFlagSet(flags, (short) 0));
+        setFresh(Helper.isFlagSet(flags, (short) 1));
+
+        if (Helper.isFlagSet(flags, (short) 3)) {
+            setGenerationStage(GENERATION_STAGE.TERRAIN);
+        } else if (Helper.isFlagSet(flags, (short) 4)) {
+            setGenerationStage(GENERATION_STAGE.FLORA);
+        }
+
+        _blocks.readFrom(buffer);
+        _sunlight.readFrom(buffer);
+        _light.readFrom(buffer);
+        _states.readFrom(buffer);
+
+        if (Helper.isFlagSet(flags, (short) 2)) {
+            for (int i = 0; i < _surfaceHeights.length; i++) {
+                _surfaceHeights[i] = buffer.getShort();
+                _opaqueHeights[i] = buffer.getShort();
+                _coverHeights[i] = buffer.getShort();
+            }
+        } else {
+            rebuildHeightmaps();
+        }
+
+        setModified(false);
     }
 
     /**
@@ -728,14 +978,28 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         if (isFresh() || isLightDirty() || !isDirty())
             return;
 
-        ChunkMesh[] newMeshes = new ChunkMesh[VERTICAL_SEGMENTS];
+        synchronized (_meshLock) {
+            // Changes made while tessellating mark the chunk dirty again
+            long dirtySegments = takeDirtySegments();
 
-        for (int i = 0; i < VERTICAL_SEGMENTS; i++) {
-            newMeshes[i] = _tessellator.generateMesh(CHUNK_DIMENSION_Y / VERTICAL_SEGMENTS, i * (CHUNK_DIMENSION_Y / VERTICAL_SEGMENTS));
-        }
+            MeshSet latestMeshes = _latestMeshes;
+            long generation = _meshGeneration.incrementAndGet();
+            ChunkMesh[] newMeshes = new ChunkMesh[VERTICAL_SEGMENTS];
 
-        setNewMesh(newMeshes);
-        setDirty(false);
+            for (int i = 0; i < VERTICAL_SEGMENTS; i++) {
+                // Only tessellate the dirty segments and keep the meshes of all other segments
+                if (latestMeshes != null && (dirtySegments & (1L << i)) == 0 && !latestMeshes._meshes[i].isDisposed()) {
+                    newMeshes[i] = latestMeshes._meshes[i];
+                } else {
+                    newMeshes[i] = _tessellator.generateMesh(SEGMENT_HEIGHT, i * SEGMENT_HEIGHT);
+                }
+            }
+
+            MeshSet meshes = new MeshSet(newMeshes, generation);
+            _latestMeshes = meshes;
+
+            publishMeshes(meshes);
+        }
     }
 
     /**
@@ -745,7 +1009,9 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
      * @return True if rendered
      */
     public void render(ChunkMesh.RENDER_PHASE type) {
-        if (isReadyForRendering()) {
+        MeshSet activeMeshes = _activeMeshes;
+
+        if (activeMeshes != null) {
             GL11.glPushMatrix();
 
             Vector3d playerPosition = Terasology.getInstance().getActivePlayer().getPosition();
@@ -756,7 +1022,7 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
             params.setFloat3("chunkOffset", (float) (getPosition().x * Chunk.CHUNK_DIMENSION_X), (float) (getPosition().y * Chunk.CHUNK_DIMENSION_Y), (float) (getPosition().z * Chunk.CHUNK_DIMENSION_Z));
 
             for (int i = 0; i < VERTICAL_SEGMENTS; i++) {
-                if (!isSubMeshEmpty(i)) {
+                if (!activeMeshes._meshes[i].isEmpty()) {
                     if (WorldRenderer.BOUNDING_BOXES_ENABLED) {
                         ShaderManager.getInstance().enableShader(null);
                         getSubMeshAABB(i).renderLocally(2f);
@@ -764,8 +1030,8 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
                         ShaderManager.getInstance().enableShader("chunk");
                     }
 
-                    _activeMeshes[i].render(type);
-                    _statRenderedTriangles += _activeMeshes[i].triangleCount();
+                    activeMeshes._meshes[i].render(type);
+                    _statRenderedTriangles += activeMeshes._meshes[i].triangleCount();
                 }
             }
 
@@ -775,10 +1041,17 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         }
     }
 
+    /**
+     * Uploads the vertex data of the newest mesh set. Has to be called from the render thread.
+     *
+     * @return True if a new mesh set is pending
+     */
     public boolean generateVBOs() {
-        if (_newMeshes != null) {
-            for (int i = 0; i < _newMeshes.length; i++) {
-                _newMeshes[i].generateVBOs();
+        MeshSet newMeshes = _newMeshes.get();
+
+        if (newMeshes != null) {
+            for (int i = 0; i < newMeshes._meshes.length; i++) {
+                newMeshes._meshes[i].generateVBOs();
             }
 
             return true;
@@ -792,54 +1065,86 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         swapActiveMesh();
     }
 
-    private void setNewMesh(ChunkMesh[] newMesh) {
-        if (_lock.tryLock()) {
-            try {
-                if (!_disposed) {
-                    ChunkMesh[] oldNewMesh = _newMeshes;
-                    _newMeshes = newMesh;
+    /**
+     * Publishes a new mesh set. Mesh sets of older generations than the pending one are
+     * discarded, so a slow tessellation can not replace the result of a newer one.
+     */
+    private void publishMeshes(MeshSet meshes) {
+        while (true) {
+            MeshSet pending = _newMeshes.get();
 
-                    if (oldNewMesh != null) {
-                        for (int i = 0; i < oldNewMesh.length; i++)
-                            oldNewMesh[i].dispose();
-                    }
-                }
-            } finally {
-                _lock.unlock();
+            if (pending != null && pending._generation > meshes._generation) {
+                retireMeshes(meshes, pending, _activeMeshes);
+                return;
+            }
+
+            if (_newMeshes.compareAndSet(pending, meshes)) {
+                retireMeshes(pending, meshes, _activeMeshes);
+                break;
             }
         }
+
+        // The chunk might have been disposed in the meantime
+        if (_disposed)
+            retireMeshes(_newMeshes.getAndSet(null));
     }
 
+    /**
+     * Activates the pending mesh set as soon as all of its VBOs are available.
+     * Has to be called from the render thread.
+     */
     private boolean swapActiveMesh() {
-        if (_lock.tryLock()) {
-            try {
-                if (!_disposed) {
-                    if (_newMeshes != null) {
-                        if (!_newMeshes[0].isDisposed() && _newMeshes[0].isGenerated()) {
-
-                            ChunkMesh[] newMesh = _newMeshes;
-                            _newMeshes = null;
-
-                            ChunkMesh[] oldActiveMesh = _activeMeshes;
-                            _activeMeshes = newMesh;
-                            _rigidBody = null;
-
-                            if (oldActiveMesh != null) {
-                                for (int i = 0; i < oldActiveMesh.length; i++) {
-                                    oldActiveMesh[i].dispose();
-                                }
-                            }
-
-                            return true;
-                        }
-                    }
-                }
-            } finally {
-                _lock.unlock();
-            }
+        MeshSet newMeshes = _newMeshes.get();
+
+        if (_disposed || newMeshes == null || !newMeshes.isGenerated())
+            return false;
+
+        // A worker published an even newer mesh set in the meantime
+        if (!_newMeshes.compareAndSet(newMeshes, null))
+            return false;
+
+        MeshSet oldActiveMeshes = _activeMeshes;
+        _activeMeshes = newMeshes;
+        _rigidBody = null;
+
+        retireMeshes(oldActiveMeshes, newMeshes, null);
+        return true;
+    }
+
+    /**
+     * Queues the meshes of the given set for disposal on the render thread.
+     */
+    private static void retireMeshes(MeshSet meshes) {
+        retireMeshes(meshes, null, null);
+    }
+
+    /**
+     * Queues the meshes of the given set for disposal on the render thread, except for the meshes
+     * which are shared with one of the sets still in use.
+     */
+    private static void retireMeshes(MeshSet meshes, MeshSet keep, MeshSet keepToo) {
+        if (meshes == null)
+            return;
+
+        for (int i = 0; i < meshes._meshes.length; i++) {
+            ChunkMesh mesh = meshes._meshes[i];
+
+            if ((keep != null && keep._meshes[i] == mesh) || (keepToo != null && keepToo._meshes[i] == mesh))
+                continue;
+
+            _retiredMeshes.add(mesh);
         }
+    }
 
-        return false;
+    /**
+     * Disposes all meshes which were replaced or dropped since the last call. Has to be called
+     * from the render thread, at a point where no retired mesh is in use anymore.
+     */
+    public static void disposeRetiredMeshes() {
+        ChunkMesh mesh;
+
+        while ((mesh = _retiredMeshes.poll()) != null)
+            mesh.dispose();
     }
 
     /**
@@ -889,8 +1194,19 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
         return _dirty;
     }
 
+    /**
+     * Returns true if the generation of this chunk is not complete yet.
+     */
     public boolean isFresh() {
-        return _fresh;
+        return _generationStage != GENERATION_STAGE.COMPLETE;
+    }
+
+    public GENERATION_STAGE getGenerationStage() {
+        return _generationStage;
+    }
+
+    Object getGenerationLock() {
+        return _generationLock;
     }
 
     public boolean isLightDirty() {
@@ -898,17 +1214,75 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     }
 
     public void setFresh(boolean fresh) {
-        _fresh = fresh;
+        setGenerationStage(fresh ? GENERATION_STAGE.EMPTY : GENERATION_STAGE.COMPLETE);
+    }
+
+    public void setGenerationStage(GENERATION_STAGE stage) {
+        if (_generationStage != stage)
+            markModified();
+
+        _generationStage = stage;
     }
 
-    public void setDirty(boolean dirty) {
+    public synchronized void setDirty(boolean dirty) {
         _dirty = dirty;
+        _dirtySegments = dirty ? -1L >>> (64 - VERTICAL_SEGMENTS) : 0;
+    }
+
+    /**
+     * Marks the mesh segments intersecting the given height range as dirty.
+     *
+     * @param minY The lowest layer of the range
+     * @param maxY The highest layer of the range (inclusive)
+     */
+    public synchronized void setDirty(int minY, int maxY) {
+        int first = Math.max(minY, 0) / SEGMENT_HEIGHT;
+        int last = Math.min(maxY, CHUNK_DIMENSION_Y - 1) / SEGMENT_HEIGHT;
+
+        for (int i = first; i <= last; i++)
+            _dirtySegments |= 1L << i;
+
+        _dirty = true;
+    }
+
+    public synchronized boolean isSegmentDirty(int segment) {
+        return (_dirtySegments & (1L << segment)) != 0;
+    }
+
+    /**
+     * Returns the dirty segments as a bit mask and marks all segments clean.
+     */
+    private synchronized long takeDirtySegments() {
+        long dirtySegments = _dirtySegments;
+        setDirty(false);
+
+        return dirtySegments;
     }
 
     public void setLightDirty(boolean lightDirty) {
+        if (_lightDirty != lightDirty)
+            markModified();
+
         _lightDirty = lightDirty;
     }
 
+    /**
+     * Returns true if this chunk has been modified since it was loaded or saved the last time.
+     */
+    public boolean isModified() {
+        return _modified;
+    }
+
+    public void setModified(boolean modified) {
+        _modified = modified;
+    }
+
+    private void markModified() {
+        // Avoid the volatile write in the common case
+        if (!_modified)
+            _modified = true;
+    }
+
     public void setPosition(Vector3d position) {
         super.setPosition(position);
     }
@@ -944,54 +1318,33 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     }
 
     public void clearMeshes() {
-        _lock.lock();
-
-        try {
-            if (_disposed)
-                return;
-
-            if (_activeMeshes != null)
-                for (int i = 0; i < _activeMeshes.length; i++)
-                    _activeMeshes[i].dispose();
-            if (_newMeshes != null) {
-                for (int i = 0; i < _newMeshes.length; i++)
-                    _newMeshes[i].dispose();
-            }
+        if (_disposed)
+            return;
 
-            _activeMeshes = null;
-            _newMeshes = null;
-            setDirty(true);
+        MeshSet activeMeshes = _activeMeshes;
+        _activeMeshes = null;
+        _latestMeshes = null;
 
-        } finally {
-            _lock.unlock();
-        }
+        retireMeshes(activeMeshes);
+        retireMeshes(_newMeshes.getAndSet(null));
+        setDirty(true);
     }
 
     /**
      * Disposes this chunk. Can NOT be undone.
      */
     public void dispose() {
-        _lock.lock();
-
-        try {
-            if (_disposed)
-                return;
+        if (_disposed)
+            return;
 
-            if (_activeMeshes != null)
-                for (int i = 0; i < _activeMeshes.length; i++)
-                    _activeMeshes[i].dispose();
-            if (_newMeshes != null) {
-                for (int i = 0; i < _newMeshes.length; i++)
-                    _newMeshes[i].dispose();
-            }
+        _disposed = true;
 
-            _disposed = true;
-            _activeMeshes = null;
-            _newMeshes = null;
+        MeshSet activeMeshes = _activeMeshes;
+        _activeMeshes = null;
+        _latestMeshes = null;
 
-        } finally {
-            _lock.unlock();
-        }
+        retireMeshes(activeMeshes);
+        retireMeshes(_newMeshes.getAndSet(null));
     }
 
     public boolean isReadyForRendering() {
@@ -999,35 +1352,35 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
     }
 
     public boolean isSubMeshEmpty(int subMesh) {
-        if (isReadyForRendering()) {
-            return _activeMeshes[subMesh].isEmpty();
+        MeshSet activeMeshes = _activeMeshes;
+
+        if (activeMeshes != null) {
+            return activeMeshes._meshes[subMesh].isEmpty();
         } else {
             return true;
         }
     }
 
     public void updateRigidBody() {
-        updateRigidBody(_activeMeshes);
-    }
-
-    private void updateRigidBody(final ChunkMesh[] meshes) {
-        if (_rigidBody != null)
+        if (_rigidBody != null || _activeMeshes == null)
             return;
 
-        if (meshes == null)
-            return;
+        // Requests for the same chunk are coalesced, so the task uses the meshes active at the time it runs
+        Terasology.getInstance().submitTask(TaskManager.TASK_CATEGORY.COLLISION, "Update Chunk Collision", this, new Runnable() {
+            public void run() {
+                MeshSet activeMeshes = _activeMeshes;
 
-        if (meshes.length < VERTICAL_SEGMENTS)
-            return;
+                if (_rigidBody != null || activeMeshes == null)
+                    return;
 
-        Terasology.getInstance().submitTask("Update Chunk Collision", new Runnable() {
-            public void run() {
+                ChunkMesh[] meshes = activeMeshes._meshes;
                 TriangleIndexVertexArray vertexArray = new TriangleIndexVertexArray();
 
                 int counter = 0;
                 for (int k = 0; k < Chunk.VERTICAL_SEGMENTS; k++) {
                     ChunkMesh mesh = meshes[k];
 
+                    // The collision data stays with the mesh since unchanged meshes are reused by later generations
                     if (mesh != null) {
                         IndexedMesh indexedMesh = mesh._indexedMesh;
 
@@ -1035,8 +1388,6 @@ public class Chunk extends StaticEntity implements Comparable<Chunk>, Externaliz
                             vertexArray.addIndexedMesh(indexedMesh);
                             counter++;
                         }
-
-                        mesh._indexedMesh = null;
                     }
                 }
 
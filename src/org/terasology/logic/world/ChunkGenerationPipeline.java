@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.terasology.logic.generators.ChunkGenerator;
+import org.terasology.performanceMonitor.PerformanceMonitor;
+
+/**
+ * Generates chunks in distinct stages. Each stage of a chunk is only executed after all of its neighbors
+ * have reached the stage the generation step depends on:
+ * <p/>
+ * TERRAIN - Density, surface layers and biomes. Only writes into the chunk itself.
+ * FLORA - Grass, flowers, trees and liquids. Requires the terrain of all neighbors, since trees and liquids
+ * are placed across chunk borders.
+ * COMPLETE - The initial sunlight. Requires the flora of all neighbors, since it might cover the chunk.
+ * <p/>
+ * The pipeline can be used by any number of threads concurrently. Each stage of a chunk is executed
+ * exactly once, threads requesting a stage which is currently executed wait for it to finish. The
+ * dependencies of a stage are resolved before the lock of the chunk is acquired, so no thread ever
+ * holds the locks of two chunks at the same time.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class ChunkGenerationPipeline {
+
+    private final LocalWorldProvider _parent;
+
+    /**
+     * Init. a new pipeline for the given world.
+     *
+     * @param parent The parent world
+     */
+    public ChunkGenerationPipeline(LocalWorldProvider parent) {
+        _parent = parent;
+    }
+
+    /**
+     * Fully generates the given chunk and all chunks it depends on.
+     *
+     * @param chunk The chunk
+     * @return True if a generation stage of the chunk has been executed
+     */
+    public boolean generate(Chunk chunk) {
+        return advance(chunk, Chunk.GENERATION_STAGE.COMPLETE);
+    }
+
+    /**
+     * Executes all generation stages of the given chunk up to the given stage.
+     *
+     * @param chunk  The chunk
+     * @param target The stage to reach
+     * @return True if a generation stage of the chunk has been executed
+     */
+    public boolean advance(Chunk chunk, Chunk.GENERATION_STAGE target) {
+        boolean executed = false;
+
+        while (chunk.getGenerationStage().ordinal() < target.ordinal()) {
+            Chunk.GENERATION_STAGE next = Chunk.GENERATION_STAGE.values()[chunk.getGenerationStage().ordinal() + 1];
+            Chunk.GENERATION_STAGE required = getRequiredNeighborStage(next);
+
+            if (required != null) {
+                for (Chunk neighbor : chunk.loadOrCreateNeighbors())
+                    advance(neighbor, required);
+            }
+
+            synchronized (chunk.getGenerationLock()) {
+                // Another thread might have executed the stage in the meantime
+                if (chunk.getGenerationStage().ordinal() == next.ordinal() - 1) {
+                    executeStage(chunk, next);
+                    chunk.setGenerationStage(next);
+                    executed = true;
+                }
+            }
+        }
+
+        return executed;
+    }
+
+    private void executeStage(Chunk chunk, Chunk.GENERATION_STAGE stage) {
+        switch (stage) {
+            case TERRAIN:
+                PerformanceMonitor.startActivity("Generate Terrain");
+                for (ChunkGenerator gen : _parent.getGeneratorManager().getTerrainGenerators())
+                    gen.generate(chunk);
+                PerformanceMonitor.endActivity();
+                break;
+            case FLORA:
+                PerformanceMonitor.startActivity("Generate Flora");
+                for (ChunkGenerator gen : _parent.getGeneratorManager().getFloraGenerators())
+                    gen.generate(chunk);
+                PerformanceMonitor.endActivity();
+                break;
+            case COMPLETE:
+                PerformanceMonitor.startActivity("Generate Sunlight");
+                chunk.generateSunlight();
+                chunk.compact();
+                PerformanceMonitor.endActivity();
+                break;
+        }
+    }
+
+    /**
+     * Returns the stage all neighbors have to reach before the given stage can be executed, null if
+     * the stage does not depend on the neighbors.
+     */
+    private static Chunk.GENERATION_STAGE getRequiredNeighborStage(Chunk.GENERATION_STAGE stage) {
+        switch (stage) {
+            case FLORA:
+                return Chunk.GENERATION_STAGE.TERRAIN;
+            case COMPLETE:
+                return Chunk.GENERATION_STAGE.FLORA;
+            default:
+                return null;
+        }
+    }
+}
@@ -15,14 +15,26 @@
  */
 package org.terasology.logic.world;
 
-import org.terasology.game.Terasology;
 import org.terasology.logic.manager.ConfigurationManager;
 import org.terasology.model.structures.BlockPosition;
+import org.terasology.performanceMonitor.PerformanceMonitor;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides the mechanism for updating and generating chunks.
+ * <p/>
+ * Chunk updates are processed by a fixed amount of worker threads. Pending updates are ordered by their
+ * type, the visibility of the chunk and the distance of the chunk to the player. Repeated requests for
+ * the same chunk are coalesced into one single update.
  *
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
@@ -36,39 +48,182 @@ public final class ChunkUpdateManager implements IBlockObserver {
     private static final int MAX_THREADS = (Integer) ConfigurationManager.getInstance().getConfig().get("System.maxThreads");
 
     /* CHUNK UPDATES */
-    private static final HashSet<Chunk> _currentlyProcessedChunks = new HashSet<Chunk>();
+    private final HashMap<Chunk, ChunkUpdate> _queuedUpdates = new HashMap<Chunk, ChunkUpdate>();
+    private final HashMap<Chunk, ChunkUpdate> _runningUpdates = new HashMap<Chunk, ChunkUpdate>();
+
+    private final ThreadPoolExecutor _updatePool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "Chunk Update");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+
+    /**
+     * A pending update of one chunk.
+     */
+    private final class ChunkUpdate implements Runnable, Comparable<ChunkUpdate> {
+        private final Chunk _chunk;
+        private UPDATE_TYPE _type;
+        private boolean _visible;
+        private double _distance;
+        private boolean _requeue;
+
+        public ChunkUpdate(Chunk chunk, UPDATE_TYPE type, boolean visible) {
+            _chunk = chunk;
+            _type = type;
+            _visible = visible;
+            _distance = chunk.distanceToPlayer();
+        }
+
+        public void run() {
+            startUpdate(this);
+            PerformanceMonitor.startThread("Chunk Update");
+
+            try {
+                _chunk.processChunk();
+            } finally {
+                PerformanceMonitor.endThread("Chunk Update");
+                finishUpdate(this);
+            }
+        }
+
+        /**
+         * Returns true if an update with the given parameters is more urgent than this update.
+         */
+        public boolean isLessUrgentThan(UPDATE_TYPE type, boolean visible) {
+            return type.ordinal() > _type.ordinal() || (type == _type && visible && !_visible);
+        }
 
+        public int compareTo(ChunkUpdate o) {
+            if (_type != o._type)
+                return _type.ordinal() > o._type.ordinal() ? -1 : 1;
+            if (_visible != o._visible)
+                return _visible ? -1 : 1;
+
+            return Double.compare(_distance, o._distance);
+        }
+    }
+
+    public ChunkUpdateManager() {
+        _updatePool.prestartAllCoreThreads();
+    }
 
     /**
-     * Updates the given chunk using a new thread from the thread pool. If the maximum amount of chunk updates
-     * is reached, the chunk update is ignored. Chunk updates can be forced though.
+     * Queues an update of the given chunk. If an update of the chunk is already pending, both requests
+     * are merged.
      *
      * @param chunk The chunk to update
      * @param type  The chunk update type
-     * @return True if a chunk update was executed
+     * @return True if a new chunk update was queued
      */
     public boolean queueChunkUpdate(Chunk chunk, final UPDATE_TYPE type) {
+        return queueChunkUpdate(chunk, type, true);
+    }
+
+    /**
+     * Queues an update of the given chunk. If an update of the chunk is already pending, both requests
+     * are merged.
+     *
+     * @param chunk   The chunk to update
+     * @param type    The chunk update type
+     * @param visible True if the chunk is currently visible to the player
+     * @return True if a new chunk update was queued
+     */
+    public synchronized boolean queueChunkUpdate(Chunk chunk, UPDATE_TYPE type, boolean visible) {
+        if (_updatePool.isShutdown())
+            return false;
+
+        ChunkUpdate running = _runningUpdates.get(chunk);
+
+        // Changes made by the player might be missed by the running update, so process the chunk again afterwards
+        if (running != null && type == UPDATE_TYPE.PLAYER_TRIGGERED) {
+            running._requeue = true;
+            return false;
+        }
+
+        ChunkUpdate queued = _queuedUpdates.get(chunk);
+
+        if (queued != null) {
+            // Only reorder the queue if the update became more urgent
+            if (queued.isLessUrgentThan(type, visible) && _updatePool.getQueue().remove(queued)) {
+                queued._type = type.ordinal() > queued._type.ordinal() ? type : queued._type;
+                queued._visible |= visible;
+                _updatePool.getQueue().add(queued);
+            }
 
-        if (!_currentlyProcessedChunks.contains(chunk) && (_currentlyProcessedChunks.size() < MAX_THREADS || type != UPDATE_TYPE.DEFAULT)) {
-            executeChunkUpdate(chunk);
-            return true;
+            return false;
         }
 
-        return false;
+        if (running != null)
+            return false;
+
+        ChunkUpdate update = new ChunkUpdate(chunk, type, visible);
+        _queuedUpdates.put(chunk, update);
+        _updatePool.execute(update);
+
+        return true;
     }
 
-    private void executeChunkUpdate(final Chunk c) {
-        _currentlyProcessedChunks.add(c);
+    /**
+     * Cancels the pending updates of all chunks which are no longer in range and recalculates
+     * the distances of the remaining updates. Should be called when the player enters a new chunk.
+     *
+     * @param chunksInRange The chunks currently in range of the player
+     */
+    public synchronized void updatePriorities(Collection<Chunk> chunksInRange) {
+        HashSet<Chunk> inRange = new HashSet<Chunk>(chunksInRange);
+        ArrayList<Runnable> updates = new ArrayList<Runnable>(_updatePool.getQueue().size());
+        _updatePool.getQueue().drainTo(updates);
+
+        for (Runnable r : updates) {
+            ChunkUpdate update = (ChunkUpdate) r;
 
-        // Create a new thread and start processing
-        Runnable r = new Runnable() {
-            public void run() {
-                c.processChunk();
-                _currentlyProcessedChunks.remove(c);
+            if (update._type == UPDATE_TYPE.DEFAULT && !inRange.contains(update._chunk)) {
+                _queuedUpdates.remove(update._chunk);
+                continue;
             }
-        };
 
-        Terasology.getInstance().submitTask("Chunk Update", r);
+            update._distance = update._chunk.distanceToPlayer();
+            _updatePool.getQueue().add(update);
+        }
+    }
+
+    /**
+     * Returns the amount of chunk updates waiting to be processed.
+     */
+    public synchronized int getQueuedUpdateCount() {
+        return _queuedUpdates.size();
+    }
+
+    /**
+     * Cancels all pending updates and waits for the running updates to finish.
+     */
+    public void dispose() {
+        synchronized (this) {
+            _updatePool.getQueue().clear();
+            _queuedUpdates.clear();
+            _updatePool.shutdown();
+        }
+
+        try {
+            _updatePool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void startUpdate(ChunkUpdate update) {
+        _queuedUpdates.remove(update._chunk);
+        _runningUpdates.put(update._chunk, update);
+    }
+
+    private synchronized void finishUpdate(ChunkUpdate update) {
+        _runningUpdates.remove(update._chunk);
+
+        if (update._requeue)
+            queueChunkUpdate(update._chunk, UPDATE_TYPE.PLAYER_TRIGGERED, true);
     }
 
     public void blockPlaced(Chunk chunk, BlockPosition pos, boolean update) {
@@ -81,4 +236,9 @@ public final class ChunkUpdateManager implements IBlockObserver {
             queueChunkUpdate(chunk, UPDATE_TYPE.PLAYER_TRIGGERED);
     }
 
+    public void blocksChanged(Chunk chunk, List<BlockPosition> placed, List<BlockPosition> removed, boolean update) {
+        if (update)
+            queueChunkUpdate(chunk, UPDATE_TYPE.PLAYER_TRIGGERED);
+    }
+
 }
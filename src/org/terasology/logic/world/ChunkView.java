@@ -0,0 +1,123 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+/**
+ * A snapshot of the blocks and light values of a vertical range of a chunk, including a
+ * border of one block taken from the adjacent chunks.
+ * <p/>
+ * The values are copied into flat arrays once, so consumers like the chunk tessellator
+ * can access the neighborhood of every block without looking up chunks.
+ * <p/>
+ * All coordinates are given relative to the chunk. Valid coordinates range from -1 to
+ * CHUNK_DIMENSION on the x- and z-axis and from minY - 1 to maxY + 1 on the y-axis.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class ChunkView {
+
+    private static final int SIZE_X = Chunk.CHUNK_DIMENSION_X + 2;
+    private static final int SIZE_Z = Chunk.CHUNK_DIMENSION_Z + 2;
+    private static final int MAX_SIZE_Y = Chunk.CHUNK_DIMENSION_Y + 2;
+
+    private final byte[] _blocks = new byte[SIZE_X * MAX_SIZE_Y * SIZE_Z];
+    private final byte[] _sunlight = new byte[SIZE_X * MAX_SIZE_Y * SIZE_Z];
+    private final byte[] _light = new byte[SIZE_X * MAX_SIZE_Y * SIZE_Z];
+
+    private final Chunk[] _chunks = new Chunk[9];
+
+    private int _minY, _sizeY;
+
+    /**
+     * Copies the given range of the chunk and the adjacent blocks of its neighbors.
+     *
+     * @param chunk The chunk
+     * @param minY  The lowest layer of the range
+     * @param maxY  The highest layer of the range (inclusive)
+     */
+    public void snapshot(Chunk chunk, int minY, int maxY) {
+        _minY = minY - 1;
+        _sizeY = maxY - minY + 3;
+
+        Chunk[] neighbors = chunk.loadOrCreateNeighbors();
+
+        _chunks[chunkIndex(0, 0)] = chunk;
+        _chunks[chunkIndex(1, 0)] = neighbors[0];
+        _chunks[chunkIndex(-1, 0)] = neighbors[1];
+        _chunks[chunkIndex(0, 1)] = neighbors[2];
+        _chunks[chunkIndex(0, -1)] = neighbors[3];
+        _chunks[chunkIndex(1, 1)] = neighbors[4];
+        _chunks[chunkIndex(-1, -1)] = neighbors[5];
+        _chunks[chunkIndex(-1, 1)] = neighbors[6];
+        _chunks[chunkIndex(1, -1)] = neighbors[7];
+
+        for (int x = -1; x <= Chunk.CHUNK_DIMENSION_X; x++) {
+            int chunkX = x < 0 ? -1 : (x >= Chunk.CHUNK_DIMENSION_X ? 1 : 0);
+            int localX = x - chunkX * Chunk.CHUNK_DIMENSION_X;
+
+            for (int z = -1; z <= Chunk.CHUNK_DIMENSION_Z; z++) {
+                int chunkZ = z < 0 ? -1 : (z >= Chunk.CHUNK_DIMENSION_Z ? 1 : 0);
+                int localZ = z - chunkZ * Chunk.CHUNK_DIMENSION_Z;
+
+                Chunk c = _chunks[chunkIndex(chunkX, chunkZ)];
+
+                for (int y = _minY; y < _minY + _sizeY; y++) {
+                    int i = index(x, y, z);
+
+                    _blocks[i] = c.getBlock(localX, y, localZ);
+                    _sunlight[i] = c.getLight(localX, y, localZ, Chunk.LIGHT_TYPE.SUN);
+                    _light[i] = c.getLight(localX, y, localZ, Chunk.LIGHT_TYPE.BLOCK);
+                }
+            }
+        }
+
+        // Do not keep the chunks alive
+        for (int i = 0; i < _chunks.length; i++)
+            _chunks[i] = null;
+    }
+
+    /**
+     * Returns true if the given position is covered by this view.
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= -1 && x <= Chunk.CHUNK_DIMENSION_X && z >= -1 && z <= Chunk.CHUNK_DIMENSION_Z && y >= _minY && y < _minY + _sizeY;
+    }
+
+    /**
+     * Returns the block type at the given position.
+     */
+    public byte getBlock(int x, int y, int z) {
+        return _blocks[index(x, y, z)];
+    }
+
+    /**
+     * Returns the light intensity at the given position.
+     */
+    public byte getLight(int x, int y, int z, Chunk.LIGHT_TYPE type) {
+        if (type == Chunk.LIGHT_TYPE.SUN)
+            return _sunlight[index(x, y, z)];
+
+        return _light[index(x, y, z)];
+    }
+
+    private int index(int x, int y, int z) {
+        return ((x + 1) * _sizeY + (y - _minY)) * SIZE_Z + (z + 1);
+    }
+
+    private static int chunkIndex(int x, int z) {
+        return (x + 1) * 3 + (z + 1);
+    }
+}
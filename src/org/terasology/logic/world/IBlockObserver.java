@@ -17,6 +17,8 @@ package org.terasology.logic.world;
 
 import org.terasology.model.structures.BlockPosition;
 
+import java.util.List;
+
 /**
  * Block observers are notified if a block in the world changes.
  *
@@ -26,4 +28,14 @@ public interface IBlockObserver {
     public void blockPlaced(Chunk chunk, BlockPosition pos, boolean update);
 
     public void blockRemoved(Chunk chunk, BlockPosition pos, boolean update);
+
+    /**
+     * Called once per chunk for all blocks of the chunk changed by a committed BlockEditBatch.
+     *
+     * @param chunk   The chunk
+     * @param placed  The positions of the placed blocks
+     * @param removed The positions of the removed blocks
+     * @param update  True if the change should be processed immediately
+     */
+    public void blocksChanged(Chunk chunk, List<BlockPosition> placed, List<BlockPosition> removed, boolean update);
 }
@@ -15,6 +15,9 @@
  */
 package org.terasology.logic.world;
 
+import javax.vecmath.Vector3d;
+import java.util.concurrent.Future;
+
 /**
  * Basic interface for anything providing chunks.
  *
@@ -32,9 +35,48 @@ public interface IChunkProvider {
     public Chunk loadOrCreateChunk(int x, int z);
 
     /**
-     * Frees obsolete chunks.
+     * Returns the chunk at the given position if it is currently cached. Never loads or creates a chunk.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return The chunk, null if the chunk is not cached
+     */
+    public Chunk getCachedChunk(int x, int z);
+
+    /**
+     * Requests the chunk at the given position to be loaded in the background.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return The future chunk, null if the request could not be queued
+     */
+    public Future<Chunk> prefetchChunk(int x, int z);
+
+    /**
+     * Loads the chunks around the predicted position of a moving entity in the background.
+     *
+     * @param position The current position
+     * @param velocity The current velocity
+     * @param radius   The radius of the area to load in chunks
+     */
+    public void prefetchChunks(Vector3d position, Vector3d velocity, int radius);
+
+    /**
+     * Frees the chunks farthest away from the given position if the cache is full.
+     *
+     * @param position The position of the player
+     */
+    public void flushCache(Vector3d position);
+
+    /**
+     * Writes the chunk at the given position to disk and removes it from the cache. Chunks which
+     * are currently not cached are ignored.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return The amount of bytes written
      */
-    public void flushCache();
+    public int unloadChunk(int x, int z);
 
     /**
      * Disposes all chunks managed by this chunk provider.
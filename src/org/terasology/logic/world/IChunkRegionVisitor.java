@@ -0,0 +1,38 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+/**
+ * Visits the chunks intersecting a box of blocks one after another.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public interface IChunkRegionVisitor {
+
+    /**
+     * Called once for every chunk intersecting the visited box. The bounds of the part of the box
+     * covered by the chunk are given in local block coordinates and are inclusive.
+     *
+     * @param chunk The chunk
+     * @param minX  The lowest local block position on the x-axis
+     * @param minY  The lowest block position on the y-axis
+     * @param minZ  The lowest local block position on the z-axis
+     * @param maxX  The highest local block position on the x-axis
+     * @param maxY  The highest block position on the y-axis
+     * @param maxZ  The highest local block position on the z-axis
+     */
+    public void visit(Chunk chunk, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+}
@@ -66,6 +66,15 @@ public interface IWorldProvider {
 
     public boolean canBlockSeeTheSky(int x, int y, int z);
 
+    /**
+     * Returns the height of the highest non-air block at the given position.
+     *
+     * @param x The X-coordinate
+     * @param z The Z-coordinate
+     * @return The height or -1 if the column is empty
+     */
+    public int getSurfaceHeightAt(int x, int z);
+
     /**
      * Returns the state at the given position.
      *
@@ -98,6 +107,73 @@ public interface IWorldProvider {
      */
     public void setLight(int x, int y, int z, byte intensity, Chunk.LIGHT_TYPE type);
 
+    /**
+     * Copies the blocks of the given box into the given buffer. The block at the relative position
+     * (x, y, z) is stored at the index (x * sizeY + y) * sizeZ + z.
+     *
+     * @param minX   The lowest X-coordinate of the box
+     * @param minY   The lowest Y-coordinate of the box
+     * @param minZ   The lowest Z-coordinate of the box
+     * @param sizeX  The size of the box on the x-axis
+     * @param sizeY  The size of the box on the y-axis
+     * @param sizeZ  The size of the box on the z-axis
+     * @param buffer The buffer, has to hold at least sizeX * sizeY * sizeZ values
+     */
+    public void getBlocks(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, byte[] buffer);
+
+    /**
+     * Copies the states of the given box into the given buffer. Uses the layout of "getBlocks".
+     */
+    public void getStates(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, byte[] buffer);
+
+    /**
+     * Copies the light values of the given box into the given buffer. Uses the layout of "getBlocks".
+     */
+    public void getLights(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, Chunk.LIGHT_TYPE type, byte[] buffer);
+
+    /**
+     * Places the blocks stored in the given buffer in the given box. Uses the layout of "getBlocks",
+     * negative values leave the present block untouched.
+     * <p/>
+     * The affected meshes are marked dirty once per chunk and the light of all changed blocks
+     * of a chunk is updated at once after all blocks have been placed.
+     *
+     * @param minX        The lowest X-coordinate of the box
+     * @param minY        The lowest Y-coordinate of the box
+     * @param minZ        The lowest Z-coordinate of the box
+     * @param sizeX       The size of the box on the x-axis
+     * @param sizeY       The size of the box on the y-axis
+     * @param sizeZ       The size of the box on the z-axis
+     * @param blocks      The blocks to place
+     * @param updateLight Update light values
+     * @param overwrite   If true currently present blocks get replaced
+     * @return The amount of blocks which have been changed
+     */
+    public int setBlocks(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, byte[] blocks, boolean updateLight, boolean overwrite);
+
+    /**
+     * Opens a new batch for placing many blocks at once. The light and meshes of the world are
+     * updated when the batch is committed.
+     *
+     * @param updateLight Update light values on commit
+     * @return The batch
+     */
+    public BlockEditBatch beginEditBatch(boolean updateLight);
+
+    /**
+     * Calls the given visitor for every chunk intersecting the given box. Missing chunks are
+     * loaded or created.
+     *
+     * @param minX    The lowest X-coordinate of the box
+     * @param minY    The lowest Y-coordinate of the box
+     * @param minZ    The lowest Z-coordinate of the box
+     * @param sizeX   The size of the box on the x-axis
+     * @param sizeY   The size of the box on the y-axis
+     * @param sizeZ   The size of the box on the z-axis
+     * @param visitor The visitor
+     */
+    public void forEachChunk(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, IChunkRegionVisitor visitor);
+
     /**
      * Returns the block value at the given position.
      *
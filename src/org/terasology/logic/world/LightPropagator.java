@@ -0,0 +1,542 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.terasology.model.blocks.Block;
+import org.terasology.model.blocks.management.BlockManager;
+import org.terasology.model.structures.IntRingBuffer;
+import org.terasology.utilities.MathHelper;
+
+/**
+ * Propagates sunlight and block light through the world using breadth-first flood fills.
+ * <p/>
+ * Light nodes are queued in primitive ring buffers with the position (relative to an origin)
+ * and the light value packed into one int. Removing light runs a removal pass first, which
+ * collects the nodes still lit by other sources. Those are spread again by the following add pass.
+ * <p/>
+ * Light values are written without marking anything dirty. The touched chunks and height
+ * ranges are collected and marked dirty once per propagation, including the neighbors of
+ * chunks which were touched at their borders.
+ * <p/>
+ * Instances are not thread-safe. Use LocalWorldProvider.getLightPropagator() to get the
+ * instance of the current thread.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class LightPropagator {
+
+    private static final int[][] DIRECTIONS = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+
+    /* PACKING */
+    private static final int RELATIVE_OFFSET = 128;
+    private static final int RELATIVE_MASK = 0xFF;
+
+    private static final int BORDER_NEG_X = 1, BORDER_POS_X = 2, BORDER_NEG_Z = 4, BORDER_POS_Z = 8;
+
+    /* LOCAL POSITIONS: 4 bits x, 4 bits z, 8 bits y */
+    private static final int LOCAL_SHIFT_X = 12, LOCAL_SHIFT_Z = 8, LOCAL_MASK_XZ = 0xF, LOCAL_MASK_Y = 0xFF;
+
+    private final LocalWorldProvider _parent;
+
+    private final IntRingBuffer _addQueue = new IntRingBuffer(4096);
+    private final IntRingBuffer _removeQueue = new IntRingBuffer(4096);
+    private int _originX, _originZ;
+
+    /* CHUNK CACHE */
+    private Chunk _lastChunk;
+    private int _lastChunkX, _lastChunkZ;
+
+    /* TOUCHED CHUNKS */
+    private Chunk[] _touchedChunks = new Chunk[16];
+    private int[] _touchedMinY = new int[16], _touchedMaxY = new int[16], _touchedBorders = new int[16];
+    private int _touchedCount, _lastTouched = -1;
+
+    public LightPropagator(LocalWorldProvider parent) {
+        _parent = parent;
+    }
+
+    /**
+     * Spreads the light at the given position into its surroundings.
+     *
+     * @param x    The X-coordinate
+     * @param y    The Y-coordinate
+     * @param z    The Z-coordinate
+     * @param type The type of light
+     */
+    public void spreadLight(int x, int y, int z, Chunk.LIGHT_TYPE type) {
+        begin(x, z);
+        addLightNode(x, y, z, getLight(x, y, z, type));
+        propagate(type);
+    }
+
+    /**
+     * Removes the light which was spread from the given position with the given value
+     * and fills the darkened area from the remaining light sources.
+     *
+     * @param x        The X-coordinate
+     * @param y        The Y-coordinate
+     * @param z        The Z-coordinate
+     * @param oldValue The light value the light was spread with
+     * @param type     The type of light
+     */
+    public void unspreadLight(int x, int y, int z, byte oldValue, Chunk.LIGHT_TYPE type) {
+        begin(x, z);
+
+        setLight(x, y, z, (byte) 0, type);
+        addRemovalNode(x, y, z, oldValue);
+
+        restoreLightSource(x, y, z, type);
+        propagate(type);
+    }
+
+    /**
+     * Recalculates the sunlight of a column. Light is removed below new covers and spread
+     * into uncovered blocks.
+     *
+     * @param chunk     The chunk
+     * @param x         Local block position on the x-axis
+     * @param z         Local block position on the z-axis
+     * @param pullLight Fill translucent covered blocks without light from their neighbors
+     */
+    public void refreshSunlightColumn(Chunk chunk, int x, int z, boolean pullLight) {
+        int worldX = chunk.getBlockWorldPosX(x);
+        int worldZ = chunk.getBlockWorldPosZ(z);
+
+        begin(worldX, worldZ);
+
+        int coverHeight = chunk.getCoverHeight(x, z);
+
+        for (int y = Chunk.CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
+            byte oldValue = chunk.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN);
+            byte newValue = (y > coverHeight) ? (byte) 15 : (byte) 0;
+
+            if (oldValue == newValue) {
+                if (pullLight && newValue == 0 && BlockManager.getInstance().getBlock(chunk.getBlock(x, y, z)).isTranslucent())
+                    pullLight(worldX, y, worldZ, Chunk.LIGHT_TYPE.SUN);
+
+                continue;
+            }
+
+            setLight(worldX, y, worldZ, newValue, Chunk.LIGHT_TYPE.SUN);
+
+            if (oldValue > newValue)
+                addRemovalNode(worldX, y, worldZ, oldValue);
+            else
+                addLightNode(worldX, y, worldZ, newValue);
+        }
+
+        propagate(Chunk.LIGHT_TYPE.SUN);
+    }
+
+    /**
+     * Spreads the sunlight of all lit translucent blocks of the given chunk in one single pass.
+     *
+     * @param chunk The chunk
+     */
+    public void spreadSunlight(Chunk chunk) {
+        begin(chunk.getChunkWorldPosX() + Chunk.CHUNK_DIMENSION_X / 2, chunk.getChunkWorldPosZ() + Chunk.CHUNK_DIMENSION_Z / 2);
+
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                for (int y = Chunk.CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
+                    byte lightValue = chunk.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN);
+
+                    // Light values of one can not spread any further
+                    if (lightValue > 1 && BlockManager.getInstance().getBlock(chunk.getBlock(x, y, z)).isTranslucent())
+                        addLightNode(chunk.getBlockWorldPosX(x), y, chunk.getBlockWorldPosZ(z), lightValue);
+                }
+            }
+        }
+
+        propagate(Chunk.LIGHT_TYPE.SUN);
+    }
+
+    /**
+     * Updates the sunlight and block light after the given blocks of a chunk have been changed
+     * without updating any light. All changes are handled within one removal and one add pass
+     * per light type, no matter how many blocks have been changed.
+     *
+     * @param chunk   The chunk
+     * @param changes The local positions of the changed blocks, packed using "packLocalPosition"
+     * @param count   The amount of changed blocks
+     */
+    public void relightBlocks(Chunk chunk, int[] changes, int count) {
+        if (count == 0)
+            return;
+
+        int chunkX = chunk.getChunkWorldPosX(), chunkZ = chunk.getChunkWorldPosZ();
+        boolean[] changedColumns = new boolean[Chunk.CHUNK_DIMENSION_X * Chunk.CHUNK_DIMENSION_Z];
+
+        begin(chunkX + Chunk.CHUNK_DIMENSION_X / 2, chunkZ + Chunk.CHUNK_DIMENSION_Z / 2);
+
+        // Direct sunlight of the columns containing changed blocks
+        for (int i = 0; i < count; i++) {
+            int x = unpackLocalX(changes[i]), z = unpackLocalZ(changes[i]);
+            int column = x * Chunk.CHUNK_DIMENSION_Z + z;
+
+            if (changedColumns[column])
+                continue;
+
+            changedColumns[column] = true;
+            int coverHeight = chunk.getCoverHeight(x, z);
+
+            for (int y = Chunk.CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
+                byte oldValue = chunk.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN);
+
+                if (y > coverHeight && oldValue < 15) {
+                    setLight(chunkX + x, y, chunkZ + z, (byte) 15, Chunk.LIGHT_TYPE.SUN);
+                    addLightNode(chunkX + x, y, chunkZ + z, 15);
+                } else if (y <= coverHeight && oldValue == 15) {
+                    setLight(chunkX + x, y, chunkZ + z, (byte) 0, Chunk.LIGHT_TYPE.SUN);
+                    addRemovalNode(chunkX + x, y, chunkZ + z, 15);
+                }
+            }
+        }
+
+        relightChangedBlocks(chunk, changes, count, Chunk.LIGHT_TYPE.SUN);
+        propagate(Chunk.LIGHT_TYPE.SUN);
+
+        begin(chunkX + Chunk.CHUNK_DIMENSION_X / 2, chunkZ + Chunk.CHUNK_DIMENSION_Z / 2);
+        relightChangedBlocks(chunk, changes, count, Chunk.LIGHT_TYPE.BLOCK);
+        propagate(Chunk.LIGHT_TYPE.BLOCK);
+    }
+
+    /**
+     * Queues the light changes of the given blocks. Opaque blocks lose their light, light sources
+     * get lit and translucent blocks get lit again by their neighbors.
+     */
+    private void relightChangedBlocks(Chunk chunk, int[] changes, int count, Chunk.LIGHT_TYPE type) {
+        int chunkX = chunk.getChunkWorldPosX(), chunkZ = chunk.getChunkWorldPosZ();
+
+        for (int i = 0; i < count; i++) {
+            int x = unpackLocalX(changes[i]), y = unpackLocalY(changes[i]), z = unpackLocalZ(changes[i]);
+            int worldX = chunkX + x, worldZ = chunkZ + z;
+
+            Block block = BlockManager.getInstance().getBlock(chunk.getBlock(x, y, z));
+            byte oldValue = chunk.getLight(x, y, z, type);
+
+            byte sourceValue;
+
+            if (type == Chunk.LIGHT_TYPE.BLOCK)
+                sourceValue = block.getLuminance();
+            else // Direct sunlight has been handled already
+                sourceValue = block.isTranslucent() ? oldValue : 0;
+
+            if (oldValue > sourceValue) {
+                setLight(worldX, y, worldZ, sourceValue, type);
+                addRemovalNode(worldX, y, worldZ, oldValue);
+            } else if (sourceValue > oldValue) {
+                setLight(worldX, y, worldZ, sourceValue, type);
+            }
+
+            addLightNode(worldX, y, worldZ, sourceValue);
+
+            if (!block.isTranslucent())
+                continue;
+
+            // Lit neighbors spread their light into the block once the removal pass is done
+            for (int[] dir : DIRECTIONS) {
+                int ny = y + dir[1];
+
+                if (ny >= 0 && ny < Chunk.CHUNK_DIMENSION_Y)
+                    addLightNode(worldX + dir[0], ny, worldZ + dir[2], 0);
+            }
+        }
+    }
+
+    /**
+     * Packs the given local block position for "relightBlocks".
+     */
+    static int packLocalPosition(int x, int y, int z) {
+        return (x << LOCAL_SHIFT_X) | (z << LOCAL_SHIFT_Z) | y;
+    }
+
+    static int unpackLocalX(int position) {
+        return (position >>> LOCAL_SHIFT_X) & LOCAL_MASK_XZ;
+    }
+
+    static int unpackLocalY(int position) {
+        return position & LOCAL_MASK_Y;
+    }
+
+    static int unpackLocalZ(int position) {
+        return (position >>> LOCAL_SHIFT_Z) & LOCAL_MASK_XZ;
+    }
+
+    private void begin(int originX, int originZ) {
+        _originX = originX;
+        _originZ = originZ;
+        _addQueue.clear();
+        _removeQueue.clear();
+    }
+
+    /**
+     * Runs the removal pass followed by the add pass and marks the touched chunks dirty.
+     */
+    private void propagate(Chunk.LIGHT_TYPE type) {
+        while (!_removeQueue.isEmpty()) {
+            int node = _removeQueue.poll();
+
+            int x = unpackX(node), y = unpackY(node), z = unpackZ(node);
+            int lightValue = unpackValue(node);
+
+            for (int[] dir : DIRECTIONS) {
+                int nx = x + dir[0], ny = y + dir[1], nz = z + dir[2];
+
+                if (ny < 0 || ny >= Chunk.CHUNK_DIMENSION_Y)
+                    continue;
+
+                byte neighborValue = getLight(nx, ny, nz, type);
+
+                if (neighborValue > 0 && neighborValue < lightValue) {
+                    setLight(nx, ny, nz, (byte) 0, type);
+                    addRemovalNode(nx, ny, nz, neighborValue);
+                    restoreLightSource(nx, ny, nz, type);
+                } else if (neighborValue >= lightValue) {
+                    // Lit by another source, spread it again afterwards
+                    addLightNode(nx, ny, nz, neighborValue);
+                }
+            }
+        }
+
+        while (!_addQueue.isEmpty()) {
+            int node = _addQueue.poll();
+
+            int x = unpackX(node), y = unpackY(node), z = unpackZ(node);
+            int lightValue = getLight(x, y, z, type);
+
+            if (lightValue <= 1)
+                continue;
+
+            for (int[] dir : DIRECTIONS) {
+                int nx = x + dir[0], ny = y + dir[1], nz = z + dir[2];
+
+                if (ny < 0 || ny >= Chunk.CHUNK_DIMENSION_Y)
+                    continue;
+
+                if (getLight(nx, ny, nz, type) < lightValue - 1 && BlockManager.getInstance().getBlock(getBlock(nx, ny, nz)).isTranslucent()) {
+                    setLight(nx, ny, nz, (byte) (lightValue - 1), type);
+                    addLightNode(nx, ny, nz, lightValue - 1);
+                }
+            }
+        }
+
+        markTouchedChunksDirty();
+        _lastChunk = null;
+    }
+
+    /**
+     * Sets the light of a translucent block to the brightest neighbor minus one.
+     */
+    private void pullLight(int x, int y, int z, Chunk.LIGHT_TYPE type) {
+        int max = 0;
+
+        for (int[] dir : DIRECTIONS) {
+            int ny = y + dir[1];
+
+            if (ny >= 0 && ny < Chunk.CHUNK_DIMENSION_Y)
+                max = Math.max(max, getLight(x + dir[0], ny, z + dir[2], type));
+        }
+
+        if (max - 1 > getLight(x, y, z, type)) {
+            setLight(x, y, z, (byte) (max - 1), type);
+            addLightNode(x, y, z, max - 1);
+        }
+    }
+
+    /**
+     * Block light sources stay lit while the light around them is removed.
+     */
+    private void restoreLightSource(int x, int y, int z, Chunk.LIGHT_TYPE type) {
+        if (type != Chunk.LIGHT_TYPE.BLOCK)
+            return;
+
+        byte luminance = BlockManager.getInstance().getBlock(getBlock(x, y, z)).getLuminance();
+
+        if (luminance > getLight(x, y, z, type)) {
+            setLight(x, y, z, luminance, type);
+            addLightNode(x, y, z, luminance);
+        }
+    }
+
+    private void addLightNode(int x, int y, int z, int lightValue) {
+        if (isInRange(x, z))
+            _addQueue.add(pack(x, y, z, lightValue));
+    }
+
+    private void addRemovalNode(int x, int y, int z, int lightValue) {
+        if (isInRange(x, z))
+            _removeQueue.add(pack(x, y, z, lightValue));
+    }
+
+    private boolean isInRange(int x, int z) {
+        int relX = x - _originX + RELATIVE_OFFSET;
+        int relZ = z - _originZ + RELATIVE_OFFSET;
+
+        return relX >= 0 && relX <= RELATIVE_MASK && relZ >= 0 && relZ <= RELATIVE_MASK;
+    }
+
+    /* PACKED NODES: 8 bits x, 8 bits z, 8 bits y, 4 bits light value */
+
+    private int pack(int x, int y, int z, int lightValue) {
+        return ((x - _originX + RELATIVE_OFFSET) << 20) | ((z - _originZ + RELATIVE_OFFSET) << 12) | (y << 4) | lightValue;
+    }
+
+    private int unpackX(int node) {
+        return ((node >>> 20) & RELATIVE_MASK) - RELATIVE_OFFSET + _originX;
+    }
+
+    private int unpackZ(int node) {
+        return ((node >>> 12) & RELATIVE_MASK) - RELATIVE_OFFSET + _originZ;
+    }
+
+    private static int unpackY(int node) {
+        return (node >>> 4) & 0xFF;
+    }
+
+    private static int unpackValue(int node) {
+        return node & 0xF;
+    }
+
+    /* WORLD ACCESS */
+
+    private Chunk getChunk(int x, int z) {
+        int chunkPosX = MathHelper.calcChunkPosX(x);
+        int chunkPosZ = MathHelper.calcChunkPosZ(z);
+
+        if (_lastChunk == null || _lastChunkX != chunkPosX || _lastChunkZ != chunkPosZ) {
+            _lastChunk = _parent.getChunkProvider().loadOrCreateChunk(chunkPosX, chunkPosZ);
+            _lastChunkX = chunkPosX;
+            _lastChunkZ = chunkPosZ;
+        }
+
+        return _lastChunk;
+    }
+
+    private byte getBlock(int x, int y, int z) {
+        Chunk c = getChunk(x, z);
+        return c.getBlock(MathHelper.calcBlockPosX(x, _lastChunkX), y, MathHelper.calcBlockPosZ(z, _lastChunkZ));
+    }
+
+    private byte getLight(int x, int y, int z, Chunk.LIGHT_TYPE type) {
+        Chunk c = getChunk(x, z);
+        return c.getLight(MathHelper.calcBlockPosX(x, _lastChunkX), y, MathHelper.calcBlockPosZ(z, _lastChunkZ), type);
+    }
+
+    private void setLight(int x, int y, int z, byte lightValue, Chunk.LIGHT_TYPE type) {
+        Chunk c = getChunk(x, z);
+
+        int blockPosX = MathHelper.calcBlockPosX(x, _lastChunkX);
+        int blockPosZ = MathHelper.calcBlockPosZ(z, _lastChunkZ);
+
+        c.setLightValue(blockPosX, y, blockPosZ, lightValue, type);
+        touch(c, blockPosX, y, blockPosZ);
+    }
+
+    /* DIRTY TRACKING */
+
+    private void touch(Chunk c, int x, int y, int z) {
+        int i = _lastTouched;
+
+        if (i < 0 || _touchedChunks[i] != c) {
+            for (i = 0; i < _touchedCount; i++) {
+                if (_touchedChunks[i] == c)
+                    break;
+            }
+
+            if (i == _touchedCount) {
+                if (_touchedCount == _touchedChunks.length)
+                    growTouched();
+
+                _touchedChunks[i] = c;
+                _touchedMinY[i] = y;
+                _touchedMaxY[i] = y;
+                _touchedBorders[i] = 0;
+                _touchedCount++;
+            }
+
+            _lastTouched = i;
+        }
+
+        _touchedMinY[i] = Math.min(_touchedMinY[i], y);
+        _touchedMaxY[i] = Math.max(_touchedMaxY[i], y);
+
+        if (x == 0)
+            _touchedBorders[i] |= BORDER_NEG_X;
+        else if (x == Chunk.CHUNK_DIMENSION_X - 1)
+            _touchedBorders[i] |= BORDER_POS_X;
+        if (z == 0)
+            _touchedBorders[i] |= BORDER_NEG_Z;
+        else if (z == Chunk.CHUNK_DIMENSION_Z - 1)
+            _touchedBorders[i] |= BORDER_POS_Z;
+    }
+
+    private void growTouched() {
+        int length = _touchedChunks.length * 2;
+
+        Chunk[] chunks = new Chunk[length];
+        System.arraycopy(_touchedChunks, 0, chunks, 0, _touchedCount);
+        _touchedChunks = chunks;
+
+        int[] minY = new int[length], maxY = new int[length], borders = new int[length];
+        System.arraycopy(_touchedMinY, 0, minY, 0, _touchedCount);
+        System.arraycopy(_touchedMaxY, 0, maxY, 0, _touchedCount);
+        System.arraycopy(_touchedBorders, 0, borders, 0, _touchedCount);
+        _touchedMinY = minY;
+        _touchedMaxY = maxY;
+        _touchedBorders = borders;
+    }
+
+    private void markTouchedChunksDirty() {
+        for (int i = 0; i < _touchedCount; i++) {
+            Chunk c = _touchedChunks[i];
+
+            // Vertex lighting samples the blocks above and below a face too
+            int minY = _touchedMinY[i] - 1;
+            int maxY = _touchedMaxY[i] + 1;
+
+            c.setDirty(minY, maxY);
+
+            int borders = _touchedBorders[i];
+
+            if (borders != 0) {
+                Chunk[] neighbors = c.loadOrCreateNeighbors();
+
+                if ((borders & BORDER_POS_X) != 0)
+                    neighbors[0].setDirty(minY, maxY);
+                if ((borders & BORDER_NEG_X) != 0)
+                    neighbors[1].setDirty(minY, maxY);
+                if ((borders & BORDER_POS_Z) != 0)
+                    neighbors[2].setDirty(minY, maxY);
+                if ((borders & BORDER_NEG_Z) != 0)
+                    neighbors[3].setDirty(minY, maxY);
+                if ((borders & (BORDER_POS_X | BORDER_POS_Z)) == (BORDER_POS_X | BORDER_POS_Z))
+                    neighbors[4].setDirty(minY, maxY);
+                if ((borders & (BORDER_NEG_X | BORDER_NEG_Z)) == (BORDER_NEG_X | BORDER_NEG_Z))
+                    neighbors[5].setDirty(minY, maxY);
+                if ((borders & (BORDER_NEG_X | BORDER_POS_Z)) == (BORDER_NEG_X | BORDER_POS_Z))
+                    neighbors[6].setDirty(minY, maxY);
+                if ((borders & (BORDER_POS_X | BORDER_NEG_Z)) == (BORDER_POS_X | BORDER_NEG_Z))
+                    neighbors[7].setDirty(minY, maxY);
+            }
+
+            _touchedChunks[i] = null;
+        }
+
+        _touchedCount = 0;
+        _lastTouched = -1;
+    }
+}
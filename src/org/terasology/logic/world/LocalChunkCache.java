@@ -17,13 +17,17 @@ package org.terasology.logic.world;
 
 import org.terasology.game.Terasology;
 import org.terasology.logic.manager.ConfigurationManager;
+import org.terasology.logic.manager.TaskManager;
+import org.terasology.model.structures.ConcurrentLongMap;
+import org.terasology.model.structures.WriteBehindQueue;
+import org.terasology.performanceMonitor.PerformanceMonitor;
 import org.terasology.utilities.MathHelper;
 
 import javax.vecmath.Vector3d;
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
@@ -35,11 +39,72 @@ public final class LocalChunkCache implements IChunkProvider {
 
     private static final boolean SAVE_CHUNKS = (Boolean) ConfigurationManager.getInstance().getConfig().get("System.saveChunks");
     private static final int CACHE_SIZE = (Integer) ConfigurationManager.getInstance().getConfig().get("System.chunkCacheSize");
+    private static final int CACHE_LOW_WATERMARK = Math.min(CACHE_SIZE, (Integer) ConfigurationManager.getInstance().getConfig().get("System.chunkCacheLowWatermark"));
+    // Chunks farther away than this share the last distance bucket
+    private static final int MAX_EVICTION_DISTANCE = 256;
+    private static final int PREFETCH_QUEUE_SIZE = (Integer) ConfigurationManager.getInstance().getConfig().get("System.chunkPrefetchQueueSize");
+    private static final double PREFETCH_LOOKAHEAD = (Double) ConfigurationManager.getInstance().getConfig().get("System.chunkPrefetchLookahead");
+
+    private final ConcurrentLongMap<Chunk> _chunkCache = new ConcurrentLongMap<Chunk>(CACHE_SIZE);
+    private final ConcurrentHashMap<Long, RegionFile> _regionFiles = new ConcurrentHashMap<Long, RegionFile>();
+    private final ThreadLocal<ByteBuffer> _writeBuffer = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(Chunk.getSerializedSize());
+        }
+    };
+    private final LocalWorldProvider _parent;
 
-    private static boolean _running = false;
+    /* LAST CHUNK */
+    private final ThreadLocal<LastChunk> _lastChunk = new ThreadLocal<LastChunk>() {
+        @Override
+        protected LastChunk initialValue() {
+            return new LastChunk();
+        }
+    };
+    // Incremented whenever a chunk leaves the cache, invalidates the last chunks of all threads
+    private final AtomicInteger _evictions = new AtomicInteger();
 
-    private final ConcurrentHashMap<Integer, Chunk> _chunkCache = new ConcurrentHashMap<Integer, Chunk>();
-    private final LocalWorldProvider _parent;
+    /**
+     * The chunk a thread accessed the last time. Most threads access the same chunk many times in a row.
+     */
+    private static final class LastChunk {
+        long chunkId;
+        Chunk chunk;
+        int evictions;
+    }
+
+    /* WRITE-BEHIND */
+    private final WriteBehindQueue<Chunk> _pendingWrites = new WriteBehindQueue<Chunk>(CACHE_SIZE - CACHE_LOW_WATERMARK);
+    private final WriteBehindQueue.Writer<Chunk> _chunkWriter = new WriteBehindQueue.Writer<Chunk>() {
+        public boolean write(Chunk c) {
+            writeChunkToDisk(c);
+
+            // Chunks changed while being written have to be written again
+            return !SAVE_CHUNKS || !c.isModified();
+        }
+
+        public void dispose(Chunk c) {
+            c.dispose();
+        }
+    };
+    private final Runnable _writeBehind = new Runnable() {
+        public void run() {
+            writePendingChunks();
+        }
+    };
+
+    /* PREFETCHING */
+    private final ConcurrentLongMap<FutureTask<Chunk>> _pendingChunks = new ConcurrentLongMap<FutureTask<Chunk>>(PREFETCH_QUEUE_SIZE);
+    private final ThreadPoolExecutor _loaderPool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(PREFETCH_QUEUE_SIZE), new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "Chunk Loader");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+    private int _prefetchCenterX = Integer.MIN_VALUE, _prefetchCenterZ = Integer.MIN_VALUE, _prefetchRadius;
 
     /**
      * Init. a new local chunk cache.
@@ -61,8 +126,37 @@ public final class LocalChunkCache implements IChunkProvider {
      * @return The chunk
      */
     public Chunk loadOrCreateChunk(int x, int z) {
-        int chunkId = MathHelper.cantorize(MathHelper.mapToPositive(x), MathHelper.mapToPositive(z));
+        long chunkId = ConcurrentLongMap.key(x, z);
+
+        // Skip the cache if this thread requested the same chunk the last time and no chunk has been evicted since
+        LastChunk last = _lastChunk.get();
+        int evictions = _evictions.get();
+
+        if (last.chunk != null && last.chunkId == chunkId && last.evictions == evictions) {
+            return last.chunk;
+        }
+
+        Chunk c = lookupChunk(chunkId, x, z);
+
+        last.chunkId = chunkId;
+        last.chunk = c;
+        last.evictions = evictions;
+
+        return c;
+    }
+
+    /**
+     * Returns the chunk at the given position if it is currently cached.
+     *
+     * @param x X-coordinate of the chunk
+     * @param z Z-coordinate of the chunk
+     * @return The chunk, null if the chunk is not cached
+     */
+    public Chunk getCachedChunk(int x, int z) {
+        return _chunkCache.get(ConcurrentLongMap.key(x, z));
+    }
 
+    private Chunk lookupChunk(long chunkId, int x, int z) {
         // Try to load the chunk from the cache
         Chunk c = _chunkCache.get(chunkId);
 
@@ -71,7 +165,134 @@ public final class LocalChunkCache implements IChunkProvider {
             return c;
         }
 
-        // Okay, seems like we've got some more stuff to do...
+        // The chunk is about to be loaded in the background...
+        FutureTask<Chunk> pending = _pendingChunks.get(chunkId);
+
+        if (pending != null) {
+            // ... so steal the task if it is still queued, otherwise wait for the loader to finish it
+            pending.run();
+
+            try {
+                return pending.get();
+            } catch (Exception e) {
+                Terasology.getInstance().getLogger().log(Level.WARNING, "Prefetching chunk failed.", e);
+            }
+        }
+
+        return loadChunk(chunkId, x, z);
+    }
+
+    /**
+     * Requests the chunk at the given position to be loaded in the background.
+     *
+     * @param x X-coordinate of the chunk
+     * @param z Z-coordinate of the chunk
+     * @return The future result, null if the loader is busy
+     */
+    public Future<Chunk> prefetchChunk(final int x, final int z) {
+        final long chunkId = ConcurrentLongMap.key(x, z);
+
+        Chunk c = _chunkCache.get(chunkId);
+
+        if (c != null) {
+            FutureTask<Chunk> result = new FutureTask<Chunk>(new Runnable() {
+                public void run() {
+                }
+            }, c);
+            result.run();
+
+            return result;
+        }
+
+        FutureTask<Chunk> task = new FutureTask<Chunk>(new Callable<Chunk>() {
+            public Chunk call() throws Exception {
+                PerformanceMonitor.startThread("Prefetch Chunk");
+                try {
+                    return loadChunk(chunkId, x, z);
+                } finally {
+                    _pendingChunks.remove(chunkId);
+                    PerformanceMonitor.endThread("Prefetch Chunk");
+                }
+            }
+        });
+
+        FutureTask<Chunk> pending = _pendingChunks.putIfAbsent(chunkId, task);
+
+        if (pending != null)
+            return pending;
+
+        try {
+            _loaderPool.execute(task);
+        } catch (RejectedExecutionException e) {
+            _pendingChunks.remove(chunkId);
+            return null;
+        }
+
+        return task;
+    }
+
+    /**
+     * Prefetches the chunks the player is about to need. The area around the position the player
+     * will have reached after PREFETCH_LOOKAHEAD ticks is loaded in the background, starting
+     * with the chunks closest to this position.
+     *
+     * @param position The position of the player
+     * @param velocity The velocity of the player in blocks per tick
+     * @param radius   The radius of the area to load in chunks
+     */
+    public void prefetchChunks(Vector3d position, Vector3d velocity, int radius) {
+        int centerX = MathHelper.calcChunkPosX((int) (position.x + velocity.x * PREFETCH_LOOKAHEAD));
+        int centerZ = MathHelper.calcChunkPosZ((int) (position.z + velocity.z * PREFETCH_LOOKAHEAD));
+
+        if (centerX == _prefetchCenterX && centerZ == _prefetchCenterZ && radius == _prefetchRadius)
+            return;
+
+        for (int ring = 0; ring <= radius; ring++) {
+            for (int x = -ring; x <= ring; x++) {
+                for (int z = -ring; z <= ring; z++) {
+                    // Only visit the border of the current ring
+                    if (MathHelper.fastAbs(x) != ring && MathHelper.fastAbs(z) != ring)
+                        continue;
+
+                    if (_chunkCache.containsKey(ConcurrentLongMap.key(centerX + x, centerZ + z)))
+                        continue;
+
+                    if (prefetchChunk(centerX + x, centerZ + z) == null) {
+                        // The loader is busy, try again with the next update
+                        return;
+                    }
+                }
+            }
+        }
+
+        _prefetchCenterX = centerX;
+        _prefetchCenterZ = centerZ;
+        _prefetchRadius = radius;
+    }
+
+    /**
+     * Loads the chunk from disk or creates a fresh chunk and adds it to the cache.
+     *
+     * @param chunkId The id of the chunk
+     * @param x       X-coordinate of the chunk
+     * @param z       Z-coordinate of the chunk
+     * @return The chunk
+     */
+    private Chunk loadChunk(long chunkId, int x, int z) {
+        Chunk c = _chunkCache.get(chunkId);
+
+        if (c != null) {
+            return c;
+        }
+
+        // The chunk has been evicted but not written yet, so take it back
+        c = _pendingWrites.take(chunkId);
+
+        if (c != null) {
+            Chunk cached = _chunkCache.putIfAbsent(chunkId, c);
+            return cached != null ? cached : c;
+        }
+
         Vector3d chunkPos = new Vector3d(x, 0, z);
 
         // Try to load the chunk from the disk
@@ -82,91 +303,196 @@ public final class LocalChunkCache implements IChunkProvider {
             c = new Chunk(_parent, chunkPos);
         }
 
-        // Cache the chunk...
-        _chunkCache.put(chunkId, c);
+        // Cache the chunk unless another thread was faster
+        Chunk cached = _chunkCache.putIfAbsent(chunkId, c);
+
+        if (cached != null) {
+            c.dispose();
+            return cached;
+        }
 
-        // ... and finally return it
         return c;
     }
 
     /**
-     * Removes old chunks from the cache if the size limit has been reached.
+     * Removes the chunks farthest away from the given position once the size limit has been reached,
+     * until the cache has shrunk to its low watermark. The chunks are bucketed by their distance in chunks,
+     * so a flush costs linear time. Evicted chunks are written to disk in the background.
+     *
+     * @param position The position the distances are measured from
      */
-    public void flushCache() {
-        if (_running || _chunkCache.size() <= CACHE_SIZE)
+    public void flushCache(Vector3d position) {
+        int size = _chunkCache.size();
+
+        if (size <= CACHE_SIZE)
             return;
 
-        _running = true;
+        int centerX = MathHelper.calcChunkPosX((int) position.x);
+        int centerZ = MathHelper.calcChunkPosZ((int) position.z);
+
+        long[] chunkIds = new long[size];
+        Chunk[] chunks = new Chunk[size];
+        int[] distances = new int[size];
+        int[] bucketSizes = new int[MAX_EVICTION_DISTANCE + 1];
+        int count = 0;
+
+        for (Chunk c : _chunkCache.values()) {
+            // The cache might have grown in the meantime
+            if (count == size)
+                break;
+
+            int chunkX = (int) c.getPosition().x;
+            int chunkZ = (int) c.getPosition().z;
+            int distance = Math.max(MathHelper.fastAbs(chunkX - centerX), MathHelper.fastAbs(chunkZ - centerZ));
+            distance = Math.min(distance, MAX_EVICTION_DISTANCE);
+
+            chunkIds[count] = ConcurrentLongMap.key(chunkX, chunkZ);
+            chunks[count] = c;
+            distances[count] = distance;
+            bucketSizes[distance]++;
+            count++;
+        }
+
+        // Find the distance from which on all chunks are evicted and how many chunks of the bucket before are evicted as well
+        int toEvict = count - CACHE_LOW_WATERMARK;
+        int minDistance = MAX_EVICTION_DISTANCE;
 
-        Runnable r = new Runnable() {
-            public void run() {
-                ArrayList<Chunk> cachedChunks = new ArrayList<Chunk>(_chunkCache.values());
-                Collections.sort(cachedChunks);
+        while (minDistance > 0 && toEvict > bucketSizes[minDistance]) {
+            toEvict -= bucketSizes[minDistance];
+            minDistance--;
+        }
 
-                if (cachedChunks.size() > CACHE_SIZE) {
-                    Chunk chunkToDelete = cachedChunks.remove(cachedChunks.size() - 1);
-                    // Write the chunk to disk (but do not remove it from the cache just jet)
-                    writeChunkToDisk(chunkToDelete);
-                    // When the chunk is written, finally remove it from the cache
-                    _chunkCache.values().remove(chunkToDelete);
+        int partialEvictions = toEvict;
 
-                    chunkToDelete.dispose();
-                }
+        for (int i = 0; i < count; i++) {
+            if (distances[i] < minDistance)
+                continue;
+
+            if (distances[i] == minDistance) {
+                if (partialEvictions <= 0)
+                    continue;
 
-                _running = false;
+                partialEvictions--;
             }
-        };
 
-        Terasology.getInstance().submitTask("Flush Chunk Cache", r);
+            evictChunk(chunkIds[i], chunks[i]);
+        }
+
+        Terasology.getInstance().submitTask(TaskManager.TASK_CATEGORY.CHUNK_STORAGE, "Write Chunks", _writeBehind, _writeBehind);
+    }
+
+    /**
+     * Removes the given chunk from the cache and queues it to be written to disk.
+     */
+    private void evictChunk(long chunkId, Chunk c) {
+        // Make the chunk available to loaders before it leaves the cache
+        _pendingWrites.add(chunkId, c);
+
+        if (!_chunkCache.remove(chunkId, c)) {
+            _pendingWrites.take(chunkId, c);
+            return;
+        }
+
+        _evictions.incrementAndGet();
+    }
+
+    /**
+     * Writes all evicted chunks to disk one after another and disposes them afterwards. Chunks
+     * which have been taken back into the cache in the meantime are not disposed.
+     */
+    private void writePendingChunks() {
+        _pendingWrites.writeAll(_chunkWriter);
+    }
+
+    /**
+     * Writes the chunk at the given position to disk and removes it from the cache. Chunks which
+     * are currently not cached are ignored.
+     *
+     * @param x X-coordinate of the chunk
+     * @param z Z-coordinate of the chunk
+     * @return The amount of bytes written
+     */
+    public int unloadChunk(int x, int z) {
+        long chunkId = ConcurrentLongMap.key(x, z);
+        Chunk c = _chunkCache.get(chunkId);
+
+        if (c == null)
+            return 0;
+
+        int written = writeChunkToDisk(c);
+
+        _chunkCache.remove(chunkId, c);
+        _evictions.incrementAndGet();
+        c.dispose();
+
+        return written;
     }
 
     /**
      * Writes all chunks to disk and disposes them.
      */
     public void dispose() {
+        _loaderPool.shutdown();
+
         Runnable r = new Runnable() {
             public void run() {
+                writePendingChunks();
+
                 for (Chunk c : _chunkCache.values()) {
                     writeChunkToDisk(c);
                     c.dispose();
                 }
 
                 _chunkCache.clear();
+                _evictions.incrementAndGet();
+                closeRegionFiles();
             }
         };
 
-        Terasology.getInstance().submitTask("Dispose Chunk", r);
+        Terasology.getInstance().submitTask(TaskManager.TASK_CATEGORY.CHUNK_STORAGE, "Dispose Chunk", r);
     }
 
     /**
-     * Writes a given chunk to the disk.
+     * Writes a given chunk to the region file it belongs to. Chunks which have not been modified
+     * since they were loaded or saved the last time are skipped.
      *
      * @param c The chunk to save
+     * @return The amount of bytes written
      */
-    private void writeChunkToDisk(Chunk c) {
-        if (!SAVE_CHUNKS) {
-            return;
+    private int writeChunkToDisk(Chunk c) {
+        if (!SAVE_CHUNKS || !c.isModified()) {
+            return 0;
         }
 
-        File dirPath = new File(_parent.getWorldSavePath() + "/" + c.getChunkSavePath());
-        if (!dirPath.exists()) {
-            if (!dirPath.mkdirs()) {
-                Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not create save directory.");
-                return;
-            }
-        }
+        // Changes made while writing mark the chunk modified again
+        c.setModified(false);
 
-        File f = new File(_parent.getWorldSavePath() + "/" + c.getChunkSavePath() + "/" + c.getChunkFileName());
+        int x = (int) c.getPosition().x;
+        int z = (int) c.getPosition().z;
 
         try {
-            FileOutputStream fileOut = new FileOutputStream(f);
-            ObjectOutputStream out = new ObjectOutputStream(fileOut);
-            out.writeObject(c);
-            out.close();
-            fileOut.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+            RegionFile region = getRegionFile(x, z, true);
+
+            if (region == null) {
+                c.setModified(true);
+                return 0;
+            }
+
+            ByteBuffer buffer = _writeBuffer.get();
+            buffer.clear();
+            c.writeToBuffer(buffer);
+            buffer.flip();
+
+            int length = buffer.remaining();
+            region.write(x, z, buffer);
+
+            return length;
+        } catch (IOException e) {
+            c.setModified(true);
+            Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not save chunk.", e);
         }
+
+        return 0;
     }
 
     /**
@@ -176,6 +502,38 @@ public final class LocalChunkCache implements IChunkProvider {
      * @return The loaded chunk, null if none was found
      */
     private Chunk loadChunkFromDisk(Vector3d chunkPos) {
+        int x = (int) chunkPos.x;
+        int z = (int) chunkPos.z;
+
+        try {
+            RegionFile region = getRegionFile(x, z, false);
+
+            if (region != null) {
+                ByteBuffer data = region.read(x, z);
+
+                if (data != null) {
+                    Chunk result = new Chunk();
+                    result.readFromBuffer(data);
+                    result.setParent(_parent);
+
+                    return result;
+                }
+            }
+        } catch (IOException e) {
+            Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not load chunk.", e);
+        }
+
+        return loadLegacyChunkFromDisk(chunkPos);
+    }
+
+    /**
+     * Tries to load a chunk which was saved to its own file by older versions. The chunk is
+     * moved to its region file the next time it gets written to disk.
+     *
+     * @param chunkPos The position of the chunk
+     * @return The loaded chunk, null if none was found
+     */
+    private Chunk loadLegacyChunkFromDisk(Vector3d chunkPos) {
         File f = new File(_parent.getWorldSavePath() + "/" + Chunk.getChunkSavePathForPosition(chunkPos) + "/" + Chunk.getChunkFileNameForPosition(chunkPos));
 
         if (!f.exists())
@@ -199,6 +557,68 @@ public final class LocalChunkCache implements IChunkProvider {
         return null;
     }
 
+    /**
+     * Returns the region file containing the chunk at the given position.
+     *
+     * @param x      X-coordinate of the chunk
+     * @param z      Z-coordinate of the chunk
+     * @param create If true, missing region files are created
+     * @return The region file, null if not present and "create" is false
+     * @throws IOException Thrown if the region file could not be opened
+     */
+    private RegionFile getRegionFile(int x, int z, boolean create) throws IOException {
+        int regionX = RegionFile.calcRegionPos(x);
+        int regionZ = RegionFile.calcRegionPos(z);
+        Long regionId = ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+
+        RegionFile region = _regionFiles.get(regionId);
+
+        if (region != null)
+            return region;
+
+        synchronized (_regionFiles) {
+            region = _regionFiles.get(regionId);
+
+            if (region != null)
+                return region;
+
+            File dirPath = new File(_parent.getWorldSavePath() + "/regions");
+            File f = new File(dirPath, RegionFile.getFileNameForRegion(regionX, regionZ));
+
+            if (!f.exists()) {
+                if (!create)
+                    return null;
+
+                if (!dirPath.exists() && !dirPath.mkdirs()) {
+                    Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not create save directory.");
+                    return null;
+                }
+            }
+
+            region = new RegionFile(f);
+            _regionFiles.put(regionId, region);
+        }
+
+        return region;
+    }
+
+    /**
+     * Closes all open region files.
+     */
+    private void closeRegionFiles() {
+        synchronized (_regionFiles) {
+            for (RegionFile region : _regionFiles.values()) {
+                try {
+                    region.close();
+                } catch (IOException e) {
+                    Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not close region file.", e);
+                }
+            }
+
+            _regionFiles.clear();
+        }
+    }
+
     /**
      * Returns the amount of cached chunks available in the cache.
      *
@@ -36,7 +36,6 @@ import javax.vecmath.Vector3d;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.util.ArrayList;
 import java.util.logging.Level;
 
 /**
@@ -48,6 +47,7 @@ public class LocalWorldProvider implements IWorldProvider {
 
     /* WORLD GENERATION */
     protected final GeneratorManager _generatorManager;
+    protected final ChunkGenerationPipeline _generationPipeline;
 
     /* CHUNK PROVIDER */
     protected final IChunkProvider _chunkProvider;
@@ -64,6 +64,14 @@ public class LocalWorldProvider implements IWorldProvider {
     private final LiquidSimulator _liquidSimulator;
     private final GrowthSimulator _growthSimulator;
 
+    /* LIGHTING */
+    private final ThreadLocal<LightPropagator> _lightPropagator = new ThreadLocal<LightPropagator>() {
+        @Override
+        protected LightPropagator initialValue() {
+            return new LightPropagator(LocalWorldProvider.this);
+        }
+    };
+
     /* RANDOMNESS */
     protected final FastRandom _random;
 
@@ -98,6 +106,7 @@ public class LocalWorldProvider implements IWorldProvider {
 
         _generatorManager = new GeneratorManager(this);
         _chunkProvider = new LocalChunkCache(this);
+        _generationPipeline = new ChunkGenerationPipeline(this);
 
         _liquidSimulator = new LiquidSimulator(this);
         _growthSimulator = new GrowthSimulator(this);
@@ -256,6 +265,17 @@ public class LocalWorldProvider implements IWorldProvider {
         return c.canBlockSeeTheSky(blockPosX, y, blockPosZ);
     }
 
+    public final int getSurfaceHeightAt(int x, int z) {
+        int chunkPosX = MathHelper.calcChunkPosX(x);
+        int chunkPosZ = MathHelper.calcChunkPosZ(z);
+
+        int blockPosX = MathHelper.calcBlockPosX(x, chunkPosX);
+        int blockPosZ = MathHelper.calcBlockPosZ(z, chunkPosZ);
+
+        Chunk c = getChunkProvider().loadOrCreateChunk(chunkPosX, chunkPosZ);
+        return c.getSurfaceHeight(blockPosX, blockPosZ);
+    }
+
     public byte getState(int x, int y, int z) {
         int chunkPosX = MathHelper.calcChunkPosX(x);
         int chunkPosZ = MathHelper.calcChunkPosZ(z);
@@ -307,6 +327,118 @@ public class LocalWorldProvider implements IWorldProvider {
         c.setLight(blockPosX, y, blockPosZ, intensity, type);
     }
 
+    /* REGIONS */
+
+    private enum REGION_DATA {
+        BLOCKS, STATES, SUNLIGHT, LIGHT
+    }
+
+    public final void getBlocks(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, byte[] buffer) {
+        readRegion(minX, minY, minZ, sizeX, sizeY, sizeZ, REGION_DATA.BLOCKS, buffer);
+    }
+
+    public final void getStates(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, byte[] buffer) {
+        readRegion(minX, minY, minZ, sizeX, sizeY, sizeZ, REGION_DATA.STATES, buffer);
+    }
+
+    public final void getLights(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, Chunk.LIGHT_TYPE type, byte[] buffer) {
+        readRegion(minX, minY, minZ, sizeX, sizeY, sizeZ, type == Chunk.LIGHT_TYPE.SUN ? REGION_DATA.SUNLIGHT : REGION_DATA.LIGHT, buffer);
+    }
+
+    /**
+     * Copies the requested values of the given box into the given buffer, one chunk after another.
+     */
+    private void readRegion(final int minX, final int minY, final int minZ, int sizeX, final int sizeY, final int sizeZ, final REGION_DATA data, final byte[] buffer) {
+        checkRegionBuffer(sizeX, sizeY, sizeZ, buffer);
+
+        forEachChunk(minX, minY, minZ, sizeX, sizeY, sizeZ, new IChunkRegionVisitor() {
+            public void visit(Chunk chunk, int chunkMinX, int chunkMinY, int chunkMinZ, int chunkMaxX, int chunkMaxY, int chunkMaxZ) {
+                for (int x = chunkMinX; x <= chunkMaxX; x++) {
+                    int relX = chunk.getBlockWorldPosX(x) - minX;
+
+                    for (int y = chunkMinY; y <= chunkMaxY; y++) {
+                        int i = (relX * sizeY + (y - minY)) * sizeZ + chunk.getBlockWorldPosZ(chunkMinZ) - minZ;
+
+                        for (int z = chunkMinZ; z <= chunkMaxZ; z++, i++) {
+                            switch (data) {
+                                case BLOCKS:
+                                    buffer[i] = chunk.getBlock(x, y, z);
+                                    break;
+                                case STATES:
+                                    buffer[i] = chunk.getState(x, y, z);
+                                    break;
+                                case SUNLIGHT:
+                                    buffer[i] = chunk.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN);
+                                    break;
+                                default:
+                                    buffer[i] = chunk.getLight(x, y, z, Chunk.LIGHT_TYPE.BLOCK);
+                            }
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    public final int setBlocks(final int minX, final int minY, final int minZ, int sizeX, final int sizeY, final int sizeZ, final byte[] blocks, boolean updateLight, final boolean overwrite) {
+        checkRegionBuffer(sizeX, sizeY, sizeZ, blocks);
+
+        final BlockEditBatch batch = beginEditBatch(updateLight);
+
+        forEachChunk(minX, minY, minZ, sizeX, sizeY, sizeZ, new IChunkRegionVisitor() {
+            public void visit(Chunk chunk, int chunkMinX, int chunkMinY, int chunkMinZ, int chunkMaxX, int chunkMaxY, int chunkMaxZ) {
+                for (int x = chunkMinX; x <= chunkMaxX; x++) {
+                    int relX = chunk.getBlockWorldPosX(x) - minX;
+
+                    for (int y = chunkMinY; y <= chunkMaxY; y++) {
+                        int i = (relX * sizeY + (y - minY)) * sizeZ + chunk.getBlockWorldPosZ(chunkMinZ) - minZ;
+
+                        for (int z = chunkMinZ; z <= chunkMaxZ; z++, i++) {
+                            if (blocks[i] >= 0)
+                                batch.setLocalBlock(chunk, x, y, z, blocks[i], overwrite);
+                        }
+                    }
+                }
+            }
+        });
+
+        batch.commit();
+        return batch.size();
+    }
+
+    public final BlockEditBatch beginEditBatch(boolean updateLight) {
+        return new BlockEditBatch(this, updateLight);
+    }
+
+    public final void forEachChunk(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, IChunkRegionVisitor visitor) {
+        if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0)
+            return;
+
+        int maxX = minX + sizeX - 1;
+        int maxZ = minZ + sizeZ - 1;
+
+        for (int chunkPosX = MathHelper.calcChunkPosX(minX); chunkPosX <= MathHelper.calcChunkPosX(maxX); chunkPosX++) {
+            for (int chunkPosZ = MathHelper.calcChunkPosZ(minZ); chunkPosZ <= MathHelper.calcChunkPosZ(maxZ); chunkPosZ++) {
+                Chunk c = getChunkProvider().loadOrCreateChunk(chunkPosX, chunkPosZ);
+
+                int chunkWorldX = chunkPosX * Chunk.CHUNK_DIMENSION_X;
+                int chunkWorldZ = chunkPosZ * Chunk.CHUNK_DIMENSION_Z;
+
+                int chunkMinX = Math.max(minX - chunkWorldX, 0);
+                int chunkMinZ = Math.max(minZ - chunkWorldZ, 0);
+                int chunkMaxX = Math.min(maxX - chunkWorldX, Chunk.CHUNK_DIMENSION_X - 1);
+                int chunkMaxZ = Math.min(maxZ - chunkWorldZ, Chunk.CHUNK_DIMENSION_Z - 1);
+
+                visitor.visit(c, chunkMinX, minY, chunkMinZ, chunkMaxX, minY + sizeY - 1, chunkMaxZ);
+            }
+        }
+    }
+
+    private static void checkRegionBuffer(int sizeX, int sizeY, int sizeZ, byte[] buffer) {
+        if (sizeX > 0 && sizeY > 0 && sizeZ > 0 && buffer.length < sizeX * sizeY * sizeZ)
+            throw new IllegalArgumentException("The buffer is too small for the given region.");
+    }
+
     /**
      * Finds a spawning point.
      *
@@ -321,6 +453,24 @@ public class LocalWorldProvider implements IWorldProvider {
             int randX = (int) (nRandom.randomDouble() * 128f);
             int randZ = (int) (nRandom.randomDouble() * 128f);
 
+            int worldX = randX + (int) SPAWN_ORIGIN.x;
+            int worldZ = randZ + (int) SPAWN_ORIGIN.y;
+            int chunkPosX = MathHelper.calcChunkPosX(worldX);
+            int chunkPosZ = MathHelper.calcChunkPosZ(worldZ);
+
+            // Generated chunks already know their surface, so the terrain density is only evaluated for other chunks.
+            // Only cached chunks are used, loading or creating a chunk costs more than evaluating the density.
+            Chunk c = getChunkProvider().getCachedChunk(chunkPosX, chunkPosZ);
+
+            if (c != null && !c.isFresh()) {
+                int y = c.getOpaqueHeight(MathHelper.calcBlockPosX(worldX, chunkPosX), MathHelper.calcBlockPosZ(worldZ, chunkPosZ));
+
+                if (y >= 32 && y < 64)
+                    return new Vector3d(randX + SPAWN_ORIGIN.x, y, randZ + SPAWN_ORIGIN.y);
+
+                continue;
+            }
+
             for (int y = Chunk.CHUNK_DIMENSION_Y - 1; y >= 32; y--) {
 
                 double dens = tGen.calcDensity(randX + (int) SPAWN_ORIGIN.x, y, randZ + (int) SPAWN_ORIGIN.y);
@@ -349,7 +499,10 @@ public class LocalWorldProvider implements IWorldProvider {
      */
 
     public double getHumidityAt(int x, int z) {
-        return ((ChunkGeneratorTerrain) getGeneratorManager().getChunkGenerators().get(0)).calcHumidityAtGlobalPosition(x, z);
+        int chunkPosX = MathHelper.calcChunkPosX(x);
+        int chunkPosZ = MathHelper.calcChunkPosZ(z);
+
+        return getGeneratorManager().getTerrainLayers(chunkPosX, chunkPosZ).getHumidity(MathHelper.calcBlockPosX(x, chunkPosX), MathHelper.calcBlockPosZ(z, chunkPosZ));
     }
 
     /**
@@ -360,14 +513,17 @@ public class LocalWorldProvider implements IWorldProvider {
      * @return The temperature
      */
     public double getTemperatureAt(int x, int z) {
-        return ((ChunkGeneratorTerrain) getGeneratorManager().getChunkGenerators().get(0)).calcTemperatureAtGlobalPosition(x, z);
+        int chunkPosX = MathHelper.calcChunkPosX(x);
+        int chunkPosZ = MathHelper.calcChunkPosZ(z);
+
+        return getGeneratorManager().getTerrainLayers(chunkPosX, chunkPosZ).getTemperature(MathHelper.calcBlockPosX(x, chunkPosX), MathHelper.calcBlockPosZ(z, chunkPosZ));
     }
 
     /*
     * Returns the biome type at the given position.
     */
     public ChunkGeneratorTerrain.BIOME_TYPE getActiveBiome(int x, int z) {
-        return ((ChunkGeneratorTerrain) getGeneratorManager().getChunkGenerators().get(0)).calcBiomeTypeForGlobalPosition(x, z);
+        return ((ChunkGeneratorTerrain) getGeneratorManager().getChunkGenerators().get(0)).calcBiomeType(getTemperatureAt(x, z), getHumidityAt(x, z));
     }
 
     /**
@@ -405,6 +561,24 @@ public class LocalWorldProvider implements IWorldProvider {
         return _generatorManager;
     }
 
+    /**
+     * Returns the pipeline used to generate the chunks of this world.
+     *
+     * @return The generation pipeline
+     */
+    public ChunkGenerationPipeline getGenerationPipeline() {
+        return _generationPipeline;
+    }
+
+    /**
+     * Returns the light propagator of the current thread.
+     *
+     * @return The light propagator
+     */
+    public LightPropagator getLightPropagator() {
+        return _lightPropagator.get();
+    }
+
     public LiquidSimulator getLiquidSimulator() {
         return _liquidSimulator;
     }
@@ -488,47 +662,4 @@ public class LocalWorldProvider implements IWorldProvider {
             return false;
         }
     }
-
-    /**
-     * "Unspreads" light recursively.
-     *
-     * @param x           The X-coordinate
-     * @param y           The Y-coordinate
-     * @param z           The Z-coordinate
-     * @param lightValue  The initial light value
-     * @param depth       The current depth of the recursion
-     * @param type        The type of light
-     * @param brightSpots List of bright spots found while unspreading the light
-     */
-    public void unspreadLight(int x, int y, int z, byte lightValue, int depth, Chunk.LIGHT_TYPE type, ArrayList<Vector3d> brightSpots) {
-        int chunkPosX = MathHelper.calcChunkPosX(x);
-        int chunkPosZ = MathHelper.calcChunkPosZ(z);
-
-        int blockPosX = MathHelper.calcBlockPosX(x, chunkPosX);
-        int blockPosZ = MathHelper.calcBlockPosZ(z, chunkPosZ);
-
-        Chunk c = getChunkProvider().loadOrCreateChunk(MathHelper.calcChunkPosX(x), MathHelper.calcChunkPosZ(z));
-        c.unspreadLight(blockPosX, y, blockPosZ, lightValue, depth, type, brightSpots);
-    }
-
-    /**
-     * Propagates light recursively.
-     *
-     * @param x          The X-coordinate
-     * @param y          The Y-coordinate
-     * @param z          The Z-coordinate
-     * @param lightValue The initial light value
-     * @param depth      The current depth of the recursion
-     * @param type       The type of light
-     */
-    public void spreadLight(int x, int y, int z, byte lightValue, int depth, Chunk.LIGHT_TYPE type) {
-        int chunkPosX = MathHelper.calcChunkPosX(x);
-        int chunkPosZ = MathHelper.calcChunkPosZ(z);
-
-        int blockPosX = MathHelper.calcBlockPosX(x, chunkPosX);
-        int blockPosZ = MathHelper.calcBlockPosZ(z, chunkPosZ);
-
-        Chunk c = getChunkProvider().loadOrCreateChunk(MathHelper.calcChunkPosX(x), MathHelper.calcChunkPosZ(z));
-        c.spreadLight(blockPosX, y, blockPosZ, lightValue, depth, type);
-    }
 }
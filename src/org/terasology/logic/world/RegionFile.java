@@ -0,0 +1,277 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * Stores the data of REGION_SIZE x REGION_SIZE chunks within one single file.
+ * <p/>
+ * The file starts with an offset table containing one entry for each chunk of the region. Each entry
+ * stores the first sector and the length in bytes of the chunk data. The chunk data itself is stored in
+ * consecutive sectors of SECTOR_SIZE bytes. Sectors which are no longer used are reused when a chunk
+ * is written the next time.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class RegionFile {
+
+    /* CONST */
+    public static final int REGION_SIZE = 32;
+    public static final int SECTOR_SIZE = 4096;
+
+    private static final int MAGIC = 0x54455252; // "TERR"
+    private static final int VERSION = 2;
+
+    private static final int ENTRY_COUNT = REGION_SIZE * REGION_SIZE;
+    private static final int HEADER_SIZE = 8 + ENTRY_COUNT * 8;
+    private static final int HEADER_SECTORS = (HEADER_SIZE + SECTOR_SIZE - 1) / SECTOR_SIZE;
+
+    private final RandomAccessFile _file;
+    private final FileChannel _channel;
+
+    /* OFFSET TABLE */
+    private final int[] _sectorOffsets = new int[ENTRY_COUNT];
+    private final int[] _lengths = new int[ENTRY_COUNT];
+    private final BitSet _usedSectors = new BitSet();
+    private int _sectorCount;
+
+    /**
+     * Opens the given region file. The file is created if it does not exist yet.
+     *
+     * @param file The region file
+     * @throws IOException Thrown if the file could not be opened or is corrupt
+     */
+    public RegionFile(File file) throws IOException {
+        _file = new RandomAccessFile(file, "rw");
+        _channel = _file.getChannel();
+
+        try {
+            if (_channel.size() < HEADER_SECTORS * SECTOR_SIZE) {
+                writeEmptyHeader();
+            } else {
+                readHeader();
+            }
+        } catch (IOException e) {
+            _file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the region coordinate for the given chunk coordinate.
+     *
+     * @param chunkPos The chunk position on the x- or z-axis
+     * @return The region position on the same axis
+     */
+    public static int calcRegionPos(int chunkPos) {
+        return chunkPos >> 5;
+    }
+
+    /**
+     * Returns the file name of the region at the given region position.
+     *
+     * @param regionX The region position on the x-axis
+     * @param regionZ The region position on the z-axis
+     * @return The file name
+     */
+    public static String getFileNameForRegion(int regionX, int regionZ) {
+        return "r_" + Integer.toString(regionX, 36) + "." + Integer.toString(regionZ, 36) + ".trr";
+    }
+
+    /**
+     * Returns true if data for the given chunk is present in this region.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return True if the chunk is present
+     */
+    public synchronized boolean hasChunk(int x, int z) {
+        return _lengths[entryIndex(x, z)] > 0;
+    }
+
+    /**
+     * Reads the data of the given chunk.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return The chunk data (flipped and ready to read) or null if the chunk is not present
+     * @throws IOException Thrown if reading failed
+     */
+    public synchronized ByteBuffer read(int x, int z) throws IOException {
+        int entry = entryIndex(x, z);
+        int length = _lengths[entry];
+
+        if (length <= 0)
+            return null;
+
+        ByteBuffer data = ByteBuffer.allocate(length);
+        long position = (long) _sectorOffsets[entry] * SECTOR_SIZE;
+
+        while (data.hasRemaining()) {
+            if (_channel.read(data, position + data.position()) < 0)
+                throw new IOException("Unexpected end of region file.");
+        }
+
+        data.flip();
+        return data;
+    }
+
+    /**
+     * Writes the data of the given chunk. The data is written from the current position
+     * to the limit of the given buffer.
+     *
+     * @param x    The chunk position on the x-axis
+     * @param z    The chunk position on the z-axis
+     * @param data The chunk data
+     * @throws IOException Thrown if writing failed
+     */
+    public synchronized void write(int x, int z, ByteBuffer data) throws IOException {
+        int entry = entryIndex(x, z);
+        int length = data.remaining();
+        int neededSectors = (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+
+        int oldOffset = _sectorOffsets[entry];
+        int oldSectors = (_lengths[entry] + SECTOR_SIZE - 1) / SECTOR_SIZE;
+
+        int offset;
+
+        if (oldSectors > 0 && neededSectors <= oldSectors) {
+            // The data fits into the old sectors
+            offset = oldOffset;
+            _usedSectors.clear(oldOffset + neededSectors, oldOffset + oldSectors);
+        } else {
+            _usedSectors.clear(oldOffset, oldOffset + oldSectors);
+            offset = findFreeSectors(neededSectors);
+        }
+
+        _usedSectors.set(offset, offset + neededSectors);
+        _sectorCount = Math.max(_sectorCount, offset + neededSectors);
+
+        long position = (long) offset * SECTOR_SIZE;
+        int start = data.position();
+
+        while (data.hasRemaining()) {
+            _channel.write(data, position + data.position() - start);
+        }
+
+        _sectorOffsets[entry] = offset;
+        _lengths[entry] = length;
+
+        writeHeaderEntry(entry);
+    }
+
+    /**
+     * Forces all pending changes to the storage device.
+     *
+     * @throws IOException Thrown if flushing failed
+     */
+    public synchronized void flush() throws IOException {
+        _channel.force(false);
+    }
+
+    /**
+     * Closes this region file.
+     *
+     * @throws IOException Thrown if closing failed
+     */
+    public synchronized void close() throws IOException {
+        _file.close();
+    }
+
+    private int findFreeSectors(int count) {
+        int start = _usedSectors.nextClearBit(HEADER_SECTORS);
+
+        while (start < _sectorCount) {
+            int end = _usedSectors.nextSetBit(start);
+
+            if (end < 0 || end - start >= count)
+                return start;
+
+            start = _usedSectors.nextClearBit(end);
+        }
+
+        return Math.max(start, _sectorCount);
+    }
+
+    private void writeEmptyHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.rewind();
+
+        while (header.hasRemaining()) {
+            _channel.write(header, header.position());
+        }
+
+        _usedSectors.set(0, HEADER_SECTORS);
+        _sectorCount = HEADER_SECTORS;
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (header.hasRemaining()) {
+            if (_channel.read(header, header.position()) < 0)
+                throw new IOException("Unexpected end of region file.");
+        }
+
+        header.flip();
+
+        if (header.getInt() != MAGIC)
+            throw new IOException("Invalid region file.");
+        if (header.getInt() != VERSION)
+            throw new IOException("Unsupported region file version.");
+
+        _usedSectors.set(0, HEADER_SECTORS);
+        _sectorCount = Math.max(HEADER_SECTORS, (int) ((_channel.size() + SECTOR_SIZE - 1) / SECTOR_SIZE));
+
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            int offset = header.getInt();
+            int length = header.getInt();
+
+            // Ignore entries pointing outside of the file
+            if (length <= 0 || offset < HEADER_SECTORS || (long) offset * SECTOR_SIZE + length > _channel.size())
+                continue;
+
+            _sectorOffsets[i] = offset;
+            _lengths[i] = length;
+            _usedSectors.set(offset, offset + (length + SECTOR_SIZE - 1) / SECTOR_SIZE);
+        }
+    }
+
+    private void writeHeaderEntry(int entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putInt(_sectorOffsets[entry]);
+        buffer.putInt(_lengths[entry]);
+        buffer.flip();
+
+        long position = 8 + entry * 8L;
+
+        while (buffer.hasRemaining()) {
+            _channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static int entryIndex(int x, int z) {
+        return (x & (REGION_SIZE - 1)) + (z & (REGION_SIZE - 1)) * REGION_SIZE;
+    }
+}
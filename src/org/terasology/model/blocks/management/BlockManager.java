@@ -47,19 +47,28 @@ public class BlockManager {
 
     public static BlockManager getInstance() {
         if (_instance == null)
-            _instance = new BlockManager();
+            _instance = new BlockManager(true);
 
         return _instance;
     }
 
-    private BlockManager() {
+    /**
+     * Loads the blocks without registering the terrain texture, so no OpenGL context is needed.
+     * Has to be called before the first call to getInstance().
+     */
+    public static void initHeadless() {
+        if (_instance == null)
+            _instance = new BlockManager(false);
+    }
+
+    private BlockManager(boolean loadTextures) {
         _manifestor = new BlockManifestor(this);
-        loadBlocks();
+        loadBlocks(loadTextures);
     }
 
-    private void loadBlocks() {
+    private void loadBlocks(boolean loadTextures) {
         try {
-            _manifestor.loadConfig(); // Might have to catch plain Exception also for this step
+            _manifestor.loadConfig(loadTextures); // Might have to catch plain Exception also for this step
             System.out.println("Blocks by title: " + _blocksByTitle);
             System.out.println("Blocks by id: " + _blocksById);
         } catch (Exception e) {
@@ -106,6 +106,14 @@ class BlockManifestor {
      * (the "version" prop is in all the files as an example, but a complete system would take some work)
      */
     public loadConfig() throws Exception {
+        loadConfig(true)
+    }
+
+    /**
+     * Loads the Block configuration, optionally without handing the ImageManifest to TextureManager
+     * Skipping the textures allows tools like the benchmarks or the world pregenerator to run without an OpenGL context
+     */
+    public loadConfig(boolean loadTextures) throws Exception {
         // First of all we need to know whether we're running from inside a jar or not - this will store a local ref if so
         // The path used here can be tricky as it may catch something unexpected if too vague (like a lib jar with a matching fragment)
         _resourceLoader = new ClasspathResourceLoader("org/terasology/data/blocks")
@@ -160,7 +168,8 @@ class BlockManifestor {
         _bm.addAllBlocks(_blockIndex)
         _bm.addAllBlockGroups(_blockGroups);
         org.terasology.model.blocks.management.BlockManifestor.log.info "_imageManifest file: " + _imageManifest.getAbsolutePath()
-        TextureManager.getInstance().addTexture("terrain", _imageManifest.getAbsolutePath(), [_imageManifestMipMap1.getAbsolutePath(), _imageManifestMipMap2.getAbsolutePath(), _imageManifestMipMap3.getAbsolutePath()].toArray(new String[0]))
+        if (loadTextures)
+            TextureManager.getInstance().addTexture("terrain", _imageManifest.getAbsolutePath(), [_imageManifestMipMap1.getAbsolutePath(), _imageManifestMipMap2.getAbsolutePath(), _imageManifestMipMap3.getAbsolutePath()].toArray(new String[0]))
     }
 
     /**
@@ -15,6 +15,7 @@
  */
 package org.terasology.model.blueprints;
 
+import org.terasology.logic.world.BlockEditBatch;
 import org.terasology.logic.world.IWorldProvider;
 import org.terasology.model.blocks.Block;
 import org.terasology.model.structures.BlockPosition;
@@ -36,15 +37,22 @@ public class Blueprint {
     private final HashMap<BlockPosition, Block> _blockTypes = new HashMap<BlockPosition, Block>();
 
     /**
-     * Builds the blueprint in the given world at the given position.
+     * Builds the blueprint in the given world at the given position. All blocks are placed
+     * within one single edit batch.
      *
      * @param provider The world the blueprint should be build in
      * @param position The position the blueprint should be build
+     * @return The committed batch containing the changed blocks
      */
-    public void build(IWorldProvider provider, BlockPosition position) {
+    public BlockEditBatch build(IWorldProvider provider, BlockPosition position) {
+        BlockEditBatch batch = provider.beginEditBatch(true);
+
         for (BlockPosition bp : _blockPositions) {
-            provider.setBlock(bp.x + position.x, bp.y + position.y, bp.z + position.z, _blockTypes.get(bp).getId(), true, true);
+            batch.setBlock(bp.x + position.x, bp.y + position.y, bp.z + position.z, _blockTypes.get(bp).getId(), true);
         }
+
+        batch.commit();
+        return batch;
     }
 
     /**
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.IWorldProvider;
+import org.terasology.model.blocks.Block;
+import org.terasology.model.blocks.management.BlockManager;
+
+/**
+ * Resolves the movement of axis-aligned boxes against the solid blocks of a world.
+ * <p/>
+ * The blocks surrounding the path of a box are copied into a small local occupancy grid once using "gather".
+ * Afterwards the movement is resolved one axis after another: "clipX", "clipY" and "clipZ" shorten the
+ * movement on the given axis to the nearest solid block face within the swept range. Since every block between
+ * the start and the end of the movement is checked, fast boxes can not tunnel through thin walls. Blocks which
+ * already overlap the box are ignored, so boxes stuck within blocks are still able to move out.
+ * <p/>
+ * Boxes are given by their center and their half extents, blocks are centered at integer positions.
+ * The grid is reused for all calls, so resolving does not allocate any objects. Instances are not thread-safe.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class BlockCollider {
+
+    /* CONST */
+    public static final double SKIN_WIDTH = 0.00001;
+
+    private static final int AXIS_X = 0;
+    private static final int AXIS_Y = 1;
+    private static final int AXIS_Z = 2;
+
+    /* GRID */
+    private boolean[] _solid = new boolean[64];
+    private byte[] _blocks = new byte[64];
+    private int _minX, _minY, _minZ, _sizeX, _sizeY, _sizeZ;
+
+    /**
+     * Copies the blocks surrounding the path of the given box into the occupancy grid.
+     *
+     * @param world The world to read the blocks from
+     * @param x     The center of the box on the x-axis
+     * @param y     The center of the box on the y-axis
+     * @param z     The center of the box on the z-axis
+     * @param hx    The half extent of the box on the x-axis
+     * @param hy    The half extent of the box on the y-axis
+     * @param hz    The half extent of the box on the z-axis
+     * @param dx    The movement on the x-axis
+     * @param dy    The movement on the y-axis
+     * @param dz    The movement on the z-axis
+     */
+    public void gather(IWorldProvider world, double x, double y, double z, double hx, double hy, double hz, double dx, double dy, double dz) {
+        int minX = blockPos(Math.min(x, x + dx) - hx) - 1;
+        int minY = blockPos(Math.min(y, y + dy) - hy) - 1;
+        int minZ = blockPos(Math.min(z, z + dz) - hz) - 1;
+        int maxX = blockPos(Math.max(x, x + dx) + hx) + 1;
+        int maxY = blockPos(Math.max(y, y + dy) + hy) + 1;
+        int maxZ = blockPos(Math.max(z, z + dz) + hz) + 1;
+
+        setRegion(minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+
+        BlockManager blockManager = BlockManager.getInstance();
+
+        for (int bx = minX; bx <= maxX; bx++) {
+            for (int by = minY; by <= maxY; by++) {
+                // Blocks below and above the world are neither loaded nor solid
+                if (by < 0 || by >= Chunk.CHUNK_DIMENSION_Y)
+                    continue;
+
+                for (int bz = minZ; bz <= maxZ; bz++) {
+                    int i = index(bx, by, bz);
+                    byte type = world.getBlock(bx, by, bz);
+                    Block block = blockManager.getBlock(type);
+
+                    _blocks[i] = type;
+                    _solid[i] = block != null && !block.isPenetrable();
+                }
+            }
+        }
+    }
+
+    /**
+     * Resets the occupancy grid to the given box of empty blocks.
+     */
+    public void setRegion(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        int size = sizeX * sizeY * sizeZ;
+
+        if (size > _solid.length) {
+            _solid = new boolean[size];
+            _blocks = new byte[size];
+        }
+
+        _minX = minX;
+        _minY = minY;
+        _minZ = minZ;
+        _sizeX = sizeX;
+        _sizeY = sizeY;
+        _sizeZ = sizeZ;
+
+        for (int i = 0; i < size; i++) {
+            _solid[i] = false;
+            _blocks[i] = 0;
+        }
+    }
+
+    /**
+     * Marks the given block of the occupancy grid as solid or empty. Positions outside of the grid are ignored.
+     */
+    public void setSolid(int x, int y, int z, boolean solid) {
+        if (contains(x, y, z))
+            _solid[index(x, y, z)] = solid;
+    }
+
+    /**
+     * Returns true if the given block is solid. Positions outside of the grid are never solid.
+     */
+    public boolean isSolid(int x, int y, int z) {
+        return contains(x, y, z) && _solid[index(x, y, z)];
+    }
+
+    /**
+     * Returns true if the given block is part of the occupancy grid.
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= _minX && y >= _minY && z >= _minZ && x < _minX + _sizeX && y < _minY + _sizeY && z < _minZ + _sizeZ;
+    }
+
+    /**
+     * Returns the block type stored for the given block. The position has to be part of the grid.
+     */
+    public byte getBlock(int x, int y, int z) {
+        return _blocks[index(x, y, z)];
+    }
+
+    /**
+     * Returns how far the given box can move on the x-axis before touching a solid block.
+     *
+     * @return The clipped movement, its absolute value is never larger than the one of the given movement
+     */
+    public double clipX(double x, double y, double z, double hx, double hy, double hz, double dx) {
+        return clip(AXIS_X, x, y, z, hx, hy, hz, dx);
+    }
+
+    /**
+     * Returns how far the given box can move on the y-axis before touching a solid block.
+     *
+     * @return The clipped movement, its absolute value is never larger than the one of the given movement
+     */
+    public double clipY(double x, double y, double z, double hx, double hy, double hz, double dy) {
+        return clip(AXIS_Y, x, y, z, hx, hy, hz, dy);
+    }
+
+    /**
+     * Returns how far the given box can move on the z-axis before touching a solid block.
+     *
+     * @return The clipped movement, its absolute value is never larger than the one of the given movement
+     */
+    public double clipZ(double x, double y, double z, double hx, double hy, double hz, double dz) {
+        return clip(AXIS_Z, x, y, z, hx, hy, hz, dz);
+    }
+
+    /**
+     * Returns the position of the block containing the given coordinate.
+     */
+    public static int blockPos(double v) {
+        return (int) Math.floor(v + 0.5);
+    }
+
+    private double clip(int axis, double x, double y, double z, double hx, double hy, double hz, double d) {
+        if (d == 0)
+            return 0;
+
+        // The moving axis is "a", the two other axes are "b" and "c"
+        double a, b, c, ha, hb, hc;
+
+        if (axis == AXIS_X) {
+            a = x;
+            b = y;
+            c = z;
+            ha = hx;
+            hb = hy;
+            hc = hz;
+        } else if (axis == AXIS_Y) {
+            a = y;
+            b = x;
+            c = z;
+            ha = hy;
+            hb = hx;
+            hc = hz;
+        } else {
+            a = z;
+            b = x;
+            c = y;
+            ha = hz;
+            hb = hx;
+            hc = hy;
+        }
+
+        // Blocks merely touching the box on the other axes do not block the movement
+        int minB = blockPos(b - hb + SKIN_WIDTH), maxB = blockPos(b + hb - SKIN_WIDTH);
+        int minC = blockPos(c - hc + SKIN_WIDTH), maxC = blockPos(c + hc - SKIN_WIDTH);
+
+        if (d > 0) {
+            double face = a + ha;
+            int end = blockPos(face + d);
+
+            // Start with the first layer of blocks lying completely in front of the box
+            for (int layer = (int) Math.ceil(face + 0.5 - SKIN_WIDTH); layer <= end; layer++) {
+                if (isLayerSolid(axis, layer, minB, maxB, minC, maxC))
+                    return Math.max(0, Math.min(d, layer - 0.5 - face - SKIN_WIDTH));
+            }
+        } else {
+            double face = a - ha;
+            int end = blockPos(face + d);
+
+            for (int layer = (int) Math.floor(face - 0.5 + SKIN_WIDTH); layer >= end; layer--) {
+                if (isLayerSolid(axis, layer, minB, maxB, minC, maxC))
+                    return Math.min(0, Math.max(d, layer + 0.5 - face + SKIN_WIDTH));
+            }
+        }
+
+        return d;
+    }
+
+    private boolean isLayerSolid(int axis, int layer, int minB, int maxB, int minC, int maxC) {
+        for (int b = minB; b <= maxB; b++) {
+            for (int c = minC; c <= maxC; c++) {
+                boolean solid;
+
+                if (axis == AXIS_X)
+                    solid = isSolid(layer, b, c);
+                else if (axis == AXIS_Y)
+                    solid = isSolid(b, layer, c);
+                else
+                    solid = isSolid(b, c, layer);
+
+                if (solid)
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int index(int x, int y, int z) {
+        return ((x - _minX) * _sizeY + (y - _minY)) * _sizeZ + (z - _minZ);
+    }
+}
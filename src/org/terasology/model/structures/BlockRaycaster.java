@@ -0,0 +1,270 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.IWorldProvider;
+import org.terasology.model.blocks.Block;
+import org.terasology.model.blocks.management.BlockManager;
+
+import javax.vecmath.Vector3d;
+
+/**
+ * Casts rays through the block grid of a world using the grid traversal of Amanatides and Woo.
+ * <p/>
+ * Only the blocks along the ray are visited, one after another in the order the ray enters them, until
+ * the first block accepted by the hit type is found. The result of the last cast is stored within the
+ * raycaster itself, so casting does not allocate any objects. Blocks are centered at integer positions.
+ * <p/>
+ * Instances are not thread-safe.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class BlockRaycaster {
+
+    /**
+     * Decides which blocks stop a ray.
+     */
+    public interface IHitFilter {
+        public boolean isHit(byte blockType);
+    }
+
+    public enum HIT_TYPE implements IHitFilter {
+        /**
+         * Stops at all visible blocks which do not let the selection ray through.
+         */
+        SELECTABLE {
+            public boolean isHit(byte blockType) {
+                Block block = BlockManager.getInstance().getBlock(blockType);
+                return !block.isInvisible() && !block.isSelectionRayThrough();
+            }
+        },
+        /**
+         * Stops at all blocks which are not translucent. Used for line of sight tests.
+         */
+        OPAQUE {
+            public boolean isHit(byte blockType) {
+                return !BlockManager.getInstance().getBlock(blockType).isTranslucent();
+            }
+        }
+    }
+
+    /* RESULT */
+    private boolean _hit;
+    private int _blockX, _blockY, _blockZ;
+    private int _normalX, _normalY, _normalZ;
+    private double _distance;
+    private double _originX, _originY, _originZ, _dirX, _dirY, _dirZ;
+
+    /**
+     * Casts a ray and stores the first block hit.
+     *
+     * @param world       The world to cast the ray in
+     * @param origin      The origin of the ray
+     * @param direction   The direction of the ray, does not need to be normalized
+     * @param maxDistance The maximum length of the ray
+     * @param hitType     The blocks stopping the ray
+     * @return True if a block was hit
+     */
+    public boolean cast(IWorldProvider world, Vector3d origin, Vector3d direction, double maxDistance, IHitFilter hitType) {
+        return cast(world, origin.x, origin.y, origin.z, direction.x, direction.y, direction.z, maxDistance, hitType);
+    }
+
+    /**
+     * Casts a ray and stores the first block hit.
+     *
+     * @return True if a block was hit
+     */
+    public boolean cast(IWorldProvider world, double originX, double originY, double originZ, double dirX, double dirY, double dirZ, double maxDistance, IHitFilter hitType) {
+        _hit = false;
+
+        double length = Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ);
+
+        if (length == 0)
+            return false;
+
+        dirX /= length;
+        dirY /= length;
+        dirZ /= length;
+
+        _originX = originX;
+        _originY = originY;
+        _originZ = originZ;
+        _dirX = dirX;
+        _dirY = dirY;
+        _dirZ = dirZ;
+
+        // Move the origin so that the block boundaries are located at integer positions
+        double startX = originX + 0.5, startY = originY + 0.5, startZ = originZ + 0.5;
+
+        int x = (int) Math.floor(startX);
+        int y = (int) Math.floor(startY);
+        int z = (int) Math.floor(startZ);
+
+        int stepX = dirX > 0 ? 1 : (dirX < 0 ? -1 : 0);
+        int stepY = dirY > 0 ? 1 : (dirY < 0 ? -1 : 0);
+        int stepZ = dirZ > 0 ? 1 : (dirZ < 0 ? -1 : 0);
+
+        // The distance along the ray needed to cross one block on each axis
+        double deltaX = stepX != 0 ? 1.0 / Math.abs(dirX) : Double.POSITIVE_INFINITY;
+        double deltaY = stepY != 0 ? 1.0 / Math.abs(dirY) : Double.POSITIVE_INFINITY;
+        double deltaZ = stepZ != 0 ? 1.0 / Math.abs(dirZ) : Double.POSITIVE_INFINITY;
+
+        // The distance along the ray to the next block boundary on each axis
+        double maxX = stepX > 0 ? (x + 1 - startX) * deltaX : (stepX < 0 ? (startX - x) * deltaX : Double.POSITIVE_INFINITY);
+        double maxY = stepY > 0 ? (y + 1 - startY) * deltaY : (stepY < 0 ? (startY - y) * deltaY : Double.POSITIVE_INFINITY);
+        double maxZ = stepZ > 0 ? (z + 1 - startZ) * deltaZ : (stepZ < 0 ? (startZ - z) * deltaZ : Double.POSITIVE_INFINITY);
+
+        // A block containing the origin is hit on the face pointing against the ray
+        double absX = Math.abs(dirX), absY = Math.abs(dirY), absZ = Math.abs(dirZ);
+        int normalX = 0, normalY = 0, normalZ = 0;
+
+        if (absX >= absY && absX >= absZ)
+            normalX = -stepX;
+        else if (absY >= absZ)
+            normalY = -stepY;
+        else
+            normalZ = -stepZ;
+
+        double distance = 0;
+
+        while (distance <= maxDistance) {
+            // Nothing to hit above or below the world
+            if ((y < 0 && stepY <= 0) || (y >= Chunk.CHUNK_DIMENSION_Y && stepY >= 0))
+                return false;
+
+            if (hitType.isHit(world.getBlock(x, y, z))) {
+                _hit = true;
+                _blockX = x;
+                _blockY = y;
+                _blockZ = z;
+                _normalX = normalX;
+                _normalY = normalY;
+                _normalZ = normalZ;
+                _distance = distance;
+
+                return true;
+            }
+
+            if (maxX < maxY && maxX < maxZ) {
+                x += stepX;
+                distance = maxX;
+                maxX += deltaX;
+                normalX = -stepX;
+                normalY = 0;
+                normalZ = 0;
+            } else if (maxY < maxZ) {
+                y += stepY;
+                distance = maxY;
+                maxY += deltaY;
+                normalX = 0;
+                normalY = -stepY;
+                normalZ = 0;
+            } else {
+                z += stepZ;
+                distance = maxZ;
+                maxZ += deltaZ;
+                normalX = 0;
+                normalY = 0;
+                normalZ = -stepZ;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns true if the last cast hit a block.
+     */
+    public boolean isHit() {
+        return _hit;
+    }
+
+    public int getBlockX() {
+        return _blockX;
+    }
+
+    public int getBlockY() {
+        return _blockY;
+    }
+
+    public int getBlockZ() {
+        return _blockZ;
+    }
+
+    /**
+     * Returns the x-component of the normal of the face which was hit.
+     */
+    public int getNormalX() {
+        return _normalX;
+    }
+
+    public int getNormalY() {
+        return _normalY;
+    }
+
+    public int getNormalZ() {
+        return _normalZ;
+    }
+
+    /**
+     * Returns the position of the block adjacent to the face which was hit on the x-axis.
+     */
+    public int getAdjacentBlockX() {
+        return _blockX + _normalX;
+    }
+
+    public int getAdjacentBlockY() {
+        return _blockY + _normalY;
+    }
+
+    public int getAdjacentBlockZ() {
+        return _blockZ + _normalZ;
+    }
+
+    /**
+     * Returns the distance from the origin of the ray to the point where the block was hit.
+     */
+    public double getDistance() {
+        return _distance;
+    }
+
+    /**
+     * Writes the point where the block was hit to the given vector.
+     */
+    public void getHitPoint(Vector3d target) {
+        target.set(_originX + _dirX * _distance, _originY + _dirY * _distance, _originZ + _dirZ * _distance);
+    }
+
+    /**
+     * Creates an intersection describing the result of the last cast.
+     *
+     * @return The intersection or null if no block was hit
+     */
+    public RayBlockIntersection.Intersection toIntersection() {
+        if (!_hit)
+            return null;
+
+        Vector3d normal = new Vector3d(_normalX, _normalY, _normalZ);
+        Vector3d hitPoint = new Vector3d();
+        getHitPoint(hitPoint);
+
+        // The plane of the face which was hit
+        double d = -(_normalX * (_blockX + 0.5 * _normalX) + _normalY * (_blockY + 0.5 * _normalY) + _normalZ * (_blockZ + 0.5 * _normalZ));
+
+        return new RayBlockIntersection.Intersection(new BlockPosition(_blockX, _blockY, _blockZ), normal, d, _distance, new Vector3d(_originX, _originY, _originZ), new Vector3d(_dirX, _dirY, _dirZ), hitPoint);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A concurrent hash map using primitive long values as keys. The entries are stored in a single
+ * open-addressing table using linear probing, so looking up a value neither boxes the key nor
+ * follows any bucket lists.
+ * <p/>
+ * Reading is lock-free. Writing is synchronized. Removed entries are replaced by a marker which
+ * is dropped the next time the table is rebuilt, so concurrent readers never miss an entry
+ * which is present during the whole lookup.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class ConcurrentLongMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final Entry REMOVED = new Entry(0, null);
+
+    private volatile AtomicReferenceArray<Entry> _table;
+    private volatile int _size;
+    // Amount of slots which are either occupied or marked as removed
+    private int _usedSlots;
+
+    private static final class Entry {
+        final long key;
+        final Object value;
+
+        Entry(long key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Init. a new map.
+     *
+     * @param expectedSize The amount of entries the map is expected to hold
+     */
+    public ConcurrentLongMap(int expectedSize) {
+        _table = new AtomicReferenceArray<Entry>(capacityFor(expectedSize));
+    }
+
+    /**
+     * Packs the given two-dimensional position into a single key.
+     */
+    public static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the x-coordinate of a key created using "key".
+     */
+    public static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Returns the z-coordinate of a key created using "key".
+     */
+    public static int keyZ(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Returns the value stored for the given key or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        AtomicReferenceArray<Entry> table = _table;
+        int mask = table.length() - 1;
+        int i = hash(key) & mask;
+
+        Entry e;
+
+        while ((e = table.get(i)) != null) {
+            if (e.key == key && e != REMOVED)
+                return (V) e.value;
+
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores the given value for the given key.
+     *
+     * @return The value previously stored for the key or null
+     */
+    public synchronized V put(long key, V value) {
+        return insert(key, value, true);
+    }
+
+    /**
+     * Stores the given value for the given key unless the map already contains the key.
+     *
+     * @return The value already stored for the key or null if the value was added
+     */
+    public synchronized V putIfAbsent(long key, V value) {
+        return insert(key, value, false);
+    }
+
+    /**
+     * Removes the value stored for the given key.
+     *
+     * @return The removed value or null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V remove(long key) {
+        int i = indexOf(key);
+
+        if (i < 0)
+            return null;
+
+        V value = (V) _table.get(i).value;
+        removeAt(i);
+
+        return value;
+    }
+
+    /**
+     * Removes the entry for the given key only if it is currently mapped to the given value.
+     *
+     * @return True if the entry was removed
+     */
+    public synchronized boolean remove(long key, V value) {
+        int i = indexOf(key);
+
+        if (i < 0 || _table.get(i).value != value)
+            return false;
+
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Returns a snapshot of the values currently stored in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        AtomicReferenceArray<Entry> table = _table;
+        ArrayList<V> result = new ArrayList<V>(_size);
+
+        for (int i = 0; i < table.length(); i++) {
+            Entry e = table.get(i);
+
+            if (e != null && e != REMOVED)
+                result.add((V) e.value);
+        }
+
+        return result;
+    }
+
+    public synchronized void clear() {
+        _table = new AtomicReferenceArray<Entry>(MIN_CAPACITY);
+        _size = 0;
+        _usedSlots = 0;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    private V insert(long key, V value, boolean replace) {
+        if (value == null)
+            throw new NullPointerException("The map does not accept null values.");
+
+        AtomicReferenceArray<Entry> table = _table;
+        int mask = table.length() - 1;
+        int i = hash(key) & mask;
+        int freeSlot = -1;
+
+        Entry e;
+
+        while ((e = table.get(i)) != null) {
+            if (e == REMOVED) {
+                if (freeSlot < 0)
+                    freeSlot = i;
+            } else if (e.key == key) {
+                @SuppressWarnings("unchecked")
+                V previous = (V) e.value;
+
+                if (replace)
+                    table.set(i, new Entry(key, value));
+
+                return previous;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        if (freeSlot < 0) {
+            freeSlot = i;
+            _usedSlots++;
+        }
+
+        table.set(freeSlot, new Entry(key, value));
+        _size++;
+
+        // Keep at least half of the slots empty so lookups stay short and always terminate
+        if (_usedSlots * 2 > table.length())
+            rebuild();
+
+        return null;
+    }
+
+    private int indexOf(long key) {
+        AtomicReferenceArray<Entry> table = _table;
+        int mask = table.length() - 1;
+        int i = hash(key) & mask;
+
+        Entry e;
+
+        while ((e = table.get(i)) != null) {
+            if (e.key == key && e != REMOVED)
+                return i;
+
+            i = (i + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void removeAt(int i) {
+        _table.set(i, REMOVED);
+        _size--;
+    }
+
+    /**
+     * Copies all entries to a new table which is sized for the current amount of entries. The new
+     * table is only published once it is complete, readers still using the old table see the
+     * entries as they were before.
+     */
+    private void rebuild() {
+        AtomicReferenceArray<Entry> table = _table;
+        AtomicReferenceArray<Entry> rebuilt = new AtomicReferenceArray<Entry>(capacityFor(_size));
+        int mask = rebuilt.length() - 1;
+
+        for (int i = 0; i < table.length(); i++) {
+            Entry e = table.get(i);
+
+            if (e == null || e == REMOVED)
+                continue;
+
+            int j = hash(e.key) & mask;
+
+            while (rebuilt.get(j) != null)
+                j = (j + 1) & mask;
+
+            rebuilt.set(j, e);
+        }
+
+        _usedSlots = _size;
+        _table = rebuilt;
+    }
+
+    private static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+
+        // Leave room for as many entries again before the table has to be rebuilt
+        while (capacity < size * 4)
+            capacity <<= 1;
+
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+
+        return (int) key;
+    }
+}
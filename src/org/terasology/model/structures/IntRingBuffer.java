@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+/**
+ * A FIFO queue of primitive int values backed by a growing ring buffer.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class IntRingBuffer {
+
+    private int[] _values;
+    private int _head, _tail, _size;
+
+    /**
+     * Init. a new ring buffer.
+     *
+     * @param capacity The initial capacity, rounded up to the next power of two
+     */
+    public IntRingBuffer(int capacity) {
+        int size = 1;
+
+        while (size < capacity)
+            size <<= 1;
+
+        _values = new int[size];
+    }
+
+    /**
+     * Adds a value to the end of the queue.
+     */
+    public void add(int value) {
+        if (_size == _values.length)
+            grow();
+
+        _values[_tail] = value;
+        _tail = (_tail + 1) & (_values.length - 1);
+        _size++;
+    }
+
+    /**
+     * Removes and returns the value at the front of the queue.
+     */
+    public int poll() {
+        if (_size == 0)
+            throw new IllegalStateException("The ring buffer is empty.");
+
+        int value = _values[_head];
+        _head = (_head + 1) & (_values.length - 1);
+        _size--;
+
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public void clear() {
+        _head = 0;
+        _tail = 0;
+        _size = 0;
+    }
+
+    private void grow() {
+        int[] values = new int[_values.length * 2];
+
+        for (int i = 0; i < _size; i++)
+            values[i] = _values[(_head + i) & (_values.length - 1)];
+
+        _values = values;
+        _head = 0;
+        _tail = _size;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A compact 3D array of byte values which is split into horizontal sections.
+ * <p/>
+ * Sections containing only a single value are stored as this value. All other sections
+ * store a small palette of the values present in the section and bit-packed indices into this palette.
+ * The amount of bits per index grows as new values are added to a section.
+ * <p/>
+ * Reading does not lock. Writing is synchronized since adding a new value to a section might
+ * require repacking the indices. Sections are published using an atomic reference array and
+ * their palettes are never changed after being published - adding a new value creates a new section.
+ * Only the indices are updated in place, so a read racing with a write of the same position
+ * returns either the old or the new value.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class TeraPaletteArray {
+
+    private final AtomicReferenceArray<Section> _sections;
+    private final int _lX, _lY, _lZ;
+    private final int _sectionHeight;
+    private final int _sectionSize;
+
+    /**
+     * A single section of the array. A section using zero bits per index is uniform and
+     * contains the first value of its palette only. Indices never cross the border of
+     * a 32 bit word, so even a torn read of a long returns valid indices.
+     */
+    private static final class Section {
+        final int bits;
+        final byte[] palette;
+        final long[] indices;
+        int paletteSize;
+
+        Section(byte value) {
+            bits = 0;
+            palette = new byte[]{value};
+            paletteSize = 1;
+            indices = null;
+        }
+
+        Section(int bits, int size) {
+            this.bits = bits;
+            palette = new byte[1 << bits];
+            indices = new long[(size * bits + 63) / 64];
+        }
+
+        Section(Section source) {
+            bits = source.bits;
+            palette = source.palette.clone();
+            paletteSize = source.paletteSize;
+            indices = source.indices.clone();
+        }
+
+        byte get(int i) {
+            return palette[getIndex(i)];
+        }
+
+        int getIndex(int i) {
+            if (bits == 0)
+                return 0;
+
+            int valuesPerLong = 64 / bits;
+            long word = indices[i / valuesPerLong];
+
+            return (int) (word >>> ((i % valuesPerLong) * bits)) & ((1 << bits) - 1);
+        }
+
+        void setIndex(int i, int index) {
+            int valuesPerLong = 64 / bits;
+            int shift = (i % valuesPerLong) * bits;
+            long mask = (long) ((1 << bits) - 1) << shift;
+
+            indices[i / valuesPerLong] = (indices[i / valuesPerLong] & ~mask) | ((long) index << shift);
+        }
+
+        int indexOf(byte value) {
+            for (int i = 0; i < paletteSize; i++) {
+                if (palette[i] == value)
+                    return i;
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     * Init. a new 3D array with the given dimensions. All values are initialized to zero.
+     *
+     * @param x             The size on the x-axis
+     * @param y             The size on the y-axis
+     * @param z             The size on the z-axis
+     * @param sectionHeight The height of a single section, has to be a divisor of y
+     */
+    public TeraPaletteArray(int x, int y, int z, int sectionHeight) {
+        _lX = x;
+        _lY = y;
+        _lZ = z;
+
+        _sectionHeight = sectionHeight;
+        _sectionSize = _lX * _sectionHeight * _lZ;
+        _sections = new AtomicReferenceArray<Section>(_lY / _sectionHeight);
+
+        for (int i = 0; i < _sections.length(); i++)
+            _sections.set(i, new Section((byte) 0));
+    }
+
+    /**
+     * Returns the byte value at the given position or -1 if the position is outside of the array.
+     */
+    public byte get(int x, int y, int z) {
+        if (x >= _lX || y >= _lY || z >= _lZ || x < 0 || y < 0 || z < 0)
+            return -1;
+
+        return _sections.get(y / _sectionHeight).get(localIndex(x, y, z));
+    }
+
+    /**
+     * Sets the byte value for the given position.
+     */
+    public synchronized void set(int x, int y, int z, byte b) {
+        if (x >= _lX || y >= _lY || z >= _lZ || x < 0 || y < 0 || z < 0)
+            return;
+
+        int sectionIndex = y / _sectionHeight;
+        int i = localIndex(x, y, z);
+        Section section = _sections.get(sectionIndex);
+
+        if (section.get(i) == b)
+            return;
+
+        int index = section.indexOf(b);
+
+        if (index >= 0) {
+            section.setIndex(i, index);
+            return;
+        }
+
+        // The new value is added to a copy of the section, which is published once it is complete
+        section = (section.paletteSize == section.palette.length) ? grow(section) : new Section(section);
+
+        index = section.paletteSize;
+        section.palette[index] = b;
+        section.paletteSize++;
+        section.setIndex(i, index);
+
+        _sections.set(sectionIndex, section);
+    }
+
+    /**
+     * Returns true if all values of the section at the given height are equal.
+     */
+    public boolean isSectionUniform(int y) {
+        return _sections.get(y / _sectionHeight).bits == 0;
+    }
+
+    /**
+     * Collapses sections which only contain a single value and removes unused values from the palettes.
+     */
+    public synchronized void compact() {
+        for (int s = 0; s < _sections.length(); s++) {
+            Section section = _sections.get(s);
+
+            if (section.bits == 0)
+                continue;
+
+            boolean[] used = new boolean[section.paletteSize];
+            int usedCount = 0;
+
+            for (int i = 0; i < _sectionSize && usedCount < used.length; i++) {
+                int index = section.getIndex(i);
+
+                if (!used[index]) {
+                    used[index] = true;
+                    usedCount++;
+                }
+            }
+
+            if (usedCount == section.paletteSize && section.paletteSize > section.palette.length / 2)
+                continue;
+
+            if (usedCount == 1) {
+                _sections.set(s, new Section(section.get(0)));
+                continue;
+            }
+
+            Section compacted = new Section(bitsForPaletteSize(usedCount), _sectionSize);
+            copyValues(section, compacted);
+            _sections.set(s, compacted);
+        }
+    }
+
+    /**
+     * Returns the maximum amount of bytes needed to store this array using "writeTo".
+     */
+    public int maxSerializedSize() {
+        return _sections.length() * (2 + 256 + _sectionSize);
+    }
+
+    /**
+     * Writes the compressed contents of this array to the given buffer.
+     */
+    public synchronized void writeTo(ByteBuffer buffer) {
+        for (int s = 0; s < _sections.length(); s++) {
+            Section section = _sections.get(s);
+
+            buffer.put((byte) section.bits);
+            buffer.put((byte) (section.paletteSize - 1));
+            buffer.put(section.palette, 0, section.paletteSize);
+
+            if (section.bits > 0) {
+                for (long word : section.indices)
+                    buffer.putLong(word);
+            }
+        }
+    }
+
+    /**
+     * Reads the contents of this array from the given buffer.
+     */
+    public synchronized void readFrom(ByteBuffer buffer) {
+        for (int s = 0; s < _sections.length(); s++) {
+            int bits = buffer.get();
+            int paletteSize = (buffer.get() & 0xFF) + 1;
+
+            Section section;
+
+            if (bits == 0) {
+                section = new Section(buffer.get());
+            } else {
+                section = new Section(bits, _sectionSize);
+                buffer.get(section.palette, 0, paletteSize);
+                section.paletteSize = paletteSize;
+
+                for (int i = 0; i < section.indices.length; i++)
+                    section.indices[i] = buffer.getLong();
+            }
+
+            _sections.set(s, section);
+        }
+    }
+
+    /**
+     * Returns the amount of bytes currently allocated for the stored values.
+     */
+    public int sizeAllocated() {
+        int result = 0;
+
+        for (int s = 0; s < _sections.length(); s++) {
+            Section section = _sections.get(s);
+
+            result += section.palette.length;
+
+            if (section.indices != null)
+                result += section.indices.length * 8;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the size of this array.
+     */
+    public int size() {
+        return _lX * _lY * _lZ;
+    }
+
+    private Section grow(Section section) {
+        Section result = new Section(section.bits == 0 ? 1 : section.bits * 2, _sectionSize);
+        copyValues(section, result);
+
+        return result;
+    }
+
+    private void copyValues(Section source, Section target) {
+        for (int i = 0; i < _sectionSize; i++) {
+            byte value = source.get(i);
+            int index = target.indexOf(value);
+
+            if (index < 0) {
+                index = target.paletteSize;
+                target.palette[index] = value;
+                target.paletteSize++;
+            }
+
+            target.setIndex(i, index);
+        }
+    }
+
+    private static int bitsForPaletteSize(int size) {
+        int bits = 1;
+
+        while ((1 << bits) < size)
+            bits *= 2;
+
+        return bits;
+    }
+
+    private int localIndex(int x, int y, int z) {
+        return (x * _sectionHeight + (y % _sectionHeight)) * _lZ + z;
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.terasology.model.structures;
 
+import java.nio.ByteBuffer;
+
 /**
  * A fast 3D array for efficient storage of 4-bit values.
  *
@@ -92,6 +94,20 @@ public class TeraSmartArray {
         _array[i] = b;
     }
 
+    /**
+     * Writes the raw bytes of this array to the given buffer.
+     */
+    public void copyTo(ByteBuffer buffer) {
+        buffer.put(_array);
+    }
+
+    /**
+     * Reads the raw bytes of this array from the given buffer.
+     */
+    public void copyFrom(ByteBuffer buffer) {
+        buffer.get(_array);
+    }
+
     /**
      * Returns the size of this array.
      */
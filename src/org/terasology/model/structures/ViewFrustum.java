@@ -129,28 +129,24 @@ public class ViewFrustum {
      * Returns true if this view frustum intersects the given AABB.
      */
     public boolean intersects(AABB aabb) {
+        return intersects(aabb.minX(), aabb.minY(), aabb.minZ(), aabb.maxX(), aabb.maxY(), aabb.maxZ());
+    }
 
-        Vector3d[] aabbVertices = aabb.getVertices();
+    /**
+     * Returns true if this view frustum intersects the given box. The box is given in world coordinates.
+     * <p/>
+     * Only the corner of the box lying the farthest in the direction of the normal is tested against each plane.
+     */
+    public boolean intersects(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
         Vector3d pp = Terasology.getInstance().getActivePlayer().getPosition();
 
         for (int i = 0; i < 6; i++) {
-            if (_planes[i].getA() * (aabbVertices[0].x - pp.x) + _planes[i].getB() * (aabbVertices[0].y - pp.y) + _planes[i].getC() * (aabbVertices[0].z - pp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[1].x - pp.x) + _planes[i].getB() * (aabbVertices[1].y - pp.y) + _planes[i].getC() * (aabbVertices[1].z - pp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[2].x - pp.x) + _planes[i].getB() * (aabbVertices[2].y - pp.y) + _planes[i].getC() * (aabbVertices[2].z - pp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[3].x - pp.x) + _planes[i].getB() * (aabbVertices[3].y - pp.y) + _planes[i].getC() * (aabbVertices[3].z - pp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[4].x - pp.x) + _planes[i].getB() * (aabbVertices[4].y - pp.y) + _planes[i].getC() * (aabbVertices[4].z - pp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[5].x - pp.x) + _planes[i].getB() * (aabbVertices[5].y - pp.y) + _planes[i].getC() * (aabbVertices[5].z - pp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[6].x - pp.x) + _planes[i].getB() * (aabbVertices[6].y - pp.y) + _planes[i].getC() * (aabbVertices[6].z - pp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[7].x - pp.x) + _planes[i].getB() * (aabbVertices[7].y - pp.y) + _planes[i].getC() * (aabbVertices[7].z - pp.z) + _planes[i].getD() > 0)
-                continue;
-            return false;
+            double x = (_planes[i].getA() > 0 ? maxX : minX) - pp.x;
+            double y = (_planes[i].getB() > 0 ? maxY : minY) - pp.y;
+            double z = (_planes[i].getC() > 0 ? maxZ : minZ) - pp.z;
+
+            if (_planes[i].getA() * x + _planes[i].getB() * y + _planes[i].getC() * z + _planes[i].getD() <= 0)
+                return false;
         }
 
         return true;
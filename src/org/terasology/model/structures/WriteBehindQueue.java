@@ -0,0 +1,137 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Holds values which have to be written before they can be disposed, e.g. chunks which have been
+ * evicted from a cache. Values can be taken back until they are disposed.
+ * <p/>
+ * Each call to "add" creates a new pending entry. A value is only disposed if its entry is still
+ * pending after it has been written, so a value which has been taken back or added again in the
+ * meantime is never disposed by an outdated entry. Values added again are written once more
+ * using their newer entry.
+ *
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public final class WriteBehindQueue<T> {
+
+    /**
+     * Writes and disposes the values of a queue.
+     */
+    public interface Writer<T> {
+        /**
+         * Writes the given value.
+         *
+         * @return False if the value changed while it was written and has to be written again
+         */
+        public boolean write(T value);
+
+        public void dispose(T value);
+    }
+
+    private static final class Entry<T> {
+        final long key;
+        final T value;
+
+        Entry(long key, T value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final ConcurrentLongMap<Entry<T>> _pending;
+    private final LinkedBlockingQueue<Entry<T>> _queue = new LinkedBlockingQueue<Entry<T>>();
+
+    /**
+     * Init. a new queue.
+     *
+     * @param expectedSize The amount of values expected to be pending at once
+     */
+    public WriteBehindQueue(int expectedSize) {
+        _pending = new ConcurrentLongMap<Entry<T>>(expectedSize);
+    }
+
+    /**
+     * Queues the given value to be written and disposed. Replaces the pending entry for the key, if any.
+     */
+    public void add(long key, T value) {
+        Entry<T> entry = new Entry<T>(key, value);
+
+        _pending.put(key, entry);
+        _queue.add(entry);
+    }
+
+    /**
+     * Removes the pending value for the given key, so it will not be disposed.
+     *
+     * @return The value, null if no value is pending for the key
+     */
+    public T take(long key) {
+        Entry<T> entry = _pending.remove(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Removes the pending value for the given key only if it is the given value.
+     *
+     * @return True if the value was removed
+     */
+    public boolean take(long key, T value) {
+        Entry<T> entry = _pending.get(key);
+        return entry != null && entry.value == value && _pending.remove(key, entry);
+    }
+
+    /**
+     * Writes all queued values one after another and disposes them afterwards. Values which have been
+     * taken back are skipped. Values which changed while they were written stay pending and are written
+     * again with the next call.
+     */
+    public void writeAll(Writer<T> writer) {
+        ArrayList<Entry<T>> retry = null;
+        Entry<T> entry;
+
+        while ((entry = _queue.poll()) != null) {
+            // Taken back or added again, in the latter case the newer entry is queued as well
+            if (_pending.get(entry.key) != entry)
+                continue;
+
+            if (!writer.write(entry.value)) {
+                if (retry == null)
+                    retry = new ArrayList<Entry<T>>();
+
+                retry.add(entry);
+                continue;
+            }
+
+            // Only dispose the value if it has not been taken back while it was written
+            if (_pending.remove(entry.key, entry))
+                writer.dispose(entry.value);
+        }
+
+        if (retry != null)
+            _queue.addAll(retry);
+    }
+
+    /**
+     * Returns the amount of pending values.
+     */
+    public int size() {
+        return _pending.size();
+    }
+}
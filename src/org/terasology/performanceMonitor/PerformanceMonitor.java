@@ -76,6 +76,65 @@ public class PerformanceMonitor {
         return _instance.getDecayingSpikes();
     }
 
+    /**
+     * Records that a background task has been queued. Tasks may be recorded from any thread.
+     *
+     * @param category  The category of the task
+     * @param queueSize The amount of tasks of this category waiting to be executed
+     */
+    public static void taskQueued(String category, int queueSize) {
+        _instance.taskQueued(category, queueSize);
+    }
+
+    /**
+     * Records that a background task has been rejected since its queue was full.
+     *
+     * @param category The category of the task
+     */
+    public static void taskRejected(String category) {
+        _instance.taskRejected(category);
+    }
+
+    /**
+     * Records the execution of a background task.
+     *
+     * @param category  The category of the task
+     * @param queueSize The amount of tasks of this category still waiting to be executed
+     * @param waitTime  The time the task spent in the queue in ms
+     * @param runTime   The time the task took to execute in ms
+     */
+    public static void taskExecuted(String category, int queueSize, double waitTime, double runTime) {
+        _instance.taskExecuted(category, queueSize, waitTime, runTime);
+    }
+
+    /**
+     * @return A mapping of task categories to the amount of queued tasks.
+     */
+    public static TObjectIntMap<String> getTaskQueueSizes() {
+        return _instance.getTaskQueueSizes();
+    }
+
+    /**
+     * @return A mapping of task categories to the amount of rejected tasks.
+     */
+    public static TObjectIntMap<String> getRejectedTasks() {
+        return _instance.getRejectedTasks();
+    }
+
+    /**
+     * @return A mapping of task categories to a running mean of the time tasks spent in the queue.
+     */
+    public static TObjectDoubleMap<String> getTaskWaitTimes() {
+        return _instance.getTaskWaitTimes();
+    }
+
+    /**
+     * @return A mapping of task categories to a running mean of the time tasks took to execute.
+     */
+    public static TObjectDoubleMap<String> getTaskRunTimes() {
+        return _instance.getTaskRunTimes();
+    }
+
     /**
      * Allows the enabling/deactivation of the Performance Monitoring system.
      * When disabled calls to startActivity()/endActivity() and rollCycle() are ignored
@@ -24,4 +24,18 @@ public interface IPerformanceMonitor {
     TObjectDoubleMap<String> getRunningMean();
 
     TObjectDoubleMap<String> getDecayingSpikes();
+
+    void taskQueued(String category, int queueSize);
+
+    void taskRejected(String category);
+
+    void taskExecuted(String category, int queueSize, double waitTime, double runTime);
+
+    TObjectIntMap<String> getTaskQueueSizes();
+
+    TObjectIntMap<String> getRejectedTasks();
+
+    TObjectDoubleMap<String> getTaskWaitTimes();
+
+    TObjectDoubleMap<String> getTaskRunTimes();
 }
@@ -39,4 +39,29 @@ public class NullPerformanceMonitor implements IPerformanceMonitor {
         return _threads;
     }
 
+    public void taskQueued(String category, int queueSize) {
+    }
+
+    public void taskRejected(String category) {
+    }
+
+    public void taskExecuted(String category, int queueSize, double waitTime, double runTime) {
+    }
+
+    public TObjectIntMap<String> getTaskQueueSizes() {
+        return _threads;
+    }
+
+    public TObjectIntMap<String> getRejectedTasks() {
+        return _threads;
+    }
+
+    public TObjectDoubleMap<String> getTaskWaitTimes() {
+        return _metrics;
+    }
+
+    public TObjectDoubleMap<String> getTaskRunTimes() {
+        return _metrics;
+    }
+
 }
@@ -26,6 +26,8 @@ import java.util.Stack;
 public class PerformanceMonitorImpl implements IPerformanceMonitor {
     private static final int RETAINED_CYCLES = 60;
     private static final double DECAY_RATE = 0.98;
+    // Weight of the newest sample in the running task times
+    private static final double TASK_SMOOTHING = 0.1;
 
     private Stack<Activity> _activityStack;
     private List<TObjectLongMap<String>> _metricData;
@@ -38,6 +40,13 @@ public class PerformanceMonitorImpl implements IPerformanceMonitor {
     private double _timeFactor;
     private TObjectIntMap<String> _lastRunningThreads;
 
+    // Tasks are recorded by the worker threads, so all task data is guarded by this lock
+    private final Object _taskLock = new Object();
+    private final TObjectIntMap<String> _taskQueueSizes = new TObjectIntHashMap<String>();
+    private final TObjectIntMap<String> _rejectedTasks = new TObjectIntHashMap<String>();
+    private final TObjectDoubleMap<String> _taskWaitTimes = new TObjectDoubleHashMap<String>();
+    private final TObjectDoubleMap<String> _taskRunTimes = new TObjectDoubleHashMap<String>();
+
     private Thread _mainThread;
 
     public PerformanceMonitorImpl() {
@@ -164,6 +173,56 @@ public class PerformanceMonitorImpl implements IPerformanceMonitor {
         return _lastRunningThreads;
     }
 
+    public void taskQueued(String category, int queueSize) {
+        synchronized (_taskLock) {
+            _taskQueueSizes.put(category, queueSize);
+        }
+    }
+
+    public void taskRejected(String category) {
+        synchronized (_taskLock) {
+            _rejectedTasks.adjustOrPutValue(category, 1, 1);
+        }
+    }
+
+    public void taskExecuted(String category, int queueSize, double waitTime, double runTime) {
+        synchronized (_taskLock) {
+            _taskQueueSizes.put(category, queueSize);
+
+            if (_taskRunTimes.containsKey(category)) {
+                _taskWaitTimes.put(category, _taskWaitTimes.get(category) * (1.0 - TASK_SMOOTHING) + waitTime * TASK_SMOOTHING);
+                _taskRunTimes.put(category, _taskRunTimes.get(category) * (1.0 - TASK_SMOOTHING) + runTime * TASK_SMOOTHING);
+            } else {
+                _taskWaitTimes.put(category, waitTime);
+                _taskRunTimes.put(category, runTime);
+            }
+        }
+    }
+
+    public TObjectIntMap<String> getTaskQueueSizes() {
+        synchronized (_taskLock) {
+            return new TObjectIntHashMap<String>(_taskQueueSizes);
+        }
+    }
+
+    public TObjectIntMap<String> getRejectedTasks() {
+        synchronized (_taskLock) {
+            return new TObjectIntHashMap<String>(_rejectedTasks);
+        }
+    }
+
+    public TObjectDoubleMap<String> getTaskWaitTimes() {
+        synchronized (_taskLock) {
+            return new TObjectDoubleHashMap<String>(_taskWaitTimes);
+        }
+    }
+
+    public TObjectDoubleMap<String> getTaskRunTimes() {
+        synchronized (_taskLock) {
+            return new TObjectDoubleHashMap<String>(_taskRunTimes);
+        }
+    }
+
     private static class Activity {
         public String name;
         public long startTime;
@@ -1,6 +1,7 @@
 package org.terasology.rendering.gui.menus;
 
 import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.map.TObjectIntMap;
 import gnu.trove.procedure.TObjectDoubleProcedure;
 import gnu.trove.procedure.TObjectIntProcedure;
 import org.lwjgl.input.Keyboard;
@@ -121,6 +122,29 @@ public class UIMetrics extends UIDisplayRenderer {
                     lines.get(line).setVisible(false);
                 }
             }
+        },
+        Tasks("Background Tasks", true) {
+            @Override
+            public void updateLines(List<UIText> lines) {
+                TObjectIntMap<String> queueSizes = PerformanceMonitor.getTaskQueueSizes();
+                TObjectIntMap<String> rejectedTasks = PerformanceMonitor.getRejectedTasks();
+                TObjectDoubleMap<String> waitTimes = PerformanceMonitor.getTaskWaitTimes();
+                TObjectDoubleMap<String> runTimes = PerformanceMonitor.getTaskRunTimes();
+
+                SortedSet<String> categories = new TreeSet<String>(queueSizes.keySet());
+                categories.addAll(rejectedTasks.keySet());
+
+                int line = 0;
+                for (String category : categories) {
+                    if (line >= lines.size()) break;
+                    lines.get(line).setVisible(true);
+                    lines.get(line).setText(String.format("%s: %d queued, %d rejected, %.2fms wait, %.2fms run", category, queueSizes.get(category), rejectedTasks.get(category), waitTimes.get(category), runTimes.get(category)));
+                    line++;
+                }
+                for (; line < lines.size(); line++) {
+                    lines.get(line).setVisible(false);
+                }
+            }
         };
 
         public final String displayText;
@@ -141,6 +165,8 @@ public class UIMetrics extends UIDisplayRenderer {
                     return DecayingSpikes;
                 case DecayingSpikes:
                     return RunningThreads;
+                case RunningThreads:
+                    return Tasks;
                 default:
                     return Off;
             }
@@ -17,9 +17,17 @@ package org.terasology.rendering.particles;
 
 import org.terasology.logic.manager.ShaderManager;
 import org.terasology.logic.manager.TextureManager;
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.IWorldProvider;
+import org.terasology.math.Side;
+import org.terasology.model.blocks.Block;
 import org.terasology.model.blocks.management.BlockManager;
+import org.terasology.model.structures.BlockCollider;
 import org.terasology.rendering.world.WorldRenderer;
 
+import javax.vecmath.Vector2f;
+import javax.vecmath.Vector4f;
+
 /**
  * Emits block particles.
  *
@@ -27,8 +35,26 @@ import org.terasology.rendering.world.WorldRenderer;
  */
 public class BlockParticleEmitter extends ParticleEmitter {
 
+    private static final float TEX_SIZE = Block.TEXTURE_OFFSET / 4f;
+    private static final int PARTICLE_LIFETIME = 256;
+
+    /* LIGHT */
+    private static final int LIGHT_LEVELS = 16;
+    private static final int MAX_LIGHT_REGION_SIZE = 16 * 16 * 16;
+
     private byte _currentBlockType = BlockManager.getInstance().getBlock("Dirt").getId();
 
+    /* PARTICLES */
+    private final byte[] _blockTypes = new byte[MAX_PARTICLES];
+    private final float[] _texOffsetX = new float[MAX_PARTICLES], _texOffsetY = new float[MAX_PARTICLES];
+
+    /* RENDERING */
+    private final float[] _light = new float[MAX_PARTICLES];
+    private final float[] _lightValues = new float[LIGHT_LEVELS * LIGHT_LEVELS];
+    private final byte[] _sunlightRegion = new byte[MAX_LIGHT_REGION_SIZE], _blockLightRegion = new byte[MAX_LIGHT_REGION_SIZE];
+    private int _cachedBlockType = -1;
+    private float _colorR, _colorG, _colorB, _texU, _texV;
+
     public BlockParticleEmitter(WorldRenderer parent) {
         super(parent);
     }
@@ -41,13 +67,122 @@ public class BlockParticleEmitter extends ParticleEmitter {
     public void render() {
         TextureManager.getInstance().bindTexture("terrain");
 
+        // The color offsets depend on the active biome, so they are fetched again each frame
+        _cachedBlockType = -1;
+        updateLight();
+
         ShaderManager.getInstance().enableShader("particle");
         super.render();
         ShaderManager.getInstance().enableShader(null);
     }
 
+    /**
+     * Looks up the light of all particles. The light values are read from the world at once if all particles
+     * are close to each other and the light used for rendering is calculated once for each combination of values.
+     */
+    private void updateLight() {
+        if (_particleCount == 0)
+            return;
+
+        // The daylight changes over time, so the light values are calculated again each frame
+        for (int sunlight = 0; sunlight < LIGHT_LEVELS; sunlight++) {
+            for (int blockLight = 0; blockLight < LIGHT_LEVELS; blockLight++)
+                _lightValues[sunlight * LIGHT_LEVELS + blockLight] = _parent.getRenderingLightValue((byte) sunlight, (byte) blockLight);
+        }
+
+        IWorldProvider worldProvider = _parent.getWorldProvider();
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+        for (int i = 0; i < _particleCount; i++) {
+            int x = BlockCollider.blockPos(_posX[i]), y = BlockCollider.blockPos(_posY[i]), z = BlockCollider.blockPos(_posZ[i]);
+
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        long sizeX = maxX - minX + 1L, sizeY = maxY - minY + 1L, sizeZ = maxZ - minZ + 1L;
+
+        if (sizeX * sizeY * sizeZ <= MAX_LIGHT_REGION_SIZE) {
+            worldProvider.getLights(minX, minY, minZ, (int) sizeX, (int) sizeY, (int) sizeZ, Chunk.LIGHT_TYPE.SUN, _sunlightRegion);
+            worldProvider.getLights(minX, minY, minZ, (int) sizeX, (int) sizeY, (int) sizeZ, Chunk.LIGHT_TYPE.BLOCK, _blockLightRegion);
+
+            for (int i = 0; i < _particleCount; i++) {
+                int x = BlockCollider.blockPos(_posX[i]) - minX, y = BlockCollider.blockPos(_posY[i]) - minY, z = BlockCollider.blockPos(_posZ[i]) - minZ;
+                int index = (int) ((x * sizeY + y) * sizeZ + z);
+
+                _light[i] = lightValue(_sunlightRegion[index], _blockLightRegion[index]);
+            }
+        } else {
+            for (int i = 0; i < _particleCount; i++) {
+                int x = BlockCollider.blockPos(_posX[i]), y = BlockCollider.blockPos(_posY[i]), z = BlockCollider.blockPos(_posZ[i]);
+                _light[i] = lightValue(worldProvider.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN), worldProvider.getLight(x, y, z, Chunk.LIGHT_TYPE.BLOCK));
+            }
+        }
+    }
+
+    private float lightValue(byte sunlight, byte blockLight) {
+        if (sunlight >= 0 && sunlight < LIGHT_LEVELS && blockLight >= 0 && blockLight < LIGHT_LEVELS)
+            return _lightValues[sunlight * LIGHT_LEVELS + blockLight];
+
+        return _parent.getRenderingLightValue(sunlight, blockLight);
+    }
+
+    @Override
+    protected void initParticle(int i) {
+        _blockTypes[i] = _currentBlockType;
+
+        // Random values
+        _size[i] = (float) ((_rand.randomDouble() + 1.0) / 2.0) * 0.05f + 0.05f;
+
+        _texOffsetX[i] = (float) (((_rand.randomDouble() + 1.0) / 2.0) * (Block.TEXTURE_OFFSET - TEX_SIZE));
+        _texOffsetY[i] = (float) (((_rand.randomDouble() + 1.0) / 2.0) * (Block.TEXTURE_OFFSET - TEX_SIZE));
+
+        _posX[i] += _rand.randomDouble() * 0.3;
+        _posY[i] += _rand.randomDouble() * 0.3;
+        _posZ[i] += _rand.randomDouble() * 0.3;
+
+        _lifetime[i] = (int) (PARTICLE_LIFETIME * ((_rand.randomDouble() + 1.0) / 2.0));
+    }
+
     @Override
-    protected Particle createParticle() {
-        return new BlockParticle(256, _origin, _currentBlockType, this);
+    protected void copyParticle(int from, int to) {
+        _blockTypes[to] = _blockTypes[from];
+        _texOffsetX[to] = _texOffsetX[from];
+        _texOffsetY[to] = _texOffsetY[from];
+    }
+
+    @Override
+    protected boolean collidesWithBlocks() {
+        // Very simple "collision detection" for particles.
+        return true;
+    }
+
+    @Override
+    protected void tessellateParticle(int i, double x, double y, double z) {
+        if (_blockTypes[i] != _cachedBlockType) {
+            Block b = BlockManager.getInstance().getBlock(_blockTypes[i]);
+
+            Vector4f color = b.calcColorOffsetFor(Side.FRONT, _parent.getActiveTemperature(), _parent.getActiveHumidity());
+            _colorR = color.x;
+            _colorG = color.y;
+            _colorB = color.z;
+
+            Vector2f texOffset = b.calcTextureOffsetFor(Side.FRONT);
+            _texU = texOffset.x;
+            _texV = texOffset.y;
+
+            _cachedBlockType = _blockTypes[i];
+        }
+
+        float u = _texU + _texOffsetX[i];
+        float v = _texV + _texOffsetY[i];
+
+        addQuad(x, y, z, _size[i], u, v, u + TEX_SIZE, v + TEX_SIZE, _colorR, _colorG, _colorB, _light[i]);
     }
 }
@@ -15,18 +15,30 @@
  */
 package org.terasology.rendering.particles;
 
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.terasology.game.Terasology;
 import org.terasology.logic.manager.ConfigurationManager;
+import org.terasology.logic.world.IWorldProvider;
+import org.terasology.model.structures.BlockCollider;
 import org.terasology.rendering.interfaces.IGameObject;
 import org.terasology.rendering.world.WorldRenderer;
+import org.terasology.utilities.FastRandom;
 
 import javax.vecmath.Vector3d;
-import java.util.ArrayList;
+import java.nio.FloatBuffer;
 
 import static org.lwjgl.opengl.GL11.*;
 
 /**
  * Simple particle system.
+ * <p/>
+ * The attributes of the particles are stored in parallel arrays which are allocated once for the maximum
+ * amount of particles. Dead particles are removed by moving the last particle into their slot. Subclasses
+ * store additional attributes in own arrays and keep those in sync using "initParticle" and "copyParticle".
+ * <p/>
+ * All particles of an emitter are rendered at once as camera facing quads using a single vertex array.
  *
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
@@ -34,10 +46,39 @@ public abstract class ParticleEmitter implements IGameObject {
 
     protected static final int MAX_PARTICLES = (Integer) ConfigurationManager.getInstance().getConfig().get("System.maxParticles");
     protected static final int PARTICLES_PER_UPDATE = 32;
+
+    /* PHYSICS */
+    private static final float TARGET_VELOCITY_Y = -0.03f;
+    private static final float VELOCITY_DEC_SPEED = 0.003f;
+
+    /* VERTEX ARRAY */
+    private static final int VERTEX_SIZE = 3 + 2 + 4;
+    private static final int STRIDE = VERTEX_SIZE * 4;
+
+    /* COLLISION */
+    private static final int MAX_COLLISION_REGION_SIZE = 16 * 16 * 16;
     /* ------- */
     protected int _particlesToEmit;
 
-    protected final ArrayList<Particle> _particles = new ArrayList<Particle>();
+    protected static final FastRandom _rand = new FastRandom();
+
+    /* PARTICLES */
+    protected int _particleCount;
+    protected final double[] _posX = new double[MAX_PARTICLES], _posY = new double[MAX_PARTICLES], _posZ = new double[MAX_PARTICLES];
+    protected final float[] _velX = new float[MAX_PARTICLES], _velY = new float[MAX_PARTICLES], _velZ = new float[MAX_PARTICLES];
+    protected final float[] _initialVelX = new float[MAX_PARTICLES], _initialVelZ = new float[MAX_PARTICLES];
+    protected final float[] _size = new float[MAX_PARTICLES];
+    protected final int[] _lifetime = new int[MAX_PARTICLES];
+    private final boolean[] _blocked = new boolean[MAX_PARTICLES];
+    private int _replaceIndex;
+
+    private final byte[] _collisionBlocks = new byte[MAX_COLLISION_REGION_SIZE];
+
+    /* RENDERING */
+    private final FloatBuffer _vertexData = BufferUtils.createFloatBuffer(MAX_PARTICLES * 4 * VERTEX_SIZE);
+    private final FloatBuffer _modelView = BufferUtils.createFloatBuffer(16);
+    private float _rightX, _rightY, _rightZ, _upX, _upY, _upZ;
+
     protected final Vector3d _origin = new Vector3d();
 
     protected final WorldRenderer _parent;
@@ -47,15 +88,52 @@ public abstract class ParticleEmitter implements IGameObject {
     }
 
     public void render() {
+        if (_particleCount == 0)
+            return;
+
         glDisable(GL11.GL_CULL_FACE);
         glEnable(GL_TEXTURE_2D);
         glEnable(GL_BLEND);
         glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
 
-        for (int i = 0; i < _particles.size(); i++) {
-            Particle p = _particles.get(i);
-            p.render();
-        }
+        // The rows of the rotation of the modelview matrix point to the right and upwards on the screen
+        _modelView.clear();
+        GL11.glGetFloat(GL11.GL_MODELVIEW_MATRIX, _modelView);
+
+        _rightX = _modelView.get(0);
+        _rightY = _modelView.get(4);
+        _rightZ = _modelView.get(8);
+        _upX = _modelView.get(1);
+        _upY = _modelView.get(5);
+        _upZ = _modelView.get(9);
+
+        Vector3d playerPosition = Terasology.getInstance().getActivePlayer().getPosition();
+
+        _vertexData.clear();
+
+        for (int i = 0; i < _particleCount; i++)
+            tessellateParticle(i, _posX[i] - playerPosition.x, _posY[i] - playerPosition.y, _posZ[i] - playerPosition.z);
+
+        int vertexCount = _vertexData.position() / VERTEX_SIZE;
+
+        GL13.glClientActiveTexture(GL13.GL_TEXTURE0);
+
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+
+        _vertexData.position(0);
+        glVertexPointer(3, STRIDE, _vertexData);
+        _vertexData.position(3);
+        glTexCoordPointer(2, STRIDE, _vertexData);
+        _vertexData.position(5);
+        glColorPointer(4, STRIDE, _vertexData);
+
+        glDrawArrays(GL_QUADS, 0, vertexCount);
+
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
 
         glDisable(GL_BLEND);
         glDisable(GL11.GL_TEXTURE_2D);
@@ -66,29 +144,175 @@ public abstract class ParticleEmitter implements IGameObject {
         removeDeadParticles();
         emitParticles();
 
-        for (int i = 0; i < _particles.size(); i++) {
-            Particle p = _particles.get(i);
-            p.update();
-        }
+        updateVelocities();
+
+        if (collidesWithBlocks())
+            updateCollisions();
+
+        updatePositions();
     }
 
     private void removeDeadParticles() {
-        for (int i = _particles.size() - 1; i >= 0; i--) {
-            Particle p = _particles.get(i);
+        for (int i = _particleCount - 1; i >= 0; i--) {
+            if (_lifetime[i] <= 0)
+                removeParticle(i);
+        }
+    }
 
-            if (!p.isAlive() || _particles.size() > MAX_PARTICLES) {
-                _particles.remove(i);
-            }
+    private void removeParticle(int i) {
+        int last = _particleCount - 1;
+
+        if (i != last) {
+            _posX[i] = _posX[last];
+            _posY[i] = _posY[last];
+            _posZ[i] = _posZ[last];
+            _velX[i] = _velX[last];
+            _velY[i] = _velY[last];
+            _velZ[i] = _velZ[last];
+            _initialVelX[i] = _initialVelX[last];
+            _initialVelZ[i] = _initialVelZ[last];
+            _size[i] = _size[last];
+            _lifetime[i] = _lifetime[last];
+
+            copyParticle(last, i);
         }
+
+        _particleCount--;
     }
 
     protected void emitParticles() {
         for (int i = 0; i < PARTICLES_PER_UPDATE && _particlesToEmit > 0; i++) {
-            _particles.add(0, createParticle());
+            int index;
+
+            if (_particleCount < MAX_PARTICLES) {
+                index = _particleCount++;
+            } else {
+                // Replace the existing particles one after another if the maximum is reached
+                index = _replaceIndex;
+                _replaceIndex = (_replaceIndex + 1) % MAX_PARTICLES;
+            }
+
+            _posX[index] = _origin.x;
+            _posY[index] = _origin.y;
+            _posZ[index] = _origin.z;
+
+            _initialVelX[index] = (_rand.randomInt() % 32) * 0.003f;
+            _initialVelZ[index] = (_rand.randomInt() % 32) * 0.003f;
+            _velX[index] = _initialVelX[index];
+            _velY[index] = (_rand.randomInt() % 32) * 0.003f;
+            _velZ[index] = _initialVelZ[index];
+
+            _size[index] = 0.01f;
+            _lifetime[index] = 0;
+
+            initParticle(index);
             _particlesToEmit--;
         }
     }
 
+    /**
+     * Moves the velocities towards the target velocity.
+     */
+    private void updateVelocities() {
+        for (int i = 0; i < _particleCount; i++) {
+            _velX[i] = approach(_velX[i], 0f);
+            _velY[i] = approach(_velY[i], TARGET_VELOCITY_Y);
+            _velZ[i] = approach(_velZ[i], 0f);
+        }
+    }
+
+    private static float approach(float velocity, float target) {
+        if (Math.abs(velocity - target) <= 0.01f)
+            return target;
+
+        return velocity + ((velocity - target) >= 0 ? -VELOCITY_DEC_SPEED : VELOCITY_DEC_SPEED);
+    }
+
+    /**
+     * Checks the block above or below each particle, depending on the direction the particle moves in.
+     * The blocks are read from the world at once if all particles are close to each other.
+     */
+    private void updateCollisions() {
+        IWorldProvider worldProvider = _parent.getWorldProvider();
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+        for (int i = 0; i < _particleCount; i++) {
+            int x = BlockCollider.blockPos(_posX[i]), y = probePosY(i), z = BlockCollider.blockPos(_posZ[i]);
+
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        long sizeX = maxX - minX + 1L, sizeY = maxY - minY + 1L, sizeZ = maxZ - minZ + 1L;
+
+        if (_particleCount > 0 && sizeX * sizeY * sizeZ <= _collisionBlocks.length) {
+            worldProvider.getBlocks(minX, minY, minZ, (int) sizeX, (int) sizeY, (int) sizeZ, _collisionBlocks);
+
+            for (int i = 0; i < _particleCount; i++) {
+                int x = BlockCollider.blockPos(_posX[i]) - minX, y = probePosY(i) - minY, z = BlockCollider.blockPos(_posZ[i]) - minZ;
+                _blocked[i] = _collisionBlocks[(int) ((x * sizeY + y) * sizeZ + z)] != 0x0;
+            }
+        } else {
+            for (int i = 0; i < _particleCount; i++)
+                _blocked[i] = worldProvider.getBlock(BlockCollider.blockPos(_posX[i]), probePosY(i), BlockCollider.blockPos(_posZ[i])) != 0x0;
+        }
+    }
+
+    private int probePosY(int i) {
+        return BlockCollider.blockPos(_posY[i] + 2 * (_velY[i] >= 0 ? _size[i] : -_size[i]));
+    }
+
+    private void updatePositions() {
+        boolean collides = collidesWithBlocks();
+
+        for (int i = 0; i < _particleCount; i++) {
+            if (collides && _blocked[i]) {
+                _velX[i] += (_velY[i] / 2) * _initialVelX[i];
+                _velZ[i] += (_velY[i] / 2) * _initialVelZ[i];
+                _velY[i] = 0;
+            }
+
+            _posX[i] += _velX[i];
+            _posY[i] += _velY[i];
+            _posZ[i] += _velZ[i];
+
+            if (_lifetime[i] > 0)
+                _lifetime[i]--;
+        }
+    }
+
+    /**
+     * Adds a camera facing quad to the vertex array.
+     *
+     * @param x    The center of the quad relative to the player on the x-axis
+     * @param y    The center of the quad relative to the player on the y-axis
+     * @param z    The center of the quad relative to the player on the z-axis
+     * @param size The edge length of the quad
+     */
+    protected final void addQuad(double x, double y, double z, float size, float u0, float v0, float u1, float v1, float r, float g, float b, float a) {
+        float halfSize = size * 0.5f;
+
+        float rightX = _rightX * halfSize, rightY = _rightY * halfSize, rightZ = _rightZ * halfSize;
+        float upX = _upX * halfSize, upY = _upY * halfSize, upZ = _upZ * halfSize;
+
+        addVertex(x - rightX - upX, y - rightY - upY, z - rightZ - upZ, u0, v0, r, g, b, a);
+        addVertex(x + rightX - upX, y + rightY - upY, z + rightZ - upZ, u1, v0, r, g, b, a);
+        addVertex(x + rightX + upX, y + rightY + upY, z + rightZ + upZ, u1, v1, r, g, b, a);
+        addVertex(x - rightX + upX, y - rightY + upY, z - rightZ + upZ, u0, v1, r, g, b, a);
+    }
+
+    private void addVertex(double x, double y, double z, float u, float v, float r, float g, float b, float a) {
+        _vertexData.put((float) x).put((float) y).put((float) z);
+        _vertexData.put(u).put(v);
+        _vertexData.put(r).put(g).put(b).put(a);
+    }
+
     public void setOrigin(Vector3d origin) {
         _origin.set(origin);
     }
@@ -97,9 +321,47 @@ public abstract class ParticleEmitter implements IGameObject {
         _particlesToEmit = amount;
     }
 
+    /**
+     * Returns the amount of living particles.
+     */
+    public int getParticleCount() {
+        return _particleCount;
+    }
+
     public WorldRenderer getParent() {
         return _parent;
     }
 
-    protected abstract Particle createParticle();
+    /**
+     * Returns true if the particles should stop falling when hitting a block.
+     */
+    protected boolean collidesWithBlocks() {
+        return false;
+    }
+
+    /**
+     * Initializes a newly emitted particle. The position, the velocity and the size are already set to
+     * default values. The lifetime has to be set by this method.
+     *
+     * @param i The index of the particle
+     */
+    protected abstract void initParticle(int i);
+
+    /**
+     * Copies the attributes stored by subclasses from one particle to another.
+     *
+     * @param from The index of the source particle
+     * @param to   The index of the target particle
+     */
+    protected abstract void copyParticle(int from, int to);
+
+    /**
+     * Adds the vertices of the given particle using "addQuad".
+     *
+     * @param i The index of the particle
+     * @param x The position of the particle relative to the player on the x-axis
+     * @param y The position of the particle relative to the player on the y-axis
+     * @param z The position of the particle relative to the player on the z-axis
+     */
+    protected abstract void tessellateParticle(int i, double x, double y, double z);
 }
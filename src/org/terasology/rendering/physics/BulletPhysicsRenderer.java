@@ -17,6 +17,7 @@ package org.terasology.rendering.physics;
 
 import com.bulletphysics.collision.broadphase.BroadphaseInterface;
 import com.bulletphysics.collision.broadphase.DbvtBroadphase;
+import com.bulletphysics.collision.dispatch.CollisionObject;
 import com.bulletphysics.collision.dispatch.CollisionDispatcher;
 import com.bulletphysics.collision.dispatch.DefaultCollisionConfiguration;
 import com.bulletphysics.collision.shapes.BoxShape;
@@ -31,6 +32,7 @@ import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.terasology.game.Terasology;
 import org.terasology.logic.characters.Player;
+import org.terasology.logic.manager.ConfigurationManager;
 import org.terasology.logic.manager.ShaderManager;
 import org.terasology.logic.manager.TextureManager;
 import org.terasology.logic.world.Chunk;
@@ -39,8 +41,6 @@ import org.terasology.rendering.interfaces.IGameObject;
 import org.terasology.rendering.shader.ShaderParameters;
 import org.terasology.utilities.FastRandom;
 
-import javax.vecmath.Matrix3f;
-import javax.vecmath.Matrix4f;
 import javax.vecmath.Vector3d;
 import javax.vecmath.Vector3f;
 import java.nio.FloatBuffer;
@@ -49,17 +49,39 @@ import java.util.HashSet;
 
 /**
  * Renders blocks using the Bullet physics library.
+ * <p/>
+ * Removed blocks break into debris bodies. The amount of debris bodies is limited by a budget, if it is
+ * exhausted the oldest bodies are reused for new debris. Removed bodies are kept in a pool, so debris does
+ * not create new bodies and motion states once the pool is filled. Only a limited amount of the newest
+ * bodies is simulated, older bodies are put to sleep.
+ * <p/>
+ * The simulation is advanced in "update" using a fixed time step.
  *
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
 public class BulletPhysicsRenderer implements IGameObject {
 
+    /* CONST */
+    private static final int MAX_DEBRIS_BODIES = (Integer) ConfigurationManager.getInstance().getConfig().get("System.maxDebrisBodies");
+    private static final int MAX_ACTIVE_DEBRIS_BODIES = (Integer) ConfigurationManager.getInstance().getConfig().get("System.maxActiveDebrisBodies");
+    private static final int DEBRIS_LIFETIME = (Integer) ConfigurationManager.getInstance().getConfig().get("System.debrisLifetime");
+
+    // update() is called once per game tick, so the simulation advances by exactly one tick each time
+    private static final float FIXED_TIME_STEP = Terasology.SKIP_TICKS / 1000f;
+    private static final int MAX_SUB_STEPS = 7;
+
+    private static final float BLOCK_MASS = 100f;
+    private static final float LINEAR_SLEEPING_THRESHOLD = 1.6f;
+    private static final float ANGULAR_SLEEPING_THRESHOLD = 2.5f;
+
+    private static final Vector3f ZERO = new Vector3f();
+
     /* SINGLETON */
     private static BulletPhysicsRenderer _instance;
 
     private class BlockRigidBody extends RigidBody implements Comparable<BlockRigidBody> {
-        private final byte _type;
-        private final long _createdAt;
+        private byte _type;
+        private long _createdAt;
 
         public BlockRigidBody(RigidBodyConstructionInfo constructionInfo, byte type) {
             super(constructionInfo);
@@ -67,6 +89,30 @@ public class BulletPhysicsRenderer implements IGameObject {
             _createdAt = Terasology.getInstance().getTime();
         }
 
+        /**
+         * Prepares a pooled body to be added to the world again.
+         *
+         * @param transform The new transform of the body
+         * @param type      The new block type
+         */
+        public void reuse(Transform transform, byte type) {
+            _type = type;
+            _createdAt = Terasology.getInstance().getTime();
+
+            getMotionState().setWorldTransform(transform);
+            ((DefaultMotionState) getMotionState()).startWorldTrans.set(transform);
+            setCenterOfMassTransform(transform);
+
+            setLinearVelocity(ZERO);
+            setAngularVelocity(ZERO);
+            setInterpolationLinearVelocity(ZERO);
+            setInterpolationAngularVelocity(ZERO);
+            clearForces();
+
+            forceActivationState(ACTIVE_TAG);
+            setDeactivationTime(0f);
+        }
+
         public long calcAgeInMs() {
             return Terasology.getInstance().getTime() - _createdAt;
         }
@@ -87,10 +133,15 @@ public class BulletPhysicsRenderer implements IGameObject {
         }
     }
 
+    /**
+     * The debris bodies in the order of their creation, the first body is the oldest one
+     */
     private final ArrayList<BlockRigidBody> _blocks = new ArrayList<BlockRigidBody>();
+    private final ArrayList<BlockRigidBody> _pool = new ArrayList<BlockRigidBody>();
     private HashSet<RigidBody> _chunks = new HashSet<RigidBody>();
 
     private final CollisionShape _blockShape = new BoxShape(new Vector3f(0.25f, 0.25f, 0.25f));
+    private final Vector3f _blockInertia = new Vector3f();
 
     private final CollisionDispatcher _dispatcher;
     private final BroadphaseInterface _broadphase;
@@ -101,6 +152,13 @@ public class BulletPhysicsRenderer implements IGameObject {
     private static final Vector3f[] _positionOffsets = new Vector3f[]{new Vector3f(1, 1, -1), new Vector3f(1, -1, -1), new Vector3f(-1, 1, -1), new Vector3f(-1, -1, -1),
             new Vector3f(1, 1, 1), new Vector3f(1, -1, 1), new Vector3f(-1, 1, 1), new Vector3f(-1, -1, 1)};
 
+    /* TEMPORARY OBJECTS */
+    private final Transform _transform = new Transform();
+    private final Vector3f _force = new Vector3f();
+    private final Vector3d _lightPosition = new Vector3d();
+    private final FloatBuffer _matrixBuffer = BufferUtils.createFloatBuffer(16);
+    private final float[] _matrix = new float[16];
+
     public static BulletPhysicsRenderer getInstance() {
         if (_instance == null)
             _instance = new BulletPhysicsRenderer();
@@ -115,37 +173,65 @@ public class BulletPhysicsRenderer implements IGameObject {
         _sequentialImpulseConstraintSolver = new SequentialImpulseConstraintSolver();
         _discreteDynamicsWorld = new DiscreteDynamicsWorld(_dispatcher, _broadphase, _sequentialImpulseConstraintSolver, _defaultCollisionConfiguration);
         _discreteDynamicsWorld.setGravity(new Vector3f(0f, -10f, 0f));
+
+        _blockShape.calculateLocalInertia(BLOCK_MASS, _blockInertia);
     }
 
     public void addBlock(Vector3f position, byte type) {
-        for (int i = 0; i < 8; i++) {
-            Matrix3f rot = new Matrix3f();
-            rot.setIdentity();
+        FastRandom rand = Terasology.getInstance().getActiveWorldProvider().getRandom();
 
+        for (int i = 0; i < 8; i++) {
             // Position the smaller blocks
-            Vector3f pos = new Vector3f(position);
-            _positionOffsets[i].scale(0.25f);
-            pos.add(_positionOffsets[i]);
+            _transform.setIdentity();
+            _transform.origin.scaleAdd(0.25f, _positionOffsets[i], position);
 
-            DefaultMotionState blockMotionState = new DefaultMotionState(new Transform(new Matrix4f(rot, pos, 1.0f)));
-
-            Vector3f fallInertia = new Vector3f();
-            _blockShape.calculateLocalInertia(100f, fallInertia);
-
-            RigidBodyConstructionInfo blockCI = new RigidBodyConstructionInfo(100f, blockMotionState, _blockShape, fallInertia);
-            blockCI.restitution = 0.0f;
-
-            BlockRigidBody block = new BlockRigidBody(blockCI, type);
+            BlockRigidBody block = obtainBlock(_transform, type);
             _discreteDynamicsWorld.addRigidBody(block);
 
             // Make sure the blocks move at least
-            FastRandom rand = Terasology.getInstance().getActiveWorldProvider().getRandom();
-            block.applyCentralForce(new Vector3f(rand.randomInt() % 80000 + 40000, rand.randomInt() % 80000 + 40000, rand.randomInt() % 80000 + 40000));
+            _force.set(rand.randomInt() % 80000 + 40000, rand.randomInt() % 80000 + 40000, rand.randomInt() % 80000 + 40000);
+            block.applyCentralForce(_force);
 
             _blocks.add(block);
         }
     }
 
+    /**
+     * Returns a body for a new piece of debris. Reuses the oldest body if the budget is exhausted and
+     * pooled bodies if available.
+     */
+    private BlockRigidBody obtainBlock(Transform transform, byte type) {
+        if (_blocks.size() >= MAX_DEBRIS_BODIES)
+            recycleBlock(0);
+
+        if (!_pool.isEmpty()) {
+            BlockRigidBody block = _pool.remove(_pool.size() - 1);
+            block.reuse(transform, type);
+
+            return block;
+        }
+
+        DefaultMotionState blockMotionState = new DefaultMotionState(transform);
+
+        RigidBodyConstructionInfo blockCI = new RigidBodyConstructionInfo(BLOCK_MASS, blockMotionState, _blockShape, _blockInertia);
+        blockCI.restitution = 0.0f;
+        blockCI.linearSleepingThreshold = LINEAR_SLEEPING_THRESHOLD;
+        blockCI.angularSleepingThreshold = ANGULAR_SLEEPING_THRESHOLD;
+
+        return new BlockRigidBody(blockCI, type);
+    }
+
+    /**
+     * Removes the body at the given index from the world and moves it to the pool.
+     */
+    private void recycleBlock(int index) {
+        BlockRigidBody block = _blocks.remove(index);
+        _discreteDynamicsWorld.removeRigidBody(block);
+
+        if (_pool.size() < MAX_DEBRIS_BODIES)
+            _pool.add(block);
+    }
+
     public void updateChunks() {
         ArrayList<Chunk> chunks = Terasology.getInstance().getActiveWorldRenderer().getChunksInProximity();
         HashSet<RigidBody> newBodies = new HashSet<RigidBody>();
@@ -178,32 +264,30 @@ public class BulletPhysicsRenderer implements IGameObject {
     }
 
     public void render() {
-        _discreteDynamicsWorld.stepSimulation(Terasology.getInstance().getDelta() / 1000f, 7);
-
         TextureManager.getInstance().bindTexture("terrain");
         ShaderManager.getInstance().enableShader("block");
         ShaderParameters params = ShaderManager.getInstance().getShaderParameters("block");
 
         Player player = Terasology.getInstance().getActiveWorldRenderer().getPlayer();
-        FloatBuffer mBuffer = BufferUtils.createFloatBuffer(16);
-        float[] mFloat = new float[16];
 
         GL11.glPushMatrix();
         GL11.glTranslated(-player.getPosition().x, -player.getPosition().y, -player.getPosition().z);
 
-        for (BlockRigidBody b : _blocks) {
-            Transform t = new Transform();
-            b.getMotionState().getWorldTransform(t);
+        for (int i = 0; i < _blocks.size(); i++) {
+            BlockRigidBody b = _blocks.get(i);
+            b.getMotionState().getWorldTransform(_transform);
 
-            t.getOpenGLMatrix(mFloat);
-            mBuffer.put(mFloat);
-            mBuffer.flip();
+            _transform.getOpenGLMatrix(_matrix);
+            _matrixBuffer.clear();
+            _matrixBuffer.put(_matrix);
+            _matrixBuffer.flip();
 
             GL11.glPushMatrix();
-            GL11.glMultMatrix(mBuffer);
+            GL11.glMultMatrix(_matrixBuffer);
             GL11.glScalef(0.5f, 0.5f, 0.5f);
 
-            float lightValue = Terasology.getInstance().getActiveWorldRenderer().getRenderingLightValueAt(new Vector3d(t.origin));
+            _lightPosition.set(_transform.origin);
+            float lightValue = Terasology.getInstance().getActiveWorldRenderer().getRenderingLightValueAt(_lightPosition);
             params.setFloat("light", lightValue);
 
             BlockManager.getInstance().getBlock(b.getType()).render();
@@ -219,19 +303,39 @@ public class BulletPhysicsRenderer implements IGameObject {
     public void update() {
         updateChunks();
         removeBlocks();
+
+        if (!_blocks.isEmpty()) {
+            _discreteDynamicsWorld.stepSimulation(FIXED_TIME_STEP, MAX_SUB_STEPS, FIXED_TIME_STEP);
+            limitActiveBlocks();
+        }
     }
 
+    /**
+     * Removes all bodies which exceeded their lifetime.
+     */
     private void removeBlocks() {
-        if (_blocks.size() > 0) {
-            for (int i = _blocks.size() - 1; i >= 0; i--) {
-                if (!_blocks.get(i).isActive() || _blocks.get(i).calcAgeInMs() > 10000) {
-                    _discreteDynamicsWorld.removeRigidBody(_blocks.get(i));
-                    _blocks.remove(i);
-                }
-            }
+        // The bodies are ordered by their age, so only the first bodies can be expired
+        while (!_blocks.isEmpty() && _blocks.get(0).calcAgeInMs() > DEBRIS_LIFETIME) {
+            recycleBlock(0);
+        }
+    }
+
+    /**
+     * Puts the oldest bodies to sleep if too many bodies are simulated at once.
+     */
+    private void limitActiveBlocks() {
+        int activeBlocks = 0;
+
+        for (int i = _blocks.size() - 1; i >= 0; i--) {
+            BlockRigidBody block = _blocks.get(i);
+
+            if (!block.isActive())
+                continue;
 
-            while (_blocks.size() > 128) {
-                _discreteDynamicsWorld.removeRigidBody(_blocks.remove(0));
+            if (++activeBlocks > MAX_ACTIVE_DEBRIS_BODIES) {
+                block.setLinearVelocity(ZERO);
+                block.setAngularVelocity(ZERO);
+                block.setActivationState(CollisionObject.ISLAND_SLEEPING);
             }
         }
     }
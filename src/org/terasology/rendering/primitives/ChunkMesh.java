@@ -12,12 +12,14 @@ import org.terasology.logic.manager.VertexBufferObjectManager;
 
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.concurrent.locks.ReentrantLock;
 
 import static org.lwjgl.opengl.GL11.*;
 
 /**
  * Chunk meshes are used to store the vertex data of tessellated chunks.
+ * <p/>
+ * A mesh is filled by the tessellator on a worker thread. After it has been published by its chunk,
+ * it is only accessed from the render thread, so no locking is needed.
  */
 public class ChunkMesh {
 
@@ -95,9 +97,6 @@ public class ChunkMesh {
     public IndexedMesh _indexedMesh;
     private boolean _disposed = false;
 
-    /* CONCURRENCY */
-    public ReentrantLock _lock = new ReentrantLock();
-
     public ChunkMesh() {
         _vertexElements[0] = new VertexElements();
         _vertexElements[1] = new VertexElements();
@@ -111,85 +110,63 @@ public class ChunkMesh {
      * @return True if something was generated
      */
     public boolean generateVBOs() {
-        if (_lock.tryLock()) {
-            try {
-                // IMPORTANT: A mesh can only be generated once.
-                if (_vertexElements == null || _disposed)
-                    return false;
-
-                for (int i = 0; i < _vertexBuffers.length; i++)
-                    generateVBO(i);
-
-                // Free unused space on the heap
-                _vertexElements = null;
-                // Calculate the final amount of triangles
-                _triangleCount = (_vertexCount[0] + _vertexCount[1] + _vertexCount[2] + _vertexCount[3]) / 3;
-            } finally {
-                _lock.unlock();
-            }
+        // IMPORTANT: A mesh can only be generated once.
+        if (_vertexElements == null || _disposed)
+            return false;
 
-            return true;
-        }
+        for (int i = 0; i < _vertexBuffers.length; i++)
+            generateVBO(i);
 
-        return false;
+        // Free unused space on the heap
+        _vertexElements = null;
+        // Calculate the final amount of triangles
+        _triangleCount = (_vertexCount[0] + _vertexCount[1] + _vertexCount[2] + _vertexCount[3]) / 3;
+
+        return true;
     }
 
     private void generateVBO(int id) {
-        if (_lock.tryLock()) {
-            try {
-                if (!_disposed) {
-                    _vertexBuffers[id] = VertexBufferObjectManager.getInstance().getVboId();
-                    _idxBuffers[id] = VertexBufferObjectManager.getInstance().getVboId();
-                    _vertexCount[id] = _vertexElements[id].finalIndices.limit();
-
-                    VertexBufferObjectManager.getInstance().bufferVboElementData(_idxBuffers[id], _vertexElements[id].finalIndices, GL15.GL_STATIC_DRAW);
-                    VertexBufferObjectManager.getInstance().bufferVboData(_vertexBuffers[id], _vertexElements[id].finalVertices, GL15.GL_STATIC_DRAW);
-                }
-            } finally {
-                _lock.unlock();
-            }
-        }
+        _vertexBuffers[id] = VertexBufferObjectManager.getInstance().getVboId();
+        _idxBuffers[id] = VertexBufferObjectManager.getInstance().getVboId();
+        _vertexCount[id] = _vertexElements[id].finalIndices.limit();
+
+        VertexBufferObjectManager.getInstance().bufferVboElementData(_idxBuffers[id], _vertexElements[id].finalIndices, GL15.GL_STATIC_DRAW);
+        VertexBufferObjectManager.getInstance().bufferVboData(_vertexBuffers[id], _vertexElements[id].finalVertices, GL15.GL_STATIC_DRAW);
     }
 
     private void renderVbo(int id) {
-        if (_lock.tryLock()) {
-            try {
-                if (_vertexBuffers[id] <= 0 || _disposed)
-                    return;
+        if (_vertexBuffers[id] <= 0 || _disposed)
+            return;
 
-                glEnableClientState(GL_VERTEX_ARRAY);
-                glEnableClientState(GL_TEXTURE_COORD_ARRAY);
-                glEnableClientState(GL_COLOR_ARRAY);
-                glEnableClientState(GL_NORMAL_ARRAY);
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+        glEnableClientState(GL_NORMAL_ARRAY);
 
-                GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, _idxBuffers[id]);
-                GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, _vertexBuffers[id]);
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, _idxBuffers[id]);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, _vertexBuffers[id]);
 
-                glVertexPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_VERTEX);
+        glVertexPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_VERTEX);
 
-                GL13.glClientActiveTexture(GL13.GL_TEXTURE0);
-                glTexCoordPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_TEX_0);
+        GL13.glClientActiveTexture(GL13.GL_TEXTURE0);
+        glTexCoordPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_TEX_0);
 
-                GL13.glClientActiveTexture(GL13.GL_TEXTURE1);
-                glTexCoordPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_TEX_1);
+        GL13.glClientActiveTexture(GL13.GL_TEXTURE1);
+        glTexCoordPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_TEX_1);
 
-                glColorPointer(4, GL11.GL_FLOAT, STRIDE, OFFSET_COLOR);
+        glColorPointer(4, GL11.GL_FLOAT, STRIDE, OFFSET_COLOR);
 
-                glNormalPointer(GL11.GL_FLOAT, STRIDE, OFFSET_NORMAL);
+        glNormalPointer(GL11.GL_FLOAT, STRIDE, OFFSET_NORMAL);
 
-                GL11.glDrawElements(GL11.GL_TRIANGLES, _vertexCount[id], GL_UNSIGNED_INT, 0);
+        GL11.glDrawElements(GL11.GL_TRIANGLES, _vertexCount[id], GL_UNSIGNED_INT, 0);
 
-                glDisableClientState(GL_NORMAL_ARRAY);
-                glDisableClientState(GL_COLOR_ARRAY);
-                glDisableClientState(GL_TEXTURE_COORD_ARRAY);
-                glDisableClientState(GL_VERTEX_ARRAY);
+        glDisableClientState(GL_NORMAL_ARRAY);
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
 
-                GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-                GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
-            } finally {
-                _lock.unlock();
-            }
-        }
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
     }
 
     public void render(RENDER_PHASE type) {
@@ -211,28 +188,22 @@ public class ChunkMesh {
     }
 
     public void dispose() {
-        _lock.lock();
+        if (!_disposed) {
+            for (int i = 0; i < _vertexBuffers.length; i++) {
+                int id = _vertexBuffers[i];
 
-        try {
-            if (!_disposed) {
-                for (int i = 0; i < _vertexBuffers.length; i++) {
-                    int id = _vertexBuffers[i];
+                VertexBufferObjectManager.getInstance().putVboId(id);
+                _vertexBuffers[i] = 0;
 
-                    VertexBufferObjectManager.getInstance().putVboId(id);
-                    _vertexBuffers[i] = 0;
+                id = _idxBuffers[i];
 
-                    id = _idxBuffers[i];
-
-                    VertexBufferObjectManager.getInstance().putVboId(id);
-                    _idxBuffers[i] = 0;
-                }
-
-                _disposed = true;
-                _vertexElements = null;
-                _indexedMesh = null;
+                VertexBufferObjectManager.getInstance().putVboId(id);
+                _idxBuffers[i] = 0;
             }
-        } finally {
-            _lock.unlock();
+
+            _disposed = true;
+            _vertexElements = null;
+            _indexedMesh = null;
         }
     }
 
@@ -21,12 +21,16 @@ import gnu.trove.iterator.TFloatIterator;
 import gnu.trove.iterator.TIntIterator;
 import org.lwjgl.BufferUtils;
 import org.terasology.logic.world.Chunk;
+import org.terasology.logic.manager.ConfigurationManager;
+import org.terasology.logic.world.ChunkView;
 import org.terasology.math.Side;
 import org.terasology.math.Vector3i;
 import org.terasology.model.blocks.Block;
 import org.terasology.model.blocks.management.BlockManager;
+import org.terasology.model.shapes.BlockMeshPart;
 import org.terasology.performanceMonitor.PerformanceMonitor;
 
+import javax.vecmath.Vector2f;
 import javax.vecmath.Vector3f;
 import javax.vecmath.Vector4f;
 
@@ -40,9 +44,22 @@ public final class ChunkTessellator {
     private static final int FLOAT_BYTES = 4;
     private static final int INT_BYTES = 4;
 
+    /* GREEDY MESHING */
+    private static final int ATLAS_TILES = (int) (1.0f / Block.TEXTURE_OFFSET);
+    private static final float GREEDY_TILE_BASE = 2.0f;
+    private static final int FACE_ATTRIBUTES = 7;
+
     private final Chunk _chunk;
     private static int _statVertexArrayUpdateCount = 0;
 
+    /* One view per worker thread, so the snapshot arrays are not allocated for each mesh */
+    private static final ThreadLocal<ChunkView> _chunkView = new ThreadLocal<ChunkView>() {
+        @Override
+        protected ChunkView initialValue() {
+            return new ChunkView();
+        }
+    };
+
     public ChunkTessellator(Chunk chunk) {
         _chunk = chunk;
     }
@@ -51,35 +68,63 @@ public final class ChunkTessellator {
         PerformanceMonitor.startActivity("GenerateMesh");
         ChunkMesh mesh = new ChunkMesh();
 
+        PerformanceMonitor.startActivity("SnapshotChunkView");
+        ChunkView view = _chunkView.get();
+        view.snapshot(_chunk, verticalOffset, verticalOffset + meshHeight - 1);
+        PerformanceMonitor.endActivity();
+
+        // Visible faces which are merged in a second pass, one bit per side
+        byte[] greedyFaces = null;
+        double[] biomeTemps = null, biomeHumidities = null;
+
+        if ((Boolean) ConfigurationManager.getInstance().getConfig().get("Graphics.greedyMeshing")) {
+            greedyFaces = new byte[Chunk.CHUNK_DIMENSION_X * meshHeight * Chunk.CHUNK_DIMENSION_Z];
+            biomeTemps = new double[Chunk.CHUNK_DIMENSION_X * Chunk.CHUNK_DIMENSION_Z];
+            biomeHumidities = new double[Chunk.CHUNK_DIMENSION_X * Chunk.CHUNK_DIMENSION_Z];
+        }
+
         for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
             for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
                 double biomeTemp = _chunk.getParent().getTemperatureAt(_chunk.getBlockWorldPosX(x), _chunk.getBlockWorldPosZ(z));
                 double biomeHumidity = _chunk.getParent().getHumidityAt(_chunk.getBlockWorldPosX(x), _chunk.getBlockWorldPosZ(z));
 
+                if (greedyFaces != null) {
+                    biomeTemps[x * Chunk.CHUNK_DIMENSION_Z + z] = biomeTemp;
+                    biomeHumidities[x * Chunk.CHUNK_DIMENSION_Z + z] = biomeHumidity;
+                }
+
                 for (int y = verticalOffset; y < verticalOffset + meshHeight; y++) {
-                    byte blockType = _chunk.getBlock(x, y, z);
+                    byte blockType = view.getBlock(x, y, z);
                     Block block = BlockManager.getInstance().getBlock(blockType);
 
                     if (block.isInvisible())
                         continue;
 
-                    generateBlockVertices(mesh, x, y, z, biomeTemp, biomeHumidity);
+                    generateBlockVertices(view, mesh, x, y, z, biomeTemp, biomeHumidity, greedyFaces, verticalOffset);
                 }
             }
         }
 
-        generateOptimizedBuffers(mesh);
+        if (greedyFaces != null) {
+            PerformanceMonitor.startActivity("GreedyMeshing");
+            generateGreedyFaces(view, mesh, greedyFaces, meshHeight, verticalOffset, biomeTemps, biomeHumidities);
+            PerformanceMonitor.endActivity();
+        }
+
+        generateOptimizedBuffers(view, mesh);
         _statVertexArrayUpdateCount++;
 
         PerformanceMonitor.endActivity();
         return mesh;
     }
 
-    private void generateOptimizedBuffers(ChunkMesh mesh) {
+    private void generateOptimizedBuffers(ChunkView view, ChunkMesh mesh) {
         PerformanceMonitor.startActivity("OptimizeBuffers");
 
         generateBulletBuffers(mesh);
 
+        float[] result = new float[3];
+
         for (int j = 0; j < mesh._vertexElements.length; j++) {
             // Vertices double to account for light info
             mesh._vertexElements[j].finalVertices = BufferUtils.createFloatBuffer(mesh._vertexElements[j].vertices.size() * 2 + mesh._vertexElements[j].tex.size() + mesh._vertexElements[j].color.size() + mesh._vertexElements[j].normals.size());
@@ -88,22 +133,23 @@ public final class ChunkTessellator {
             int cColor = 0;
             for (int i = 0; i < mesh._vertexElements[j].vertices.size(); i += 3, cTex += 3, cColor += 4) {
 
-                Vector3f vertexPos = new Vector3f(mesh._vertexElements[j].vertices.get(i), mesh._vertexElements[j].vertices.get(i + 1), mesh._vertexElements[j].vertices.get(i + 2));
+                float vertexX = mesh._vertexElements[j].vertices.get(i);
+                float vertexY = mesh._vertexElements[j].vertices.get(i + 1);
+                float vertexZ = mesh._vertexElements[j].vertices.get(i + 2);
 
-                mesh._vertexElements[j].finalVertices.put(vertexPos.x);
-                mesh._vertexElements[j].finalVertices.put(vertexPos.y);
-                mesh._vertexElements[j].finalVertices.put(vertexPos.z);
+                mesh._vertexElements[j].finalVertices.put(vertexX);
+                mesh._vertexElements[j].finalVertices.put(vertexY);
+                mesh._vertexElements[j].finalVertices.put(vertexZ);
 
                 mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].tex.get(cTex));
                 mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].tex.get(cTex + 1));
                 mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].tex.get(cTex + 2));
 
-                Double[] result = new Double[3];
-                calcLightingValuesForVertexPos(vertexPos, result);
+                calcLightingValuesForVertexPos(view, vertexX, vertexY, vertexZ, result);
 
-                mesh._vertexElements[j].finalVertices.put(result[0].floatValue());
-                mesh._vertexElements[j].finalVertices.put(result[1].floatValue());
-                mesh._vertexElements[j].finalVertices.put(result[2].floatValue());
+                mesh._vertexElements[j].finalVertices.put(result[0]);
+                mesh._vertexElements[j].finalVertices.put(result[1]);
+                mesh._vertexElements[j].finalVertices.put(result[2]);
 
                 mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].color.get(cColor));
                 mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].color.get(cColor + 1));
@@ -147,60 +193,49 @@ public final class ChunkTessellator {
         }
     }
 
-    private void calcLightingValuesForVertexPos(Vector3f vertexPos, Double[] output) {
-        PerformanceMonitor.startActivity("calcLighting");
-        double[] lights = new double[8];
-        double[] blockLights = new double[8];
-        byte[] blocks = new byte[4];
-
-        Vector3f vertexWorldPos = moveVectorFromChunkSpaceToWorldSpace(vertexPos);
-
-        PerformanceMonitor.startActivity("gatherLightInfo");
-        blocks[0] = _chunk.getParent().getBlockAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f));
-        blocks[1] = _chunk.getParent().getBlockAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f));
-        blocks[2] = _chunk.getParent().getBlockAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f));
-        blocks[3] = _chunk.getParent().getBlockAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f));
-
-        lights[0] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[1] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[2] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[3] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.SUN);
-
-        lights[4] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[5] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[6] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[7] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.SUN);
-
-        blockLights[0] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[1] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[2] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[3] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-
-        blockLights[4] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[5] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[6] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[7] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        PerformanceMonitor.endActivity();
+    private void calcLightingValuesForVertexPos(ChunkView view, float vertexX, float vertexY, float vertexZ, float[] output) {
+        // Move the vertex to world space first, so the sample positions are rounded exactly like world positions
+        float worldX = (float) (vertexX + _chunk.getPosition().x * Chunk.CHUNK_DIMENSION_X);
+        float worldY = (float) (vertexY + _chunk.getPosition().y * Chunk.CHUNK_DIMENSION_Y);
+        float worldZ = (float) (vertexZ + _chunk.getPosition().z * Chunk.CHUNK_DIMENSION_Z);
 
-        double resultLight = 0;
-        double resultBlockLight = 0;
+        int chunkWorldPosX = _chunk.getChunkWorldPosX();
+        int chunkWorldPosZ = _chunk.getChunkWorldPosZ();
+
+        int x0 = roundToBlock(worldX - 0.1f) - chunkWorldPosX;
+        int x1 = roundToBlock(worldX + 0.1f) - chunkWorldPosX;
+        int z0 = roundToBlock(worldZ - 0.1f) - chunkWorldPosZ;
+        int z1 = roundToBlock(worldZ + 0.1f) - chunkWorldPosZ;
+        int yTop = roundToBlock(worldY + 0.8f);
+        int yBottom = roundToBlock(worldY - 0.1f);
+
+        int resultLight = 0;
+        int resultBlockLight = 0;
         int counterLight = 0;
         int counterBlockLight = 0;
 
         int occCounter = 0;
         int occCounterBillboard = 0;
+
         for (int i = 0; i < 8; i++) {
-            if (lights[i] > 0) {
-                resultLight += lights[i];
+            int x = (i == 0 || i == 1 || i == 4 || i == 5) ? x1 : x0;
+            int z = (i == 0 || i == 3 || i == 4 || i == 7) ? z1 : z0;
+            int y = i < 4 ? yTop : yBottom;
+
+            byte light = getLight(view, x, y, z, Chunk.LIGHT_TYPE.SUN);
+            byte blockLight = getLight(view, x, y, z, Chunk.LIGHT_TYPE.BLOCK);
+
+            if (light > 0) {
+                resultLight += light;
                 counterLight++;
             }
-            if (blockLights[i] > 0) {
-                resultBlockLight += blockLights[i];
+            if (blockLight > 0) {
+                resultBlockLight += blockLight;
                 counterBlockLight++;
             }
 
             if (i < 4) {
-                Block b = BlockManager.getInstance().getBlock(blocks[i]);
+                Block b = BlockManager.getInstance().getBlock(getBlock(view, x, y, z));
 
                 if (b.isCastsShadows() && b.getBlockForm() != Block.BLOCK_FORM.BILLBOARD) {
                     occCounter++;
@@ -213,21 +248,47 @@ public final class ChunkTessellator {
         double resultAmbientOcclusion = (Math.pow(0.70, occCounter) + Math.pow(0.92, occCounterBillboard)) / 2.0;
 
         if (counterLight == 0)
-            output[0] = (double) 0;
+            output[0] = 0;
         else
-            output[0] = resultLight / counterLight / 15f;
+            output[0] = (float) ((double) resultLight / counterLight / 15f);
 
         if (counterBlockLight == 0)
-            output[1] = (double) 0;
+            output[1] = 0;
         else
-            output[1] = resultBlockLight / counterBlockLight / 15f;
+            output[1] = (float) ((double) resultBlockLight / counterBlockLight / 15f);
 
-        output[2] = resultAmbientOcclusion;
-        PerformanceMonitor.endActivity();
+        output[2] = (float) resultAmbientOcclusion;
+    }
+
+    /**
+     * Rounds a world position to the block containing it (see LocalWorldProvider.getBlockAtPosition).
+     */
+    private static int roundToBlock(double value) {
+        return (int) (value + ((value >= 0) ? 0.5f : -0.5f));
     }
 
-    private void generateBlockVertices(ChunkMesh mesh, int x, int y, int z, double temp, double hum) {
-        byte blockId = _chunk.getBlock(x, y, z);
+    /**
+     * Returns the block at the given chunk position, taken from the view if possible.
+     */
+    private byte getBlock(ChunkView view, int x, int y, int z) {
+        if (view.contains(x, y, z))
+            return view.getBlock(x, y, z);
+
+        return _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x), y, _chunk.getBlockWorldPosZ(z));
+    }
+
+    /**
+     * Returns the light at the given chunk position, taken from the view if possible.
+     */
+    private byte getLight(ChunkView view, int x, int y, int z, Chunk.LIGHT_TYPE type) {
+        if (view.contains(x, y, z))
+            return view.getLight(x, y, z, type);
+
+        return _chunk.getParent().getLight(_chunk.getBlockWorldPosX(x), y, _chunk.getBlockWorldPosZ(z), type);
+    }
+
+    private void generateBlockVertices(ChunkView view, ChunkMesh mesh, int x, int y, int z, double temp, double hum, byte[] greedyFaces, int verticalOffset) {
+        byte blockId = view.getBlock(x, y, z);
         Block block = BlockManager.getInstance().getBlock(blockId);
 
         /*
@@ -253,7 +314,7 @@ public final class ChunkTessellator {
 
         for (Side side : Side.values()) {
             Vector3i offset = side.getVector3i();
-            byte blockToCheckId = _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x + offset.x), y + offset.y, _chunk.getBlockWorldPosZ(z + offset.z));
+            byte blockToCheckId = getBlock(view, x + offset.x, y + offset.y, z + offset.z);
             drawDir[side.ordinal()] = isSideVisibleForBlockTypes(blockToCheckId, blockId, side);
         }
 
@@ -266,16 +327,16 @@ public final class ChunkTessellator {
             // Draw horizontal sides if visible from below
             for (Side side : Side.horizontalSides()) {
                 Vector3i offset = side.getVector3i();
-                byte blockToCheckId = _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x + offset.x), y - 1, _chunk.getBlockWorldPosZ(z + offset.z));
+                byte blockToCheckId = getBlock(view, x + offset.x, y - 1, z + offset.z);
                 drawDir[side.ordinal()] |= isSideVisibleForBlockTypes(blockToCheckId, blockId, side);
             }
 
             // Draw the top if below a non-lowered block
             // TODO: Don't need to render the top if each side and the block above each side are either liquid or opaque solids.
-            byte blockToCheckId = _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x), y + 1, _chunk.getBlockWorldPosZ(z));
+            byte blockToCheckId = getBlock(view, x, y + 1, z);
             drawDir[Side.TOP.ordinal()] |= (BlockManager.getInstance().getBlock(blockToCheckId).getBlockForm() != Block.BLOCK_FORM.LOWERED_BLOCK);
 
-            byte bottomBlock = _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x), y - 1, _chunk.getBlockWorldPosZ(z));
+            byte bottomBlock = getBlock(view, x, y - 1, z);
             if (BlockManager.getInstance().getBlock(bottomBlock).getBlockForm() == Block.BLOCK_FORM.LOWERED_BLOCK || bottomBlock == 0x0) {
                 for (Side dir : Side.values()) {
                     if (drawDir[dir.ordinal()]) {
@@ -289,22 +350,257 @@ public final class ChunkTessellator {
 
         for (Side dir : Side.values()) {
             if (drawDir[dir.ordinal()]) {
+                // Defer the face to the greedy meshing pass
+                if (greedyFaces != null && isGreedyMeshable(block, renderType, dir)) {
+                    greedyFaces[faceIndex(x, y - verticalOffset, z, greedyFaces.length)] |= 1 << dir.ordinal();
+                    continue;
+                }
+
                 Vector4f colorOffset = block.calcColorOffsetFor(dir, temp, hum);
                 block.getSideMesh(dir).appendTo(mesh, x, y, z, colorOffset, renderType.getIndex());
             }
         }
     }
 
-    private Vector3f moveVectorFromChunkSpaceToWorldSpace(Vector3f offset) {
-        double offsetX = _chunk.getPosition().x * Chunk.CHUNK_DIMENSION_X;
-        double offsetY = _chunk.getPosition().y * Chunk.CHUNK_DIMENSION_Y;
-        double offsetZ = _chunk.getPosition().z * Chunk.CHUNK_DIMENSION_Z;
+    /**
+     * Returns true if the given side of the block is a full, static and opaque quad which can be merged
+     * with the same side of adjacent blocks. Billboards, liquids, lowered and waving blocks are always
+     * tessellated face by face.
+     */
+    private boolean isGreedyMeshable(Block block, ChunkMesh.RENDER_TYPE renderType, Side side) {
+        BlockMeshPart sideMesh = block.getSideMesh(side);
+
+        return renderType == ChunkMesh.RENDER_TYPE.OPAQUE && block.getBlockForm() == Block.BLOCK_FORM.DEFAULT
+                && !block.isLiquid() && !block.isWaving() && block.isBlockingSide(side)
+                && sideMesh != null && sideMesh.size() == 4;
+    }
+
+    /**
+     * Merges the deferred faces of each side into as few quads as possible. Faces are only merged if they share
+     * the block type, the color offset and the lighting values of all four vertices, so the merged quads
+     * look exactly like the single faces.
+     */
+    private void generateGreedyFaces(ChunkView view, ChunkMesh mesh, byte[] greedyFaces, int meshHeight, int verticalOffset, double[] biomeTemps, double[] biomeHumidities) {
+        int[] dimensions = {Chunk.CHUNK_DIMENSION_X, meshHeight, Chunk.CHUNK_DIMENSION_Z};
+        int[] pos = new int[3];
+        float[] light = new float[3];
+        float[] faceLight = new float[3];
+
+        for (Side side : Side.values()) {
+            int axisN = normalAxis(side);
+            int axisA = axisN == 0 ? 2 : 0;
+            int axisB = axisN == 1 ? 2 : 1;
+
+            int sizeA = dimensions[axisA];
+            int sizeB = dimensions[axisB];
+
+            int[] faceBlocks = new int[sizeA * sizeB];
+            float[] faceAttributes = new float[sizeA * sizeB * FACE_ATTRIBUTES];
+
+            for (int n = 0; n < dimensions[axisN]; n++) {
+                pos[axisN] = n;
+
+                // Collect the faces of this slice
+                for (int b = 0; b < sizeB; b++) {
+                    for (int a = 0; a < sizeA; a++) {
+                        int i = a + b * sizeA;
+                        faceBlocks[i] = -1;
+
+                        pos[axisA] = a;
+                        pos[axisB] = b;
+
+                        if ((greedyFaces[faceIndex(pos[0], pos[1], pos[2], greedyFaces.length)] & (1 << side.ordinal())) == 0)
+                            continue;
+
+                        int x = pos[0], y = pos[1] + verticalOffset, z = pos[2];
+                        byte blockId = view.getBlock(x, y, z);
+                        Block block = BlockManager.getInstance().getBlock(blockId);
+                        BlockMeshPart sideMesh = block.getSideMesh(side);
+
+                        int column = x * Chunk.CHUNK_DIMENSION_Z + z;
+                        Vector4f colorOffset = block.calcColorOffsetFor(side, biomeTemps[column], biomeHumidities[column]);
+
+                        // Only faces with the same lighting values at all vertices can be merged
+                        boolean uniform = true;
+
+                        for (int v = 0; v < sideMesh.size() && uniform; v++) {
+                            Vector3f vertex = sideMesh.getVertex(v);
+                            calcLightingValuesForVertexPos(view, vertex.x + x, vertex.y + y, vertex.z + z, v == 0 ? faceLight : light);
 
-        offset.x += offsetX;
-        offset.y += offsetY;
-        offset.z += offsetZ;
+                            if (v > 0)
+                                uniform = light[0] == faceLight[0] && light[1] == faceLight[1] && light[2] == faceLight[2];
+                        }
+
+                        if (!uniform) {
+                            sideMesh.appendTo(mesh, x, y, z, colorOffset, ChunkMesh.RENDER_TYPE.OPAQUE.getIndex());
+                            continue;
+                        }
+
+                        faceBlocks[i] = blockId & 0xFF;
+
+                        int attr = i * FACE_ATTRIBUTES;
+                        faceAttributes[attr] = colorOffset.x;
+                        faceAttributes[attr + 1] = colorOffset.y;
+                        faceAttributes[attr + 2] = colorOffset.z;
+                        faceAttributes[attr + 3] = colorOffset.w;
+                        faceAttributes[attr + 4] = faceLight[0];
+                        faceAttributes[attr + 5] = faceLight[1];
+                        faceAttributes[attr + 6] = faceLight[2];
+                    }
+                }
+
+                // Grow rectangles of equal faces, first along the a-axis, then along the b-axis
+                for (int b = 0; b < sizeB; b++) {
+                    for (int a = 0; a < sizeA; ) {
+                        int i = a + b * sizeA;
+
+                        if (faceBlocks[i] < 0) {
+                            a++;
+                            continue;
+                        }
+
+                        int width = 1;
+                        while (a + width < sizeA && isSameFace(faceBlocks, faceAttributes, i, i + width))
+                            width++;
+
+                        int height = 1;
+                        boolean canGrow = true;
+
+                        while (b + height < sizeB && canGrow) {
+                            for (int k = 0; k < width && canGrow; k++)
+                                canGrow = isSameFace(faceBlocks, faceAttributes, i, i + k + height * sizeA);
+
+                            if (canGrow)
+                                height++;
+                        }
+
+                        pos[axisA] = a;
+                        pos[axisB] = b;
+
+                        int attr = i * FACE_ATTRIBUTES;
+                        Block block = BlockManager.getInstance().getBlock((byte) faceBlocks[i]);
+                        Vector4f colorOffset = new Vector4f(faceAttributes[attr], faceAttributes[attr + 1], faceAttributes[attr + 2], faceAttributes[attr + 3]);
+
+                        if (width == 1 && height == 1) {
+                            block.getSideMesh(side).appendTo(mesh, pos[0], pos[1] + verticalOffset, pos[2], colorOffset, ChunkMesh.RENDER_TYPE.OPAQUE.getIndex());
+                        } else {
+                            appendGreedyQuad(mesh, block, side, pos[0], pos[1] + verticalOffset, pos[2], axisA, axisB, width, height, colorOffset);
+                        }
+
+                        // Consume the merged faces
+                        for (int h = 0; h < height; h++) {
+                            for (int w = 0; w < width; w++)
+                                faceBlocks[i + w + h * sizeA] = -1;
+                        }
+
+                        a += width;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the side mesh of the given block stretched over width x height blocks.
+     * <p/>
+     * Merged quads can not address a range of the texture atlas, so their texture coordinates are
+     * stored in tile units and the atlas tile is encoded in the third texture coordinate. The chunk
+     * shader repeats the tile (see chunk_frag.glsl).
+     */
+    private void appendGreedyQuad(ChunkMesh mesh, Block block, Side side, int x, int y, int z, int axisA, int axisB, int width, int height, Vector4f colorOffset) {
+        BlockMeshPart sideMesh = block.getSideMesh(side);
+        ChunkMesh.VertexElements elements = mesh._vertexElements[ChunkMesh.RENDER_TYPE.OPAQUE.getIndex()];
+
+        Vector2f textureOffset = block.calcTextureOffsetFor(side);
+        Vector2f atlasPos = block.getTextureAtlasPos(side);
+        float tile = GREEDY_TILE_BASE + (int) atlasPos.x + (int) atlasPos.y * ATLAS_TILES;
+
+        boolean texUAlongA = isTexUAlongAxis(sideMesh, axisA, axisB);
+        float repeatU = texUAlongA ? width : height;
+        float repeatV = texUAlongA ? height : width;
+
+        int nextIndex = elements.vertCount;
+
+        for (int i = 0; i < sideMesh.size(); i++) {
+            Vector3f vertex = sideMesh.getVertex(i);
+            Vector3f normal = sideMesh.getNormal(i);
+            Vector2f texCoord = sideMesh.getTexCoord(i);
+
+            // Move the vertices on the far edges of the quad to the last merged block
+            float stretchA = axisComponent(vertex, axisA) > 0 ? width - 1 : 0;
+            float stretchB = axisComponent(vertex, axisB) > 0 ? height - 1 : 0;
+
+            elements.vertices.add(vertex.x + x + (axisA == 0 ? stretchA : 0));
+            elements.vertices.add(vertex.y + y + (axisB == 1 ? stretchB : 0));
+            elements.vertices.add(vertex.z + z + (axisA == 2 ? stretchA : 0) + (axisB == 2 ? stretchB : 0));
+
+            elements.normals.add(normal.x);
+            elements.normals.add(normal.y);
+            elements.normals.add(normal.z);
+
+            elements.tex.add(Math.round((texCoord.x - textureOffset.x) / Block.TEXTURE_OFFSET_WIDTH) * repeatU);
+            elements.tex.add(Math.round((texCoord.y - textureOffset.y) / Block.TEXTURE_OFFSET_WIDTH) * repeatV);
+            elements.tex.add(tile);
+
+            elements.color.add(colorOffset.x);
+            elements.color.add(colorOffset.y);
+            elements.color.add(colorOffset.z);
+            elements.color.add(colorOffset.w);
+        }
+
+        elements.vertCount += sideMesh.size();
+
+        for (int i = 0; i < sideMesh.indicesSize(); i++)
+            elements.indices.add(sideMesh.getIndex(i) + nextIndex);
+    }
+
+    /**
+     * Returns true if the first texture coordinate of the side mesh changes along the given a-axis.
+     */
+    private static boolean isTexUAlongAxis(BlockMeshPart sideMesh, int axisA, int axisB) {
+        for (int i = 1; i < sideMesh.size(); i++) {
+            Vector3f first = sideMesh.getVertex(0);
+            Vector3f other = sideMesh.getVertex(i);
+
+            if (axisComponent(first, axisB) == axisComponent(other, axisB) && axisComponent(first, axisA) != axisComponent(other, axisA))
+                return sideMesh.getTexCoord(0).x != sideMesh.getTexCoord(i).x;
+        }
+
+        return true;
+    }
+
+    private static boolean isSameFace(int[] faceBlocks, float[] faceAttributes, int i, int j) {
+        if (faceBlocks[j] != faceBlocks[i])
+            return false;
+
+        for (int k = 0; k < FACE_ATTRIBUTES; k++) {
+            if (faceAttributes[i * FACE_ATTRIBUTES + k] != faceAttributes[j * FACE_ATTRIBUTES + k])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int normalAxis(Side side) {
+        switch (side) {
+            case LEFT:
+            case RIGHT:
+                return 0;
+            case TOP:
+            case BOTTOM:
+                return 1;
+            default:
+                return 2;
+        }
+    }
+
+    private static float axisComponent(Vector3f vector, int axis) {
+        return axis == 0 ? vector.x : (axis == 1 ? vector.y : vector.z);
+    }
 
-        return offset;
+    private static int faceIndex(int x, int y, int z, int size) {
+        int height = size / (Chunk.CHUNK_DIMENSION_X * Chunk.CHUNK_DIMENSION_Z);
+        return (x * height + y) * Chunk.CHUNK_DIMENSION_Z + z;
     }
 
     /**
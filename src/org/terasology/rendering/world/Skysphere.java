@@ -24,6 +24,7 @@ import org.lwjgl.util.glu.Sphere;
 import org.terasology.game.Terasology;
 import org.terasology.logic.manager.ConfigurationManager;
 import org.terasology.logic.manager.ShaderManager;
+import org.terasology.logic.manager.TaskManager;
 import org.terasology.logic.manager.TextureManager;
 import org.terasology.rendering.interfaces.IGameObject;
 import org.terasology.utilities.MathHelper;
@@ -174,7 +175,7 @@ public class Skysphere implements IGameObject {
         if (_cloudByteBuffer == null && Terasology.getInstance().getTime() - _lastCloudUpdate >= CLOUD_UPDATE_INTERVAL) {
             _lastCloudUpdate = Terasology.getInstance().getTime();
 
-            Terasology.getInstance().submitTask("Generate Clouds", new Runnable() {
+            Terasology.getInstance().submitTask(TaskManager.TASK_CATEGORY.ENVIRONMENT, "Generate Clouds", new Runnable() {
                 public void run() {
                     generateNewClouds();
                 }
@@ -246,9 +247,19 @@ public class Skysphere implements IGameObject {
         // Generate some new clouds according to the current time
         ByteBuffer clouds = ByteBuffer.allocateDirect((int) CLOUD_RESOLUTION.x * (int) CLOUD_RESOLUTION.y * 3);
 
+        double[] xs = new double[(int) CLOUD_RESOLUTION.x], ys = new double[(int) CLOUD_RESOLUTION.y];
+
+        for (int i = 0; i < xs.length; i++)
+            xs[i] = i * 0.05;
+        for (int j = 0; j < ys.length; j++)
+            ys[j] = j * 0.05;
+
+        double[] noiseValues = new double[xs.length * ys.length];
+        _noiseGenerator.fBm(noiseValues, xs, ys, new double[]{_parent.getWorldProvider().getTime()});
+
         for (int i = 0; i < (int) CLOUD_RESOLUTION.x; i++) {
             for (int j = 0; j < (int) CLOUD_RESOLUTION.y; j++) {
-                double noise = _noiseGenerator.fBm(i * 0.05, j * 0.05, _parent.getWorldProvider().getTime());
+                double noise = noiseValues[i * ys.length + j];
 
                 byte value = (byte) (MathHelper.clamp(noise * 1.25 + 0.25) * 255);
 
@@ -139,6 +139,9 @@ public final class WorldRenderer implements IGameObject {
             _chunkPosZ = newChunkPosZ;
 
             Collections.sort(_chunksInProximity);
+
+            // Drop updates of chunks which are out of range and reorder the remaining ones
+            _chunkUpdateManager.updatePriorities(_chunksInProximity);
             return true;
         }
 
@@ -146,12 +149,21 @@ public final class WorldRenderer implements IGameObject {
     }
 
     public boolean isInRange(Vector3d pos) {
-        Vector3d dist = new Vector3d();
-        dist.sub(_player.getPosition(), pos);
+        Vector3d playerPosition = _player.getPosition();
 
-        double distLength = dist.length();
+        double distX = playerPosition.x - pos.x;
+        double distY = playerPosition.y - pos.y;
+        double distZ = playerPosition.z - pos.z;
 
-        return distLength < (_viewingDistance * 8);
+        double range = getEntityRange();
+        return distX * distX + distY * distY + distZ * distZ < range * range;
+    }
+
+    /**
+     * Returns the distance to the player up to which entities are updated and rendered.
+     */
+    public double getEntityRange() {
+        return _viewingDistance * 8;
     }
 
     /**
@@ -193,7 +205,6 @@ public final class WorldRenderer implements IGameObject {
         _visibleChunks.clear();
         _statDirtyChunks = 0;
 
-        boolean noMoreUpdates = false;
         for (int i = 0; i < _chunksInProximity.size(); i++) {
             Chunk c = _chunksInProximity.get(i);
 
@@ -204,10 +215,8 @@ public final class WorldRenderer implements IGameObject {
                 if (c.isDirty())
                     _statDirtyChunks++;
 
-                if ((c.isDirty() || c.isLightDirty() || c.isFresh()) && !noMoreUpdates) {
-                    if (!_chunkUpdateManager.queueChunkUpdate(c, ChunkUpdateManager.UPDATE_TYPE.DEFAULT)) {
-                        noMoreUpdates = true;
-                    }
+                if (c.isDirty() || c.isLightDirty() || c.isFresh()) {
+                    _chunkUpdateManager.queueChunkUpdate(c, ChunkUpdateManager.UPDATE_TYPE.DEFAULT, true);
                 }
             } else if (i > MAX_CHUNK_VERTEX_BUFFER_OBJECTS) {
                 // Make sure not too many chunk VBOs are available in the video memory at the same time
@@ -390,10 +399,15 @@ public final class WorldRenderer implements IGameObject {
     }
 
     public float getRenderingLightValueAt(Vector3d pos) {
-        double lightValueSun = ((double) _worldProvider.getLightAtPosition(pos, Chunk.LIGHT_TYPE.SUN));
-        lightValueSun = Math.pow(0.86, 15.0 - lightValueSun) * getDaylight();
-        double lightValueBlock = _worldProvider.getLightAtPosition(pos, Chunk.LIGHT_TYPE.BLOCK);
-        lightValueBlock = Math.pow(0.86, 15.0 - lightValueBlock);
+        return getRenderingLightValue(_worldProvider.getLightAtPosition(pos, Chunk.LIGHT_TYPE.SUN), _worldProvider.getLightAtPosition(pos, Chunk.LIGHT_TYPE.BLOCK));
+    }
+
+    /**
+     * Returns the light value used for rendering for the given sunlight and block light values.
+     */
+    public float getRenderingLightValue(byte sunlight, byte blockLight) {
+        double lightValueSun = Math.pow(0.86, 15.0 - sunlight) * getDaylight();
+        double lightValueBlock = Math.pow(0.86, 15.0 - blockLight);
 
         return (float) MathHelper.clamp(lightValueSun + lightValueBlock * (1.0 - lightValueSun));
     }
@@ -420,7 +434,7 @@ public final class WorldRenderer implements IGameObject {
 
         // Free unused space
         PerformanceMonitor.startActivity("Flush World Cache");
-        _worldProvider.getChunkProvider().flushCache();
+        _worldProvider.getChunkProvider().flushCache(_player.getPosition());
         PerformanceMonitor.endActivity();
 
         // And finally fire any active events
@@ -436,7 +450,12 @@ public final class WorldRenderer implements IGameObject {
         _worldProvider.getGrowthSimulator().simulate(false);
         PerformanceMonitor.endActivity();
 
+        PerformanceMonitor.startActivity("Prefetch Chunks");
+        _worldProvider.getChunkProvider().prefetchChunks(_player.getPosition(), _player.getVelocity(), _viewingDistance / 2 + 1);
+        PerformanceMonitor.endActivity();
+
         PerformanceMonitor.startActivity("Update Chunks");
+        Chunk.disposeRetiredMeshes();
         updateChunksInProximity(false);
         updateVisibleChunks();
         PerformanceMonitor.endActivity();
@@ -480,12 +499,7 @@ public final class WorldRenderer implements IGameObject {
      * @return The maximum height
      */
     public final int maxHeightAt(int x, int z) {
-        for (int y = Chunk.CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
-            if (_worldProvider.getBlock(x, y, z) != 0x0)
-                return y;
-        }
-
-        return 0;
+        return Math.max(0, _worldProvider.getSurfaceHeightAt(x, z));
     }
 
     /**
@@ -546,13 +560,14 @@ public final class WorldRenderer implements IGameObject {
      * Disposes this world.
      */
     public void dispose() {
+        _chunkUpdateManager.dispose();
         _worldProvider.dispose();
         AudioManager.getInstance().stopAllSounds();
     }
 
     @Override
     public String toString() {
-        return String.format("world (biome: %s, time: %.2f, exposure: %.2f, sun: %.2f, cache: %d, visible: %d, dirty: %d, tri: %d, empty: %d, not-ready: %d, seed: \"%s\", title: \"%s\")", getActiveBiome(), _worldProvider.getTime(), PostProcessingRenderer.getInstance().getExposure(), _skysphere.getSunPosAngle(), _worldProvider.getChunkProvider().size(), _visibleChunks.size(), _statDirtyChunks, Chunk._statRenderedTriangles, Chunk._statChunkMeshEmpty, Chunk._statChunkNotReady, _worldProvider.getSeed(), _worldProvider.getTitle());
+        return String.format("world (biome: %s, time: %.2f, exposure: %.2f, sun: %.2f, cache: %d, visible: %d, dirty: %d, updates: %d, tri: %d, empty: %d, not-ready: %d, seed: \"%s\", title: \"%s\")", getActiveBiome(), _worldProvider.getTime(), PostProcessingRenderer.getInstance().getExposure(), _skysphere.getSunPosAngle(), _worldProvider.getChunkProvider().size(), _visibleChunks.size(), _statDirtyChunks, _chunkUpdateManager.getQueuedUpdateCount(), Chunk._statRenderedTriangles, Chunk._statChunkMeshEmpty, Chunk._statChunkNotReady, _worldProvider.getSeed(), _worldProvider.getTitle());
     }
 
     public Player getPlayer() {
@@ -626,12 +641,14 @@ public final class WorldRenderer implements IGameObject {
     }
 
     public void standaloneGenerateChunks() {
+        Chunk.disposeRetiredMeshes();
+
         for (int i = 0; i < _chunksInProximity.size(); i++) {
             Chunk c = _chunksInProximity.get(i);
             c.generateVBOs();
 
             if (c.isDirty() || c.isLightDirty()) {
-                _chunkUpdateManager.queueChunkUpdate(c, ChunkUpdateManager.UPDATE_TYPE.DEFAULT);
+                _chunkUpdateManager.queueChunkUpdate(c, ChunkUpdateManager.UPDATE_TYPE.DEFAULT, false);
             }
         }
     }
@@ -101,18 +101,10 @@ public class PerlinNoise {
      */
     public double fBm(double x, double y, double z) {
         double result = 0.0;
-
-        if (_recomputeSpectralWeights) {
-            _spectralWeights = new double[_octaves];
-
-            for (int i = 0; i < _octaves; i++)
-                _spectralWeights[i] = Math.pow(LACUNARITY, -H * i);
-
-            _recomputeSpectralWeights = false;
-        }
+        double[] spectralWeights = getSpectralWeights();
 
         for (int i = 0; i < _octaves; i++) {
-            result += noise(x, y, z) * _spectralWeights[i];
+            result += noise(x, y, z) * spectralWeights[i];
 
             x *= LACUNARITY;
             y *= LACUNARITY;
@@ -122,6 +114,124 @@ public class PerlinNoise {
         return result;
     }
 
+    /**
+     * Calculates Fractional Brownian Motion for all points of a regular grid. The grid is given by the
+     * positions of its points on each axis.
+     * <p/>
+     * The results are identical to calling "fBm" for each point, but all values depending on a single axis
+     * are only calculated once per octave and the inner loop only contains array lookups and arithmetic.
+     * <p/>
+     * The results are stored in x-major order: The value of the point (xs[i], ys[j], zs[k]) is stored at
+     * index (i * ys.length + j) * zs.length + k.
+     *
+     * @param result The target array, has to hold at least xs.length * ys.length * zs.length values
+     * @param xs     The positions of the grid on the x-axis
+     * @param ys     The positions of the grid on the y-axis
+     * @param zs     The positions of the grid on the z-axis
+     */
+    public void fBm(double[] result, double[] xs, double[] ys, double[] zs) {
+        int sizeX = xs.length, sizeY = ys.length, sizeZ = zs.length;
+        double[] spectralWeights = getSpectralWeights();
+
+        NoiseAxis axisX = new NoiseAxis(xs), axisY = new NoiseAxis(ys), axisZ = new NoiseAxis(zs);
+        int[] perm = _noisePermutations;
+
+        for (int i = 0; i < sizeX * sizeY * sizeZ; i++)
+            result[i] = 0.0;
+
+        for (int octave = 0; octave < _octaves; octave++) {
+            double weight = spectralWeights[octave];
+
+            axisX.prepare();
+            axisY.prepare();
+            axisZ.prepare();
+
+            int[] iz = axisZ.index;
+            double[] fz = axisZ.fraction, w = axisZ.fade;
+
+            for (int i = 0; i < sizeX; i++) {
+                int X = axisX.index[i];
+                double x = axisX.fraction[i], u = axisX.fade[i];
+
+                for (int j = 0; j < sizeY; j++) {
+                    int Y = axisY.index[j];
+                    double y = axisY.fraction[j], v = axisY.fade[j];
+
+                    int A = perm[X] + Y, B = perm[(X + 1)] + Y;
+                    int pA = perm[A], pA1 = perm[(A + 1)], pB = perm[B], pB1 = perm[(B + 1)];
+                    int offset = (i * sizeY + j) * sizeZ;
+
+                    for (int k = 0; k < sizeZ; k++) {
+                        int Z = iz[k];
+                        double z = fz[k];
+
+                        int AA = pA + Z, AB = pA1 + Z, BA = pB + Z, BB = pB1 + Z;
+
+                        double noise = lerp(w[k], lerp(v, lerp(u, grad(perm[AA], x, y, z),
+                                grad(perm[BA], x - 1, y, z)),
+                                lerp(u, grad(perm[AB], x, y - 1, z),
+                                        grad(perm[BB], x - 1, y - 1, z))),
+                                lerp(v, lerp(u, grad(perm[(AA + 1)], x, y, z - 1),
+                                        grad(perm[(BA + 1)], x - 1, y, z - 1)),
+                                        lerp(u, grad(perm[(AB + 1)], x, y - 1, z - 1),
+                                                grad(perm[(BB + 1)], x - 1, y - 1, z - 1))));
+
+                        result[offset + k] += noise * weight;
+                    }
+                }
+            }
+
+            axisX.scale(LACUNARITY);
+            axisY.scale(LACUNARITY);
+            axisZ.scale(LACUNARITY);
+        }
+    }
+
+    /**
+     * The positions of a grid on a single axis and the values derived from them for the current octave.
+     */
+    private static final class NoiseAxis {
+        final double[] position;
+        final int[] index;
+        final double[] fraction, fade;
+
+        NoiseAxis(double[] positions) {
+            position = positions.clone();
+            index = new int[positions.length];
+            fraction = new double[positions.length];
+            fade = new double[positions.length];
+        }
+
+        void prepare() {
+            for (int i = 0; i < position.length; i++) {
+                double floor = MathHelper.fastFloor(position[i]);
+
+                index[i] = (int) floor & 255;
+                fraction[i] = position[i] - floor;
+                fade[i] = fade(fraction[i]);
+            }
+        }
+
+        void scale(double factor) {
+            for (int i = 0; i < position.length; i++)
+                position[i] *= factor;
+        }
+    }
+
+    private double[] getSpectralWeights() {
+        if (_recomputeSpectralWeights) {
+            double[] spectralWeights = new double[_octaves];
+
+            for (int i = 0; i < _octaves; i++)
+                spectralWeights[i] = Math.pow(LACUNARITY, -H * i);
+
+            _spectralWeights = spectralWeights;
+            _recomputeSpectralWeights = false;
+        }
+
+        return _spectralWeights;
+    }
+
     private static double fade(double t) {
         return t * t * t * (t * (t * 6 - 15) + 10);
     }
@@ -0,0 +1,82 @@
+package org.terasology.logic.entities;
+
+import junit.framework.TestCase;
+import org.terasology.model.structures.AABB;
+
+import javax.vecmath.Vector3d;
+import java.util.ArrayList;
+
+public class EntityIndexTest extends TestCase {
+
+    private static class TestEntity extends Entity {
+        TestEntity(double x, double y, double z) {
+            setPosition(x, y, z);
+        }
+
+        public AABB getAABB() {
+            return new AABB(getPosition(), new Vector3d(0.5, 0.5, 0.5));
+        }
+
+        public void render() {
+        }
+
+        public void update() {
+        }
+    }
+
+    public void testRangeQuery() throws Exception {
+        EntityIndex<TestEntity> index = new EntityIndex<TestEntity>(16, 1.0);
+
+        TestEntity near = new TestEntity(5, 10, 5);
+        TestEntity negative = new TestEntity(-20, 10, -3);
+        TestEntity far = new TestEntity(200, 10, 200);
+
+        index.add(near);
+        index.add(negative);
+        index.add(far);
+        assertFalse(index.add(near));
+        assertEquals(3, index.size());
+
+        ArrayList<TestEntity> result = new ArrayList<TestEntity>();
+        assertEquals(2, index.queryRange(0, 10, 0, 30, result));
+        assertTrue(result.contains(near));
+        assertTrue(result.contains(negative));
+
+        assertEquals(1, index.countInRange(0, 10, 0, 10));
+    }
+
+    public void testUpdateMovesEntity() throws Exception {
+        EntityIndex<TestEntity> index = new EntityIndex<TestEntity>(16, 1.0);
+        TestEntity entity = new TestEntity(1, 10, 1);
+        index.add(entity);
+
+        entity.setPosition(-100, 10, 50);
+        index.update(entity);
+
+        ArrayList<TestEntity> result = new ArrayList<TestEntity>();
+        assertEquals(0, index.queryRange(0, 10, 0, 10, result));
+        assertEquals(1, index.queryAABB(-101, 9, 49, -99, 11, 51, result));
+        assertSame(entity, result.get(0));
+
+        assertTrue(index.remove(entity));
+        assertFalse(index.remove(entity));
+        assertEquals(0, index.size());
+    }
+
+    public void testFindNearest() throws Exception {
+        EntityIndex<TestEntity> index = new EntityIndex<TestEntity>(16, 1.0);
+
+        TestEntity a = new TestEntity(0, 0, 0);
+        TestEntity b = new TestEntity(3, 0, 0);
+        TestEntity c = new TestEntity(-17, 0, 0);
+
+        index.add(a);
+        index.add(b);
+        index.add(c);
+
+        assertSame(b, index.findNearest(2, 0, 0, 10, null));
+        assertSame(a, index.findNearest(3, 0, 0, 10, b));
+        assertSame(c, index.findNearest(-16, 0, 0, 10, null));
+        assertNull(index.findNearest(100, 0, 0, 10, null));
+    }
+}
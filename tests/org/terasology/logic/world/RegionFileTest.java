@@ -0,0 +1,80 @@
+package org.terasology.logic.world;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Benjamin Glatzel <benjamin.glatzel@me.com>
+ */
+public class RegionFileTest {
+
+    private File _file;
+    private RegionFile _region;
+
+    @Before
+    public void setup() throws IOException {
+        _file = File.createTempFile("region", ".trr");
+        _file.delete();
+        _region = new RegionFile(_file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        _region.close();
+        _file.delete();
+    }
+
+    private static ByteBuffer createData(int length, byte value) {
+        ByteBuffer data = ByteBuffer.allocate(length);
+        for (int i = 0; i < length; i++)
+            data.put((byte) (value + i));
+        data.flip();
+        return data;
+    }
+
+    @Test
+    public void testMissingChunk() throws IOException {
+        assertFalse(_region.hasChunk(3, 4));
+        assertNull(_region.read(3, 4));
+    }
+
+    @Test
+    public void testReadAndWrite() throws IOException {
+        _region.write(-1, 5, createData(10000, (byte) 1));
+        _region.write(0, 0, createData(100, (byte) 2));
+
+        assertTrue(_region.hasChunk(-1, 5));
+        assertEquals(createData(10000, (byte) 1), _region.read(-1, 5));
+        assertEquals(createData(100, (byte) 2), _region.read(0, 0));
+    }
+
+    @Test
+    public void testGrowingChunk() throws IOException {
+        _region.write(1, 1, createData(100, (byte) 1));
+        _region.write(2, 2, createData(100, (byte) 2));
+        _region.write(1, 1, createData(3 * RegionFile.SECTOR_SIZE, (byte) 3));
+
+        assertEquals(createData(3 * RegionFile.SECTOR_SIZE, (byte) 3), _region.read(1, 1));
+        assertEquals(createData(100, (byte) 2), _region.read(2, 2));
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        _region.write(31, 31, createData(5000, (byte) 7));
+        _region.close();
+
+        _region = new RegionFile(_file);
+        assertEquals(createData(5000, (byte) 7), _region.read(31, 31));
+
+        _region.write(30, 31, createData(200, (byte) 8));
+        assertEquals(createData(5000, (byte) 7), _region.read(31, 31));
+        assertEquals(createData(200, (byte) 8), _region.read(30, 31));
+    }
+}
@@ -0,0 +1,62 @@
+package org.terasology.model.structures;
+
+import junit.framework.TestCase;
+
+public class BlockColliderTest extends TestCase {
+
+    private static final double EPSILON = 0.0001;
+
+    private BlockCollider createFloor() {
+        BlockCollider collider = new BlockCollider();
+        collider.setRegion(-5, -5, -5, 11, 11, 11);
+
+        for (int x = -5; x <= 5; x++)
+            for (int z = -5; z <= 5; z++)
+                collider.setSolid(x, 0, z, true);
+
+        return collider;
+    }
+
+    public void testLandOnFloor() throws Exception {
+        BlockCollider collider = createFloor();
+
+        // A box of height 1.6 falling from above the floor
+        double moved = collider.clipY(0, 3, 0, 0.3, 0.8, 0.3, -4);
+        assertEquals(0.5 + 0.8 - 3, moved, EPSILON);
+
+        // Resting on the floor does not move the box any further
+        assertEquals(0, collider.clipY(0, 3 + moved, 0, 0.3, 0.8, 0.3, -0.1), 0);
+    }
+
+    public void testNoTunnelingAtHighSpeed() throws Exception {
+        BlockCollider collider = new BlockCollider();
+        collider.setRegion(-2, -2, -2, 40, 5, 5);
+        collider.setSolid(20, 0, 0, true);
+
+        double moved = collider.clipX(0, 0, 0, 0.3, 0.3, 0.3, 35);
+        assertEquals(20 - 0.5 - 0.3, moved, EPSILON);
+    }
+
+    public void testSlideAlongWall() throws Exception {
+        BlockCollider collider = new BlockCollider();
+        collider.setRegion(-5, -5, -5, 11, 11, 11);
+
+        for (int z = -5; z <= 5; z++)
+            collider.setSolid(1, 0, z, true);
+
+        // Touching the wall blocks the movement towards it but not along it
+        double x = 0.5 - 0.3 - BlockCollider.SKIN_WIDTH;
+        assertEquals(0, collider.clipX(x, 0, 0, 0.3, 0.3, 0.3, 0.2), EPSILON);
+        assertEquals(0.2, collider.clipZ(x, 0, 0, 0.3, 0.3, 0.3, 0.2), 0);
+        assertEquals(-0.2, collider.clipX(x, 0, 0, 0.3, 0.3, 0.3, -0.2), 0);
+    }
+
+    public void testBlocksWithinBoxAreIgnored() throws Exception {
+        BlockCollider collider = new BlockCollider();
+        collider.setRegion(-5, -5, -5, 11, 11, 11);
+        collider.setSolid(0, 0, 0, true);
+
+        assertEquals(1.0, collider.clipY(0, 0, 0, 0.3, 0.3, 0.3, 1.0), 0);
+        assertFalse(collider.isSolid(100, 0, 0));
+    }
+}
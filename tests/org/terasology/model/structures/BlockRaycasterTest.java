@@ -0,0 +1,128 @@
+package org.terasology.model.structures;
+
+import junit.framework.TestCase;
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.IWorldProvider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+
+public class BlockRaycasterTest extends TestCase {
+
+    private static final double EPSILON = 0.0001;
+
+    private static final BlockRaycaster.IHitFilter SOLID = new BlockRaycaster.IHitFilter() {
+        public boolean isHit(byte blockType) {
+            return blockType != 0x0;
+        }
+    };
+
+    private final HashSet<BlockPosition> _solidBlocks = new HashSet<BlockPosition>();
+    private int _lookups;
+    private IWorldProvider _world;
+    private BlockRaycaster _raycaster;
+
+    @Override
+    protected void setUp() throws Exception {
+        _solidBlocks.clear();
+        _lookups = 0;
+        _raycaster = new BlockRaycaster();
+
+        // Only answers block lookups, using the solid blocks of the test
+        _world = (IWorldProvider) Proxy.newProxyInstance(IWorldProvider.class.getClassLoader(), new Class[]{IWorldProvider.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (!method.getName().equals("getBlock"))
+                    throw new UnsupportedOperationException(method.getName());
+
+                _lookups++;
+                return _solidBlocks.contains(new BlockPosition((Integer) args[0], (Integer) args[1], (Integer) args[2])) ? (byte) 1 : (byte) 0;
+            }
+        });
+    }
+
+    private void setSolid(int x, int y, int z) {
+        _solidBlocks.add(new BlockPosition(x, y, z));
+    }
+
+    private void assertHit(int x, int y, int z, int normalX, int normalY, int normalZ) {
+        assertTrue(_raycaster.isHit());
+        assertEquals(x, _raycaster.getBlockX());
+        assertEquals(y, _raycaster.getBlockY());
+        assertEquals(z, _raycaster.getBlockZ());
+        assertEquals(normalX, _raycaster.getNormalX());
+        assertEquals(normalY, _raycaster.getNormalY());
+        assertEquals(normalZ, _raycaster.getNormalZ());
+    }
+
+    public void testAxisAligned() throws Exception {
+        setSolid(3, 10, 0);
+        setSolid(0, 10, -4);
+
+        assertTrue(_raycaster.cast(_world, 0, 10, 0, 1, 0, 0, 10, SOLID));
+        assertHit(3, 10, 0, -1, 0, 0);
+        assertEquals(2.5, _raycaster.getDistance(), EPSILON);
+        assertEquals(2, _raycaster.getAdjacentBlockX());
+
+        // The length of the direction does not matter
+        assertTrue(_raycaster.cast(_world, 0, 10, 0, 0, 0, -7, 10, SOLID));
+        assertHit(0, 10, -4, 0, 0, 1);
+        assertEquals(3.5, _raycaster.getDistance(), EPSILON);
+
+        assertFalse(_raycaster.cast(_world, 0, 10, 0, -1, 0, 0, 10, SOLID));
+    }
+
+    public void testDiagonalTieVisitsFaceNeighbour() throws Exception {
+        // The ray passes exactly through the edge between the four blocks
+        setSolid(1, 11, 0);
+        setSolid(0, 11, 0);
+
+        assertTrue(_raycaster.cast(_world, 0, 10, 0, 1, 1, 0, 10, SOLID));
+
+        // A block sharing a face with the start block is entered before the diagonal block
+        assertFalse(_raycaster.getBlockX() == 1 && _raycaster.getBlockY() == 11);
+        assertEquals(Math.sqrt(0.5), _raycaster.getDistance(), EPSILON);
+    }
+
+    public void testDiagonalHit() throws Exception {
+        setSolid(2, 12, 2);
+
+        assertTrue(_raycaster.cast(_world, 0.1, 10.2, 0.3, 1, 1, 1, 10, SOLID));
+        assertHit(2, 12, 2, -1, 0, 0);
+    }
+
+    public void testStartInsideSolidBlock() throws Exception {
+        setSolid(0, 10, 0);
+
+        assertTrue(_raycaster.cast(_world, 0, 10.2, 0, 0, 0, 1, 10, SOLID));
+        assertHit(0, 10, 0, 0, 0, -1);
+        assertEquals(0, _raycaster.getDistance(), 0);
+
+        // The face pointing against the dominant axis of the ray
+        assertTrue(_raycaster.cast(_world, 0, 10.2, 0, -1, -2, 0, 10, SOLID));
+        assertHit(0, 10, 0, 0, 1, 0);
+    }
+
+    public void testRayLeavingTheWorldVertically() throws Exception {
+        assertFalse(_raycaster.cast(_world, 0, Chunk.CHUNK_DIMENSION_Y + 5, 0, 0, 1, 0, 1000, SOLID));
+        assertEquals(0, _lookups);
+
+        assertFalse(_raycaster.cast(_world, 0, 10, 0, 0, -1, 0, 1000, SOLID));
+        assertTrue(_lookups <= 11);
+
+        setSolid(0, 0, 0);
+        assertTrue(_raycaster.cast(_world, 0, 10, 0, 0.01, -1, 0, 1000, SOLID));
+        assertHit(0, 0, 0, 0, 1, 0);
+    }
+
+    public void testMaxDistance() throws Exception {
+        setSolid(5, 10, 0);
+
+        assertFalse(_raycaster.cast(_world, 0, 10, 0, 1, 0, 0, 4.4, SOLID));
+        assertFalse(_raycaster.isHit());
+
+        assertTrue(_raycaster.cast(_world, 0, 10, 0, 1, 0, 0, 4.5, SOLID));
+        assertEquals(4.5, _raycaster.getDistance(), EPSILON);
+    }
+}
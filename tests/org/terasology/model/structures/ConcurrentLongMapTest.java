@@ -0,0 +1,66 @@
+package org.terasology.model.structures;
+
+import java.util.HashSet;
+import java.util.List;
+
+public class ConcurrentLongMapTest extends junit.framework.TestCase {
+
+    public void testPutGetRemove() throws Exception {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<String>(4);
+
+        assertNull(map.put(ConcurrentLongMap.key(-3, 7), "a"));
+        assertNull(map.putIfAbsent(ConcurrentLongMap.key(7, -3), "b"));
+
+        assertEquals("a", map.putIfAbsent(ConcurrentLongMap.key(-3, 7), "c"));
+        assertEquals("a", map.get(ConcurrentLongMap.key(-3, 7)));
+        assertEquals("b", map.get(ConcurrentLongMap.key(7, -3)));
+        assertNull(map.get(ConcurrentLongMap.key(0, 0)));
+        assertEquals(2, map.size());
+
+        assertFalse(map.remove(ConcurrentLongMap.key(-3, 7), "c"));
+        assertTrue(map.remove(ConcurrentLongMap.key(-3, 7), "a"));
+        assertNull(map.get(ConcurrentLongMap.key(-3, 7)));
+        assertEquals("b", map.remove(ConcurrentLongMap.key(7, -3)));
+        assertTrue(map.isEmpty());
+    }
+
+    public void testKeyPacking() throws Exception {
+        long key = ConcurrentLongMap.key(-12345, 67890);
+
+        assertEquals(-12345, ConcurrentLongMap.keyX(key));
+        assertEquals(67890, ConcurrentLongMap.keyZ(key));
+        assertFalse(key == ConcurrentLongMap.key(67890, -12345));
+    }
+
+    public void testGrowAndReuseRemovedSlots() throws Exception {
+        ConcurrentLongMap<Integer> map = new ConcurrentLongMap<Integer>(1);
+
+        for (int round = 0; round < 10; round++) {
+            for (int x = -20; x < 20; x++) {
+                for (int z = -20; z < 20; z++)
+                    map.put(ConcurrentLongMap.key(x, z), x * 1000 + z);
+            }
+
+            assertEquals(1600, map.size());
+
+            for (int x = -20; x < 20; x++) {
+                for (int z = -20; z < 20; z++) {
+                    assertEquals(Integer.valueOf(x * 1000 + z), map.get(ConcurrentLongMap.key(x, z)));
+
+                    if ((x + z) % 2 == 0)
+                        map.remove(ConcurrentLongMap.key(x, z));
+                }
+            }
+
+            assertEquals(800, map.size());
+        }
+
+        List<Integer> values = map.values();
+        assertEquals(800, values.size());
+        assertEquals(800, new HashSet<Integer>(values).size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(ConcurrentLongMap.key(1, 0)));
+    }
+}
@@ -0,0 +1,47 @@
+package org.terasology.model.structures;
+
+public class IntRingBufferTest extends junit.framework.TestCase {
+
+    public void testFifoOrder() throws Exception {
+        IntRingBuffer buffer = new IntRingBuffer(4);
+
+        for (int i = 0; i < 3; i++)
+            buffer.add(i);
+
+        assertEquals(3, buffer.size());
+
+        for (int i = 0; i < 3; i++)
+            assertEquals(i, buffer.poll());
+
+        assertTrue(buffer.isEmpty());
+    }
+
+    public void testGrowWhileWrapped() throws Exception {
+        IntRingBuffer buffer = new IntRingBuffer(4);
+
+        // Move the head to the middle of the buffer first
+        buffer.add(-1);
+        buffer.add(-2);
+        buffer.poll();
+        buffer.poll();
+
+        for (int i = 0; i < 100; i++)
+            buffer.add(i);
+
+        for (int i = 0; i < 100; i++)
+            assertEquals(i, buffer.poll());
+
+        assertTrue(buffer.isEmpty());
+    }
+
+    public void testPollEmpty() throws Exception {
+        IntRingBuffer buffer = new IntRingBuffer(1);
+
+        try {
+            buffer.poll();
+            fail();
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+}
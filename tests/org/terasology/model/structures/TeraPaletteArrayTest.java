@@ -0,0 +1,90 @@
+package org.terasology.model.structures;
+
+import org.terasology.utilities.FastRandom;
+
+import java.nio.ByteBuffer;
+
+public class TeraPaletteArrayTest extends junit.framework.TestCase {
+
+    private final byte[][][] _testArray = new byte[16][128][16];
+    private final TeraPaletteArray _array = new TeraPaletteArray(16, 128, 16, 16);
+
+    public void testOrigin() throws Exception {
+        _array.set(0, 0, 0, (byte) 15);
+        assertEquals(15, _array.get(0, 0, 0));
+        _array.set(0, 0, 0, (byte) 3);
+        assertEquals(3, _array.get(0, 0, 0));
+        assertEquals(0, _array.get(0, 0, 1));
+    }
+
+    public void testOutOfBounds() throws Exception {
+        _array.set(0, 128, 0, (byte) 15);
+        assertEquals(-1, _array.get(0, 128, 0));
+        assertEquals(-1, _array.get(-1, 0, 0));
+    }
+
+    public void testUniformSections() throws Exception {
+        assertTrue(_array.isSectionUniform(0));
+
+        _array.set(3, 20, 7, (byte) 5);
+        assertTrue(_array.isSectionUniform(0));
+        assertFalse(_array.isSectionUniform(20));
+
+        _array.set(3, 20, 7, (byte) 0);
+        _array.compact();
+        assertTrue(_array.isSectionUniform(20));
+        assertEquals(0, _array.sizeAllocated() - 128 / 16);
+    }
+
+    public void testAgainstArray() throws Exception {
+        fillRandom(100);
+        compareWithTestArray(_array);
+
+        _array.compact();
+        compareWithTestArray(_array);
+    }
+
+    public void testSerialization() throws Exception {
+        fillRandom(7);
+
+        ByteBuffer buffer = ByteBuffer.allocate(_array.maxSerializedSize());
+        _array.writeTo(buffer);
+        buffer.flip();
+
+        TeraPaletteArray result = new TeraPaletteArray(16, 128, 16, 16);
+        result.readFrom(buffer);
+
+        assertFalse(buffer.hasRemaining());
+        compareWithTestArray(result);
+    }
+
+    private void fillRandom(int range) {
+        FastRandom rand = new FastRandom(42);
+
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 128; y++) {
+                for (int z = 0; z < 16; z++) {
+                    // Keep the upper half of the array uniform
+                    if (y >= 64)
+                        continue;
+
+                    int r = rand.randomInt();
+                    r = (r < 0) ? -r : r;
+
+                    _testArray[x][y][z] = (byte) (r % range);
+                    _array.set(x, y, z, _testArray[x][y][z]);
+                }
+            }
+        }
+    }
+
+    private void compareWithTestArray(TeraPaletteArray array) {
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 128; y++) {
+                for (int z = 0; z < 16; z++) {
+                    assertEquals(_testArray[x][y][z], array.get(x, y, z));
+                }
+            }
+        }
+    }
+}
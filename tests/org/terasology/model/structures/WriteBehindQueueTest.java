@@ -0,0 +1,141 @@
+package org.terasology.model.structures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WriteBehindQueueTest extends junit.framework.TestCase {
+
+    private static final long KEY = ConcurrentLongMap.key(3, -5);
+
+    private WriteBehindQueue<StringBuilder> _queue;
+    private final List<StringBuilder> _written = new ArrayList<StringBuilder>();
+    private final List<StringBuilder> _disposed = new ArrayList<StringBuilder>();
+
+    /**
+     * Records the written and disposed values. Runs the given action while the first value is written.
+     */
+    private class RecordingWriter implements WriteBehindQueue.Writer<StringBuilder> {
+        private Runnable _duringWrite;
+        private boolean _changed;
+
+        public boolean write(StringBuilder value) {
+            _written.add(value);
+
+            if (_duringWrite != null) {
+                Runnable r = _duringWrite;
+                _duringWrite = null;
+                r.run();
+            }
+
+            boolean result = !_changed;
+            _changed = false;
+
+            return result;
+        }
+
+        public void dispose(StringBuilder value) {
+            _disposed.add(value);
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        _queue = new WriteBehindQueue<StringBuilder>(4);
+        _written.clear();
+        _disposed.clear();
+    }
+
+    public void testWriteAndDispose() throws Exception {
+        StringBuilder a = new StringBuilder("a"), b = new StringBuilder("b");
+        _queue.add(KEY, a);
+        _queue.add(ConcurrentLongMap.key(0, 0), b);
+
+        _queue.writeAll(new RecordingWriter());
+
+        assertEquals(2, _written.size());
+        assertTrue(_disposed.contains(a) && _disposed.contains(b));
+        assertEquals(0, _queue.size());
+    }
+
+    public void testTakeBackBeforeWrite() throws Exception {
+        StringBuilder a = new StringBuilder("a");
+        _queue.add(KEY, a);
+
+        assertSame(a, _queue.take(KEY));
+        assertNull(_queue.take(KEY));
+
+        _queue.writeAll(new RecordingWriter());
+
+        assertTrue(_written.isEmpty());
+        assertTrue(_disposed.isEmpty());
+    }
+
+    public void testTakeBackOnlyGivenValue() throws Exception {
+        StringBuilder a = new StringBuilder("a"), b = new StringBuilder("b");
+        _queue.add(KEY, a);
+
+        assertFalse(_queue.take(KEY, b));
+        assertTrue(_queue.take(KEY, a));
+        assertEquals(0, _queue.size());
+    }
+
+    public void testTakeBackDuringWrite() throws Exception {
+        final StringBuilder a = new StringBuilder("a");
+        _queue.add(KEY, a);
+
+        RecordingWriter writer = new RecordingWriter();
+        writer._duringWrite = new Runnable() {
+            public void run() {
+                assertSame(a, _queue.take(KEY));
+            }
+        };
+
+        _queue.writeAll(writer);
+
+        // The value is in use again, so it must not be disposed
+        assertEquals(1, _written.size());
+        assertTrue(_disposed.isEmpty());
+    }
+
+    public void testTakeBackAndAddAgainDuringWrite() throws Exception {
+        final StringBuilder a = new StringBuilder("a");
+        _queue.add(KEY, a);
+
+        RecordingWriter writer = new RecordingWriter();
+        writer._duringWrite = new Runnable() {
+            public void run() {
+                // Taken back, changed and evicted again while the old state is written
+                assertSame(a, _queue.take(KEY));
+                a.append("b");
+                _queue.add(KEY, a);
+            }
+        };
+
+        _queue.writeAll(writer);
+
+        // The outdated entry must not dispose the value, the newer entry writes the changes
+        assertEquals(2, _written.size());
+        assertEquals(1, _disposed.size());
+        assertSame(a, _disposed.get(0));
+        assertEquals(0, _queue.size());
+    }
+
+    public void testChangedDuringWriteIsWrittenAgain() throws Exception {
+        StringBuilder a = new StringBuilder("a");
+        _queue.add(KEY, a);
+
+        RecordingWriter writer = new RecordingWriter();
+        writer._changed = true;
+        _queue.writeAll(writer);
+
+        assertEquals(1, _written.size());
+        assertTrue(_disposed.isEmpty());
+        assertEquals(1, _queue.size());
+
+        _queue.writeAll(writer);
+
+        assertEquals(2, _written.size());
+        assertEquals(1, _disposed.size());
+        assertEquals(0, _queue.size());
+    }
+}
@@ -0,0 +1,51 @@
+package org.terasology.utilities;
+
+public class PerlinNoiseTest extends junit.framework.TestCase {
+
+    public void testBatchMatchesScalar3D() throws Exception {
+        PerlinNoise noise = new PerlinNoise(42);
+
+        double[] xs = new double[5], ys = new double[33], zs = new double[5];
+
+        for (int i = 0; i < xs.length; i++)
+            xs[i] = (-1000 + i * 4) * 0.006;
+        for (int i = 0; i < ys.length; i++)
+            ys[i] = (i * 8) * 0.004;
+        for (int i = 0; i < zs.length; i++)
+            zs[i] = (513 + i * 4) * 0.006;
+
+        double[] result = new double[xs.length * ys.length * zs.length];
+        noise.fBm(result, xs, ys, zs);
+
+        for (int x = 0; x < xs.length; x++) {
+            for (int y = 0; y < ys.length; y++) {
+                for (int z = 0; z < zs.length; z++) {
+                    double expected = noise.fBm(xs[x], ys[y], zs[z]);
+                    assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(result[(x * ys.length + y) * zs.length + z]));
+                }
+            }
+        }
+    }
+
+    public void testBatchMatchesScalar2D() throws Exception {
+        PerlinNoise noise = new PerlinNoise(-7);
+        noise.setOctaves(8);
+
+        double[] xs = new double[17], ys = {0}, zs = new double[17];
+
+        for (int i = 0; i < xs.length; i++)
+            xs[i] = (-40 + i) * 0.0005;
+        for (int i = 0; i < zs.length; i++)
+            zs[i] = (12345 + i) * 0.0005;
+
+        double[] result = new double[xs.length * zs.length];
+        noise.fBm(result, xs, ys, zs);
+
+        for (int x = 0; x < xs.length; x++) {
+            for (int z = 0; z < zs.length; z++) {
+                double expected = noise.fBm(xs[x], 0, zs[z]);
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(result[x * zs.length + z]));
+            }
+        }
+    }
+}